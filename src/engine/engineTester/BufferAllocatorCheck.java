@@ -0,0 +1,271 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.engineTester;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import engine.models.RawModel;
+import engine.renderEngine.BufferAllocator;
+import engine.renderEngine.GeometryArena;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.RecordingGraphicsDevice;
+import engine.renderEngine.VertexFormat;
+
+/**
+ * The BufferAllocatorCheck class exercises the {@link BufferAllocator} behind the
+ * {@link GeometryArena} without a GPU: first-fit allocation, merging of free neighbours,
+ * allocations that don't fit, and the moves reported by compaction. It then compacts an arena
+ * on a {@link RecordingGraphicsDevice} and checks that the models' vertex and index offsets
+ * follow their data, including when a model being added triggers the compaction. Every
+ * failed check is printed, and the program exits with status 1 if there was any.
+ *
+ * <p>Usage: {@code BufferAllocatorCheck}.
+ */
+public class BufferAllocatorCheck {
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        checkFirstFit();
+        checkCoalescing();
+        checkOutOfSpace();
+        checkCompaction();
+        checkArenaCompaction();
+        checkCompactionDuringAdd();
+
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+
+        System.out.println("all checks passed");
+    }
+
+    /**
+     * A freed range is reused by the next allocation that fits into it, even if there is a
+     * larger free range further on.
+     */
+    private static void checkFirstFit() {
+        BufferAllocator allocator = new BufferAllocator(100);
+
+        expect("first allocation", 0, allocator.allocate(10));
+        int second = allocator.allocate(20);
+        expect("second allocation", 10, second);
+        expect("third allocation", 30, allocator.allocate(30));
+        expect("fourth allocation", 60, allocator.allocate(10));
+
+        allocator.free(second);
+
+        expect("allocation into the freed range", 10, allocator.allocate(15));
+        expect("allocation too large for the rest of the freed range", 70, allocator.allocate(25));
+        expect("used space", 90, allocator.getUsed());
+        expect("free ranges", 2, allocator.getFreeRangeCount());
+    }
+
+    /**
+     * Freeing a range merges it with the free ranges before and after it.
+     */
+    private static void checkCoalescing() {
+        BufferAllocator allocator = new BufferAllocator(100);
+        int[] offsets = new int[4];
+
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = allocator.allocate(10);
+        }
+
+        allocator.free(offsets[1]);
+        expect("free ranges after freeing an enclosed range", 2, allocator.getFreeRangeCount());
+
+        allocator.free(offsets[2]);
+        expect("free ranges after merging with the range before", 2, allocator.getFreeRangeCount());
+        expect("merged range", 60, allocator.getLargestFreeRange());
+
+        allocator.free(offsets[3]);
+        expect("free ranges after merging on both sides", 1, allocator.getFreeRangeCount());
+        expect("range merged on both sides", 90, allocator.getLargestFreeRange());
+
+        allocator.free(offsets[0]);
+        expect("free ranges once everything is free", 1, allocator.getFreeRangeCount());
+        expect("largest range once everything is free", 100, allocator.getLargestFreeRange());
+        expect("used space once everything is free", 0, allocator.getUsed());
+    }
+
+    /**
+     * Allocations larger than every free range fail, even if there is enough free space in
+     * total.
+     */
+    private static void checkOutOfSpace() {
+        BufferAllocator allocator = new BufferAllocator(30);
+        int first = allocator.allocate(10);
+
+        allocator.allocate(10);
+        int third = allocator.allocate(10);
+
+        expect("allocation into a full buffer", -1, allocator.allocate(1));
+
+        allocator.free(first);
+        allocator.free(third);
+
+        expect("allocation larger than any free range", -1, allocator.allocate(15));
+        expect("used space after a failed allocation", 10, allocator.getUsed());
+        expect("allocation that fits", 0, allocator.allocate(10));
+
+        try {
+            allocator.free(5);
+            fail("freeing an offset that wasn't allocated didn't throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Compaction moves the allocations to the start, in order, reports every move, and leaves
+     * one free range. The allocations can then only be freed at their new offsets.
+     */
+    private static void checkCompaction() {
+        BufferAllocator allocator = new BufferAllocator(100);
+        int first = allocator.allocate(10);
+
+        allocator.allocate(20);
+        int third = allocator.allocate(30);
+
+        allocator.allocate(10);
+        allocator.free(first);
+        allocator.free(third);
+
+        List<int[]> moves = new ArrayList<int[]>();
+
+        allocator.compact((from, to, size) -> moves.add(new int[] { from, to, size }));
+
+        expect("moves", 2, moves.size());
+
+        if (moves.size() == 2) {
+            expect("first move from", 10, moves.get(0)[0]);
+            expect("first move to", 0, moves.get(0)[1]);
+            expect("first move size", 20, moves.get(0)[2]);
+            expect("second move from", 60, moves.get(1)[0]);
+            expect("second move to", 20, moves.get(1)[1]);
+            expect("second move size", 10, moves.get(1)[2]);
+        }
+
+        expect("free ranges after compaction", 1, allocator.getFreeRangeCount());
+        expect("free space after compaction", 70, allocator.getLargestFreeRange());
+
+        try {
+            allocator.free(10);
+            fail("freeing an allocation at its old offset didn't throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+
+        allocator.free(0);
+        allocator.free(20);
+        expect("used space after freeing the moved allocations", 0, allocator.getUsed());
+    }
+
+    /**
+     * Compacting an arena updates the base vertex and index offset of every model that moves.
+     */
+    private static void checkArenaCompaction() {
+        Graphics.setDevice(new RecordingGraphicsDevice());
+
+        GeometryArena arena = new GeometryArena(VertexFormat.PACKED, false, 64, 64);
+        RawModel first = addTriangle(arena);
+        RawModel second = addTriangle(arena);
+        RawModel third = addTriangle(arena);
+
+        expect("base vertex of the third model", 6, third.getBaseVertex());
+        expect("index offset of the third model", 12, third.getIndexOffset());
+
+        arena.remove(first);
+        arena.compact();
+
+        expect("base vertex of the second model after compaction", 0, second.getBaseVertex());
+        expect("index offset of the second model after compaction", 0, second.getIndexOffset());
+        expect("base vertex of the third model after compaction", 3, third.getBaseVertex());
+        expect("index offset of the third model after compaction", 6, third.getIndexOffset());
+        expect("free vertex ranges after compaction", 1, arena.getVertexAllocator().getFreeRangeCount());
+        expect("free index ranges after compaction", 1, arena.getIndexAllocator().getFreeRangeCount());
+
+        arena.cleanUp();
+    }
+
+    /**
+     * A model whose index range only fits after compaction, while its vertex range fits
+     * without it, is placed after the compaction, so its base vertex is where the allocator
+     * has its vertices and it can be removed again.
+     */
+    private static void checkCompactionDuringAdd() {
+        Graphics.setDevice(new RecordingGraphicsDevice());
+
+        GeometryArena arena = new GeometryArena(VertexFormat.PACKED, false, 100, 9);
+        RawModel first = addTriangle(arena);
+        RawModel second = addTriangle(arena);
+        RawModel third = addTriangle(arena);
+
+        arena.remove(first);
+        arena.remove(third);
+
+        RawModel quad = arena.add(new float[18], new float[12], new float[18], null, new int[] { 0, 1, 2, 3, 4, 5 });
+
+        if (quad == null) {
+            fail("model that fits after compaction wasn't added");
+            arena.cleanUp();
+            return;
+        }
+
+        expect("base vertex of the moved model", 0, second.getBaseVertex());
+        expect("base vertex of the model added after compaction", 3, quad.getBaseVertex());
+        expect("index offset of the model added after compaction", 6, quad.getIndexOffset());
+
+        try {
+            arena.remove(quad);
+        } catch (IllegalArgumentException e) {
+            fail("model added after compaction couldn't be removed: " + e.getMessage());
+        }
+
+        arena.cleanUp();
+    }
+
+    private static RawModel addTriangle(GeometryArena arena) {
+        return arena.add(new float[] { 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new float[6],
+                new float[] { 0, 0, 1, 0, 0, 1, 0, 0, 1 }, null, new int[] { 0, 1, 2 });
+    }
+
+    private static void expect(String name, long expected, long actual) {
+        if (expected != actual) {
+            fail(name + ": expected " + expected + ", got " + actual);
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED " + message);
+        failures++;
+    }
+
+}
@@ -0,0 +1,420 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.engineTester;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.util.vector.Vector3f;
+import org.lwjgl.util.vector.Vector4f;
+
+import engine.entities.Camera;
+import engine.entities.Entity;
+import engine.entities.Light;
+import engine.entities.Player;
+import engine.fontMeshCreator.FontType;
+import engine.fontRendering.TextMaster;
+import engine.guis.GuiRenderer;
+import engine.guis.GuiTexture;
+import engine.models.RawModel;
+import engine.models.TexturedModel;
+import engine.normalMappingObjConverter.NormalMappedObjLoader;
+import engine.particles.ParticleMaster;
+import engine.particles.ParticleSystem;
+import engine.particles.ParticleTexture;
+import engine.postProcessing.Fbo;
+import engine.postProcessing.PostProcessing;
+import engine.renderEngine.AssetPipeline;
+import engine.renderEngine.DisplayManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
+import engine.renderEngine.Loader;
+import engine.renderEngine.MasterRenderer;
+import engine.renderEngine.OBJLoader;
+import engine.renderEngine.ScenePass;
+import engine.terrains.Terrain;
+import engine.textures.ModelTexture;
+import engine.textures.TerrainTexture;
+import engine.textures.TerrainTexturePack;
+import engine.textures.TextureLayer;
+import engine.toolbox.FrameProfiler;
+import engine.water.WaterFrameBuffers;
+import engine.water.WaterRenderer;
+import engine.water.WaterShader;
+import engine.water.WaterTile;
+
+/**
+ * The GameScene class holds the demo scene: the terrain, entities, lights, water, particles and
+ * all the renderers that draw them. It is shared by {@link MainGameLoop}, which drives it from
+ * user input, and {@link HeadlessBenchmark}, which times it without a GPU. Neither
+ * {@link #update()} nor {@link #render()} reads input, so the scene runs the same way in both.
+ */
+public class GameScene {
+
+    private static final int ARENA_VERTICES = 1 << 17;
+    private static final int ARENA_INDICES = 1 << 19;
+    private static final long TEXTURE_STREAMING_BUDGET = 16L * 1024 * 1024;
+    private static final long ASSET_UPLOAD_BUDGET_NANOS = 2L * 1000 * 1000;
+    private static final int LOD_LEVELS = 3;
+
+    private final Loader loader;
+    private final Player player;
+    private final Camera camera;
+    private final FontType font;
+
+    private final Terrain terrain;
+    private final List<Terrain> terrains = new ArrayList<Terrain>();
+    private final List<Entity> entities = new ArrayList<Entity>();
+    private final List<Entity> normalMapEntities = new ArrayList<Entity>();
+    private final List<Entity> spinningEntities = new ArrayList<Entity>();
+
+    private final List<Light> lights = new ArrayList<Light>();
+    private final Light sun;
+
+    private final MasterRenderer renderer;
+    private final GuiRenderer guiRenderer;
+    private final List<GuiTexture> guiTextures = new ArrayList<GuiTexture>();
+
+    private final WaterFrameBuffers buffers;
+    private final WaterShader waterShader;
+    private final WaterRenderer waterRenderer;
+    private final List<WaterTile> waters = new ArrayList<WaterTile>();
+    private final WaterTile water;
+
+    private final ParticleSystem particleSystem;
+    private final Fbo fbo;
+
+    private final GraphicsDevice device = Graphics.getDevice();
+
+    /**
+     * Loads the scene and creates the renderers. The display (or a headless display) must
+     * have been created first. Models, their levels of detail, the font and the terrain are read
+     * on the loader's {@link AssetPipeline} while the GL thread compiles shaders and creates
+     * framebuffers.
+     *
+     * @param loader        The loader to load models and textures with.
+     * @param cameraFactory Creates the camera that follows the player.
+     */
+    public GameScene(Loader loader, Function<Player, Camera> cameraFactory) {
+        this.loader = loader;
+        loader.useGeometryArenas(ARENA_VERTICES, ARENA_INDICES);
+        loader.useTextureStreaming(TEXTURE_STREAMING_BUDGET);
+        AssetPipeline assets = loader.getAssetPipeline();
+
+        CompletableFuture<RawModel> personModel = OBJLoader.loadObjModelAsync("person", loader);
+        CompletableFuture<RawModel> rocksModel = OBJLoader.loadObjModelAsync("rocks", loader);
+        CompletableFuture<RawModel> fernModel = OBJLoader.loadObjModelAsync("fern", loader);
+        CompletableFuture<RawModel> pineModel = OBJLoader.loadObjModelAsync("pine", loader);
+        CompletableFuture<RawModel> lampModel = OBJLoader.loadObjModelAsync("lamp", loader);
+        CompletableFuture<RawModel> barrelMesh = NormalMappedObjLoader.loadOBJAsync("barrel", loader);
+        CompletableFuture<RawModel> crateMesh = NormalMappedObjLoader.loadOBJAsync("crate", loader);
+        CompletableFuture<RawModel> boulderMesh = NormalMappedObjLoader.loadOBJAsync("boulder", loader);
+        CompletableFuture<RawModel> mapMesh = NormalMappedObjLoader.loadOBJAsync("npbv2_map", loader);
+
+        CompletableFuture<RawModel[]> pineLevels = OBJLoader.loadLevelsOfDetailAsync("pine", loader, LOD_LEVELS);
+        CompletableFuture<RawModel[]> barrelLevels = NormalMappedObjLoader.loadLevelsOfDetailAsync("barrel", loader,
+                LOD_LEVELS);
+        CompletableFuture<RawModel[]> boulderLevels = NormalMappedObjLoader.loadLevelsOfDetailAsync("boulder",
+                loader, LOD_LEVELS);
+
+        int fontAtlas = loader.loadTextureAsync("Candara/candara").getID();
+        CompletableFuture<FontType> fontType = assets
+                .supply(() -> new FontType(fontAtlas, new File("res/Candara/candara.fnt")));
+
+        TextureLayer[] terrainLayers = loader.loadTextureArray("grassy2", "mud", "grassFlowers", "path");
+        TerrainTexture backgroundTexture = new TerrainTexture(terrainLayers[0]);
+        TerrainTexture rTexture = new TerrainTexture(terrainLayers[1]);
+        TerrainTexture gTexture = new TerrainTexture(terrainLayers[2]);
+        TerrainTexture bTexture = new TerrainTexture(terrainLayers[3]);
+
+        TerrainTexturePack texturePack = new TerrainTexturePack(backgroundTexture, rTexture,
+                gTexture, bTexture);
+        TerrainTexture blendMap = new TerrainTexture(loader.loadTextureAsync("blendMap").getID());
+        CompletableFuture<Terrain> loadedTerrain = Terrain.loadAsync(0, -1, loader, texturePack, blendMap,
+                "heightmap");
+
+        // Set up everything that needs no assets while the workers parse them.
+        TextMaster.init(loader);
+        guiRenderer = new GuiRenderer(loader);
+        buffers = new WaterFrameBuffers();
+        waterShader = new WaterShader();
+        fbo = new Fbo(DisplayManager.getWidth(), DisplayManager.getHeight(), Fbo.DEPTH_RENDER_BUFFER);
+        PostProcessing.init(loader);
+
+        player = setupPlayer(loader, assets.await(personModel));
+        camera = cameraFactory.apply(player);
+        font = assets.await(fontType);
+
+        TexturedModel rocks = new TexturedModel(assets.await(rocksModel),
+                new ModelTexture(loader.loadStreamedTexture("rocks").getID()));
+
+        ModelTexture fernTextureAtlas = new ModelTexture(loader.loadStreamedTexture("fern").getID());
+        fernTextureAtlas.setNumberOfRows(2);
+
+        TexturedModel fern = new TexturedModel(assets.await(fernModel), fernTextureAtlas);
+
+        TexturedModel bobble = new TexturedModel(assets.await(pineModel),
+                new ModelTexture(loader.loadStreamedTexture("pine").getID()));
+        bobble.getTexture().setHasTransparency(true);
+        bobble.setLevelsOfDetail(assets.await(pineLevels));
+
+        fern.getTexture().setHasTransparency(true);
+
+        terrain = assets.await(loadedTerrain);
+        terrains.add(terrain);
+
+        TexturedModel lamp = new TexturedModel(assets.await(lampModel),
+                new ModelTexture(loader.loadStreamedTexture("lamp").getID()));
+        lamp.getTexture().setUseFakeLighting(true);
+
+        entities.add(player);
+
+        TexturedModel barrelModel = new TexturedModel(assets.await(barrelMesh),
+                new ModelTexture(loader.loadStreamedTexture("barrel").getID()));
+        barrelModel.getTexture().setNormalMap(loader.loadStreamedTexture("barrelNormal").getID());
+        barrelModel.getTexture().setShineDamper(10);
+        barrelModel.getTexture().setReflectivity(0.5f);
+        barrelModel.setLevelsOfDetail(assets.await(barrelLevels));
+
+        TexturedModel crateModel = new TexturedModel(assets.await(crateMesh),
+                new ModelTexture(loader.loadStreamedTexture("crate").getID()));
+        crateModel.getTexture().setNormalMap(loader.loadStreamedTexture("crateNormal").getID());
+        crateModel.getTexture().setShineDamper(10);
+        crateModel.getTexture().setReflectivity(0.5f);
+
+        TexturedModel boulderModel = new TexturedModel(assets.await(boulderMesh),
+                new ModelTexture(loader.loadStreamedTexture("boulder").getID()));
+        TexturedModel mapModel = new TexturedModel(assets.await(mapMesh),
+                new ModelTexture(loader.loadStreamedTexture("boulder").getID()));
+
+        boulderModel.getTexture().setNormalMap(loader.loadStreamedTexture("boulderNormal").getID());
+        boulderModel.getTexture().setShineDamper(10);
+        boulderModel.getTexture().setReflectivity(0.5f);
+        boulderModel.setLevelsOfDetail(assets.await(boulderLevels));
+
+        Entity barrel = new Entity(barrelModel, new Vector3f(75, 10, -75), 0, 0, 0, 1f);
+        Entity boulder = new Entity(boulderModel, new Vector3f(85, 10, -75), 0, 0, 0, 1f);
+        Entity crate = new Entity(crateModel, new Vector3f(65, 10, -75), 0, 0, 0, 0.04f);
+        Entity gameMap = new Entity(mapModel, new Vector3f(100, 70, 100), 0, 0, 0, 1f);
+        normalMapEntities.add(barrel);
+        normalMapEntities.add(boulder);
+        normalMapEntities.add(crate);
+        normalMapEntities.add(gameMap);
+        spinningEntities.add(barrel);
+        spinningEntities.add(boulder);
+        spinningEntities.add(crate);
+
+        Random random = new Random(5666778);
+        for (int i = 0; i < 60; i++) {
+            if (i % 3 == 0) {
+                float x = random.nextFloat() * 150;
+                float z = random.nextFloat() * -150;
+                if ((x > 50 && x < 100) || (z < -50 && z > -100)) {
+                } else {
+                    float y = terrain.getHeightOfTerrain(x, z);
+                    entities.add(new Entity(fern, 3, new Vector3f(x, y, z), 0,
+                            random.nextFloat() * 360, 0, 0.9f));
+                }
+            }
+            if (i % 2 == 0) {
+                float x = random.nextFloat() * 150;
+                float z = random.nextFloat() * -150;
+                if ((x > 50 && x < 100) || (z < -50 && z > -100)) {
+                } else {
+                    float y = terrain.getHeightOfTerrain(x, z);
+                    entities.add(new Entity(bobble, 1, new Vector3f(x, y, z), 0,
+                            random.nextFloat() * 360, 0, random.nextFloat() * 0.6f + 0.8f));
+                }
+            }
+        }
+        entities.add(new Entity(rocks, new Vector3f(75, 4.6f, -75), 0, 0, 0, 75));
+
+        sun = new Light(new Vector3f(1000000, 1500000, -1000000), new Vector3f(1.3f, 1.3f, 1.3f));
+        lights.add(sun);
+
+        renderer = new MasterRenderer(loader, 0f, 5.0f, camera);
+
+        ParticleMaster.init(loader, renderer.getProjectionMatrix());
+
+        waterRenderer = new WaterRenderer(loader, waterShader, renderer.getProjectionMatrix(), buffers);
+        water = new WaterTile(75, -75, 0);
+        waters.add(water);
+
+        ParticleTexture particleTexture = new ParticleTexture(loader.loadTextureAsync("particleAtlas").getID(),
+                4, true);
+
+        particleSystem = new ParticleSystem(particleTexture, 200f, 25f, 0.3f, 4f, 1f);
+
+    }
+
+    /**
+     * Advances everything in the scene that moves on its own: the particles and the spinning
+     * normal-mapped entities. The player and camera are moved by the caller. Textures and
+     * other assets that finished loading in the background are uploaded here, within their
+     * budgets.
+     */
+    public void update() {
+        FrameProfiler.begin("update");
+        loader.processTextureUploads();
+        loader.getAssetPipeline().processUploads(ASSET_UPLOAD_BUDGET_NANOS);
+        particleSystem.generateParticles(player.getPosition());
+
+        ParticleMaster.update(camera);
+
+        for (Entity entity : spinningEntities) {
+            entity.increaseRotation(0, 0.1f, 0);
+        }
+        FrameProfiler.end();
+    }
+
+    /**
+     * Renders one frame: the shadow map, the two water passes, the main scene into the
+     * post-processing FBO, water and particles, post-processing, GUIs and text. Each phase is
+     * a {@link FrameProfiler} section.
+     */
+    public void render() {
+        FrameProfiler.begin("shadows");
+        renderer.renderShadowMap(entities, sun);
+        FrameProfiler.end();
+
+        device.enable(GL30.GL_CLIP_DISTANCE0);
+
+        FrameProfiler.begin("water.reflection");
+        buffers.bindRefractionFrameBuffer();
+        float distance = 2 * (camera.getPosition().y - water.getHeight());
+        camera.getPosition().y -= distance;
+        camera.invertPitch();
+        renderer.renderScene(entities, normalMapEntities, terrains, lights, camera,
+                new Vector4f(0, 1, 0, -water.getHeight() + 1), ScenePass.REFLECTION);
+        camera.getPosition().y += distance;
+        camera.invertPitch();
+        FrameProfiler.end();
+
+        FrameProfiler.begin("water.refraction");
+        renderer.renderScene(entities, normalMapEntities, terrains, lights, camera,
+                new Vector4f(0, -1, 0, water.getHeight()), ScenePass.REFRACTION);
+        FrameProfiler.end();
+
+        device.disable(GL30.GL_CLIP_DISTANCE0);
+        buffers.unbindCurrentFrameBuffer();
+
+        FrameProfiler.begin("scene");
+        fbo.bindFrameBuffer();
+        renderer.renderScene(entities, normalMapEntities, terrains, lights, camera,
+                new Vector4f(0, -1, 0, 100000), ScenePass.MAIN);
+        FrameProfiler.end();
+
+        FrameProfiler.begin("water");
+        waterRenderer.render(waters, renderer.getFrameContext(), sun);
+        FrameProfiler.end();
+
+        FrameProfiler.begin("particles");
+        ParticleMaster.renderParticles(renderer.getFrameContext());
+        fbo.unbindFrameBuffer();
+        FrameProfiler.end();
+
+        FrameProfiler.begin("postProcessing");
+        PostProcessing.doPostProcessing(fbo.getColourTexture());
+        FrameProfiler.end();
+
+        FrameProfiler.begin("gui");
+        guiRenderer.render(guiTextures);
+        FrameProfiler.end();
+
+        FrameProfiler.begin("text");
+        TextMaster.render();
+        FrameProfiler.end();
+    }
+
+    /**
+     * Releases the renderers, shaders and framebuffers of the scene. The loader is cleaned up
+     * by its owner.
+     */
+    public void cleanUp() {
+        FrameProfiler.cleanUp();
+        PostProcessing.cleanUp();
+        fbo.cleanUp();
+        buffers.cleanUp();
+        waterShader.cleanUp();
+        guiRenderer.cleanUp();
+        renderer.cleanUp();
+    }
+
+    /**
+     * @return The player.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return The camera following the player.
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * @return The terrain the scene stands on.
+     */
+    public Terrain getTerrain() {
+        return terrain;
+    }
+
+    /**
+     * @return The font used for on-screen text.
+     */
+    public FontType getFont() {
+        return font;
+    }
+
+    /**
+     * @return The master renderer of the scene.
+     */
+    public MasterRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Textures the player model and places the player in the scene.
+     *
+     * @param loader     The loader to load the texture with.
+     * @param bunnyModel The player model.
+     * @return The player.
+     */
+    private static Player setupPlayer(Loader loader, RawModel bunnyModel) {
+        TexturedModel stanfordBunny = new TexturedModel(bunnyModel,
+                new ModelTexture(loader.loadStreamedTexture("playerTexture1").getID()));
+        return new Player(stanfordBunny, new Vector3f(75, 5, -75), 0, 100, 0, 0.6f);
+    }
+
+}
@@ -0,0 +1,219 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.engineTester;
+
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.entities.Camera;
+import engine.entities.Player;
+import engine.renderEngine.DisplayManager;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.GeometryArena;
+import engine.renderEngine.Loader;
+import engine.renderEngine.MasterRenderer;
+import engine.renderEngine.RecordingGraphicsDevice;
+import engine.renderEngine.ScenePass;
+import engine.toolbox.FrameProfiler;
+import engine.toolbox.FrameTimeHistogram;
+
+/**
+ * The HeadlessBenchmark class times the CPU side of rendering the {@link GameScene} without a
+ * GPU or a window. All GL calls go to a {@link RecordingGraphicsDevice}, the camera orbits the
+ * player instead of following input, and the frame time is fixed, so two runs on the same
+ * machine submit exactly the same work. The CPU time of each {@link FrameProfiler} section is
+ * printed at the end, averaged over the last frames, followed by the visible and culled
+ * entities of every pass in the last frame.
+ *
+ * <p>Usage: {@code HeadlessBenchmark [frames] [warmupFrames]}, run from the project root so
+ * the {@code res} folder is found.
+ */
+public class HeadlessBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+    private static final int DEFAULT_FRAMES = 600;
+    private static final int DEFAULT_WARMUP_FRAMES = 200;
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        int warmupFrames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WARMUP_FRAMES;
+
+        if (frames <= 0 || warmupFrames < 0) {
+            throw new IllegalArgumentException("Frame counts must be positive");
+        }
+
+        RecordingGraphicsDevice device = new RecordingGraphicsDevice();
+        DisplayManager.createHeadlessDisplay(WIDTH, HEIGHT, device);
+
+        long loadStart = System.nanoTime();
+        Loader loader = new Loader();
+        GameScene scene = new GameScene(loader, OrbitCamera::new);
+        long loadNanos = System.nanoTime() - loadStart;
+
+        for (int i = 0; i < warmupFrames; i++) {
+            renderFrame(scene);
+        }
+
+        FrameTimeHistogram histogram = DisplayManager.getFrameTimeHistogram();
+        histogram.reset();
+        long totalCalls = 0;
+
+        for (int i = 0; i < frames; i++) {
+            device.reset();
+            renderFrame(scene);
+            totalCalls += device.getTotalCalls();
+        }
+
+        FrameTimeHistogram.Snapshot frameTimes = histogram.getSnapshot();
+
+        System.out.printf("scene loaded in %.1f ms, %d textures still pending after warm-up%n", loadNanos / 1e6,
+                loader.getPendingTextureCount());
+        System.out.printf("%d frames after %d warm-up frames%n", frames, warmupFrames);
+        System.out.printf("frame time: avg %.3f ms, %s%n", frameTimes.getMeanNanos() / 1e6, frameTimes);
+        System.out.printf("device calls per frame: avg %.1f%n", totalCalls / (double) frames);
+        System.out.println("last frame: " + device);
+        System.out.println("state changes skipped by the state cache: " + GLStateManager.getSkippedCalls()
+                + " of " + (GLStateManager.getIssuedCalls() + GLStateManager.getSkippedCalls()));
+
+        System.out.println("texture cache: " + loader.getTextureCache());
+        System.out.println("model cache: " + loader.getModelCache());
+        System.out.println("resources: " + loader.getResourceManager());
+
+        if (loader.getTextureStreamer() != null) {
+            System.out.println("texture streaming: " + loader.getTextureStreamer());
+        }
+
+        for (int i = 0; i < 2; i++) {
+            GeometryArena arena = loader.getGeometryArena(i == 1);
+
+            if (arena != null) {
+                System.out.printf("geometry arena%s: %d/%d vertices, %d/%d indices%n", i == 1 ? " (tangents)" : "",
+                        arena.getVertexAllocator().getUsed(), arena.getVertexAllocator().getCapacity(),
+                        arena.getIndexAllocator().getUsed(), arena.getIndexAllocator().getCapacity());
+            }
+        }
+
+        for (String name : FrameProfiler.getSectionNames()) {
+            System.out.printf("  %-18s %.3f ms%n", name, FrameProfiler.getAverageCpuMillis(name));
+        }
+
+        MasterRenderer renderer = scene.getRenderer();
+
+        System.out.println("culling in the last frame:");
+        System.out.println("  " + renderer.getShadowCuller());
+
+        for (ScenePass pass : ScenePass.values()) {
+            System.out.println("  " + renderer.getSceneCuller(pass));
+        }
+
+        scene.cleanUp();
+        loader.cleanUp();
+        DisplayManager.closeDisplay();
+    }
+
+    /**
+     * Moves the camera and runs one update and render of the scene.
+     *
+     * @param scene The scene to render.
+     */
+    private static void renderFrame(GameScene scene) {
+        scene.getCamera().move();
+        scene.update();
+        scene.render();
+        DisplayManager.updateDisplay();
+    }
+
+    /**
+     * A camera that circles the player at a fixed distance and pitch, so the benchmark sees
+     * the scene from every side without reading input.
+     */
+    private static class OrbitCamera extends Camera {
+
+        private static final float DISTANCE = 35;
+        private static final float DEGREES_PER_FRAME = 0.5f;
+
+        private final Player player;
+        private final Vector3f position = new Vector3f();
+        private float pitch = 20;
+        private float yaw;
+        private float angle;
+
+        /**
+         * Creates a camera orbiting the given player.
+         *
+         * @param player The player to orbit.
+         */
+        private OrbitCamera(Player player) {
+            this.player = player;
+        }
+
+        /**
+         * Advances the camera along its orbit.
+         */
+        @Override
+        public void move() {
+            angle = (angle + DEGREES_PER_FRAME) % 360;
+
+            float horizontalDistance = (float) (DISTANCE * Math.cos(Math.toRadians(pitch)));
+            float verticalDistance = (float) (DISTANCE * Math.sin(Math.toRadians(pitch)));
+            float theta = player.getRotY() + angle;
+
+            Vector3f target = player.getPosition();
+            position.x = target.x - (float) (horizontalDistance * Math.sin(Math.toRadians(theta)));
+            position.z = target.z - (float) (horizontalDistance * Math.cos(Math.toRadians(theta)));
+            position.y = target.y + verticalDistance + 4;
+            yaw = 180 - theta;
+        }
+
+        @Override
+        public Vector3f getPosition() {
+            return position;
+        }
+
+        @Override
+        public float getPitch() {
+            return pitch;
+        }
+
+        @Override
+        public float getYaw() {
+            return yaw;
+        }
+
+        @Override
+        public float getRoll() {
+            return 0;
+        }
+
+        @Override
+        public void invertPitch() {
+            pitch = -pitch;
+        }
+
+    }
+
+}
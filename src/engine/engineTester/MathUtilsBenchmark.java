@@ -0,0 +1,358 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.engineTester;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector2f;
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.entities.Camera;
+import engine.toolbox.MathUtils;
+
+/**
+ * The MathUtilsBenchmark class checks that the {@link MathUtils} builders, which fill matrices
+ * directly from sines and cosines, give the same results as the chained {@code Matrix4f.rotate}
+ * calls they replaced, and times both. Every matrix element of the new builders must lie within
+ * {@value #EPSILON} of the old one, relative to the largest element of the matrix where that is
+ * larger than 1, and the barycentric heights must match exactly. The program exits with status
+ * 1 if they don't.
+ *
+ * <p>Usage: {@code MathUtilsBenchmark [iterations]}. Run it without {@code -ea}, since the
+ * assertions of the new builders would be timed too.
+ */
+public class MathUtilsBenchmark {
+
+    private static final int DEFAULT_ITERATIONS = 10;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int CASES = 100000;
+    private static final float EPSILON = 1e-5f;
+
+    private static final Vector3f X_AXIS = new Vector3f(1, 0, 0);
+    private static final Vector3f Y_AXIS = new Vector3f(0, 1, 0);
+    private static final Vector3f Z_AXIS = new Vector3f(0, 0, 1);
+
+    private static final FloatBuffer EXPECTED = FloatBuffer.allocate(16);
+    private static final FloatBuffer ACTUAL = FloatBuffer.allocate(16);
+
+    /**
+     * Collects a value of every timed batch, so the calls can't be optimized away.
+     */
+    private static float sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+
+        Random random = new Random(42);
+        Vector3f[] translations = new Vector3f[CASES];
+        float[] rotations = new float[CASES * 3];
+        float[] scales = new float[CASES];
+        TestCamera[] cameras = new TestCamera[CASES];
+        float[] triangles = new float[CASES * 11];
+
+        for (int i = 0; i < CASES; i++) {
+            translations[i] = new Vector3f(range(random, 100), range(random, 100), range(random, 100));
+            rotations[i * 3] = range(random, 360);
+            rotations[i * 3 + 1] = range(random, 360);
+            rotations[i * 3 + 2] = range(random, 360);
+            scales[i] = 0.1f + random.nextFloat() * 10;
+            cameras[i] = new TestCamera(new Vector3f(range(random, 100), range(random, 100), range(random, 100)),
+                    range(random, 90), range(random, 360));
+
+            for (int j = 0; j < 11; j++) {
+                triangles[i * 11 + j] = range(random, 10);
+            }
+        }
+
+        Matrix4f expected = new Matrix4f();
+        Matrix4f actual = new Matrix4f();
+        float transformationError = 0;
+        float viewError = 0;
+        int barycentricMismatches = 0;
+
+        for (int i = 0; i < CASES; i++) {
+            createTransformationMatrixLegacy(translations[i], rotations[i * 3], rotations[i * 3 + 1],
+                    rotations[i * 3 + 2], scales[i], expected);
+            MathUtils.createTransformationMatrix(translations[i], rotations[i * 3], rotations[i * 3 + 1],
+                    rotations[i * 3 + 2], scales[i], actual);
+            transformationError = Math.max(transformationError, getError(expected, actual));
+
+            createViewMatrixLegacy(cameras[i], expected);
+            MathUtils.createViewMatrix(cameras[i], actual);
+            viewError = Math.max(viewError, getError(expected, actual));
+
+            float legacy = barryCentricLegacy(triangles, i * 11);
+            float scalar = barryCentric(triangles, i * 11);
+
+            if (Float.compare(legacy, scalar) != 0) {
+                barycentricMismatches++;
+            }
+        }
+
+        boolean passed = transformationError <= EPSILON && viewError <= EPSILON && barycentricMismatches == 0;
+
+        System.out.printf("transformation matrix: largest error %.2e%n", transformationError);
+        System.out.printf("view matrix:           largest error %.2e%n", viewError);
+        System.out.printf("barycentric height:    %d of %d differ%n", barycentricMismatches, CASES);
+        System.out.println(passed ? "results match within " + EPSILON : "RESULTS DIFFER");
+
+        System.out.printf("%n%-22s %12s %12s %8s%n", "builder", "legacy ns", "new ns", "speedup");
+
+        double legacy = time(iterations, () -> {
+            Matrix4f matrix = null;
+
+            for (int i = 0; i < CASES; i++) {
+                matrix = createTransformationMatrixLegacy(translations[i], rotations[i * 3], rotations[i * 3 + 1],
+                        rotations[i * 3 + 2], scales[i], new Matrix4f());
+            }
+
+            sink += matrix.m30;
+        });
+        double current = time(iterations, () -> {
+            for (int i = 0; i < CASES; i++) {
+                MathUtils.createTransformationMatrix(translations[i], rotations[i * 3], rotations[i * 3 + 1],
+                        rotations[i * 3 + 2], scales[i], actual);
+            }
+
+            sink += actual.m30;
+        });
+        print("transformation matrix", legacy, current);
+
+        legacy = time(iterations, () -> {
+            Matrix4f matrix = null;
+
+            for (int i = 0; i < CASES; i++) {
+                matrix = createViewMatrixLegacy(cameras[i], new Matrix4f());
+            }
+
+            sink += matrix.m30;
+        });
+        current = time(iterations, () -> {
+            for (int i = 0; i < CASES; i++) {
+                MathUtils.createViewMatrix(cameras[i], actual);
+            }
+
+            sink += actual.m30;
+        });
+        print("view matrix", legacy, current);
+
+        legacy = time(iterations, () -> {
+            for (int i = 0; i < CASES; i++) {
+                sink += barryCentricLegacy(triangles, i * 11);
+            }
+        });
+        current = time(iterations, () -> {
+            for (int i = 0; i < CASES; i++) {
+                sink += barryCentric(triangles, i * 11);
+            }
+        });
+        print("barycentric height", legacy, current);
+
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a batch of {@value #CASES} calls repeatedly and returns the median time of one call.
+     *
+     * @param iterations The number of timed batches, after a few untimed ones.
+     * @param batch      The batch of calls.
+     * @return The median time in nanoseconds.
+     */
+    private static double time(int iterations, Runnable batch) {
+        long[] nanos = new long[iterations];
+
+        for (int i = -WARMUP_ITERATIONS; i < iterations; i++) {
+            long start = System.nanoTime();
+
+            batch.run();
+
+            long elapsed = System.nanoTime() - start;
+
+            if (i >= 0) {
+                nanos[i] = elapsed;
+            }
+        }
+
+        Arrays.sort(nanos);
+
+        return nanos[iterations / 2] / (double) CASES;
+    }
+
+    private static void print(String name, double legacy, double current) {
+        System.out.printf("%-22s %12.1f %12.1f %7.1fx%n", name, legacy, current, legacy / current);
+    }
+
+    private static float range(Random random, float limit) {
+        return (random.nextFloat() * 2 - 1) * limit;
+    }
+
+    /**
+     * Retrieves the largest difference between the elements of two matrices, relative to the
+     * largest element of the expected matrix where that is larger than 1. The translation of a
+     * view matrix is a sum of large terms that can nearly cancel, so an element's own size is
+     * no measure of its rounding error.
+     */
+    private static float getError(Matrix4f expected, Matrix4f actual) {
+        float size = 1;
+        float error = 0;
+
+        EXPECTED.clear();
+        ACTUAL.clear();
+        expected.store(EXPECTED);
+        actual.store(ACTUAL);
+
+        for (int i = 0; i < 16; i++) {
+            size = Math.max(size, Math.abs(EXPECTED.get(i)));
+            error = Math.max(error, Math.abs(EXPECTED.get(i) - ACTUAL.get(i)));
+        }
+
+        return error / size;
+    }
+
+    /**
+     * Calls the scalar barycentric overload with a vertex triangle and position stored as eleven
+     * floats.
+     */
+    private static float barryCentric(float[] data, int offset) {
+        return MathUtils.barryCentric(data[offset], data[offset + 1], data[offset + 2], data[offset + 3],
+                data[offset + 4], data[offset + 5], data[offset + 6], data[offset + 7], data[offset + 8],
+                data[offset + 9], data[offset + 10]);
+    }
+
+    /**
+     * Interpolates a height the way {@code Terrain} used to: with a vector per vertex and one
+     * for the position.
+     */
+    private static float barryCentricLegacy(float[] data, int offset) {
+        Vector3f p1 = new Vector3f(data[offset], data[offset + 1], data[offset + 2]);
+        Vector3f p2 = new Vector3f(data[offset + 3], data[offset + 4], data[offset + 5]);
+        Vector3f p3 = new Vector3f(data[offset + 6], data[offset + 7], data[offset + 8]);
+        Vector2f pos = new Vector2f(data[offset + 9], data[offset + 10]);
+        float det = (p2.z - p3.z) * (p1.x - p3.x) + (p3.x - p2.x) * (p1.z - p3.z);
+
+        if (Math.abs(det) < 1e-6f) {
+            return Float.NaN;
+        }
+
+        float l1 = ((p2.z - p3.z) * (pos.x - p3.x) + (p3.x - p2.x) * (pos.y - p3.z)) / det;
+        float l2 = ((p3.z - p1.z) * (pos.x - p3.x) + (p1.x - p3.x) * (pos.y - p3.z)) / det;
+        float l3 = 1.0f - l1 - l2;
+
+        if (l1 < 0.0f || l2 < 0.0f || l3 < 0.0f || l1 > 1.0f || l2 > 1.0f || l3 > 1.0f) {
+            return Float.NaN;
+        }
+
+        return l1 * p1.y + l2 * p2.y + l3 * p3.y;
+    }
+
+    /**
+     * Builds a transformation matrix the way {@code MathUtils} used to: translate, then three
+     * chained rotations, then scale.
+     */
+    private static Matrix4f createTransformationMatrixLegacy(Vector3f translation, float rx, float ry, float rz,
+            float scale, Matrix4f matrix) {
+        matrix.setIdentity();
+        Matrix4f.translate(translation, matrix, matrix);
+        Matrix4f.rotate((float) Math.toRadians(rx), X_AXIS, matrix, matrix);
+        Matrix4f.rotate((float) Math.toRadians(ry), Y_AXIS, matrix, matrix);
+        Matrix4f.rotate((float) Math.toRadians(rz), Z_AXIS, matrix, matrix);
+        Matrix4f.scale(new Vector3f(scale, scale, scale), matrix, matrix);
+
+        return matrix;
+    }
+
+    /**
+     * Builds a view matrix the way {@code MathUtils} used to: rotate by the pitch and the yaw,
+     * then translate by the negative camera position.
+     */
+    private static Matrix4f createViewMatrixLegacy(Camera camera, Matrix4f matrix) {
+        Vector3f position = camera.getPosition();
+
+        matrix.setIdentity();
+        Matrix4f.rotate((float) Math.toRadians(camera.getPitch()), X_AXIS, matrix, matrix);
+        Matrix4f.rotate((float) Math.toRadians(camera.getYaw()), Y_AXIS, matrix, matrix);
+        Matrix4f.translate(new Vector3f(-position.x, -position.y, -position.z), matrix, matrix);
+
+        return matrix;
+    }
+
+    /**
+     * A camera with a fixed position and orientation.
+     */
+    private static class TestCamera extends Camera {
+
+        private final Vector3f position;
+        private float pitch;
+        private final float yaw;
+
+        private TestCamera(Vector3f position, float pitch, float yaw) {
+            this.position = position;
+            this.pitch = pitch;
+            this.yaw = yaw;
+        }
+
+        @Override
+        public void move() {
+        }
+
+        @Override
+        public Vector3f getPosition() {
+            return position;
+        }
+
+        @Override
+        public float getPitch() {
+            return pitch;
+        }
+
+        @Override
+        public float getYaw() {
+            return yaw;
+        }
+
+        @Override
+        public float getRoll() {
+            return 0;
+        }
+
+        @Override
+        public void invertPitch() {
+            pitch = -pitch;
+        }
+
+    }
+
+}
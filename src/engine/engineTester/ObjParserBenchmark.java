@@ -0,0 +1,225 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.engineTester;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.lwjgl.util.vector.Vector2f;
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.models.ModelData;
+import engine.renderEngine.ObjParser;
+
+/**
+ * The ObjParserBenchmark class compares the {@link ObjParser} with the line-based parsing the OBJ
+ * loaders used before, which split every line into strings and collected boxed values. It times
+ * both on {@code barrel.obj}, {@code stall.obj} and a generated grid of about a million
+ * triangles. No GL context is needed; only the parsing into arrays is timed.
+ *
+ * <p>Usage: {@code ObjParserBenchmark [iterations]}, run from the project root so the
+ * {@code res} folder is found.
+ */
+public class ObjParserBenchmark {
+
+    private static final int DEFAULT_ITERATIONS = 10;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int GRID_SIZE = 708;
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+
+        File grid = File.createTempFile("grid", ".obj");
+        grid.deleteOnExit();
+        writeGrid(grid, GRID_SIZE);
+
+        File[] files = { new File("res/barrel.obj"), new File("res/stall.obj"), grid };
+
+        System.out.printf("%-12s %10s %12s %12s %8s%n", "model", "triangles", "legacy ms", "parser ms", "speedup");
+
+        for (File file : files) {
+            int triangles = ObjParser.parse(file).getIndices().length / 3;
+            double legacy = time(file, iterations, true);
+            double parser = time(file, iterations, false);
+            String name = file == grid ? "grid" : file.getName();
+
+            System.out.printf("%-12s %10d %12.2f %12.2f %7.1fx%n", name, triangles, legacy, parser, legacy / parser);
+        }
+    }
+
+    /**
+     * Parses a file repeatedly and returns the median time of one parse.
+     *
+     * @param file       The OBJ file.
+     * @param iterations The number of timed parses, after a few untimed ones.
+     * @param legacy     Whether to use the old line-based parsing.
+     * @return The median time in milliseconds.
+     */
+    private static double time(File file, int iterations, boolean legacy) throws IOException {
+        long[] nanos = new long[iterations];
+
+        for (int i = -WARMUP_ITERATIONS; i < iterations; i++) {
+            long start = System.nanoTime();
+
+            if (legacy) {
+                parseLegacy(file);
+            } else {
+                ObjParser.parse(file);
+            }
+
+            long elapsed = System.nanoTime() - start;
+
+            if (i >= 0) {
+                nanos[i] = elapsed;
+            }
+        }
+
+        Arrays.sort(nanos);
+
+        return nanos[iterations / 2] / 1e6;
+    }
+
+    /**
+     * Parses an OBJ file the way the loaders used to: line by line with {@code split}, a vector
+     * object per attribute and a boxed integer per index. Vertices are not split at texture seams,
+     * which the old {@code OBJLoader} didn't do either.
+     */
+    private static ModelData parseLegacy(File file) throws IOException {
+        List<Vector3f> vertices = new ArrayList<Vector3f>();
+        List<Vector2f> textures = new ArrayList<Vector2f>();
+        List<Vector3f> normals = new ArrayList<Vector3f>();
+        List<Integer> indices = new ArrayList<Integer>();
+        float[] textureArray = null;
+        float[] normalsArray = null;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] currentLine = line.split(" ");
+
+                if (line.startsWith("v ")) {
+                    vertices.add(new Vector3f(Float.parseFloat(currentLine[1]), Float.parseFloat(currentLine[2]),
+                            Float.parseFloat(currentLine[3])));
+                } else if (line.startsWith("vt ")) {
+                    textures.add(new Vector2f(Float.parseFloat(currentLine[1]), Float.parseFloat(currentLine[2])));
+                } else if (line.startsWith("vn ")) {
+                    normals.add(new Vector3f(Float.parseFloat(currentLine[1]), Float.parseFloat(currentLine[2]),
+                            Float.parseFloat(currentLine[3])));
+                } else if (line.startsWith("f ")) {
+                    if (textureArray == null) {
+                        textureArray = new float[vertices.size() * 2];
+                        normalsArray = new float[vertices.size() * 3];
+                    }
+
+                    for (int i = 1; i <= 3; i++) {
+                        String[] vertex = currentLine[i].split("/");
+                        int index = Integer.parseInt(vertex[0]) - 1;
+                        Vector2f texture = textures.get(Integer.parseInt(vertex[1]) - 1);
+                        Vector3f normal = normals.get(Integer.parseInt(vertex[2]) - 1);
+
+                        indices.add(index);
+                        textureArray[index * 2] = texture.x;
+                        textureArray[index * 2 + 1] = 1 - texture.y;
+                        normalsArray[index * 3] = normal.x;
+                        normalsArray[index * 3 + 1] = normal.y;
+                        normalsArray[index * 3 + 2] = normal.z;
+                    }
+                }
+            }
+        }
+
+        float[] verticesArray = new float[vertices.size() * 3];
+        float furthest = 0;
+
+        for (int i = 0; i < vertices.size(); i++) {
+            Vector3f vertex = vertices.get(i);
+
+            verticesArray[i * 3] = vertex.x;
+            verticesArray[i * 3 + 1] = vertex.y;
+            verticesArray[i * 3 + 2] = vertex.z;
+            furthest = Math.max(furthest, vertex.length());
+        }
+
+        int[] indicesArray = new int[indices.size()];
+
+        for (int i = 0; i < indicesArray.length; i++) {
+            indicesArray[i] = indices.get(i);
+        }
+
+        return new ModelData(verticesArray, textureArray, normalsArray, indicesArray, furthest);
+    }
+
+    /**
+     * Writes a wavy grid of {@code size} by {@code size} vertices as triangles with positions,
+     * texture coordinates and normals.
+     */
+    private static void writeGrid(File file, int size) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    writer.write(String.format(Locale.ROOT, "v %.6f %.6f %.6f%n", x * 0.1f, (float) Math.sin(x * 0.05) * 0.5f,
+                            z * 0.1f));
+                }
+            }
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    writer.write(String.format(Locale.ROOT, "vt %.6f %.6f%n", x / (float) (size - 1), z / (float) (size - 1)));
+                }
+            }
+
+            writer.write("vn 0.000000 1.000000 0.000000\n");
+
+            for (int z = 0; z < size - 1; z++) {
+                for (int x = 0; x < size - 1; x++) {
+                    int topLeft = z * size + x + 1;
+                    int topRight = topLeft + 1;
+                    int bottomLeft = topLeft + size;
+                    int bottomRight = bottomLeft + 1;
+
+                    writer.write("f " + topLeft + "/" + topLeft + "/1 " + bottomLeft + "/" + bottomLeft + "/1 "
+                            + topRight + "/" + topRight + "/1\n");
+                    writer.write("f " + topRight + "/" + topRight + "/1 " + bottomLeft + "/" + bottomLeft + "/1 "
+                            + bottomRight + "/" + bottomRight + "/1\n");
+                }
+            }
+        }
+    }
+
+}
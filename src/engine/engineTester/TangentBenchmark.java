@@ -0,0 +1,231 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.engineTester;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.models.ModelData;
+import engine.renderEngine.OBJLoader;
+import engine.renderEngine.TangentGenerator;
+
+/**
+ * The TangentBenchmark class compares the {@link TangentGenerator} with the way the normal mapped
+ * OBJ loader used to calculate tangents: a vector object per triangle tangent, collected in a
+ * list per vertex and averaged at the end. It times both on {@code barrel.obj},
+ * {@code boulder.obj} and a generated grid of about a million triangles whose right half has
+ * mirrored texture coordinates, once on the calling thread and once split across the cores. No
+ * GL context is needed.
+ *
+ * <p>Usage: {@code TangentBenchmark [iterations]}, run from the project root so the {@code res}
+ * folder is found.
+ */
+public class TangentBenchmark {
+
+    private static final int DEFAULT_ITERATIONS = 10;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int GRID_SIZE = 708;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+
+        String[] names = { "barrel", "boulder", "grid" };
+        ModelData[] models = { OBJLoader.loadModelData("barrel"), OBJLoader.loadModelData("boulder"),
+                createGrid(GRID_SIZE) };
+
+        System.out.printf("%-10s %10s %6s %10s %10s %12s %10s %8s%n", "model", "triangles", "tasks", "mirrored",
+                "legacy ms", "single ms", "parallel ms", "speedup");
+
+        for (int m = 0; m < models.length; m++) {
+            ModelData data = models[m];
+            int tasks = TangentGenerator.getTaskCount(data.getIndices().length / 3);
+            double legacy = time(iterations, () -> calculateLegacy(data));
+            double single = time(iterations, () -> TangentGenerator.calculateTangents(data, 1));
+            double parallel = time(iterations, () -> TangentGenerator.calculateTangents(data, Math.max(2, tasks)));
+
+            System.out.printf("%-10s %10d %6d %10d %10.2f %12.2f %10.2f %7.1fx%n", names[m],
+                    data.getIndices().length / 3, tasks, countMirrored(TangentGenerator.calculateTangents(data)),
+                    legacy, single, parallel, legacy / Math.min(single, parallel));
+        }
+    }
+
+    /**
+     * Runs a calculation repeatedly and returns the median time of one run.
+     *
+     * @param iterations  The number of timed runs, after a few untimed ones.
+     * @param calculation The calculation.
+     * @return The median time in milliseconds.
+     */
+    private static double time(int iterations, Runnable calculation) {
+        long[] nanos = new long[iterations];
+
+        for (int i = -WARMUP_ITERATIONS; i < iterations; i++) {
+            long start = System.nanoTime();
+
+            calculation.run();
+
+            long elapsed = System.nanoTime() - start;
+
+            if (i >= 0) {
+                nanos[i] = elapsed;
+            }
+        }
+
+        Arrays.sort(nanos);
+
+        return nanos[iterations / 2] / 1e6;
+    }
+
+    /**
+     * Calculates tangents the way the loader used to: every vertex collects the tangents of its
+     * triangles as vector objects in a list, which are summed and normalized at the end. There is
+     * no handedness and no orthogonalization.
+     */
+    private static float[] calculateLegacy(ModelData data) {
+        float[] positions = data.getVertices();
+        float[] textureCoords = data.getTextureCoords();
+        int[] indices = data.getIndices();
+        int vertexCount = positions.length / 3;
+        List<List<Vector3f>> vertexTangents = new ArrayList<List<Vector3f>>(vertexCount);
+
+        for (int i = 0; i < vertexCount; i++) {
+            vertexTangents.add(new ArrayList<Vector3f>());
+        }
+
+        for (int i = 0; i + 2 < indices.length; i += 3) {
+            int v0 = indices[i];
+            int v1 = indices[i + 1];
+            int v2 = indices[i + 2];
+            Vector3f deltaPos1 = Vector3f.sub(position(positions, v1), position(positions, v0), null);
+            Vector3f deltaPos2 = Vector3f.sub(position(positions, v2), position(positions, v0), null);
+            float deltaUv1x = textureCoords[v1 * 2] - textureCoords[v0 * 2];
+            float deltaUv1y = textureCoords[v1 * 2 + 1] - textureCoords[v0 * 2 + 1];
+            float deltaUv2x = textureCoords[v2 * 2] - textureCoords[v0 * 2];
+            float deltaUv2y = textureCoords[v2 * 2 + 1] - textureCoords[v0 * 2 + 1];
+            float r = 1.0f / (deltaUv1x * deltaUv2y - deltaUv1y * deltaUv2x);
+
+            deltaPos1.scale(deltaUv2y);
+            deltaPos2.scale(deltaUv1y);
+
+            Vector3f tangent = Vector3f.sub(deltaPos1, deltaPos2, null);
+
+            tangent.scale(r);
+            vertexTangents.get(v0).add(tangent);
+            vertexTangents.get(v1).add(tangent);
+            vertexTangents.get(v2).add(tangent);
+        }
+
+        float[] tangents = new float[vertexCount * 3];
+
+        for (int i = 0; i < vertexCount; i++) {
+            Vector3f average = new Vector3f();
+
+            for (Vector3f tangent : vertexTangents.get(i)) {
+                Vector3f.add(average, tangent, average);
+            }
+            if (average.lengthSquared() > 0) {
+                average.normalise();
+            }
+
+            tangents[i * 3] = average.x;
+            tangents[i * 3 + 1] = average.y;
+            tangents[i * 3 + 2] = average.z;
+        }
+
+        return tangents;
+    }
+
+    private static Vector3f position(float[] positions, int vertex) {
+        return new Vector3f(positions[vertex * 3], positions[vertex * 3 + 1], positions[vertex * 3 + 2]);
+    }
+
+    /**
+     * Counts the vertices whose tangent frame is mirrored.
+     */
+    private static int countMirrored(float[] tangents) {
+        int count = 0;
+
+        for (int i = TangentGenerator.COMPONENTS - 1; i < tangents.length; i += TangentGenerator.COMPONENTS) {
+            if (tangents[i] < 0) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Creates a wavy grid of {@code size} by {@code size} vertices. The texture is mirrored on
+     * the right half, with the vertices of the middle column shared by both halves.
+     */
+    private static ModelData createGrid(int size) {
+        float[] positions = new float[size * size * 3];
+        float[] textureCoords = new float[size * size * 2];
+        float[] normals = new float[size * size * 3];
+        int[] indices = new int[(size - 1) * (size - 1) * 6];
+        int half = size / 2;
+
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int i = z * size + x;
+
+                positions[i * 3] = x * 0.1f;
+                positions[i * 3 + 1] = (float) Math.sin(x * 0.05) * 0.5f;
+                positions[i * 3 + 2] = z * 0.1f;
+                textureCoords[i * 2] = (x <= half ? x : 2 * half - x) / (float) (size - 1);
+                textureCoords[i * 2 + 1] = z / (float) (size - 1);
+                normals[i * 3 + 1] = 1;
+            }
+        }
+
+        int pointer = 0;
+
+        for (int z = 0; z < size - 1; z++) {
+            for (int x = 0; x < size - 1; x++) {
+                int topLeft = z * size + x;
+                int bottomLeft = topLeft + size;
+
+                indices[pointer++] = topLeft;
+                indices[pointer++] = bottomLeft;
+                indices[pointer++] = topLeft + 1;
+                indices[pointer++] = topLeft + 1;
+                indices[pointer++] = bottomLeft;
+                indices[pointer++] = bottomLeft + 1;
+            }
+        }
+
+        return new ModelData(positions, textureCoords, normals, indices, size * 0.1f);
+    }
+
+}
@@ -26,12 +26,18 @@
 
 package engine.entities;
 
+import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 
 import engine.models.TexturedModel;
+import engine.toolbox.MathUtils;
 
 /**
  * Represents an entity in a 3D environment.
+ *
+ * <p>The model matrix and texture atlas offsets are cached and only rebuilt after the
+ * position, rotation, scale or model changed, so entities that don't move cost nothing
+ * per pass.
  */
 public class Entity {
 
@@ -42,6 +48,17 @@ public class Entity {
 
     private int textureIndex = 0;
 
+    private final Matrix4f transformationMatrix = new Matrix4f();
+    private final Vector3f transformPosition = new Vector3f();
+    private boolean transformDirty = true;
+
+    private float textureXOffset;
+    private float textureYOffset;
+    private int offsetRows;
+    private boolean offsetsDirty = true;
+
+    private int lodLevel;
+
     /**
      * Constructs a new Entity with the specified parameters.
      *
@@ -83,35 +100,63 @@ public class Entity {
     }
 
     /**
-     * Calculates the X offset for the entity's texture coordinate.
+     * Retrieves the model matrix of the entity. The matrix is only rebuilt when the entity
+     * was moved, rotated or scaled since the last call; this includes changes made directly
+     * to the vector returned by {@link #getPosition()}.
+     *
+     * @return The cached model matrix. It is owned by the entity and must not be modified.
+     */
+    public Matrix4f getTransformationMatrix() {
+        if (transformDirty || position.x != transformPosition.x || position.y != transformPosition.y
+                || position.z != transformPosition.z) {
+            MathUtils.createTransformationMatrix(position, rotX, rotY, rotZ, scale, transformationMatrix);
+            transformPosition.set(position);
+            transformDirty = false;
+        }
+
+        return transformationMatrix;
+    }
+
+    /**
+     * Retrieves the X offset for the entity's texture coordinate.
      *
      * @return The X offset for the entity's texture coordinate.
      */
     public float getTextureXOffset() {
-        if (model != null && model.getTexture() != null) {
-            int numberOfRows = model.getTexture().getNumberOfRows();
-            if (numberOfRows > 0) {
-                int column = Math.floorMod(textureIndex, numberOfRows);
-                return (float) column / (float) numberOfRows;
-            }
-        }
-        return 0.0f;
+        updateTextureOffsets();
+        return textureXOffset;
     }
 
     /**
-     * Calculates the Y offset for the entity's texture coordinate.
+     * Retrieves the Y offset for the entity's texture coordinate.
      *
      * @return The Y offset for the entity's texture coordinate.
      */
     public float getTextureYOffset() {
-        if (model != null && model.getTexture() != null) {
-            int numberOfRows = model.getTexture().getNumberOfRows();
-            if (numberOfRows > 0) {
-                int row = Math.floorDiv(textureIndex, numberOfRows);
-                return (float) row / (float) numberOfRows;
-            }
+        updateTextureOffsets();
+        return textureYOffset;
+    }
+
+    /**
+     * Recalculates the texture atlas offsets if the model or its number of rows changed.
+     */
+    private void updateTextureOffsets() {
+        int numberOfRows = model != null && model.getTexture() != null ? model.getTexture().getNumberOfRows() : 0;
+
+        if (!offsetsDirty && numberOfRows == offsetRows) {
+            return;
+        }
+
+        if (numberOfRows > 0) {
+            textureXOffset = (float) Math.floorMod(textureIndex, numberOfRows) / (float) numberOfRows;
+            textureYOffset = (float) Math.floorDiv(textureIndex, numberOfRows) / (float) numberOfRows;
+        } else {
+            textureXOffset = 0.0f;
+            textureYOffset = 0.0f;
         }
-        return 0.0f;
+
+        offsetRows = numberOfRows;
+        offsetsDirty = false;
     }
 
     /**
@@ -125,6 +170,7 @@ public class Entity {
         this.position.x += dx;
         this.position.y += dy;
         this.position.z += dz;
+        this.transformDirty = true;
     }    
 
     /**
@@ -138,6 +184,7 @@ public class Entity {
         this.rotX = (this.rotX + dx) % 360;
         this.rotY = (this.rotY + dy) % 360;
         this.rotZ = (this.rotZ + dz) % 360;
+        this.transformDirty = true;
     }
 
     /**
@@ -156,6 +203,28 @@ public class Entity {
      */
     public void setModel(TexturedModel model) {
         this.model = model;
+        this.offsetsDirty = true;
+        this.lodLevel = 0;
+    }
+
+    /**
+     * Retrieves the level of detail the entity is drawn with, see
+     * {@link TexturedModel#selectLevel(int, float, float)}.
+     *
+     * @return The level, 0 for the full-detail model.
+     */
+    public int getLodLevel() {
+        return lodLevel;
+    }
+
+    /**
+     * Sets the level of detail the entity is drawn with. It is kept between frames, so the next
+     * selection can stick to it.
+     *
+     * @param lodLevel The level, 0 for the full-detail model.
+     */
+    public void setLodLevel(int lodLevel) {
+        this.lodLevel = lodLevel;
     }
 
     /**
@@ -174,6 +243,7 @@ public class Entity {
      */
     public void setPosition(Vector3f position) {
         this.position = position;
+        this.transformDirty = true;
     }
 
     /**
@@ -192,6 +262,7 @@ public class Entity {
      */
     public void setRotX(float rotX) {
         this.rotX = rotX;
+        this.transformDirty = true;
     }
 
     /**
@@ -210,6 +281,7 @@ public class Entity {
      */
     public void setRotY(float rotY) {
         this.rotY = rotY;
+        this.transformDirty = true;
     }
 
     /**
@@ -228,6 +300,7 @@ public class Entity {
      */
     public void setRotZ(float rotZ) {
         this.rotZ = rotZ;
+        this.transformDirty = true;
     }
 
     /**
@@ -246,5 +319,6 @@ public class Entity {
      */
     public void setScale(float scale) {
         this.scale = scale;
+        this.transformDirty = true;
     }
 }
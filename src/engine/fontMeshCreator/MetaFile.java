@@ -33,7 +33,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.lwjgl.opengl.Display;
+import engine.renderEngine.DisplayManager;
 
 /**
  * Provides functionality for getting the values from a font file.
@@ -74,7 +74,7 @@ public class MetaFile {
 	 *            - the font file.
 	 */
 	protected MetaFile(File file) {
-		this.aspectRatio = (double) Display.getWidth() / (double) Display.getHeight();
+		this.aspectRatio = (double) DisplayManager.getWidth() / (double) DisplayManager.getHeight();
 		openFile(file);
 		loadPaddingData();
 		loadLineSizes();
@@ -30,12 +30,12 @@ import java.util.List;
 import java.util.Map;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
 
 import engine.fontMeshCreator.FontType;
 import engine.fontMeshCreator.GUIText;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 
 /**
  * The FontRenderer class is responsible for rendering text using fonts onto the screen.
@@ -44,6 +44,8 @@ public class FontRenderer {
 
 	private FontShader shader;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	/**
      * Creates a new FontRenderer instance.
      */
@@ -61,8 +63,7 @@ public class FontRenderer {
 		
 		for(FontType font : texts.keySet()){
 			
-			GL13.glActiveTexture(GL13.GL_TEXTURE0);
-			GL11.glBindTexture(GL11.GL_TEXTURE_2D, font.getTextureAtlas());
+			GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, font.getTextureAtlas());
 			
 			for(GUIText text : texts.get(font)){
 				renderText(text);
@@ -82,9 +83,9 @@ public class FontRenderer {
      * Prepares the OpenGL environment for text rendering.
      */
 	private void prepare(){
-		GL11.glEnable(GL11.GL_BLEND);
-		GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-		GL11.glDisable(GL11.GL_DEPTH_TEST);
+		GLStateManager.setBlending(true);
+		GLStateManager.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+		GLStateManager.setDepthTest(false);
 		
 		shader.start();
 	}
@@ -95,9 +96,7 @@ public class FontRenderer {
      * @param text The GUIText to render.
      */
 	private void renderText(GUIText text){
-		GL30.glBindVertexArray(text.getMesh());
-		GL20.glEnableVertexAttribArray(0);
-		GL20.glEnableVertexAttribArray(1);
+		GLStateManager.bindVertexArray(text.getMesh());
 		
 		shader.loadColour(text.getColour());
 		shader.loadTranslation(text.getPosition());
@@ -108,10 +107,7 @@ public class FontRenderer {
 		shader.loadOffset(text.getOffset());
 		shader.loadOutlineColour(text.getOutlineColour());
 		
-		GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, text.getVertexCount());
-		GL20.glDisableVertexAttribArray(0);
-		GL20.glDisableVertexAttribArray(1);
-		GL30.glBindVertexArray(0);
+		device.drawArrays(GL11.GL_TRIANGLES, 0, text.getVertexCount());
 	}
 	
 	/**
@@ -119,8 +115,9 @@ public class FontRenderer {
      */
 	private void endRendering(){
 		shader.stop();
-		GL11.glDisable(GL11.GL_BLEND);
-		GL11.glEnable(GL11.GL_DEPTH_TEST);
+		GLStateManager.bindVertexArray(0);
+		GLStateManager.setBlending(false);
+		GLStateManager.setDepthTest(true);
 	}
 
 }
\ No newline at end of file
@@ -86,17 +86,21 @@ public class TextMaster {
 	}
 	
 	/**
-     * Removes a GUI text element from rendering.
+     * Removes a GUI text element from rendering and deletes its mesh.
      *
      * @param text The GUI text element to remove.
      */
 	public static void removeText(GUIText text){
 		List<GUIText> textBatch = texts.get(text.getFont());
 		
-		textBatch.remove(text);
+		if(textBatch == null || !textBatch.remove(text)){
+			return;
+		}
+		
+		loader.releaseVAO(text.getMesh());
 		
 		if(textBatch.isEmpty()){
-			texts.remove(texts.get(text.getFont()));
+			texts.remove(text.getFont());
 		}
 	}
 	
@@ -29,12 +29,12 @@ package engine.guis;
 import java.util.List;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
 import org.lwjgl.util.vector.Matrix4f;
 
 import engine.models.RawModel;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 import engine.renderEngine.Loader;
 import engine.toolbox.MathUtils;
 
@@ -45,6 +45,9 @@ public class GuiRenderer {
 
     private final RawModel quad;
     private GuiShader shader;
+    private final Matrix4f transformation = new Matrix4f();
+
+    private final GraphicsDevice device = Graphics.getDevice();
 
     /**
      * Constructs a GuiRenderer using a loader.
@@ -66,31 +69,26 @@ public class GuiRenderer {
     public void render(List<GuiTexture> guis) {
         shader.start();
 
-        GL30.glBindVertexArray(quad.getVaoID());
+        GLStateManager.bindVertexArray(quad.getVaoID());
 
-        GL20.glEnableVertexAttribArray(0);
+        GLStateManager.setBlending(true);
+        GLStateManager.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        GLStateManager.setDepthTest(false);
 
         for (GuiTexture gui : guis) {
-            GL13.glActiveTexture(GL13.GL_TEXTURE0);
-
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, gui.getTexture());
-            GL11.glEnable(GL11.GL_BLEND);
-            GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-            GL11.glDisable(GL11.GL_DEPTH_TEST);
+            GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, gui.getTexture());
 
-            Matrix4f matrix = MathUtils.createTransformationMatrix(gui.getPosition(), gui.getScale());
+            MathUtils.createTransformationMatrix(gui.getPosition(), gui.getScale(), transformation);
 
-            shader.loadTransformation(matrix);
+            shader.loadTransformation(transformation);
 
-            GL11.glDrawArrays(GL11.GL_TRIANGLE_STRIP, 0, quad.getVertexCount());
+            device.drawArrays(GL11.GL_TRIANGLE_STRIP, 0, quad.getVertexCount());
         }
 
-        GL11.glEnable(GL11.GL_DEPTH_TEST);
-        GL11.glDisable(GL11.GL_BLEND);
-
-        GL30.glBindVertexArray(0);
+        GLStateManager.setDepthTest(true);
+        GLStateManager.setBlending(false);
 
-        GL20.glEnableVertexAttribArray(0);
+        GLStateManager.bindVertexArray(0);
 
         shader.stop();
     }
@@ -0,0 +1,157 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.models;
+
+/**
+ * The ModelData class holds the vertex data of a model as it is read from a file, before it is
+ * loaded into a VAO. The arrays are flat: three floats per vertex for positions and normals,
+ * four for tangents and two for texture coordinates, all indexed by the same vertex index.
+ */
+public class ModelData {
+
+    private final float[] vertices;
+    private final float[] textureCoords;
+    private final float[] normals;
+    private float[] tangents;
+    private final int[] indices;
+    private final float furthestPoint;
+    private float simplificationError;
+
+    /**
+     * Creates model data without tangents.
+     *
+     * @param vertices      The vertex positions.
+     * @param textureCoords The texture coordinates.
+     * @param normals       The normals.
+     * @param indices       The vertex indices, three per triangle.
+     * @param furthestPoint The distance of the vertex furthest from the model origin.
+     */
+    public ModelData(float[] vertices, float[] textureCoords, float[] normals, int[] indices, float furthestPoint) {
+        this.vertices = vertices;
+        this.textureCoords = textureCoords;
+        this.normals = normals;
+        this.indices = indices;
+        this.furthestPoint = furthestPoint;
+    }
+
+    /**
+     * Retrieves the vertex positions.
+     *
+     * @return The positions, three floats per vertex.
+     */
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Retrieves the texture coordinates, with the origin in the top left corner.
+     *
+     * @return The texture coordinates, two floats per vertex.
+     */
+    public float[] getTextureCoords() {
+        return textureCoords;
+    }
+
+    /**
+     * Retrieves the normals.
+     *
+     * @return The normals, three floats per vertex.
+     */
+    public float[] getNormals() {
+        return normals;
+    }
+
+    /**
+     * Retrieves the tangents, if they have been calculated.
+     *
+     * @return The tangents, four floats per vertex, or null.
+     */
+    public float[] getTangents() {
+        return tangents;
+    }
+
+    /**
+     * Sets the tangents of the model, e.g. once they have been calculated for normal mapping.
+     *
+     * @param tangents The tangents, four floats per vertex: the direction and its handedness.
+     * @throws IllegalArgumentException If the array doesn't have four floats per vertex.
+     */
+    public void setTangents(float[] tangents) {
+        if (tangents != null && tangents.length != vertices.length / 3 * 4) {
+            throw new IllegalArgumentException("Expected " + vertices.length / 3 * 4 + " tangent components, got "
+                    + tangents.length);
+        }
+
+        this.tangents = tangents;
+    }
+
+    /**
+     * Retrieves the vertex indices.
+     *
+     * @return The indices, three per triangle.
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * Retrieves the number of vertices.
+     *
+     * @return The vertex count.
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Retrieves the distance of the vertex furthest from the model origin.
+     *
+     * @return The furthest distance.
+     */
+    public float getFurthestPoint() {
+        return furthestPoint;
+    }
+
+    /**
+     * Retrieves how far the surface of this model is from the model it was simplified from.
+     *
+     * @return The error in model units, or 0 for a model that hasn't been simplified.
+     */
+    public float getSimplificationError() {
+        return simplificationError;
+    }
+
+    /**
+     * Sets how far the surface of this model is from the model it was simplified from.
+     *
+     * @param simplificationError The error in model units.
+     */
+    public void setSimplificationError(float simplificationError) {
+        this.simplificationError = simplificationError;
+    }
+
+}
@@ -26,12 +26,23 @@
 
 package engine.models;
 
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.util.vector.Vector3f;
+
 /**
  * Represents a raw model, consisting of a VAO (Vertex Array Object) ID and vertex count.
  */
 public class RawModel {
     private int vaoID;
     private int vertexCount;
+    private int indexType;
+    private int baseVertex;
+    private long indexOffset;
+
+    private Vector3f minBounds;
+    private Vector3f maxBounds;
+    private float boundingRadius;
+    private float simplificationError;
 
     /**
      * Constructs a RawModel with the provided VAO ID and vertex count.
@@ -40,8 +51,21 @@ public class RawModel {
      * @param vertexCount The number of vertices in the model.
      */
     public RawModel(int vaoID, int vertexCount) {
+        this(vaoID, vertexCount, GL11.GL_UNSIGNED_INT);
+    }
+
+    /**
+     * Constructs a RawModel with the provided VAO ID, vertex count and index type.
+     *
+     * @param vaoID       The ID of the Vertex Array Object (VAO).
+     * @param vertexCount The number of vertices (or indices) in the model.
+     * @param indexType   The type of the index buffer, {@code GL_UNSIGNED_SHORT} or
+     *                    {@code GL_UNSIGNED_INT}.
+     */
+    public RawModel(int vaoID, int vertexCount, int indexType) {
         this.vaoID = vaoID;
         this.vertexCount = vertexCount;
+        this.indexType = indexType;
     }
 
     /**
@@ -53,6 +77,46 @@ public class RawModel {
         return vertexCount;
     }
 
+    /**
+     * Retrieves the type of the indices, to be passed to {@code glDrawElements}.
+     *
+     * @return {@code GL_UNSIGNED_SHORT} or {@code GL_UNSIGNED_INT}.
+     */
+    public int getIndexType() {
+        return indexType;
+    }
+
+    /**
+     * Retrieves the value added to every index of this model, which is non-zero when the model
+     * shares its vertex buffer with other models.
+     *
+     * @return The base vertex.
+     */
+    public int getBaseVertex() {
+        return baseVertex;
+    }
+
+    /**
+     * Retrieves the position of the first index of this model in its element buffer.
+     *
+     * @return The byte offset of the indices.
+     */
+    public long getIndexOffset() {
+        return indexOffset;
+    }
+
+    /**
+     * Sets where the model's data starts in buffers shared with other models. This is used by
+     * the geometry arena when it places or moves the model.
+     *
+     * @param baseVertex  The value added to every index.
+     * @param indexOffset The byte offset of the indices.
+     */
+    public void setGeometryRange(int baseVertex, long indexOffset) {
+        this.baseVertex = baseVertex;
+        this.indexOffset = indexOffset;
+    }
+
     /**
      * Retrieves the VAO ID of this raw model.
      *
@@ -61,4 +125,72 @@ public class RawModel {
     public int getVaoID() {
         return vaoID;
     }
+
+    /**
+     * Sets the model-space bounding volumes of this raw model.
+     *
+     * @param minBounds      The minimum corner of the axis-aligned bounding box.
+     * @param maxBounds      The maximum corner of the axis-aligned bounding box.
+     * @param boundingRadius The radius of the bounding sphere centered on the model origin.
+     */
+    public void setBounds(Vector3f minBounds, Vector3f maxBounds, float boundingRadius) {
+        this.minBounds = minBounds;
+        this.maxBounds = maxBounds;
+        this.boundingRadius = boundingRadius;
+    }
+
+    /**
+     * Checks whether bounding volumes have been set for this raw model.
+     *
+     * @return True if the model has bounds, false otherwise.
+     */
+    public boolean hasBounds() {
+        return minBounds != null && maxBounds != null;
+    }
+
+    /**
+     * Retrieves the minimum corner of the model-space axis-aligned bounding box.
+     *
+     * @return The minimum corner, or null if no bounds are set.
+     */
+    public Vector3f getMinBounds() {
+        return minBounds;
+    }
+
+    /**
+     * Retrieves the maximum corner of the model-space axis-aligned bounding box.
+     *
+     * @return The maximum corner, or null if no bounds are set.
+     */
+    public Vector3f getMaxBounds() {
+        return maxBounds;
+    }
+
+    /**
+     * Retrieves the radius of the bounding sphere, centered on the model origin, that contains every vertex.
+     *
+     * @return The bounding radius.
+     */
+    public float getBoundingRadius() {
+        return boundingRadius;
+    }
+
+    /**
+     * Retrieves how far the surface of this model is from the full-detail model, if it is a
+     * simplified level of detail.
+     *
+     * @return The error in model units, or 0 for a full-detail model.
+     */
+    public float getSimplificationError() {
+        return simplificationError;
+    }
+
+    /**
+     * Sets how far the surface of this model is from the full-detail model.
+     *
+     * @param simplificationError The error in model units.
+     */
+    public void setSimplificationError(float simplificationError) {
+        this.simplificationError = simplificationError;
+    }
 }
@@ -32,8 +32,19 @@ import engine.textures.ModelTexture;
  * Represents a textured model, combining a raw model and a model texture.
  */
 public class TexturedModel {
+
+    /**
+     * How much further a coarser level's error has to fall below the allowed error before an
+     * entity switches to it, so entities near a switching distance don't pop back and forth.
+     */
+    public static final float LOD_HYSTERESIS = 0.75f;
+
+    private static final RawModel[] NO_LEVELS = new RawModel[0];
+
     private RawModel rawModel;
     private ModelTexture texture;
+    private boolean useInstancing = true;
+    private RawModel[] levels = NO_LEVELS;
 
     /**
      * Constructs a TexturedModel with the provided raw model and model texture.
@@ -55,6 +66,69 @@ public class TexturedModel {
         return rawModel;
     }
 
+    /**
+     * Retrieves the raw model of a level of detail.
+     *
+     * @param level The level, 0 for the full-detail model. Levels the model doesn't have fall back
+     *              to the coarsest one it has.
+     * @return The raw model of the level.
+     */
+    public RawModel getRawModel(int level) {
+        if (level <= 0 || levels.length == 0) {
+            return rawModel;
+        }
+
+        return levels[Math.min(level, levels.length) - 1];
+    }
+
+    /**
+     * Sets the simplified versions of the raw model, e.g. from
+     * {@link engine.renderEngine.MeshSimplifier}. Each needs its
+     * {@link RawModel#getSimplificationError() simplification error}.
+     *
+     * @param levels The levels below the full-detail model, from the finest to the coarsest.
+     */
+    public void setLevelsOfDetail(RawModel... levels) {
+        this.levels = levels.clone();
+    }
+
+    /**
+     * Retrieves the number of levels of detail, including the full-detail model.
+     *
+     * @return The level count, 1 if the model has no simplified versions.
+     */
+    public int getLevelCount() {
+        return levels.length + 1;
+    }
+
+    /**
+     * Picks the coarsest level of detail whose error stays below a number of pixels on screen.
+     * Switching to a coarser level than the current one needs the error to stay below
+     * {@link #LOD_HYSTERESIS} times as many pixels, while the current and finer levels are
+     * kept up to the full limit.
+     *
+     * @param currentLevel  The level the entity was drawn with last.
+     * @param pixelsPerUnit The size on screen of one model unit, at the entity's distance and
+     *                      scale.
+     * @param maxPixelError The largest error allowed on screen, in pixels.
+     * @return The level to draw the entity with.
+     */
+    public int selectLevel(int currentLevel, float pixelsPerUnit, float maxPixelError) {
+        int level = 0;
+
+        for (int i = 1; i <= levels.length; i++) {
+            float allowedError = i <= currentLevel ? maxPixelError : maxPixelError * LOD_HYSTERESIS;
+
+            if (levels[i - 1].getSimplificationError() * pixelsPerUnit > allowedError) {
+                break;
+            }
+
+            level = i;
+        }
+
+        return level;
+    }
+
     /**
      * Retrieves the model texture applied to this textured model.
      *
@@ -63,4 +137,23 @@ public class TexturedModel {
     public ModelTexture getTexture() {
         return texture;
     }
+
+    /**
+     * Checks whether entities using this model are drawn with a single instanced draw call.
+     *
+     * @return True if instanced rendering is used, false for one draw call per entity.
+     */
+    public boolean isUseInstancing() {
+        return useInstancing;
+    }
+
+    /**
+     * Sets whether entities using this model are drawn with a single instanced draw call.
+     * Models that need per-entity uniforms can opt out and fall back to one draw call per entity.
+     *
+     * @param useInstancing True to use instanced rendering, false to opt out.
+     */
+    public void setUseInstancing(boolean useInstancing) {
+        this.useInstancing = useInstancing;
+    }
 }
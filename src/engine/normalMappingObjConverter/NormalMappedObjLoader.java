@@ -26,249 +26,104 @@
 
 package engine.normalMappingObjConverter;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.lwjgl.util.vector.Vector2f;
-import org.lwjgl.util.vector.Vector3f;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
+import engine.models.ModelData;
 import engine.models.RawModel;
+import engine.renderEngine.BakedMesh;
 import engine.renderEngine.Loader;
+import engine.renderEngine.MeshSimplifier;
+import engine.renderEngine.OBJLoader;
+import engine.renderEngine.TangentGenerator;
 
 public class NormalMappedObjLoader {
 
-	private static final String RES_LOC = "res/";
-
 	/**
 	 * Loads a Wavefront OBJ model file with normal mapping and returns a RawModel.
+	 * Every file is only loaded once per loader; later calls return the same model.
+	 * Every call holds a reference to the model until {@link Loader#releaseModel(RawModel)}.
 	 *
 	 * @param objFileName The name of the OBJ file (without extension) located in the "res" directory.
 	 * @param loader      The Loader object used to load the model into a VAO.
 	 * @return A RawModel representing the loaded OBJ model with normal mapping.
 	 */
 	public static RawModel loadOBJ(String objFileName, Loader loader) {
-		FileReader isr = null;
-		File objFile = new File(RES_LOC + objFileName + ".obj");
-		try {
-			isr = new FileReader(objFile);
-		} catch (FileNotFoundException e) {
-			System.err.println("File not found in res; don't use any extention");
-		}
-		BufferedReader reader = new BufferedReader(isr);
-		String line;
-		List<VertexNM> vertices = new ArrayList<VertexNM>();
-		List<Vector2f> textures = new ArrayList<Vector2f>();
-		List<Vector3f> normals = new ArrayList<Vector3f>();
-		List<Integer> indices = new ArrayList<Integer>();
-		try {
-			while (true) {
-				line = reader.readLine();
-				if (line.startsWith("v ")) {
-					String[] currentLine = line.split(" ");
-					Vector3f vertex = new Vector3f((float) Float.valueOf(currentLine[1]),
-							(float) Float.valueOf(currentLine[2]),
-							(float) Float.valueOf(currentLine[3]));
-					VertexNM newVertex = new VertexNM(vertices.size(), vertex);
-					vertices.add(newVertex);
-
-				} else if (line.startsWith("vt ")) {
-					String[] currentLine = line.split(" ");
-					Vector2f texture = new Vector2f((float) Float.valueOf(currentLine[1]),
-							(float) Float.valueOf(currentLine[2]));
-					textures.add(texture);
-				} else if (line.startsWith("vn ")) {
-					String[] currentLine = line.split(" ");
-					Vector3f normal = new Vector3f((float) Float.valueOf(currentLine[1]),
-							(float) Float.valueOf(currentLine[2]),
-							(float) Float.valueOf(currentLine[3]));
-					normals.add(normal);
-				} else if (line.startsWith("f ")) {
-					break;
-				}
-			}
-			while (line != null && line.startsWith("f ")) {
-				String[] currentLine = line.split(" ");
-				String[] vertex1 = currentLine[1].split("/");
-				String[] vertex2 = currentLine[2].split("/");
-				String[] vertex3 = currentLine[3].split("/");
-				VertexNM v0 = processVertex(vertex1, vertices, indices);
-				VertexNM v1 = processVertex(vertex2, vertices, indices);
-				VertexNM v2 = processVertex(vertex3, vertices, indices);
-				calculateTangents(v0, v1, v2, textures);//NEW
-				line = reader.readLine();
-			}
-			reader.close();
-		} catch (IOException e) {
-			System.err.println("Error reading the file");
-		}
-		removeUnusedVertices(vertices);
-		float[] verticesArray = new float[vertices.size() * 3];
-		float[] texturesArray = new float[vertices.size() * 2];
-		float[] normalsArray = new float[vertices.size() * 3];
-		float[] tangentsArray = new float[vertices.size() * 3];
-		float furthest = convertDataToArrays(vertices, textures, normals, verticesArray,
-				texturesArray, normalsArray, tangentsArray);
-		int[] indicesArray = convertIndicesListToArray(indices);
-
-		return loader.loadToVAO(verticesArray, texturesArray, normalsArray, tangentsArray, indicesArray);
-	}
-
-	/**
-	 * Calculates tangents for the provided vertices to support normal mapping.
-	 *
-	 * @param v0       The first vertex.
-	 * @param v1       The second vertex.
-	 * @param v2       The third vertex.
-	 * @param textures The list of texture coordinates.
-	 */
-	private static void calculateTangents(VertexNM v0, VertexNM v1, VertexNM v2, List<Vector2f> textures) {
-		Vector3f delatPos1 = Vector3f.sub(v1.getPosition(), v0.getPosition(), null);
-		Vector3f delatPos2 = Vector3f.sub(v2.getPosition(), v0.getPosition(), null);
-		Vector2f uv0 = textures.get(v0.getTextureIndex());
-		Vector2f uv1 = textures.get(v1.getTextureIndex());
-		Vector2f uv2 = textures.get(v2.getTextureIndex());
-		Vector2f deltaUv1 = Vector2f.sub(uv1, uv0, null);
-		Vector2f deltaUv2 = Vector2f.sub(uv2, uv0, null);
-
-		float r = 1.0f / (deltaUv1.x * deltaUv2.y - deltaUv1.y * deltaUv2.x);
-		delatPos1.scale(deltaUv2.y);
-		delatPos2.scale(deltaUv1.y);
-		Vector3f tangent = Vector3f.sub(delatPos1, delatPos2, null);
-		tangent.scale(r);
-		v0.addTangent(tangent);
-		v1.addTangent(tangent);
-		v2.addTangent(tangent);
+		return loader.loadModel("normalMappedObj:" + objFileName, () -> parseOBJ(objFileName, loader));
 	}
 
-
 	/**
-	 * Processes a vertex line from the OBJ file and adds it to the vertices list.
+	 * Loads a model with normal mapping like {@link #loadOBJ(String, Loader)}, but
+	 * reads the file and calculates the tangents on the loader's
+	 * {@link Loader#getAssetPipeline() asset pipeline}.
 	 *
-	 * @param vertex      An array of vertex attributes (position, texture index, normal index).
-	 * @param vertices    The list of vertices.
-	 * @param indices     The list of vertex indices.
-	 * @return The processed vertex.
+	 * @param objFileName The name of the OBJ file (without extension) located in the "res" directory.
+	 * @param loader      The Loader object used to load the model into a VAO.
+	 * @return The model, once it has been uploaded on the GL thread.
 	 */
-	private static VertexNM processVertex(String[] vertex, List<VertexNM> vertices, List<Integer> indices) {
-		int index = Integer.parseInt(vertex[0]) - 1;
-		VertexNM currentVertex = vertices.get(index);
-		int textureIndex = Integer.parseInt(vertex[1]) - 1;
-		int normalIndex = Integer.parseInt(vertex[2]) - 1;
-		if (!currentVertex.isSet()) {
-			currentVertex.setTextureIndex(textureIndex);
-			currentVertex.setNormalIndex(normalIndex);
-			indices.add(index);
-			return currentVertex;
-		} else {
-			return dealWithAlreadyProcessedVertex(currentVertex, textureIndex, normalIndex, indices,
-					vertices);
-		}
+	public static CompletableFuture<RawModel> loadOBJAsync(String objFileName, Loader loader) {
+		return loader.loadModelAsync("normalMappedObj:" + objFileName, () -> readOBJ(objFileName, loader));
 	}
 
 	/**
-	 * Converts a list of Integer indices to an int array.
+	 * Creates simplified levels of detail of a model with normal mapping on the
+	 * loader's {@link Loader#getAssetPipeline() asset pipeline}, see
+	 * {@link MeshSimplifier#generateLevels}. The tangents of every level are
+	 * calculated from its own triangles by the {@link TangentGenerator}.
 	 *
-	 * @param indices The list of indices to be converted.
-	 * @return An int array containing the converted indices.
+	 * @param objFileName The name of the OBJ file (without extension) located in the "res" directory.
+	 * @param loader      The Loader object used to load the levels into VAOs.
+	 * @param levelCount  The largest number of levels to create.
+	 * @return The levels below the full-detail model, once they have been uploaded.
 	 */
-	private static int[] convertIndicesListToArray(List<Integer> indices) {
-		int[] indicesArray = new int[indices.size()];
-		for (int i = 0; i < indicesArray.length; i++) {
-			indicesArray[i] = indices.get(i);
-		}
-		return indicesArray;
-	}
+	public static CompletableFuture<RawModel[]> loadLevelsOfDetailAsync(String objFileName, Loader loader,
+			int levelCount) {
+		return loader.loadLevelsOfDetailAsync("normalMappedObj:" + objFileName, () -> {
+			ModelData[] levels = MeshSimplifier.generateLevels(OBJLoader.loadModelData(objFileName), levelCount);
 
-	/**
-	 * Converts data from lists to arrays for use in OpenGL VAOs.
-	 *
-	 * @param vertices        The list of vertices.
-	 * @param textures        The list of texture coordinates.
-	 * @param normals         The list of normals.
-	 * @param verticesArray   The output array for vertex positions.
-	 * @param texturesArray   The output array for texture coordinates.
-	 * @param normalsArray    The output array for normal vectors.
-	 * @param tangentsArray   The output array for tangent vectors.
-	 * @return The furthest point in the model.
-	 */
-	private static float convertDataToArrays(List<VertexNM> vertices, List<Vector2f> textures, List<Vector3f> normals,
-			float[] verticesArray, float[] texturesArray,
-			float[] normalsArray, float[] tangentsArray) {
-		float furthestPoint = 0;
-		for (int i = 0; i < vertices.size(); i++) {
-			VertexNM currentVertex = vertices.get(i);
-			if (currentVertex.getLength() > furthestPoint) {
-				furthestPoint = currentVertex.getLength();
+			for (ModelData level : levels) {
+				level.setTangents(TangentGenerator.calculateTangents(level));
 			}
-			Vector3f position = currentVertex.getPosition();
-			Vector2f textureCoord = textures.get(currentVertex.getTextureIndex());
-			Vector3f normalVector = normals.get(currentVertex.getNormalIndex());
-			Vector3f tangent = currentVertex.getAverageTangent();
-			verticesArray[i * 3] = position.x;
-			verticesArray[i * 3 + 1] = position.y;
-			verticesArray[i * 3 + 2] = position.z;
-			texturesArray[i * 2] = textureCoord.x;
-			texturesArray[i * 2 + 1] = 1 - textureCoord.y;
-			normalsArray[i * 3] = normalVector.x;
-			normalsArray[i * 3 + 1] = normalVector.y;
-			normalsArray[i * 3 + 2] = normalVector.z;
-			tangentsArray[i * 3] = tangent.x;
-			tangentsArray[i * 3 + 1] = tangent.y;
-			tangentsArray[i * 3 + 2] = tangent.z;
 
-		}
-		return furthestPoint;
+			return levels;
+		});
 	}
 
 	/**
-	 * Handles already processed vertices that share the same texture and normal indices.
+	 * Loads the baked version of a Wavefront OBJ file, or parses the file and
+	 * calculates its tangents if the mesh cache can't be used, and loads it into a VAO.
 	 *
-	 * @param previousVertex The previously processed vertex.
-	 * @param newTextureIndex The index of the new texture coordinate.
-	 * @param newNormalIndex The index of the new normal vector.
-	 * @param indices The list of vertex indices.
-	 * @param vertices The list of vertices.
-	 * @return The vertex to use or create for the current face.
+	 * @param objFileName The name of the OBJ file (without extension) located in the "res" directory.
+	 * @param loader      The Loader object used to load the model into a VAO.
+	 * @return A RawModel representing the loaded OBJ model with normal mapping.
+	 * @throws Exception If the file can't be read.
 	 */
-	private static VertexNM dealWithAlreadyProcessedVertex(VertexNM previousVertex, int newTextureIndex, int newNormalIndex, List<Integer> indices, List<VertexNM> vertices) {
-		if (previousVertex.hasSameTextureAndNormal(newTextureIndex, newNormalIndex)) {
-			indices.add(previousVertex.getIndex());
-			return previousVertex;
-		} else {
-			VertexNM anotherVertex = previousVertex.getDuplicateVertex();
-			if (anotherVertex != null) {
-				return dealWithAlreadyProcessedVertex(anotherVertex, newTextureIndex,
-						newNormalIndex, indices, vertices);
-			} else {
-				VertexNM duplicateVertex = previousVertex.duplicate(vertices.size());//NEW
-				duplicateVertex.setTextureIndex(newTextureIndex);
-				duplicateVertex.setNormalIndex(newNormalIndex);
-				previousVertex.setDuplicateVertex(duplicateVertex);
-				vertices.add(duplicateVertex);
-				indices.add(duplicateVertex.getIndex());
-				return duplicateVertex;
-			}
-		}
+	private static RawModel parseOBJ(String objFileName, Loader loader) throws Exception {
+		return readOBJ(objFileName, loader).call();
 	}
 
 	/**
-	 * Removes unused vertices in the vertices list.
+	 * Maps the baked version of a Wavefront OBJ file, or parses the file and
+	 * calculates its tangents if the mesh cache can't be used. Doesn't touch the
+	 * GL context, so it can run on any thread.
 	 *
-	 * @param vertices The list of vertices.
+	 * @param objFileName The name of the OBJ file (without extension) located in the "res" directory.
+	 * @param loader      The Loader object whose mesh cache is used.
+	 * @return The step that loads the model into a VAO, on the GL thread.
 	 */
-	private static void removeUnusedVertices(List<VertexNM> vertices) {
-		for (VertexNM vertex : vertices) {
-			vertex.averageTangents();
-			if (!vertex.isSet()) {
-				vertex.setTextureIndex(0);
-				vertex.setNormalIndex(0);
-			}
+	private static Callable<RawModel> readOBJ(String objFileName, Loader loader) {
+		BakedMesh mesh = loader.loadBakedMesh(objFileName, true);
+
+		if (mesh != null) {
+			return () -> loader.loadToVAO(mesh);
 		}
+
+		ModelData data = OBJLoader.loadModelData(objFileName);
+
+		data.setTangents(TangentGenerator.calculateTangents(data));
+
+		return () -> loader.loadToVAO(data.getVertices(), data.getTextureCoords(), data.getNormals(),
+				data.getTangents(), data.getIndices());
 	}
 
-}
\ No newline at end of file
+}
@@ -30,26 +30,30 @@ import java.util.List;
 import java.util.Map;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector4f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.entities.Entity;
 import engine.entities.Light;
 import engine.models.RawModel;
 import engine.models.TexturedModel;
+import engine.renderEngine.FrameContext;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 import engine.renderEngine.MasterRenderer;
+import engine.renderEngine.RenderQueue;
 import engine.textures.ModelTexture;
-import engine.toolbox.MathUtils;
+import engine.textures.TextureLayer;
 
 public class NormalMappingRenderer {
 
 	private NormalMappingShader shader;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	/**
      * Creates a NormalMappingRenderer with the specified projection matrix.
      * 
@@ -69,22 +73,76 @@ public class NormalMappingRenderer {
      * @param entities   A map of textured models and their corresponding entities to render.
      * @param clipPlane  A vector representing the clipping plane for water rendering.
      * @param lights     A list of light sources in the scene.
-     * @param camera     The camera used for rendering.
+     * @param context    The frame context of the current pass.
      */
-    public void render(Map<TexturedModel, List<Entity>> entities, Vector4f clipPlane, List<Light> lights, Camera camera) {		shader.start();
-		prepare(clipPlane, lights, camera);
+    public void render(Map<TexturedModel, List<Entity>> entities, Vector4f clipPlane, List<Light> lights, FrameContext context) {
+		shader.start();
+		prepare(clipPlane, lights, context);
 		for (TexturedModel model : entities.keySet()) {
+			renderBatch(model, entities.get(model));
+		}
+		GLStateManager.bindVertexArray(0);
+		shader.stop();
+	}
+
+    /**
+     * Renders a range of a sorted render queue with normal mapping. Consecutive entities that
+     * share a textured model are rendered after a single texture bind, each with the mesh of its
+     * level of detail.
+     * 
+     * @param queue      The sorted render queue.
+     * @param start      The first position of the range.
+     * @param end        The position after the last entity of the range.
+     * @param clipPlane  A vector representing the clipping plane for water rendering.
+     * @param lights     A list of light sources in the scene.
+     * @param context    The frame context of the current pass.
+     */
+    public void render(RenderQueue queue, int start, int end, Vector4f clipPlane, List<Light> lights, FrameContext context) {
+		shader.start();
+		prepare(clipPlane, lights, context);
+		int i = start;
+		while (i < end) {
+			TexturedModel model = ((Entity) queue.getItem(i)).getModel();
 			prepareTexturedModel(model);
-			List<Entity> batch = entities.get(model);
-			for (Entity entity : batch) {
+			while (i < end && ((Entity) queue.getItem(i)).getModel() == model) {
+				Entity entity = (Entity) queue.getItem(i);
 				prepareInstance(entity);
-				GL11.glDrawElements(GL11.GL_TRIANGLES, model.getRawModel().getVertexCount(), GL11.GL_UNSIGNED_INT, 0);
+				drawModel(model.getRawModel(entity.getLodLevel()));
+				i++;
 			}
 			unbindTexturedModel();
 		}
+		GLStateManager.bindVertexArray(0);
 		shader.stop();
 	}
 	
+    /**
+     * Renders all entities that share a textured model.
+     * 
+     * @param model The textured model of the batch.
+     * @param batch The entities to render.
+     */
+    private void renderBatch(TexturedModel model, List<Entity> batch) {
+		prepareTexturedModel(model);
+		for (Entity entity : batch) {
+			prepareInstance(entity);
+			drawModel(model.getRawModel(entity.getLodLevel()));
+		}
+		unbindTexturedModel();
+	}
+	
+    /**
+     * Binds the VAO of a model, unless it is bound already, and draws the model, starting at its
+     * index offset and base vertex so models stored in a geometry arena are drawn correctly.
+     * 
+     * @param rawModel The model to draw, at the entity's level of detail.
+     */
+	private void drawModel(RawModel rawModel) {
+		GLStateManager.bindVertexArray(rawModel.getVaoID());
+		device.drawElementsBaseVertex(GL11.GL_TRIANGLES, rawModel.getVertexCount(), rawModel.getIndexType(),
+				rawModel.getIndexOffset(), rawModel.getBaseVertex());
+	}
+	
     /**
      * Cleans up resources used by the renderer.
      */
@@ -93,20 +151,12 @@ public class NormalMappingRenderer {
 	}
 
     /**
-     * Prepares a textured model for rendering by binding its VAO, enabling vertex attributes, and loading shader uniforms.
+     * Prepares a textured model for rendering by binding its textures and loading shader uniforms.
+     * The VAO is bound per entity, since entities may be drawn at different levels of detail.
      * 
      * @param model The textured model to prepare for rendering.
      */
     private void prepareTexturedModel(TexturedModel model) {
-        RawModel rawModel = model.getRawModel();
-        
-        GL30.glBindVertexArray(rawModel.getVaoID());
-        
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glEnableVertexAttribArray(1);
-        GL20.glEnableVertexAttribArray(2);
-        GL20.glEnableVertexAttribArray(3);
-        
         ModelTexture texture = model.getTexture();
         
         shader.loadNumberOfRows(texture.getNumberOfRows());
@@ -117,26 +167,22 @@ public class NormalMappingRenderer {
         
         shader.loadShineVariables(texture.getShineDamper(), texture.getReflectivity());
         
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, model.getTexture().getID());
-        
-        GL13.glActiveTexture(GL13.GL_TEXTURE1);
+        TextureLayer layer = texture.getTextureLayer();
+        shader.loadTextureLayer(layer != null, layer != null ? layer.getLayer() : 0);
         
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, model.getTexture().getNormalMap());
+        if (layer != null) {
+            GLStateManager.bindTexture(NormalMappingShader.TEXTURE_ARRAY_UNIT, GL30.GL_TEXTURE_2D_ARRAY, texture.getID());
+        } else {
+            GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture.getID());
+        }
+        GLStateManager.bindTexture(1, GL11.GL_TEXTURE_2D, texture.getNormalMap());
     }
 
     /**
-     * Unbinds the currently prepared textured model by disabling vertex attributes and binding VAO to 0.
+     * Restores face culling after a textured model. The VAO is unbound once the whole pass is done.
      */
     private void unbindTexturedModel() {
         MasterRenderer.enableCulling();
-        
-        GL20.glDisableVertexAttribArray(0);
-        GL20.glDisableVertexAttribArray(1);
-        GL20.glDisableVertexAttribArray(2);
-        GL20.glDisableVertexAttribArray(3);
-        
-        GL30.glBindVertexArray(0);
     }
 
     /**
@@ -145,9 +191,7 @@ public class NormalMappingRenderer {
      * @param entity The entity to prepare for rendering.
      */
     private void prepareInstance(Entity entity) {
-        Matrix4f transformationMatrix = MathUtils.createTransformationMatrix(entity.getPosition(), entity.getRotX(),
-                entity.getRotY(), entity.getRotZ(), entity.getScale());
-        shader.loadTransformationMatrix(transformationMatrix);
+        shader.loadTransformationMatrix(entity.getTransformationMatrix());
         shader.loadOffset(entity.getTextureXOffset(), entity.getTextureYOffset());
     }
 
@@ -156,13 +200,13 @@ public class NormalMappingRenderer {
      * 
      * @param clipPlane The vector representing the clipping plane for water rendering.
      * @param lights    A list of light sources in the scene.
-     * @param camera    The camera used for rendering.
+     * @param context   The frame context of the current pass.
      */
-    private void prepare(Vector4f clipPlane, List<Light> lights, Camera camera) {
+    private void prepare(Vector4f clipPlane, List<Light> lights, FrameContext context) {
         shader.loadClipPlane(clipPlane);
         shader.loadSkyColour(MasterRenderer.RED, MasterRenderer.GREEN, MasterRenderer.BLUE);
         
-        Matrix4f viewMatrix = MathUtils.createViewMatrix(camera);
+        Matrix4f viewMatrix = context.getViewMatrix();
 
         shader.loadLights(lights, viewMatrix);
         shader.loadViewMatrix(viewMatrix);
@@ -42,6 +42,12 @@ import engine.shaders.ShaderProgram;
 public class NormalMappingShader extends ShaderProgram {	
 	private static final int MAX_LIGHTS = 4;
 	
+	/**
+	 * Texture unit of the texture array for models whose textures are array layers.
+	 * Units 0 and 1 hold the model texture and the normal map.
+	 */
+	protected static final int TEXTURE_ARRAY_UNIT = 2;
+	
 	private static final String VERTEX_FILE = "src/engine/normalMappingRenderer/normalMapVShader.txt";
 	private static final String FRAGMENT_FILE = "src/engine/normalMappingRenderer/normalMapFShader.txt";
 	
@@ -59,6 +65,9 @@ public class NormalMappingShader extends ShaderProgram {
 	private int location_plane;
 	private int location_modelTexture;
 	private int location_normalMap;
+	private int location_modelTextureArray;
+	private int location_useTextureArray;
+	private int location_textureLayer;
 
 	/**
      * Creates a new instance of the NormalMappingShader.
@@ -88,6 +97,9 @@ public class NormalMappingShader extends ShaderProgram {
 		location_plane = super.getUniformLocation("plane");
 		location_modelTexture = super.getUniformLocation("modelTexture");
 		location_normalMap = super.getUniformLocation("normalMap");
+		location_modelTextureArray = super.getUniformLocation("modelTextureArray");
+		location_useTextureArray = super.getUniformLocation("useTextureArray");
+		location_textureLayer = super.getUniformLocation("textureLayer");
 		
 		location_lightPositionEyeSpace = new int[MAX_LIGHTS];
 		location_lightColour = new int[MAX_LIGHTS];
@@ -105,6 +117,21 @@ public class NormalMappingShader extends ShaderProgram {
     protected void connectTextureUnits() {
 		super.loadInt(location_modelTexture, 0);
 		super.loadInt(location_normalMap, 1);
+		super.loadInt(location_modelTextureArray, TEXTURE_ARRAY_UNIT);
+	}
+	
+    /**
+     * Selects between the model texture and a layer of the texture array.
+     *
+     * @param useTextureArray True if the model's texture is an array layer.
+     * @param layer           The layer index.
+     */
+    protected void loadTextureLayer(boolean useTextureArray, int layer) {
+		super.loadBoolean(location_useTextureArray, useTextureArray);
+		
+		if (useTextureArray) {
+			super.loadFloat(location_textureLayer, layer);
+		}
 	}
 	
     /**
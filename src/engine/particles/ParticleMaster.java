@@ -37,6 +37,7 @@ import org.lwjgl.util.vector.Matrix4f;
 
 import engine.entities.Camera;
 import engine.entities.DefaultCamera;
+import engine.renderEngine.FrameContext;
 import engine.renderEngine.Loader;
 
 public class ParticleMaster {
@@ -84,12 +85,12 @@ public class ParticleMaster {
     }
     
     /**
-     * Renders all particles in the system using the specified camera.
+     * Renders all particles in the system for the specified pass.
      *
-     * @param camera The camera used for rendering.
+     * @param context The frame context of the current pass.
      */
-    public static void renderParticles(Camera camera) {
-        renderer.render(particles, camera);
+    public static void renderParticles(FrameContext context) {
+        renderer.render(particles, context);
     }
     
     /**
@@ -26,42 +26,43 @@
 
 package engine.particles;
 
-import java.nio.FloatBuffer;
 import java.util.List;
 import java.util.Map;
 
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
-import org.lwjgl.opengl.GL31;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.models.RawModel;
+import engine.renderEngine.FrameContext;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 import engine.renderEngine.Loader;
-import engine.toolbox.MathUtils;
+import engine.renderEngine.StreamingBuffer;
 
 public class ParticleRenderer {
 	
 	private static final float[] VERTICES = {-0.5f, 0.5f, -0.5f, -0.5f, 0.5f, 0.5f, 0.5f, -0.5f};
 	private static final int MAX_INSTANCES = 10000;
 	private static final int INSTANCE_DATA_LENGTH = 21;
-	
-	private static final FloatBuffer buffer = BufferUtils
-			.createFloatBuffer(MAX_INSTANCES * INSTANCE_DATA_LENGTH);
+	private static final Vector3f Z_AXIS = new Vector3f(0, 0, 1);
 	
 	private RawModel quad;
 	private ParticleShader shader;
 	
-	private Loader loader;
+	private StreamingBuffer streamingBuffer;
 	
-	private int vbo;
+	private final float[] vboData = new float[MAX_INSTANCES * INSTANCE_DATA_LENGTH];
 	private int pointer = 0;
 	
+	private final Matrix4f modelMatrix = new Matrix4f();
+	private final Matrix4f modelViewMatrix = new Matrix4f();
+	private final Vector3f scaleVector = new Vector3f();
+
+	private final GraphicsDevice device = Graphics.getDevice();
+	
 	/**
      * Creates a ParticleRenderer and initializes it with a loader and a projection matrix.
      *
@@ -69,15 +70,15 @@ public class ParticleRenderer {
      * @param projectionMatrix The projection matrix for rendering particles.
      */
     protected ParticleRenderer(Loader loader, Matrix4f projectionMatrix) {
-    	this.loader = loader;
-    	this.vbo = loader.createEmptyVbo(INSTANCE_DATA_LENGTH * MAX_INSTANCES);
+    	this.streamingBuffer = loader.getStreamingBuffer();
+    	int vbo = streamingBuffer.getBufferID();
         quad = loader.loadToVAO(VERTICES, 2);
         loader.addInstancedAttribute(quad.getVaoID(), vbo, 1, 4, INSTANCE_DATA_LENGTH, 0);
         loader.addInstancedAttribute(quad.getVaoID(), vbo, 2, 4, INSTANCE_DATA_LENGTH, 4);
         loader.addInstancedAttribute(quad.getVaoID(), vbo, 3, 4, INSTANCE_DATA_LENGTH, 8);
         loader.addInstancedAttribute(quad.getVaoID(), vbo, 4, 4, INSTANCE_DATA_LENGTH, 12);
         loader.addInstancedAttribute(quad.getVaoID(), vbo, 5, 4, INSTANCE_DATA_LENGTH, 16);
-        loader.addInstancedAttribute(quad.getVaoID(), vbo, 6, 4, INSTANCE_DATA_LENGTH, 20);
+        loader.addInstancedAttribute(quad.getVaoID(), vbo, 6, 1, INSTANCE_DATA_LENGTH, 20);
         shader = new ParticleShader();
         shader.start();
         shader.loadProjectionMatrix(projectionMatrix);
@@ -85,13 +86,15 @@ public class ParticleRenderer {
     }
     
     /**
-     * Renders particles using the specified particle textures and camera.
+     * Renders particles using the specified particle textures and frame context. The instance
+     * data of each texture is written to the streaming buffer and drawn in chunks of
+     * {@link #MAX_INSTANCES}.
      *
      * @param particles The particles to render, organized by texture.
-     * @param camera    The camera used for rendering.
+     * @param context   The frame context of the current pass.
      */
-    protected void render(Map<ParticleTexture, List<Particle>> particles, Camera camera) {
-        Matrix4f viewMatrix = MathUtils.createViewMatrix(camera);
+    protected void render(Map<ParticleTexture, List<Particle>> particles, FrameContext context) {
+        Matrix4f viewMatrix = context.getViewMatrix();
         prepare();
         
         for (ParticleTexture texture : particles.keySet()) {
@@ -100,20 +103,23 @@ public class ParticleRenderer {
         	
         	List<Particle> particleList = particles.get(texture);
         	
-            pointer = 0;
-            
-            float[] vboData = new float[particleList.size() * INSTANCE_DATA_LENGTH];
-            
-            for (Particle particle : particleList) {
-            	
-                updateModelViewMatrix(particle.getPosition(), particle.getRotation(),
-                    particle.getScale(), viewMatrix, vboData);
-                updateTexCoordInfo(particle, vboData);
-            }
-            
-            loader.updateVbo(vbo, vboData, buffer);
-            
-            GL31.glDrawArraysInstanced(GL11.GL_TRIANGLE_STRIP, 0, quad.getVertexCount(), particleList.size());
+        	for (int start = 0; start < particleList.size(); start += MAX_INSTANCES) {
+        		int end = Math.min(start + MAX_INSTANCES, particleList.size());
+        		
+        		pointer = 0;
+        		
+        		for (int i = start; i < end; i++) {
+        			Particle particle = particleList.get(i);
+        			
+        			updateModelViewMatrix(particle.getPosition(), particle.getRotation(),
+        					particle.getScale(), viewMatrix, vboData);
+        			updateTexCoordInfo(particle, vboData);
+        		}
+        		
+        		pointInstanceAttributes(streamingBuffer.upload(vboData, pointer));
+        		
+        		device.drawArraysInstanced(GL11.GL_TRIANGLE_STRIP, 0, quad.getVertexCount(), end - start);
+        	}
         }
         
         finishRendering();
@@ -126,6 +132,22 @@ public class ParticleRenderer {
         shader.cleanUp();
     }
     
+    /**
+     * Points the instanced attributes of the quad at instance data in the streaming buffer,
+     * which must be bound. The divisors and enabled arrays were set up once by the loader.
+     *
+     * @param offset The byte offset of the instance data.
+     */
+    private void pointInstanceAttributes(long offset) {
+    	int stride = INSTANCE_DATA_LENGTH * 4;
+    	
+    	for (int i = 0; i < 5; i++) {
+    		device.vertexAttribPointer(i + 1, 4, GL11.GL_FLOAT, false, stride, offset + i * 16);
+    	}
+    	
+    	device.vertexAttribPointer(6, 1, GL11.GL_FLOAT, false, stride, offset + 80);
+    }
+    
     /**
      * Updates the texture coordinate info.
      *
@@ -147,19 +169,21 @@ public class ParticleRenderer {
      */
     private void bindTexture(ParticleTexture texture) {
     	if(texture.isAdditive()) {
-    		GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE);
+    		GLStateManager.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE);
     	} else {
-    		GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+    		GLStateManager.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
     	}
     	
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture.getTextureID());
+        GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture.getTextureID());
         
         shader.loadNumberOfRows(texture.getNumberOfRows());
     }
 	
     /**
-     * Updates the model-view matrix for rendering particles.
+     * Updates the model-view matrix for rendering particles. The rotation part of the model
+     * matrix is the transpose of the view rotation, so the particle always faces the camera;
+     * its own rotation and scale are then applied in view space. Scratch matrices are reused
+     * so this doesn't allocate per particle.
      *
      * @param position    The position of the particle.
      * @param rotation    The rotation of the particle.
@@ -168,8 +192,10 @@ public class ParticleRenderer {
      */
     private void updateModelViewMatrix(Vector3f position, float rotation, float scale,
     		Matrix4f viewMatrix, float[] vboData) {
-        Matrix4f modelMatrix = new Matrix4f();
-        Matrix4f.translate(position, modelMatrix, modelMatrix);
+        modelMatrix.setIdentity();
+        modelMatrix.m30 = position.x;
+        modelMatrix.m31 = position.y;
+        modelMatrix.m32 = position.z;
         
         modelMatrix.m00 = viewMatrix.m00;
         modelMatrix.m01 = viewMatrix.m10;
@@ -181,9 +207,10 @@ public class ParticleRenderer {
         modelMatrix.m21 = viewMatrix.m12;
         modelMatrix.m22 = viewMatrix.m22;
         
-        Matrix4f modelViewMatrix = Matrix4f.mul(viewMatrix, modelMatrix, null);
-        Matrix4f.rotate((float) Math.toRadians(rotation), new Vector3f(0, 0, 1), modelMatrix, modelMatrix);
-        Matrix4f.scale(new Vector3f(scale, scale, scale), modelMatrix, modelMatrix);
+        Matrix4f.mul(viewMatrix, modelMatrix, modelViewMatrix);
+        Matrix4f.rotate((float) Math.toRadians(rotation), Z_AXIS, modelViewMatrix, modelViewMatrix);
+        scaleVector.set(scale, scale, scale);
+        Matrix4f.scale(scaleVector, modelViewMatrix, modelViewMatrix);
         
         storeMatrixData(modelViewMatrix, vboData);
     }
@@ -219,37 +246,20 @@ public class ParticleRenderer {
     private void prepare() {
         shader.start();
         
-        GL30.glBindVertexArray(quad.getVaoID());
-        
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glEnableVertexAttribArray(1);
-        GL20.glEnableVertexAttribArray(2);
-        GL20.glEnableVertexAttribArray(3);
-        GL20.glEnableVertexAttribArray(4);
-        GL20.glEnableVertexAttribArray(5);
-        GL20.glEnableVertexAttribArray(6);
+        GLStateManager.bindVertexArray(quad.getVaoID());
         
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE);
-        GL11.glDepthMask(false);
+        GLStateManager.setBlending(true);
+        GLStateManager.setDepthMask(false);
     }
     
     /**
      * Finishes the rendering process by disabling settings and cleaning up.
      */
     private void finishRendering() {
-        GL11.glDepthMask(true);
-        GL11.glDisable(GL11.GL_BLEND);
-        
-        GL20.glDisableVertexAttribArray(0);
-        GL20.glDisableVertexAttribArray(1);
-        GL20.glDisableVertexAttribArray(2);
-        GL20.glDisableVertexAttribArray(3);
-        GL20.glDisableVertexAttribArray(4);
-        GL20.glDisableVertexAttribArray(5);
-        GL20.glDisableVertexAttribArray(6);
+        GLStateManager.setDepthMask(true);
+        GLStateManager.setBlending(false);
         
-        GL30.glBindVertexArray(0);
+        GLStateManager.bindVertexArray(0);
         
         shader.stop();
     }
@@ -1,7 +1,8 @@
 package engine.postProcessing;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
+
+import engine.renderEngine.GLStateManager;
 
 public class ContrastChanger {
 	private ImageRenderer renderer;
@@ -14,8 +15,7 @@ public class ContrastChanger {
 	
 	public void render(int texture) {
 		shader.start();
-		GL13.glActiveTexture(GL13.GL_TEXTURE0);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
+		GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture);
 		renderer.renderQuad();
 		shader.stop();
 	}
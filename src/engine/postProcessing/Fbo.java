@@ -3,12 +3,16 @@ package engine.postProcessing;
 
 import java.nio.ByteBuffer;
 
-import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.GL14;
 import org.lwjgl.opengl.GL30;
 
+import engine.renderEngine.DisplayManager;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
+
 public class Fbo {
 
 	public static final int NONE = 0;
@@ -26,6 +30,8 @@ public class Fbo {
 	private int depthBuffer;
 	private int colourBuffer;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	/**
 	 * Creates an FBO of a specified width and height, with the desired type of
 	 * depth buffer attachment.
@@ -48,11 +54,14 @@ public class Fbo {
 	 * Deletes the frame buffer and its attachments when the game closes.
 	 */
 	public void cleanUp() {
-		GL30.glDeleteFramebuffers(frameBuffer);
-		GL11.glDeleteTextures(colourTexture);
-		GL11.glDeleteTextures(depthTexture);
-		GL30.glDeleteRenderbuffers(depthBuffer);
-		GL30.glDeleteRenderbuffers(colourBuffer);
+		device.deleteFramebuffers(frameBuffer);
+		GLStateManager.onFramebufferDeleted(frameBuffer);
+		device.deleteTextures(colourTexture);
+		GLStateManager.onTextureDeleted(colourTexture);
+		device.deleteTextures(depthTexture);
+		GLStateManager.onTextureDeleted(depthTexture);
+		device.deleteRenderbuffers(depthBuffer);
+		device.deleteRenderbuffers(colourBuffer);
 	}
 
 	/**
@@ -60,8 +69,8 @@ public class Fbo {
 	 * rendered after this will be rendered to this FBO, and not to the screen.
 	 */
 	public void bindFrameBuffer() {
-		GL30.glBindFramebuffer(GL30.GL_DRAW_FRAMEBUFFER, frameBuffer);
-		GL11.glViewport(0, 0, width, height);
+		GLStateManager.bindFramebuffer(GL30.GL_DRAW_FRAMEBUFFER, frameBuffer);
+		device.viewport(0, 0, width, height);
 	}
 
 	/**
@@ -70,17 +79,17 @@ public class Fbo {
 	 * screen, and not this FBO.
 	 */
 	public void unbindFrameBuffer() {
-		GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
-		GL11.glViewport(0, 0, Display.getWidth(), Display.getHeight());
+		GLStateManager.bindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+		device.viewport(0, 0, DisplayManager.getWidth(), DisplayManager.getHeight());
 	}
 
 	/**
 	 * Binds the current FBO to be read from (not used in tutorial 43).
 	 */
 	public void bindToRead() {
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
-		GL30.glBindFramebuffer(GL30.GL_READ_FRAMEBUFFER, frameBuffer);
-		GL11.glReadBuffer(GL30.GL_COLOR_ATTACHMENT0);
+		GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, 0);
+		GLStateManager.bindFramebuffer(GL30.GL_READ_FRAMEBUFFER, frameBuffer);
+		device.readBuffer(GL30.GL_COLOR_ATTACHMENT0);
 	}
 
 	/**
@@ -123,9 +132,9 @@ public class Fbo {
 	 * 
 	 */
 	private void createFrameBuffer() {
-		frameBuffer = GL30.glGenFramebuffers();
-		GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
-		GL11.glDrawBuffer(GL30.GL_COLOR_ATTACHMENT0);
+		frameBuffer = device.genFramebuffers();
+		GLStateManager.bindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
+		device.drawBuffer(GL30.GL_COLOR_ATTACHMENT0);
 	}
 
 	/**
@@ -133,15 +142,15 @@ public class Fbo {
 	 * FBO.
 	 */
 	private void createTextureAttachment() {
-		colourTexture = GL11.glGenTextures();
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, colourTexture);
-		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, width, height, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE,
+		colourTexture = device.genTextures();
+		GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, colourTexture);
+		device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, width, height, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE,
 				(ByteBuffer) null);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
-		GL30.glFramebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, GL11.GL_TEXTURE_2D, colourTexture,
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+		device.framebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, GL11.GL_TEXTURE_2D, colourTexture,
 				0);
 	}
 
@@ -150,13 +159,13 @@ public class Fbo {
 	 * be sampled.
 	 */
 	private void createDepthTextureAttachment() {
-		depthTexture = GL11.glGenTextures();
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, depthTexture);
-		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL14.GL_DEPTH_COMPONENT24, width, height, 0, GL11.GL_DEPTH_COMPONENT,
+		depthTexture = device.genTextures();
+		GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, depthTexture);
+		device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL14.GL_DEPTH_COMPONENT24, width, height, 0, GL11.GL_DEPTH_COMPONENT,
 				GL11.GL_FLOAT, (ByteBuffer) null);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
-		GL30.glFramebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL11.GL_TEXTURE_2D, depthTexture, 0);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+		device.framebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL11.GL_TEXTURE_2D, depthTexture, 0);
 	}
 
 	/**
@@ -164,10 +173,10 @@ public class Fbo {
 	 * be used for sampling in the shaders.
 	 */
 	private void createDepthBufferAttachment() {
-		depthBuffer = GL30.glGenRenderbuffers();
-		GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, depthBuffer);
-		GL30.glRenderbufferStorage(GL30.GL_RENDERBUFFER, GL14.GL_DEPTH_COMPONENT24, width, height);
-		GL30.glFramebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER,
+		depthBuffer = device.genRenderbuffers();
+		device.bindRenderbuffer(GL30.GL_RENDERBUFFER, depthBuffer);
+		device.renderbufferStorage(GL30.GL_RENDERBUFFER, GL14.GL_DEPTH_COMPONENT24, width, height);
+		device.framebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER,
 				depthBuffer);
 	}
 
@@ -2,10 +2,15 @@ package engine.postProcessing;
 
 import org.lwjgl.opengl.GL11;
 
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
+
 public class ImageRenderer {
 
 	private Fbo fbo;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	protected ImageRenderer(int width, int height) {
 		this.fbo = new Fbo(width, height, Fbo.NONE);
 	}
@@ -16,8 +21,8 @@ public class ImageRenderer {
 		if (fbo != null) {
 			fbo.bindFrameBuffer();
 		}
-		GL11.glClear(GL11.GL_COLOR_BUFFER_BIT);
-		GL11.glDrawArrays(GL11.GL_TRIANGLE_STRIP, 0, 4);
+		device.clear(GL11.GL_COLOR_BUFFER_BIT);
+		device.drawArrays(GL11.GL_TRIANGLE_STRIP, 0, 4);
 		if (fbo != null) {
 			fbo.unbindFrameBuffer();
 		}
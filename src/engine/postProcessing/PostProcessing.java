@@ -1,10 +1,7 @@
 package engine.postProcessing;
 
-import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
-
 import engine.models.RawModel;
+import engine.renderEngine.GLStateManager;
 import engine.renderEngine.Loader;
 
 public class PostProcessing {
@@ -28,15 +25,13 @@ public class PostProcessing {
 	}
 	
 	private static void start(){
-		GL30.glBindVertexArray(quad.getVaoID());
-		GL20.glEnableVertexAttribArray(0);
-		GL11.glDisable(GL11.GL_DEPTH_TEST);
+		GLStateManager.bindVertexArray(quad.getVaoID());
+		GLStateManager.setDepthTest(false);
 	}
 	
 	private static void end(){
-		GL11.glEnable(GL11.GL_DEPTH_TEST);
-		GL20.glDisableVertexAttribArray(0);
-		GL30.glBindVertexArray(0);
+		GLStateManager.setDepthTest(true);
+		GLStateManager.bindVertexArray(0);
 	}
 
 
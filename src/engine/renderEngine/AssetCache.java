@@ -0,0 +1,166 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The AssetCache class remembers loaded assets, such as models and texture IDs, by a key like
+ * their file name, so an asset that is requested several times is only loaded and uploaded
+ * once. The {@link Loader} keeps one cache for textures and one for models.
+ *
+ * <p>The cache is safe to use from several threads. The first request for a key runs the load;
+ * requests for the same key that arrive while it is still running wait for that load instead of
+ * starting their own. A load that fails is not cached, so the next request tries again.
+ *
+ * @param <T> The type of the cached assets.
+ */
+public class AssetCache<T> {
+
+    private final ConcurrentHashMap<String, FutureTask<T>> entries = new ConcurrentHashMap<String, FutureTask<T>>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Retrieves the asset for a key, loading it if this is the first request for the key.
+     *
+     * @param key  The key of the asset, e.g. its file name.
+     * @param load Loads the asset on a miss.
+     * @return The cached or newly loaded asset.
+     * @throws IllegalStateException If the load fails with a checked exception; unchecked
+     *                               exceptions are rethrown as they are.
+     */
+    public T get(String key, Callable<T> load) {
+        FutureTask<T> task = entries.get(key);
+
+        if (task == null) {
+            FutureTask<T> created = new FutureTask<T>(load);
+            task = entries.putIfAbsent(key, created);
+
+            if (task == null) {
+                task = created;
+                misses.incrementAndGet();
+                created.run();
+            } else {
+                hits.incrementAndGet();
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for asset " + key, e);
+        } catch (ExecutionException e) {
+            entries.remove(key, task);
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw new IllegalStateException("Failed to load asset " + key, e.getCause());
+        }
+    }
+
+    /**
+     * Checks whether an asset has been loaded, or is being loaded, for a key.
+     *
+     * @param key The key of the asset.
+     * @return True if the key is in the cache.
+     */
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Forgets the asset for a key, so the next request loads it again. The asset itself is not
+     * deleted.
+     *
+     * @param key The key of the asset.
+     */
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Forgets all assets and resets the statistics. The assets themselves are not deleted.
+     */
+    public void clear() {
+        entries.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Retrieves the number of requests that were served from the cache, including requests
+     * that waited for a load in progress.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Retrieves the number of requests that had to load their asset.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Retrieves the number of cached assets.
+     *
+     * @return The number of entries.
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Summarizes the statistics of the cache on a single line.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        return "entries=" + getSize() + " hits=" + getHits() + " misses=" + getMisses();
+    }
+
+}
@@ -0,0 +1,215 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The AssetPipeline class loads assets concurrently. The CPU-side work, parsing OBJ and font
+ * files or generating terrain heights, runs on a pool of worker threads as
+ * {@link CompletableFuture}s that can depend on each other. The steps that need the GL context
+ * are queued for the GL thread, which runs them in {@link #processUploads(long)} within a
+ * per-frame time budget, so a loading screen or the scene itself can keep rendering while
+ * assets stream in. {@link #await(CompletableFuture)} instead runs the queue until an asset is
+ * ready, for code that needs it right away.
+ *
+ * <p>It is owned by a {@link Loader}, see {@link Loader#getAssetPipeline()}.
+ */
+public class AssetPipeline {
+
+    private static final Runnable WAKE_UP = () -> {
+    };
+
+    private final ExecutorService workers;
+    private final BlockingQueue<Runnable> uploads = new LinkedBlockingQueue<Runnable>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Executor glThread = this::queueUpload;
+
+    /**
+     * Creates a pipeline with one worker thread per core, minus the one the GL thread uses.
+     */
+    AssetPipeline() {
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "asset-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a task on the worker threads. The task must not touch the GL context.
+     *
+     * @param task The task, e.g. parsing a file.
+     * @return The result of the task.
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        pending.incrementAndGet();
+
+        workers.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Queues a step for the GL thread once an input is ready. If the input fails, the step is
+     * skipped and the returned future fails with the same exception.
+     *
+     * @param input  The CPU-side result the step needs.
+     * @param upload The step, e.g. uploading parsed vertices into a VAO.
+     * @return The result of the step.
+     */
+    public <T, R> CompletableFuture<R> upload(CompletableFuture<T> input, Function<? super T, ? extends R> upload) {
+        return input.thenApplyAsync(upload, glThread);
+    }
+
+    /**
+     * Retrieves an executor that runs tasks on the GL thread, e.g. for
+     * {@link CompletableFuture#thenCombineAsync} when a step needs several inputs.
+     *
+     * @return The executor, whose tasks run in {@link #processUploads(long)} or
+     *         {@link #await(CompletableFuture)}.
+     */
+    public Executor getGLExecutor() {
+        return glThread;
+    }
+
+    /**
+     * Runs queued GL steps until the budget is used up. At least one step runs if any is
+     * waiting, so a step longer than the budget still makes progress. Must be called on the GL
+     * thread, once per frame.
+     *
+     * @param budgetNanos The time the steps may take, in nanoseconds.
+     * @return The number of steps that ran.
+     */
+    public int processUploads(long budgetNanos) {
+        long start = System.nanoTime();
+        int count = 0;
+
+        while (count == 0 || System.nanoTime() - start < budgetNanos) {
+            Runnable upload = uploads.poll();
+
+            if (upload == null) {
+                break;
+            }
+
+            upload.run();
+
+            if (upload != WAKE_UP) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Waits for an asset, running queued GL steps in the meantime, whatever the budget. Must be
+     * called on the GL thread, since the asset may depend on steps queued for it.
+     *
+     * @param future The asset.
+     * @return The asset.
+     * @throws IllegalStateException If loading the asset failed or the thread was interrupted.
+     */
+    public <T> T await(CompletableFuture<T> future) {
+        if (!future.isDone()) {
+            future.whenComplete((result, error) -> uploads.add(WAKE_UP));
+        }
+
+        try {
+            while (!future.isDone()) {
+                uploads.take().run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading assets", e);
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Failed to load asset", e.getCause());
+        }
+    }
+
+    /**
+     * Retrieves the number of tasks and GL steps that haven't finished yet.
+     *
+     * @return The number of pending tasks and steps.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the worker threads and drops the queued GL steps. Assets that haven't finished
+     * loading never complete.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+        uploads.clear();
+        pending.set(0);
+    }
+
+    /**
+     * Queues a GL step, see {@link #getGLExecutor()}.
+     *
+     * @param step The step.
+     */
+    private void queueUpload(Runnable step) {
+        pending.incrementAndGet();
+
+        uploads.add(() -> {
+            try {
+                step.run();
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,282 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import engine.textures.TextureData;
+
+/**
+ * The AsyncTextureLoader class decodes textures on a pool of worker threads and uploads them on
+ * the GL thread. Decoding a PNG is the expensive part of loading a texture and needs no context,
+ * so it runs in parallel; only {@code glTexImage2D}, mipmap generation and the parameter setup
+ * happen on the GL thread, in {@link #processUploads(long)}, which uploads decoded images until a
+ * per-frame byte budget is used up.
+ *
+ * <p>It is owned by a {@link Loader}, which creates the texture IDs and does the actual decoding
+ * and uploading.
+ */
+public class AsyncTextureLoader {
+
+    /**
+     * A decoded image waiting for its upload, or the reason decoding failed.
+     */
+    private static class Upload {
+
+        private final TextureHandle handle;
+        private final TextureData data;
+        private final Exception error;
+
+        private Upload(TextureHandle handle, TextureData data, Exception error) {
+            this.handle = handle;
+            this.data = data;
+            this.error = error;
+        }
+
+    }
+
+    private final Loader loader;
+    private final ExecutorService decoders;
+
+    private final Queue<Upload> decoded = new ConcurrentLinkedQueue<Upload>();
+    private final Map<TextureHandle, Future<TextureData>> inFlight = new ConcurrentHashMap<TextureHandle, Future<TextureData>>();
+
+    /**
+     * Creates a loader with one decoding thread per core, minus the one the GL thread uses.
+     *
+     * @param loader The loader that decodes and uploads the textures.
+     */
+    AsyncTextureLoader(Loader loader) {
+        this.loader = loader;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        this.decoders = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "texture-decoder-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts decoding a texture. Must be called on the GL thread, since the texture ID is
+     * created right away.
+     *
+     * @param fileName The name of the texture file, without the ".png" extension.
+     * @param streamed Whether the texture's fine mipmap levels should be streamed.
+     * @return The handle of the texture, which becomes ready once it has been uploaded.
+     */
+    TextureHandle submit(String fileName, boolean streamed) {
+        TextureHandle handle = new TextureHandle(loader.createTexture(), fileName, false, streamed);
+
+        inFlight.put(handle, decoders.submit(() -> {
+            TextureData data;
+
+            try {
+                data = loader.decodeTexture(fileName);
+            } catch (RuntimeException e) {
+                decoded.add(new Upload(handle, null, e));
+                throw e;
+            }
+
+            decoded.add(new Upload(handle, data, null));
+            return data;
+        }));
+
+        return handle;
+    }
+
+    /**
+     * Runs a task on the decoding threads, e.g. reading a mipmap level for the
+     * {@link TextureStreamer}.
+     *
+     * @param task The task.
+     * @return The result of the task.
+     */
+    <T> Future<T> run(Callable<T> task) {
+        return decoders.submit(task);
+    }
+
+    /**
+     * Decodes several images in parallel and waits for all of them, e.g. the faces of a cube map.
+     *
+     * @param fileNames  The names of the texture files, without the ".png" extension.
+     * @param compressed True to use the compressed texture cache if the loader has it enabled,
+     *                   false to always decode to RGBA.
+     * @return The decoded images, in the same order.
+     */
+    TextureData[] decodeAll(String[] fileNames, boolean compressed) {
+        List<Future<TextureData>> futures = new ArrayList<Future<TextureData>>(fileNames.length);
+
+        for (String fileName : fileNames) {
+            futures.add(decoders.submit(
+                    () -> compressed ? loader.decodeTexture(fileName) : loader.decodeImage(fileName)));
+        }
+
+        TextureData[] data = new TextureData[fileNames.length];
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] = await(futures.get(i), fileNames[i]);
+        }
+
+        return data;
+    }
+
+    /**
+     * Uploads decoded textures until the budget is used up. At least one texture is uploaded
+     * if any is waiting, so a texture larger than the budget still makes progress. Textures
+     * that failed to decode are reported here and no longer count as pending; they stay
+     * incomplete. Must be called on the GL thread, once per frame.
+     *
+     * @param budgetBytes The number of bytes of image data that may be uploaded.
+     * @return The number of textures that were uploaded.
+     */
+    public int processUploads(long budgetBytes) {
+        long uploadedBytes = 0;
+        int uploads = 0;
+
+        while (uploads == 0 || uploadedBytes < budgetBytes) {
+            Upload upload = decoded.poll();
+
+            if (upload == null) {
+                break;
+            }
+
+            if (upload.error != null) {
+                inFlight.remove(upload.handle);
+                System.err.println("Failed to decode texture " + upload.handle.getFileName() + ": "
+                        + upload.error);
+                continue;
+            }
+
+            upload(upload);
+            uploadedBytes += upload.data.getBuffer().remaining();
+            uploads++;
+        }
+
+        return uploads;
+    }
+
+    /**
+     * Waits for a texture to be decoded and uploads it immediately, ignoring the budget. Does
+     * nothing if the texture is already ready, or if it failed to decode and that has already
+     * been reported by {@link #processUploads(long)}. Must be called on the GL thread.
+     *
+     * @param handle The handle of the texture.
+     * @throws IllegalStateException If decoding failed or the thread was interrupted.
+     */
+    public void finish(TextureHandle handle) {
+        Future<TextureData> future = inFlight.get(handle);
+
+        if (future == null) {
+            return;
+        }
+
+        try {
+            await(future, handle.getFileName());
+        } catch (IllegalStateException e) {
+            if (future.isDone()) {
+                inFlight.remove(handle);
+                decoded.removeIf(upload -> upload.handle == handle);
+            }
+
+            throw e;
+        }
+
+        for (Iterator<Upload> it = decoded.iterator(); it.hasNext();) {
+            Upload upload = it.next();
+
+            if (upload.handle == handle) {
+                it.remove();
+                upload(upload);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of textures that haven't been uploaded yet.
+     *
+     * @return The number of textures being decoded or waiting for their upload.
+     */
+    public int getPendingCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Stops the decoding threads. Textures that haven't been uploaded stay incomplete.
+     */
+    public void shutdown() {
+        decoders.shutdownNow();
+        decoded.clear();
+        inFlight.clear();
+    }
+
+    /**
+     * Uploads a decoded image and marks its texture as ready.
+     *
+     * @param upload The decoded image.
+     */
+    private void upload(Upload upload) {
+        loader.uploadTexture(upload.handle, upload.data);
+        inFlight.remove(upload.handle);
+        upload.handle.markReady();
+    }
+
+    /**
+     * Waits for a decoding job.
+     *
+     * @param future   The job.
+     * @param fileName The name of the decoded file, for the error message.
+     * @return The decoded image.
+     * @throws IllegalStateException If decoding failed or the thread was interrupted.
+     */
+    private static TextureData await(Future<TextureData> future, String fileName) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while decoding texture " + fileName, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to decode texture " + fileName, e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.util.vector.Vector3f;
+
+/**
+ * A model whose vertices have been interleaved and whose indices have been narrowed by the
+ * {@link MeshBaker}, ready to be handed to OpenGL as they are. The buffers are usually views of a
+ * memory-mapped cache file, in native byte order.
+ */
+public class BakedMesh {
+
+    private final VertexFormat format;
+    private final boolean tangents;
+    private final int vertexCount;
+    private final ByteBuffer vertexData;
+    private final int indexCount;
+    private final int indexType;
+    private final ByteBuffer indexData;
+
+    private final Vector3f minBounds;
+    private final Vector3f maxBounds;
+    private final float boundingRadius;
+
+    /**
+     * Creates a baked mesh.
+     *
+     * @param format         The layout of the vertices.
+     * @param tangents       Whether the vertices have a tangent.
+     * @param vertexCount    The number of vertices.
+     * @param vertexData     The interleaved vertices.
+     * @param indexCount     The number of indices.
+     * @param indexType      {@code GL_UNSIGNED_SHORT} or {@code GL_UNSIGNED_INT}.
+     * @param indexData      The indices.
+     * @param minBounds      The minimum corner of the model-space bounding box.
+     * @param maxBounds      The maximum corner of the model-space bounding box.
+     * @param boundingRadius The radius of the bounding sphere around the model origin.
+     */
+    public BakedMesh(VertexFormat format, boolean tangents, int vertexCount, ByteBuffer vertexData, int indexCount,
+            int indexType, ByteBuffer indexData, Vector3f minBounds, Vector3f maxBounds, float boundingRadius) {
+        this.format = format;
+        this.tangents = tangents;
+        this.vertexCount = vertexCount;
+        this.vertexData = vertexData;
+        this.indexCount = indexCount;
+        this.indexType = indexType;
+        this.indexData = indexData;
+        this.minBounds = minBounds;
+        this.maxBounds = maxBounds;
+        this.boundingRadius = boundingRadius;
+    }
+
+    /**
+     * Retrieves the layout of the vertices.
+     *
+     * @return The vertex format.
+     */
+    public VertexFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Checks whether the vertices have a tangent.
+     *
+     * @return True if the mesh is normal mapped.
+     */
+    public boolean hasTangents() {
+        return tangents;
+    }
+
+    /**
+     * Retrieves the number of vertices.
+     *
+     * @return The vertex count.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Retrieves the interleaved vertices. The buffer's position is not changed by the loader.
+     *
+     * @return The vertex data.
+     */
+    public ByteBuffer getVertexData() {
+        return vertexData;
+    }
+
+    /**
+     * Retrieves the number of indices.
+     *
+     * @return The index count.
+     */
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * Retrieves the type of the indices.
+     *
+     * @return {@code GL_UNSIGNED_SHORT} or {@code GL_UNSIGNED_INT}.
+     */
+    public int getIndexType() {
+        return indexType;
+    }
+
+    /**
+     * Retrieves the indices. The buffer's position is not changed by the loader.
+     *
+     * @return The index data.
+     */
+    public ByteBuffer getIndexData() {
+        return indexData;
+    }
+
+    /**
+     * Retrieves the minimum corner of the model-space bounding box.
+     *
+     * @return The minimum corner.
+     */
+    public Vector3f getMinBounds() {
+        return minBounds;
+    }
+
+    /**
+     * Retrieves the maximum corner of the model-space bounding box.
+     *
+     * @return The maximum corner.
+     */
+    public Vector3f getMaxBounds() {
+        return maxBounds;
+    }
+
+    /**
+     * Retrieves the radius of the bounding sphere, centered on the model origin.
+     *
+     * @return The bounding radius.
+     */
+    public float getBoundingRadius() {
+        return boundingRadius;
+    }
+
+}
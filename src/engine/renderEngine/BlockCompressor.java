@@ -0,0 +1,328 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.stream.IntStream;
+
+/**
+ * The BlockCompressor class encodes RGBA images into the {@link TextureCompression} formats on the
+ * CPU. It uses the bounding-box method: the endpoints of every 4x4 block are the extremes of its
+ * texels, slightly inset, and each texel picks the closest of the interpolated values. That is
+ * far from the best possible quality, but it is fast enough to bake a texture on first use.
+ *
+ * <p>Rows of blocks are encoded in parallel.
+ */
+public class BlockCompressor {
+
+    /**
+     * Encodes one mipmap level.
+     *
+     * @param format The format to encode to.
+     * @param rgba   The RGBA pixels of the level, 4 bytes per pixel, row by row.
+     * @param width  The width of the level in pixels.
+     * @param height The height of the level in pixels.
+     * @return The compressed blocks, row by row.
+     */
+    public static byte[] compress(TextureCompression format, byte[] rgba, int width, int height) {
+        int blocksWide = (width + 3) / 4;
+        int blocksHigh = (height + 3) / 4;
+        int blockBytes = format.getBlockBytes();
+        byte[] blocks = new byte[format.getLevelSize(width, height)];
+
+        IntStream.range(0, blocksHigh).parallel().forEach(by -> {
+            int[] texels = new int[64];
+            int[] channel = new int[16];
+
+            for (int bx = 0; bx < blocksWide; bx++) {
+                gatherBlock(rgba, width, height, bx * 4, by * 4, texels);
+
+                int offset = (by * blocksWide + bx) * blockBytes;
+
+                switch (format) {
+                case BC1:
+                    encodeColourBlock(texels, blocks, offset);
+                    break;
+                case BC3:
+                    encodeAlphaBlock(extractChannel(texels, 3, channel), blocks, offset);
+                    encodeColourBlock(texels, blocks, offset + 8);
+                    break;
+                case BC5:
+                    encodeAlphaBlock(extractChannel(texels, 0, channel), blocks, offset);
+                    encodeAlphaBlock(extractChannel(texels, 1, channel), blocks, offset + 8);
+                    break;
+                }
+            }
+        });
+
+        return blocks;
+    }
+
+    /**
+     * Halves an image with a box filter, for the next mipmap level. Odd edges repeat their last
+     * row or column.
+     *
+     * @param rgba   The RGBA pixels of the level.
+     * @param width  The width of the level in pixels.
+     * @param height The height of the level in pixels.
+     * @return The RGBA pixels of the next level, which is {@code max(1, width / 2)} by
+     *         {@code max(1, height / 2)} pixels.
+     */
+    public static byte[] downsample(byte[] rgba, int width, int height) {
+        int newWidth = Math.max(1, width / 2);
+        int newHeight = Math.max(1, height / 2);
+        byte[] result = new byte[newWidth * newHeight * 4];
+
+        for (int y = 0; y < newHeight; y++) {
+            int row0 = Math.min(y * 2, height - 1) * width;
+            int row1 = Math.min(y * 2 + 1, height - 1) * width;
+
+            for (int x = 0; x < newWidth; x++) {
+                int x0 = Math.min(x * 2, width - 1);
+                int x1 = Math.min(x * 2 + 1, width - 1);
+
+                for (int c = 0; c < 4; c++) {
+                    int sum = (rgba[(row0 + x0) * 4 + c] & 0xFF) + (rgba[(row0 + x1) * 4 + c] & 0xFF)
+                            + (rgba[(row1 + x0) * 4 + c] & 0xFF) + (rgba[(row1 + x1) * 4 + c] & 0xFF);
+                    result[(y * newWidth + x) * 4 + c] = (byte) ((sum + 2) >> 2);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Copies a 4x4 block of texels, clamping at the edges of the image.
+     *
+     * @param rgba   The RGBA pixels of the image.
+     * @param width  The width of the image in pixels.
+     * @param height The height of the image in pixels.
+     * @param left   The x coordinate of the block's first column.
+     * @param top    The y coordinate of the block's first row.
+     * @param texels Receives the 16 texels as RGBA values from 0 to 255.
+     */
+    private static void gatherBlock(byte[] rgba, int width, int height, int left, int top, int[] texels) {
+        for (int y = 0; y < 4; y++) {
+            int row = Math.min(top + y, height - 1) * width;
+
+            for (int x = 0; x < 4; x++) {
+                int source = (row + Math.min(left + x, width - 1)) * 4;
+                int target = (y * 4 + x) * 4;
+
+                for (int c = 0; c < 4; c++) {
+                    texels[target + c] = rgba[source + c] & 0xFF;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies one channel of a block.
+     *
+     * @param texels  The 16 RGBA texels.
+     * @param channel The channel, 0 for red to 3 for alpha.
+     * @param values  Receives the 16 values.
+     * @return The values array.
+     */
+    private static int[] extractChannel(int[] texels, int channel, int[] values) {
+        for (int i = 0; i < 16; i++) {
+            values[i] = texels[i * 4 + channel];
+        }
+
+        return values;
+    }
+
+    /**
+     * Encodes the colours of a block as two RGB565 endpoints and 2-bit indices. The endpoints
+     * span the block's bounding box along the diagonal that follows the colour trend, so a
+     * block going from red to green doesn't end up interpolating through yellow.
+     *
+     * @param texels The 16 RGBA texels.
+     * @param out    The array to write the 8 bytes to.
+     * @param offset The position in the array.
+     */
+    private static void encodeColourBlock(int[] texels, byte[] out, int offset) {
+        int[] min = { 255, 255, 255 };
+        int[] max = { 0, 0, 0 };
+        int[] sum = new int[3];
+
+        for (int i = 0; i < 16; i++) {
+            for (int c = 0; c < 3; c++) {
+                int value = texels[i * 4 + c];
+                min[c] = Math.min(min[c], value);
+                max[c] = Math.max(max[c], value);
+                sum[c] += value;
+            }
+        }
+
+        int main = 0;
+
+        for (int c = 1; c < 3; c++) {
+            if (max[c] - min[c] > max[main] - min[main]) {
+                main = c;
+            }
+        }
+
+        for (int c = 0; c < 3; c++) {
+            if (c != main) {
+                int covariance = 0;
+
+                for (int i = 0; i < 16; i++) {
+                    covariance += (texels[i * 4 + main] * 16 - sum[main]) * (texels[i * 4 + c] * 16 - sum[c]) >> 8;
+                }
+
+                if (covariance < 0) {
+                    int swap = min[c];
+                    min[c] = max[c];
+                    max[c] = swap;
+                }
+            }
+
+            int inset = (max[c] - min[c]) / 16;
+            max[c] -= inset;
+            min[c] += inset;
+        }
+
+        int colour0 = toRgb565(max);
+        int colour1 = toRgb565(min);
+        int indices = 0;
+
+        if (colour0 != colour1) {
+            boolean swapped = colour0 < colour1;
+
+            if (swapped) {
+                int swap = colour0;
+                colour0 = colour1;
+                colour1 = swap;
+            }
+
+            int[][] palette = new int[4][];
+            palette[0] = fromRgb565(colour0);
+            palette[1] = fromRgb565(colour1);
+            palette[2] = new int[3];
+            palette[3] = new int[3];
+
+            for (int c = 0; c < 3; c++) {
+                palette[2][c] = (2 * palette[0][c] + palette[1][c]) / 3;
+                palette[3][c] = (palette[0][c] + 2 * palette[1][c]) / 3;
+            }
+
+            for (int i = 0; i < 16; i++) {
+                int best = 0;
+                int bestDistance = Integer.MAX_VALUE;
+
+                for (int p = 0; p < 4; p++) {
+                    int distance = 0;
+
+                    for (int c = 0; c < 3; c++) {
+                        int d = texels[i * 4 + c] - palette[p][c];
+                        distance += d * d;
+                    }
+
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = p;
+                    }
+                }
+
+                indices |= best << (i * 2);
+            }
+        }
+
+        out[offset] = (byte) colour0;
+        out[offset + 1] = (byte) (colour0 >> 8);
+        out[offset + 2] = (byte) colour1;
+        out[offset + 3] = (byte) (colour1 >> 8);
+        out[offset + 4] = (byte) indices;
+        out[offset + 5] = (byte) (indices >> 8);
+        out[offset + 6] = (byte) (indices >> 16);
+        out[offset + 7] = (byte) (indices >> 24);
+    }
+
+    /**
+     * Encodes a single channel of a block as two 8-bit endpoints and 3-bit indices into the six
+     * values interpolated between them. This is the alpha block of BC3 and each half of BC5.
+     *
+     * @param values The 16 values from 0 to 255.
+     * @param out    The array to write the 8 bytes to.
+     * @param offset The position in the array.
+     */
+    private static void encodeAlphaBlock(int[] values, byte[] out, int offset) {
+        int min = 255;
+        int max = 0;
+
+        for (int value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        long indices = 0;
+
+        if (max != min) {
+            int range = max - min;
+
+            for (int i = 0; i < 16; i++) {
+                // Steps from max (0) to min (7); codes 0 and 1 are the endpoints, 2 to 7 lie between.
+                int step = ((max - values[i]) * 7 + range / 2) / range;
+                long code = step == 0 ? 0 : step == 7 ? 1 : step + 1;
+                indices |= code << (i * 3);
+            }
+        }
+
+        out[offset] = (byte) max;
+        out[offset + 1] = (byte) min;
+
+        for (int i = 0; i < 6; i++) {
+            out[offset + 2 + i] = (byte) (indices >> (i * 8));
+        }
+    }
+
+    /**
+     * Packs a colour into 16 bits.
+     *
+     * @param rgb The colour, with components from 0 to 255.
+     * @return The colour as RGB565.
+     */
+    private static int toRgb565(int[] rgb) {
+        return ((rgb[0] * 31 + 127) / 255) << 11 | ((rgb[1] * 63 + 127) / 255) << 5 | (rgb[2] * 31 + 127) / 255;
+    }
+
+    /**
+     * Unpacks a 16-bit colour the way the GPU does.
+     *
+     * @param colour The colour as RGB565.
+     * @return The colour, with components from 0 to 255.
+     */
+    private static int[] fromRgb565(int colour) {
+        int r = colour >> 11 & 31;
+        int g = colour >> 5 & 63;
+        int b = colour & 31;
+
+        return new int[] { r << 3 | r >> 2, g << 2 | g >> 4, b << 3 | b >> 2 };
+    }
+
+}
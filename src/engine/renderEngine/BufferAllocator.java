@@ -0,0 +1,226 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The BufferAllocator class hands out ranges of a fixed-size buffer, such as the vertex and index
+ * buffers of a {@link GeometryArena}. It only does the bookkeeping and never touches OpenGL, so
+ * it works in any unit, e.g. vertices or indices.
+ *
+ * <p>Free ranges are kept in a list sorted by offset. Allocation takes the first free range that
+ * is large enough, and freeing merges the range with its free neighbours, so the free list never
+ * holds two adjacent ranges. When the free space is too fragmented, {@link #compact(Mover)}
+ * moves all allocations to the start of the buffer.
+ */
+public class BufferAllocator {
+
+    /**
+     * Receives the moves made by {@link BufferAllocator#compact(Mover)}, so the data can be
+     * copied and the owners of the ranges can be updated.
+     */
+    public interface Mover {
+
+        /**
+         * Called for every allocation that moves. Allocations are reported in ascending order
+         * and always move towards the start of the buffer.
+         *
+         * @param from The old offset of the allocation.
+         * @param to   The new offset of the allocation.
+         * @param size The size of the allocation.
+         */
+        void move(int from, int to, int size);
+
+    }
+
+    private final int capacity;
+
+    private final TreeMap<Integer, Integer> freeRanges = new TreeMap<Integer, Integer>();
+    private final TreeMap<Integer, Integer> allocations = new TreeMap<Integer, Integer>();
+
+    private int used;
+
+    /**
+     * Creates an allocator with all of its capacity free.
+     *
+     * @param capacity The size of the buffer.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public BufferAllocator(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        freeRanges.put(0, capacity);
+    }
+
+    /**
+     * Allocates a range.
+     *
+     * @param size The size of the range.
+     * @return The offset of the range, or -1 if no free range is large enough.
+     * @throws IllegalArgumentException If the size is not positive.
+     */
+    public int allocate(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Allocation size must be positive");
+        }
+
+        for (Map.Entry<Integer, Integer> range : freeRanges.entrySet()) {
+            if (range.getValue() < size) {
+                continue;
+            }
+
+            int offset = range.getKey();
+            int remaining = range.getValue() - size;
+
+            freeRanges.remove(offset);
+
+            if (remaining > 0) {
+                freeRanges.put(offset + size, remaining);
+            }
+
+            allocations.put(offset, size);
+            used += size;
+
+            return offset;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Frees an allocated range.
+     *
+     * @param offset The offset returned by {@link #allocate(int)}.
+     * @throws IllegalArgumentException If there is no allocation at the offset.
+     */
+    public void free(int offset) {
+        Integer size = allocations.remove(offset);
+
+        if (size == null) {
+            throw new IllegalArgumentException("No allocation at offset " + offset);
+        }
+
+        used -= size;
+
+        int start = offset;
+        int end = offset + size;
+
+        Map.Entry<Integer, Integer> before = freeRanges.floorEntry(offset);
+        if (before != null && before.getKey() + before.getValue() == start) {
+            start = before.getKey();
+            freeRanges.remove(start);
+        }
+
+        Integer afterSize = freeRanges.remove(end);
+        if (afterSize != null) {
+            end += afterSize;
+        }
+
+        freeRanges.put(start, end - start);
+    }
+
+    /**
+     * Moves all allocations to the start of the buffer, in their current order, so the free
+     * space becomes a single range at the end.
+     *
+     * @param mover Receives every allocation that moves.
+     */
+    public void compact(Mover mover) {
+        TreeMap<Integer, Integer> compacted = new TreeMap<Integer, Integer>();
+        int next = 0;
+
+        for (Map.Entry<Integer, Integer> allocation : allocations.entrySet()) {
+            int offset = allocation.getKey();
+            int size = allocation.getValue();
+
+            if (offset != next) {
+                mover.move(offset, next, size);
+            }
+
+            compacted.put(next, size);
+            next += size;
+        }
+
+        allocations.clear();
+        allocations.putAll(compacted);
+        freeRanges.clear();
+
+        if (next < capacity) {
+            freeRanges.put(next, capacity - next);
+        }
+    }
+
+    /**
+     * Retrieves the size of the buffer.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retrieves the total size of all allocations.
+     *
+     * @return The used space.
+     */
+    public int getUsed() {
+        return used;
+    }
+
+    /**
+     * Retrieves the size of the largest free range, i.e. the largest allocation that would
+     * currently succeed.
+     *
+     * @return The size of the largest free range.
+     */
+    public int getLargestFreeRange() {
+        int largest = 0;
+
+        for (int size : freeRanges.values()) {
+            largest = Math.max(largest, size);
+        }
+
+        return largest;
+    }
+
+    /**
+     * Retrieves the number of separate free ranges. More than one means the free space is
+     * fragmented.
+     *
+     * @return The number of free ranges.
+     */
+    public int getFreeRangeCount() {
+        return freeRanges.size();
+    }
+
+}
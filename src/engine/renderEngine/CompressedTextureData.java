@@ -0,0 +1,124 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+
+import engine.textures.TextureData;
+
+/**
+ * A texture whose full mipmap chain has been block-compressed by the {@link TextureBaker}. The
+ * buffer returned by {@link #getBuffer()} holds all levels back to back; {@link #getLevel(int)}
+ * returns a view of a single one.
+ */
+public class CompressedTextureData extends TextureData {
+
+    private final TextureCompression format;
+    private final ByteBuffer[] levels;
+
+    /**
+     * Creates the texture data.
+     *
+     * @param buffer The compressed mipmap levels, largest first.
+     * @param width  The width of the largest level in pixels.
+     * @param height The height of the largest level in pixels.
+     * @param format The format the blocks are encoded in.
+     * @param levels The number of mipmap levels in the buffer.
+     * @throws IllegalArgumentException If the buffer is too small for the levels.
+     */
+    public CompressedTextureData(ByteBuffer buffer, int width, int height, TextureCompression format, int levels) {
+        super(buffer, width, height);
+        this.format = format;
+        this.levels = new ByteBuffer[levels];
+
+        int position = buffer.position();
+
+        for (int level = 0; level < levels; level++) {
+            int size = format.getLevelSize(getLevelWidth(level), getLevelHeight(level));
+
+            if (position + size > buffer.limit()) {
+                throw new IllegalArgumentException("Compressed texture data is truncated at level " + level);
+            }
+
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            view.limit(position + size);
+            this.levels[level] = view.slice();
+
+            position += size;
+        }
+    }
+
+    /**
+     * Retrieves the format the blocks are encoded in.
+     *
+     * @return The compression format.
+     */
+    public TextureCompression getFormat() {
+        return format;
+    }
+
+    /**
+     * Retrieves the number of mipmap levels.
+     *
+     * @return The number of levels, including the full-size one.
+     */
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Retrieves the compressed blocks of a mipmap level.
+     *
+     * @param level The level, 0 being the full-size one.
+     * @return The blocks of the level.
+     */
+    public ByteBuffer getLevel(int level) {
+        return levels[level];
+    }
+
+    /**
+     * Computes the width of a mipmap level.
+     *
+     * @param level The level.
+     * @return The width in pixels.
+     */
+    public int getLevelWidth(int level) {
+        return Math.max(1, getWidth() >> level);
+    }
+
+    /**
+     * Computes the height of a mipmap level.
+     *
+     * @param level The level.
+     * @return The height in pixels.
+     */
+    public int getLevelHeight(int level) {
+        return Math.max(1, getHeight() >> level);
+    }
+
+}
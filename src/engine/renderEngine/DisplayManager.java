@@ -27,14 +27,15 @@
 package engine.renderEngine;
 
 import org.lwjgl.LWJGLException;
-import org.lwjgl.Sys;
 import org.lwjgl.opengl.ContextAttribs;
 import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.DisplayMode;
-import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.PixelFormat;
 
+import engine.toolbox.FrameProfiler;
+import engine.toolbox.FrameTimeHistogram;
+
 /**
  * The DisplayManager class is responsible for creating and managing the game's display.
  */
@@ -43,10 +44,19 @@ public class DisplayManager {
     private static final int WIDTH = 1280;
     private static final int HEIGHT = 720;
     private static final int FPS_CAP = 2000;
+    private static final float HEADLESS_FRAME_TIME = 1 / 60f;
+    private static final long FRAME_BUDGET_NANOS = 1000000000L / 60;
+
+    private static final FrameTimeHistogram frameTimes = new FrameTimeHistogram(FRAME_BUDGET_NANOS);
 
     private static long lastFrameTime;
+    private static long lastFrameNanos;
     private static float delta;
 
+    private static boolean headless;
+    private static int headlessWidth;
+    private static int headlessHeight;
+
     /**
      * Creates the game display.
      */
@@ -59,26 +69,67 @@ public class DisplayManager {
             Display.setDisplayMode(new DisplayMode(WIDTH, HEIGHT));
             Display.create(new PixelFormat().withSamples(8), attribs);
             Display.setTitle("cvsEngine Game");
-            GL11.glEnable(GL13.GL_MULTISAMPLE);
+            Graphics.getDevice().enable(GL13.GL_MULTISAMPLE);
         } catch (LWJGLException e) {
             e.printStackTrace();
         }
 
-        GL11.glViewport(0, 0, WIDTH, HEIGHT);
+        Graphics.getDevice().viewport(0, 0, WIDTH, HEIGHT);
         lastFrameTime = getCurrentTime();
     }
 
     /**
-     * Updates the game display.
+     * Sets up rendering without a window or an OpenGL context. All rendering goes to the given
+     * device, which is normally a {@link RecordingGraphicsDevice}, and every frame advances the
+     * game by a fixed 1/60 s so headless runs are repeatable. Nothing from LWJGL that needs
+     * native libraries is touched in this mode.
+     *
+     * @param width  The width of the virtual display in pixels.
+     * @param height The height of the virtual display in pixels.
+     * @param device The device to render to.
+     * @throws IllegalArgumentException If the size is not positive.
+     */
+    public static void createHeadlessDisplay(int width, int height, GraphicsDevice device) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Display size must be positive");
+        }
+
+        headless = true;
+        headlessWidth = width;
+        headlessHeight = height;
+        delta = HEADLESS_FRAME_TIME;
+
+        Graphics.setDevice(device);
+        device.viewport(0, 0, width, height);
+        lastFrameTime = getCurrentTime();
+    }
+
+    /**
+     * Updates the game display. The wall-clock time of the frame is recorded in the
+     * {@link #getFrameTimeHistogram() frame time histogram} in both modes, but only a windowed
+     * display advances the game by it.
      */
     public static void updateDisplay() {
-        Display.sync(FPS_CAP);
-        Display.update();
+        if (!headless) {
+            FrameProfiler.begin("display");
+            Display.sync(FPS_CAP);
+            Display.update();
+            FrameProfiler.end();
+        }
+
+        StreamingBuffer.endFrame();
+        GLStateManager.endFrame();
+        FrameProfiler.endFrame();
 
         long currentFrameTime = getCurrentTime();
 
-        delta = (currentFrameTime - lastFrameTime) / 1000f;
+        lastFrameNanos = currentFrameTime - lastFrameTime;
         lastFrameTime = currentFrameTime;
+        frameTimes.record(lastFrameNanos);
+
+        if (!headless) {
+            delta = lastFrameNanos / 1e9f;
+        }
     }
 
     /**
@@ -90,20 +141,70 @@ public class DisplayManager {
         return delta;
     }
 
+    /**
+     * Retrieves the wall-clock time of the last frame.
+     *
+     * @return The time in nanoseconds.
+     */
+    public static long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    /**
+     * Retrieves the histogram of all frame times since the display was created, or since it
+     * was last reset. Frames slower than 60 FPS count as over budget.
+     *
+     * @return The frame time histogram.
+     */
+    public static FrameTimeHistogram getFrameTimeHistogram() {
+        return frameTimes;
+    }
+
+    /**
+     * Retrieves the width of the display.
+     *
+     * @return The width in pixels.
+     */
+    public static int getWidth() {
+        return headless ? headlessWidth : Display.getWidth();
+    }
+
+    /**
+     * Retrieves the height of the display.
+     *
+     * @return The height in pixels.
+     */
+    public static int getHeight() {
+        return headless ? headlessHeight : Display.getHeight();
+    }
+
+    /**
+     * Checks whether the display runs without a window, see
+     * {@link #createHeadlessDisplay(int, int, GraphicsDevice)}.
+     *
+     * @return True if the display is headless.
+     */
+    public static boolean isHeadless() {
+        return headless;
+    }
+
     /**
      * Closes the game display.
      */
     public static void closeDisplay() {
-        Display.destroy();
+        if (!headless) {
+            Display.destroy();
+        }
     }
 
     /**
-     * Gets the current time in milliseconds using the LWJGL Sys class.
+     * Gets the current time from the JVM's high-resolution clock. The LWJGL timer only has
+     * millisecond resolution, which is too coarse for frames that take a few milliseconds.
      *
-     * @return The current time in milliseconds.
+     * @return The current time in nanoseconds.
      */
     private static long getCurrentTime() {
-        return Sys.getTime() * 1000 / Sys.getTimerResolution();
+        return System.nanoTime();
     }
 
 }
@@ -26,14 +26,14 @@
 
 package engine.renderEngine;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
-import org.lwjgl.opengl.GLContext;
 import org.lwjgl.util.vector.Matrix4f;
 
 import engine.entities.Entity;
@@ -41,77 +41,317 @@ import engine.models.RawModel;
 import engine.models.TexturedModel;
 import engine.shaders.StaticShader;
 import engine.textures.ModelTexture;
-import engine.toolbox.MathUtils;
+import engine.textures.TextureLayer;
 
 /**
  * The EntityRenderer class is responsible for rendering entities in the game world.
  */
 public class EntityRenderer {
 
+    private static final int MAX_INSTANCES = 10000;
+    private static final int INSTANCE_DATA_LENGTH = 19;
+
     private StaticShader shader;
 
+    private Loader loader;
+
+    private StreamingBuffer streamingBuffer;
+    private final float[] vboData = new float[MAX_INSTANCES * INSTANCE_DATA_LENGTH];
+    private int pointer = 0;
+
+    private Set<Integer> instancedVaos = new HashSet<Integer>();
+
+    private List<Entity> runBatch = new ArrayList<Entity>();
+
+    private final GraphicsDevice device = Graphics.getDevice();
+
     /**
      * Creates an EntityRenderer with the provided shader and projection matrix.
      *
+     * @param loader           The loader whose streaming buffer holds the instance data.
      * @param shader           The static shader used for rendering.
      * @param projectionMatrix The projection matrix for the camera.
      */
-    public EntityRenderer(StaticShader shader, Matrix4f projectionMatrix) {
+    public EntityRenderer(Loader loader, StaticShader shader, Matrix4f projectionMatrix) {
+        this.loader = loader;
         this.shader = shader;
+        this.streamingBuffer = loader.getStreamingBuffer();
 
         shader.start();
         shader.loadProjectionMatrix(projectionMatrix);
+        shader.connectTextureUnits();
         shader.stop();
     }
 
     /**
-     * Renders a map of textured models and their associated entities.
+     * Renders a map of textured models and their associated entities. The entities of a model are
+     * drawn in one batch per level of detail.
      *
      * @param entities A map where each textured model is associated with a list of entities to render.
      */
     public void render(Map<TexturedModel, List<Entity>> entities) {
         for (TexturedModel model : entities.keySet()) {
-            if (model != null) {
-                prepareTexturedModel(model);
-    
-                List<Entity> batch = entities.get(model);
-    
-                if (batch != null) {
-                    for (Entity entity : batch) {
-                        if (entity != null) {
-                            prepareInstance(entity);
-                            GL11.glDrawElements(GL11.GL_TRIANGLES, model.getRawModel().getVertexCount(),
-                                    GL11.GL_UNSIGNED_INT, 0);
-                        }
+            if (model == null || entities.get(model) == null) {
+                continue;
+            }
+
+            for (int level = 0; level < model.getLevelCount(); level++) {
+                runBatch.clear();
+
+                for (Entity entity : entities.get(model)) {
+                    if (entity != null && Math.min(entity.getLodLevel(), model.getLevelCount() - 1) == level) {
+                        runBatch.add(entity);
                     }
                 }
-    
-                unbindTexturedModel();
+
+                if (!runBatch.isEmpty()) {
+                    renderBatch(model, model.getRawModel(level), runBatch);
+                }
             }
         }
+
+        runBatch.clear();
+        GLStateManager.bindVertexArray(0);
+    }
+
+    /**
+     * Renders a range of a sorted render queue. Consecutive entities that share a textured
+     * model and level of detail are rendered as one batch, so the queue order decides both the state
+     * changes and the order in which the entities reach the depth buffer. Instanced models that
+     * share a raw model and whose textures are layers of the same texture array join the batch too, with the
+     * layer passed per instance.
+     *
+     * @param queue The sorted render queue.
+     * @param start The first position of the range.
+     * @param end   The position after the last entity of the range.
+     */
+    public void render(RenderQueue queue, int start, int end) {
+        int i = start;
+
+        while (i < end) {
+            Entity first = (Entity) queue.getItem(i);
+            TexturedModel model = first.getModel();
+            RawModel rawModel = model.getRawModel(first.getLodLevel());
+
+            runBatch.clear();
+
+            while (i < end && canShareBatch(model, rawModel, (Entity) queue.getItem(i))) {
+                runBatch.add((Entity) queue.getItem(i));
+                i++;
+            }
+
+            renderBatch(model, rawModel, runBatch);
+        }
+
+        runBatch.clear();
+        GLStateManager.bindVertexArray(0);
+    }
+
+    /**
+     * Checks whether an entity can be drawn in the same instanced batch as a model: it is drawn
+     * with the same raw model, and either has the same textured model or one whose texture only
+     * differs in the texture array layer.
+     *
+     * @param model    The textured model of the batch.
+     * @param rawModel The raw model of the batch, at its level of detail.
+     * @param entity   The next entity.
+     * @return True if the entity can join the batch.
+     */
+    private static boolean canShareBatch(TexturedModel model, RawModel rawModel, Entity entity) {
+        TexturedModel other = entity.getModel();
+
+        if (other.getRawModel(entity.getLodLevel()) != rawModel) {
+            return false;
+        }
+
+        return model == other || (model.isUseInstancing() && other.isUseInstancing()
+                && model.getTexture().sharesMaterial(other.getTexture()));
+    }
+
+    /**
+     * Renders all entities that share a textured model and level of detail.
+     *
+     * @param model    The textured model of the batch.
+     * @param rawModel The raw model of the batch, at its level of detail.
+     * @param batch    The entities to render.
+     */
+    private void renderBatch(TexturedModel model, RawModel rawModel, List<Entity> batch) {
+        if (model.isUseInstancing()) {
+            bindInstancedAttributes(rawModel);
+        }
+
+        prepareTexturedModel(model, rawModel);
+
+        if (batch != null && model.isUseInstancing()) {
+            renderInstanced(rawModel, batch);
+        } else if (batch != null) {
+            shader.loadUseInstancing(false);
+
+            for (Entity entity : batch) {
+                if (entity != null) {
+                    prepareInstance(entity);
+                    drawModel(rawModel);
+                }
+            }
+        }
+
+        unbindTexturedModel();
     }
     
     /**
-     * Prepares the textured model for rendering by binding its VAO, enabling attribute arrays, and loading shader uniforms.
+     * Renders a whole batch with as few draw calls as possible. The transformation matrix and
+     * texture offset of each entity are written to the streaming buffer, and the batch is drawn with
+     * {@code glDrawElementsInstanced}, split into chunks of {@link #MAX_INSTANCES}.
      *
-     * @param model The textured model to prepare.
+     * @param rawModel The raw model shared by the batch, already prepared for rendering.
+     * @param batch    The entities to render.
+     */
+    private void renderInstanced(RawModel rawModel, List<Entity> batch) {
+        shader.loadUseInstancing(true);
+
+        int start = 0;
+
+        while (start < batch.size()) {
+            int end = Math.min(start + MAX_INSTANCES, batch.size());
+
+            pointer = 0;
+
+            int instanceCount = 0;
+
+            for (int i = start; i < end; i++) {
+                Entity entity = batch.get(i);
+
+                if (entity != null) {
+                    storeInstanceData(entity, vboData);
+                    instanceCount++;
+                }
+            }
+
+            if (instanceCount > 0) {
+                pointInstanceAttributes(streamingBuffer.upload(vboData, pointer));
+                device.drawElementsInstancedBaseVertex(GL11.GL_TRIANGLES, rawModel.getVertexCount(),
+                        rawModel.getIndexType(), rawModel.getIndexOffset(), instanceCount, rawModel.getBaseVertex());
+            }
+
+            start = end;
+        }
+    }
+
+    /**
+     * Attaches the streaming buffer to a model's VAO as instance data. This only needs to happen
+     * once per VAO, since the VAO remembers its divisors and enabled arrays; the attribute
+     * pointers are moved to the uploaded data before every draw.
+     *
+     * @param rawModel The raw model whose VAO should read the instance data.
+     */
+    private void bindInstancedAttributes(RawModel rawModel) {
+        if (!instancedVaos.add(rawModel.getVaoID())) {
+            return;
+        }
+
+        int vao = rawModel.getVaoID();
+        int vbo = streamingBuffer.getBufferID();
+
+        loader.addInstancedAttribute(vao, vbo, StaticShader.INSTANCE_MATRIX_ATTRIBUTE, 4, INSTANCE_DATA_LENGTH, 0);
+        loader.addInstancedAttribute(vao, vbo, StaticShader.INSTANCE_MATRIX_ATTRIBUTE + 1, 4, INSTANCE_DATA_LENGTH, 4);
+        loader.addInstancedAttribute(vao, vbo, StaticShader.INSTANCE_MATRIX_ATTRIBUTE + 2, 4, INSTANCE_DATA_LENGTH, 8);
+        loader.addInstancedAttribute(vao, vbo, StaticShader.INSTANCE_MATRIX_ATTRIBUTE + 3, 4, INSTANCE_DATA_LENGTH, 12);
+        loader.addInstancedAttribute(vao, vbo, StaticShader.INSTANCE_OFFSET_ATTRIBUTE, 2, INSTANCE_DATA_LENGTH, 16);
+        loader.addInstancedAttribute(vao, vbo, StaticShader.INSTANCE_LAYER_ATTRIBUTE, 1, INSTANCE_DATA_LENGTH, 18);
+    }
+
+    /**
+     * Draws a single instance of a model whose VAO is bound. Models stored in a geometry arena
+     * share their buffers, so the draw starts at the model's index offset and base vertex.
+     *
+     * @param rawModel The model to draw.
+     */
+    private void drawModel(RawModel rawModel) {
+        device.drawElementsBaseVertex(GL11.GL_TRIANGLES, rawModel.getVertexCount(), rawModel.getIndexType(),
+                rawModel.getIndexOffset(), rawModel.getBaseVertex());
+    }
+
+    /**
+     * Points the instanced attributes of the bound VAO at instance data in the streaming buffer,
+     * which must be bound.
+     *
+     * @param offset The byte offset of the instance data.
+     */
+    private void pointInstanceAttributes(long offset) {
+        int stride = INSTANCE_DATA_LENGTH * 4;
+
+        for (int i = 0; i < 4; i++) {
+            device.vertexAttribPointer(StaticShader.INSTANCE_MATRIX_ATTRIBUTE + i, 4, GL11.GL_FLOAT, false, stride,
+                    offset + i * 16);
+        }
+
+        device.vertexAttribPointer(StaticShader.INSTANCE_OFFSET_ATTRIBUTE, 2, GL11.GL_FLOAT, false, stride,
+                offset + 64);
+        device.vertexAttribPointer(StaticShader.INSTANCE_LAYER_ATTRIBUTE, 1, GL11.GL_FLOAT, false, stride,
+                offset + 72);
+    }
+
+    /**
+     * Writes the transformation matrix, texture offset and texture array layer of an entity into
+     * the instance data.
+     *
+     * @param entity  The entity to store.
+     * @param vboData The float array for the VBO data.
+     */
+    private void storeInstanceData(Entity entity, float[] vboData) {
+        Matrix4f matrix = entity.getTransformationMatrix();
+
+        vboData[pointer++] = matrix.m00;
+        vboData[pointer++] = matrix.m01;
+        vboData[pointer++] = matrix.m02;
+        vboData[pointer++] = matrix.m03;
+        vboData[pointer++] = matrix.m10;
+        vboData[pointer++] = matrix.m11;
+        vboData[pointer++] = matrix.m12;
+        vboData[pointer++] = matrix.m13;
+        vboData[pointer++] = matrix.m20;
+        vboData[pointer++] = matrix.m21;
+        vboData[pointer++] = matrix.m22;
+        vboData[pointer++] = matrix.m23;
+        vboData[pointer++] = matrix.m30;
+        vboData[pointer++] = matrix.m31;
+        vboData[pointer++] = matrix.m32;
+        vboData[pointer++] = matrix.m33;
+        vboData[pointer++] = entity.getTextureXOffset();
+        vboData[pointer++] = entity.getTextureYOffset();
+        vboData[pointer++] = getTextureLayer(entity);
+    }
+
+    /**
+     * Retrieves the texture array layer of an entity's texture.
+     *
+     * @param entity The entity.
+     * @return The layer, or 0 if the texture is not part of a texture array.
+     */
+    private static int getTextureLayer(Entity entity) {
+        TextureLayer layer = entity.getModel().getTexture().getTextureLayer();
+
+        return layer != null ? layer.getLayer() : 0;
+    }
+
+    /**
+     * Prepares the textured model for rendering by binding its VAO and texture, and loading shader uniforms.
+     * The attribute arrays were enabled when the VAO was built.
+     *
+     * @param model    The textured model to prepare.
+     * @param rawModel The raw model to bind, at the level of detail of the batch.
      * @throws IllegalArgumentException If the provided model or its components are invalid.
      */
-    private void prepareTexturedModel(TexturedModel model) {
+    private void prepareTexturedModel(TexturedModel model, RawModel rawModel) {
         if (model == null || model.getRawModel() == null || model.getTexture() == null) {
             throw new IllegalArgumentException("Invalid textured model provided");
         }
     
-        RawModel rawModel = model.getRawModel();
         if (rawModel == null) {
             throw new IllegalArgumentException("Invalid raw model in textured model");
         }
     
-        GL30.glBindVertexArray(rawModel.getVaoID());
-    
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glEnableVertexAttribArray(1);
-        GL20.glEnableVertexAttribArray(2);
+        GLStateManager.bindVertexArray(rawModel.getVaoID());
     
         ModelTexture texture = model.getTexture();
         if (texture == null) {
@@ -128,29 +368,23 @@ public class EntityRenderer {
         shader.loadShineVariables(texture.getShineDamper(), texture.getReflectivity());
     
         int textureID = model.getTexture().getID();
-        if (textureID != 0) {
-            GL13.glActiveTexture(GL13.GL_TEXTURE0);
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID);
+        boolean textureArray = texture.getTextureLayer() != null;
+        shader.loadUseTextureArray(textureArray);
+
+        if (textureArray) {
+            shader.loadTextureLayer(texture.getTextureLayer().getLayer());
+            GLStateManager.bindTexture(StaticShader.TEXTURE_ARRAY_UNIT, GL30.GL_TEXTURE_2D_ARRAY, textureID);
+        } else if (textureID != 0) {
+            GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, textureID);
         }
     }    
 
     /**
-     * Unbinds the currently prepared textured model by disabling attribute arrays and unbinding the VAO.
-     * Note: Requires OpenGL 1.1 support to unbind textured models.
+     * Restores face culling after a textured model. The VAO stays bound, the next model binds its own,
+     * and the pass unbinds it once at the end.
      */
     private void unbindTexturedModel() {
-        if (!GLContext.getCapabilities().OpenGL11) {
-            System.err.println("OpenGL 1.1 is required to unbind textured models, but it's not supported.");
-            return;
-        }
-
         MasterRenderer.enableCulling();
-
-        GL20.glDisableVertexAttribArray(0);
-        GL20.glDisableVertexAttribArray(1);
-        GL20.glDisableVertexAttribArray(2);
-
-        GL30.glBindVertexArray(0);
     }
 
     /**
@@ -164,13 +398,7 @@ public class EntityRenderer {
             return;
         }
     
-        Matrix4f transformationMatrix = MathUtils.createTransformationMatrix(entity.getPosition(),
-                entity.getRotX(), entity.getRotY(), entity.getRotZ(), entity.getScale());
-    
-        if (transformationMatrix == null) {
-            System.err.println("Failed to create transformation matrix for the entity.");
-            return;
-        }
+        Matrix4f transformationMatrix = entity.getTransformationMatrix();
     
         shader.loadTransformationMatrix(transformationMatrix);
     
@@ -0,0 +1,181 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.entities.Camera;
+import engine.toolbox.Frustum;
+import engine.toolbox.MathUtils;
+
+/**
+ * The FrameContext class holds everything that is derived from the camera of a render pass:
+ * the view, projection and view-projection matrices, their inverses, the frustum planes and
+ * the camera position. It is computed once per camera per pass and then read by every
+ * renderer, instead of each of them rebuilding the view matrix on its own.
+ *
+ * <p>The matrices are owned by the context and overwritten on the next update, so they must
+ * not be modified or kept across passes.
+ */
+public class FrameContext {
+
+	private final Matrix4f viewMatrix = new Matrix4f();
+	private final Matrix4f projectionMatrix = new Matrix4f();
+	private final Matrix4f projectionViewMatrix = new Matrix4f();
+
+	private final Matrix4f inverseViewMatrix = new Matrix4f();
+	private final Matrix4f inverseProjectionMatrix = new Matrix4f();
+	private final Matrix4f inverseProjectionViewMatrix = new Matrix4f();
+
+	private final Frustum frustum = new Frustum();
+	private final Vector3f cameraPosition = new Vector3f();
+
+	private Camera camera;
+
+	/**
+	 * Recomputes the context for a camera. Call this once at the start of a pass, after the
+	 * camera has been positioned for it.
+	 *
+	 * @param camera     The camera of the pass.
+	 * @param projection The projection matrix of the pass.
+	 */
+	public void update(Camera camera, Matrix4f projection) {
+		if (camera == null || projection == null) {
+			throw new IllegalArgumentException("Camera and projection matrix cannot be null.");
+		}
+
+		this.camera = camera;
+		cameraPosition.set(camera.getPosition());
+
+		MathUtils.createViewMatrix(camera, viewMatrix);
+
+		// The projection rarely changes, so it is only inverted again when it does. Both
+		// matrices start as the identity, which is its own inverse.
+		if (!isEqual(projectionMatrix, projection)) {
+			projectionMatrix.load(projection);
+			invert(projectionMatrix, inverseProjectionMatrix);
+		}
+
+		Matrix4f.mul(projectionMatrix, viewMatrix, projectionViewMatrix);
+
+		invert(viewMatrix, inverseViewMatrix);
+		Matrix4f.mul(inverseViewMatrix, inverseProjectionMatrix, inverseProjectionViewMatrix);
+
+		frustum.update(projectionViewMatrix);
+	}
+
+	/**
+	 * @return The camera the context was last computed for.
+	 */
+	public Camera getCamera() {
+		return camera;
+	}
+
+	/**
+	 * @return The position of the camera at the time of the update.
+	 */
+	public Vector3f getCameraPosition() {
+		return cameraPosition;
+	}
+
+	/**
+	 * @return The view matrix.
+	 */
+	public Matrix4f getViewMatrix() {
+		return viewMatrix;
+	}
+
+	/**
+	 * @return The projection matrix.
+	 */
+	public Matrix4f getProjectionMatrix() {
+		return projectionMatrix;
+	}
+
+	/**
+	 * @return The projection matrix multiplied by the view matrix.
+	 */
+	public Matrix4f getProjectionViewMatrix() {
+		return projectionViewMatrix;
+	}
+
+	/**
+	 * @return The inverse of the view matrix, transforming eye space to world space.
+	 */
+	public Matrix4f getInverseViewMatrix() {
+		return inverseViewMatrix;
+	}
+
+	/**
+	 * @return The inverse of the projection matrix, transforming clip space to eye space.
+	 */
+	public Matrix4f getInverseProjectionMatrix() {
+		return inverseProjectionMatrix;
+	}
+
+	/**
+	 * @return The inverse of the view-projection matrix, transforming clip space to world space.
+	 */
+	public Matrix4f getInverseProjectionViewMatrix() {
+		return inverseProjectionViewMatrix;
+	}
+
+	/**
+	 * @return The frustum planes of the pass.
+	 */
+	public Frustum getFrustum() {
+		return frustum;
+	}
+
+	/**
+	 * Inverts a matrix into a destination, falling back to the identity for a singular matrix.
+	 *
+	 * @param src  The matrix to invert.
+	 * @param dest The destination matrix.
+	 */
+	private static void invert(Matrix4f src, Matrix4f dest) {
+		if (Matrix4f.invert(src, dest) == null) {
+			System.err.println("Tried to invert a singular matrix, using the identity instead.");
+			dest.setIdentity();
+		}
+	}
+
+	/**
+	 * Checks whether two matrices have exactly the same elements.
+	 *
+	 * @param a The first matrix.
+	 * @param b The second matrix.
+	 * @return True if all sixteen elements are equal.
+	 */
+	private static boolean isEqual(Matrix4f a, Matrix4f b) {
+		return a.m00 == b.m00 && a.m01 == b.m01 && a.m02 == b.m02 && a.m03 == b.m03
+				&& a.m10 == b.m10 && a.m11 == b.m11 && a.m12 == b.m12 && a.m13 == b.m13
+				&& a.m20 == b.m20 && a.m21 == b.m21 && a.m22 == b.m22 && a.m23 == b.m23
+				&& a.m30 == b.m30 && a.m31 == b.m31 && a.m32 == b.m32 && a.m33 == b.m33;
+	}
+}
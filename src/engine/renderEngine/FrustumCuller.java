@@ -0,0 +1,253 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.entities.Entity;
+import engine.models.RawModel;
+import engine.models.TexturedModel;
+import engine.toolbox.Frustum;
+
+/**
+ * The FrustumCuller class rejects entities that are completely outside the view frustum
+ * of a render pass before they are batched. Each entity is first tested with its bounding
+ * sphere, and unrotated entities are additionally tested with their axis-aligned box.
+ * Large entity lists are tested in parallel on the common fork-join pool.
+ */
+public class FrustumCuller {
+
+	/**
+	 * Entity count above which the tests are spread across cores.
+	 */
+	private static final int PARALLEL_THRESHOLD = 2048;
+
+	/**
+	 * Number of entities tested by a single fork-join task.
+	 */
+	private static final int TASK_SIZE = 512;
+
+	private final String passName;
+	private final Frustum frustum = new Frustum();
+
+	private boolean[] visibility = new boolean[0];
+
+	private int visibleCount;
+	private int culledCount;
+
+	/**
+	 * Creates a FrustumCuller for a render pass.
+	 *
+	 * @param passName The name of the pass, used when reporting statistics.
+	 */
+	public FrustumCuller(String passName) {
+		this.passName = passName;
+	}
+
+	/**
+	 * Starts a new pass: updates the frustum planes and resets the statistics.
+	 *
+	 * @param projectionMatrix The projection matrix of the pass.
+	 * @param viewMatrix       The view matrix of the pass.
+	 */
+	public void begin(Matrix4f projectionMatrix, Matrix4f viewMatrix) {
+		frustum.update(projectionMatrix, viewMatrix);
+		resetStatistics();
+	}
+
+	/**
+	 * Starts a new pass: updates the frustum planes and resets the statistics.
+	 *
+	 * @param projectionViewMatrix The combined projection-view matrix of the pass.
+	 */
+	public void begin(Matrix4f projectionViewMatrix) {
+		frustum.update(projectionViewMatrix);
+		resetStatistics();
+	}
+
+	/**
+	 * Starts a new pass with frustum planes that were already extracted, e.g. by a
+	 * {@link FrameContext}, and resets the statistics.
+	 *
+	 * @param passFrustum The frustum of the pass.
+	 */
+	public void begin(Frustum passFrustum) {
+		frustum.set(passFrustum);
+		resetStatistics();
+	}
+
+	/**
+	 * Appends the entities that intersect the frustum to the visible list, keeping their order.
+	 *
+	 * @param entities The entities to test.
+	 * @param visible  The list to add the visible entities to.
+	 */
+	public void cull(List<Entity> entities, List<Entity> visible) {
+		int count = entities.size();
+
+		if (count < PARALLEL_THRESHOLD) {
+			for (int i = 0; i < count; i++) {
+				Entity entity = entities.get(i);
+
+				if (isVisible(entity)) {
+					visible.add(entity);
+					visibleCount++;
+				} else {
+					culledCount++;
+				}
+			}
+
+			return;
+		}
+
+		if (visibility.length < count) {
+			visibility = new boolean[count];
+		}
+
+		ForkJoinPool.commonPool().invoke(new CullTask(entities, visibility, 0, count));
+
+		for (int i = 0; i < count; i++) {
+			if (visibility[i]) {
+				visible.add(entities.get(i));
+				visibleCount++;
+			} else {
+				culledCount++;
+			}
+		}
+	}
+
+	/**
+	 * Tests a single entity against the frustum. Entities whose model has no bounds are always visible.
+	 *
+	 * @param entity The entity to test.
+	 * @return True if the entity may be visible, false if it is completely outside the frustum.
+	 */
+	public boolean isVisible(Entity entity) {
+		if (entity == null) {
+			return false;
+		}
+
+		TexturedModel model = entity.getModel();
+
+		if (model == null || model.getRawModel() == null || !model.getRawModel().hasBounds()) {
+			return true;
+		}
+
+		RawModel rawModel = model.getRawModel();
+		Vector3f position = entity.getPosition();
+		float scale = entity.getScale();
+
+		if (!frustum.intersectsSphere(position.x, position.y, position.z,
+				rawModel.getBoundingRadius() * Math.abs(scale))) {
+			return false;
+		}
+
+		if (entity.getRotX() != 0 || entity.getRotY() != 0 || entity.getRotZ() != 0 || scale <= 0) {
+			return true;
+		}
+
+		Vector3f min = rawModel.getMinBounds();
+		Vector3f max = rawModel.getMaxBounds();
+
+		return frustum.intersectsBox(position.x + min.x * scale, position.y + min.y * scale,
+				position.z + min.z * scale, position.x + max.x * scale, position.y + max.y * scale,
+				position.z + max.z * scale);
+	}
+
+	/**
+	 * @return The number of entities that passed the test since the pass started.
+	 */
+	public int getVisibleCount() {
+		return visibleCount;
+	}
+
+	/**
+	 * @return The number of entities that were rejected since the pass started.
+	 */
+	public int getCulledCount() {
+		return culledCount;
+	}
+
+	/**
+	 * @return The name of the pass this culler is used for.
+	 */
+	public String getPassName() {
+		return passName;
+	}
+
+	@Override
+	public String toString() {
+		return passName + ": " + visibleCount + " visible, " + culledCount + " culled";
+	}
+
+	/**
+	 * Resets the visible and culled counters.
+	 */
+	private void resetStatistics() {
+		visibleCount = 0;
+		culledCount = 0;
+	}
+
+	/**
+	 * Fork-join task that tests a range of entities and writes the results into a shared flag array.
+	 */
+	private class CullTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Entity> entities;
+		private final boolean[] results;
+		private final int start;
+		private final int end;
+
+		private CullTask(List<Entity> entities, boolean[] results, int start, int end) {
+			this.entities = entities;
+			this.results = results;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= TASK_SIZE) {
+				for (int i = start; i < end; i++) {
+					results[i] = isVisible(entities.get(i));
+				}
+				return;
+			}
+
+			int middle = (start + end) >>> 1;
+			invokeAll(new CullTask(entities, results, start, middle),
+					new CullTask(entities, results, middle, end));
+		}
+	}
+}
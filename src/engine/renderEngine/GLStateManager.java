@@ -0,0 +1,421 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.Arrays;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL30;
+
+/**
+ * The GLStateManager class mirrors the OpenGL state that the renderers change every frame:
+ * the bound shader program, VAO, active texture unit, texture per unit, blending, depth
+ * testing, face culling and framebuffer bindings. Every change is routed through here, and a
+ * call is only issued to the current {@link GraphicsDevice} when it would actually change the
+ * state.
+ *
+ * <p>State that is changed behind the tracker's back (by a library, or by deleting an object)
+ * has to be reported with one of the invalidate methods, otherwise the mirror goes stale.
+ */
+public class GLStateManager {
+
+    private static final int MAX_TEXTURE_UNITS = 16;
+    private static final int UNKNOWN = -1;
+
+    private static final int TARGET_2D = 0;
+    private static final int TARGET_CUBE_MAP = 1;
+    private static final int TARGET_2D_ARRAY = 2;
+    private static final int TARGET_COUNT = 3;
+
+    private static int program = UNKNOWN;
+    private static int vertexArray = UNKNOWN;
+    private static int activeTextureUnit = UNKNOWN;
+    private static final int[][] textures = new int[TARGET_COUNT][MAX_TEXTURE_UNITS];
+
+    private static int blend = UNKNOWN;
+    private static int blendSource = UNKNOWN;
+    private static int blendDestination = UNKNOWN;
+    private static int depthTest = UNKNOWN;
+    private static int depthMask = UNKNOWN;
+    private static int cullFace = UNKNOWN;
+    private static int cullFaceMode = UNKNOWN;
+
+    private static int drawFramebuffer = UNKNOWN;
+    private static int readFramebuffer = UNKNOWN;
+
+    private static int issuedCalls;
+    private static int skippedCalls;
+    private static int lastIssuedCalls;
+    private static int lastSkippedCalls;
+
+    static {
+        invalidate();
+    }
+
+    /**
+     * Binds a shader program, unless it is already bound.
+     *
+     * @param programID The ID of the program, or 0 to unbind.
+     */
+    public static void useProgram(int programID) {
+        if (program == programID) {
+            skippedCalls++;
+            return;
+        }
+
+        Graphics.getDevice().useProgram(programID);
+        program = programID;
+        issuedCalls++;
+    }
+
+    /**
+     * Binds a vertex array object, unless it is already bound.
+     *
+     * @param vaoID The ID of the VAO, or 0 to unbind.
+     */
+    public static void bindVertexArray(int vaoID) {
+        if (vertexArray == vaoID) {
+            skippedCalls++;
+            return;
+        }
+
+        Graphics.getDevice().bindVertexArray(vaoID);
+        vertexArray = vaoID;
+        issuedCalls++;
+    }
+
+    /**
+     * Binds a texture to a texture unit. The active unit is only switched if the texture is
+     * not already bound to that unit.
+     *
+     * @param unit      The texture unit, starting at 0.
+     * @param target    The texture target, e.g. {@code GL_TEXTURE_2D}.
+     * @param textureID The ID of the texture, or 0 to unbind.
+     */
+    public static void bindTexture(int unit, int target, int textureID) {
+        int targetIndex = getTargetIndex(target);
+
+        if (targetIndex == UNKNOWN || unit < 0 || unit >= MAX_TEXTURE_UNITS) {
+            activeTexture(unit);
+            Graphics.getDevice().bindTexture(target, textureID);
+            issuedCalls++;
+            return;
+        }
+
+        if (textures[targetIndex][unit] == textureID) {
+            skippedCalls++;
+            return;
+        }
+
+        activeTexture(unit);
+        Graphics.getDevice().bindTexture(target, textureID);
+        textures[targetIndex][unit] = textureID;
+        issuedCalls++;
+    }
+
+    /**
+     * Enables or disables alpha blending.
+     *
+     * @param enabled Whether blending should be enabled.
+     */
+    public static void setBlending(boolean enabled) {
+        blend = setCapability(GL11.GL_BLEND, blend, enabled);
+    }
+
+    /**
+     * Sets the blend function.
+     *
+     * @param source      The source factor.
+     * @param destination The destination factor.
+     */
+    public static void blendFunc(int source, int destination) {
+        if (blendSource == source && blendDestination == destination) {
+            skippedCalls++;
+            return;
+        }
+
+        Graphics.getDevice().blendFunc(source, destination);
+        blendSource = source;
+        blendDestination = destination;
+        issuedCalls++;
+    }
+
+    /**
+     * Enables or disables depth testing.
+     *
+     * @param enabled Whether depth testing should be enabled.
+     */
+    public static void setDepthTest(boolean enabled) {
+        depthTest = setCapability(GL11.GL_DEPTH_TEST, depthTest, enabled);
+    }
+
+    /**
+     * Enables or disables writing to the depth buffer.
+     *
+     * @param enabled Whether depth writes should be enabled.
+     */
+    public static void setDepthMask(boolean enabled) {
+        int value = enabled ? 1 : 0;
+
+        if (depthMask == value) {
+            skippedCalls++;
+            return;
+        }
+
+        Graphics.getDevice().depthMask(enabled);
+        depthMask = value;
+        issuedCalls++;
+    }
+
+    /**
+     * Enables or disables face culling.
+     *
+     * @param enabled Whether face culling should be enabled.
+     */
+    public static void setCulling(boolean enabled) {
+        cullFace = setCapability(GL11.GL_CULL_FACE, cullFace, enabled);
+    }
+
+    /**
+     * Sets which faces are culled when face culling is enabled.
+     *
+     * @param mode The faces to cull, e.g. {@code GL_BACK}.
+     */
+    public static void cullFace(int mode) {
+        if (cullFaceMode == mode) {
+            skippedCalls++;
+            return;
+        }
+
+        Graphics.getDevice().cullFace(mode);
+        cullFaceMode = mode;
+        issuedCalls++;
+    }
+
+    /**
+     * Binds a framebuffer. {@code GL_FRAMEBUFFER} binds both the draw and the read framebuffer,
+     * as it does in OpenGL.
+     *
+     * @param target        {@code GL_FRAMEBUFFER}, {@code GL_DRAW_FRAMEBUFFER} or {@code GL_READ_FRAMEBUFFER}.
+     * @param framebufferID The ID of the framebuffer, or 0 for the default framebuffer.
+     */
+    public static void bindFramebuffer(int target, int framebufferID) {
+        boolean draw = target != GL30.GL_READ_FRAMEBUFFER;
+        boolean read = target != GL30.GL_DRAW_FRAMEBUFFER;
+
+        if ((!draw || drawFramebuffer == framebufferID) && (!read || readFramebuffer == framebufferID)) {
+            skippedCalls++;
+            return;
+        }
+
+        Graphics.getDevice().bindFramebuffer(target, framebufferID);
+
+        if (draw) {
+            drawFramebuffer = framebufferID;
+        }
+        if (read) {
+            readFramebuffer = framebufferID;
+        }
+
+        issuedCalls++;
+    }
+
+    /**
+     * Forgets all mirrored state, so the next change of every kind is issued again. Use this
+     * after code that changes GL state without going through the manager.
+     */
+    public static void invalidate() {
+        program = UNKNOWN;
+        vertexArray = UNKNOWN;
+        blend = UNKNOWN;
+        blendSource = UNKNOWN;
+        blendDestination = UNKNOWN;
+        depthTest = UNKNOWN;
+        depthMask = UNKNOWN;
+        cullFace = UNKNOWN;
+        cullFaceMode = UNKNOWN;
+        drawFramebuffer = UNKNOWN;
+        readFramebuffer = UNKNOWN;
+
+        invalidateTextures();
+    }
+
+    /**
+     * Forgets the mirrored texture bindings and active unit, e.g. after a texture library has
+     * bound a texture on its own.
+     */
+    public static void invalidateTextures() {
+        activeTextureUnit = UNKNOWN;
+
+        for (int[] units : textures) {
+            Arrays.fill(units, UNKNOWN);
+        }
+    }
+
+    /**
+     * Reports that a texture was deleted, so a new texture that reuses its ID is not mistaken
+     * for one that is still bound.
+     *
+     * @param textureID The ID of the deleted texture.
+     */
+    public static void onTextureDeleted(int textureID) {
+        for (int[] units : textures) {
+            for (int i = 0; i < units.length; i++) {
+                if (units[i] == textureID) {
+                    units[i] = UNKNOWN;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports that a VAO was deleted.
+     *
+     * @param vaoID The ID of the deleted VAO.
+     */
+    public static void onVertexArrayDeleted(int vaoID) {
+        if (vertexArray == vaoID) {
+            vertexArray = UNKNOWN;
+        }
+    }
+
+    /**
+     * Reports that a shader program was deleted.
+     *
+     * @param programID The ID of the deleted program.
+     */
+    public static void onProgramDeleted(int programID) {
+        if (program == programID) {
+            program = UNKNOWN;
+        }
+    }
+
+    /**
+     * Reports that a framebuffer was deleted.
+     *
+     * @param framebufferID The ID of the deleted framebuffer.
+     */
+    public static void onFramebufferDeleted(int framebufferID) {
+        if (drawFramebuffer == framebufferID) {
+            drawFramebuffer = UNKNOWN;
+        }
+        if (readFramebuffer == framebufferID) {
+            readFramebuffer = UNKNOWN;
+        }
+    }
+
+    /**
+     * Ends the current frame, publishing its call counters and resetting them for the next one.
+     */
+    public static void endFrame() {
+        lastIssuedCalls = issuedCalls;
+        lastSkippedCalls = skippedCalls;
+        issuedCalls = 0;
+        skippedCalls = 0;
+    }
+
+    /**
+     * Retrieves the number of state changes that reached OpenGL during the last frame.
+     *
+     * @return The number of issued calls.
+     */
+    public static int getIssuedCalls() {
+        return lastIssuedCalls;
+    }
+
+    /**
+     * Retrieves the number of state changes that were skipped during the last frame because
+     * they would not have changed anything.
+     *
+     * @return The number of skipped calls.
+     */
+    public static int getSkippedCalls() {
+        return lastSkippedCalls;
+    }
+
+    /**
+     * Switches the active texture unit, unless it is already active.
+     *
+     * @param unit The texture unit, starting at 0.
+     */
+    private static void activeTexture(int unit) {
+        if (activeTextureUnit == unit) {
+            return;
+        }
+
+        Graphics.getDevice().activeTexture(GL13.GL_TEXTURE0 + unit);
+        activeTextureUnit = unit;
+        issuedCalls++;
+    }
+
+    /**
+     * Enables or disables a capability if its mirrored value differs.
+     *
+     * @param capability The GL capability.
+     * @param current    The mirrored value (1, 0 or unknown).
+     * @param enabled    The requested value.
+     * @return The new mirrored value.
+     */
+    private static int setCapability(int capability, int current, boolean enabled) {
+        int value = enabled ? 1 : 0;
+
+        if (current == value) {
+            skippedCalls++;
+            return current;
+        }
+
+        if (enabled) {
+            Graphics.getDevice().enable(capability);
+        } else {
+            Graphics.getDevice().disable(capability);
+        }
+
+        issuedCalls++;
+        return value;
+    }
+
+    /**
+     * Maps a texture target to the index of its binding table.
+     *
+     * @param target The texture target.
+     * @return The table index, or -1 if the target is not tracked.
+     */
+    private static int getTargetIndex(int target) {
+        switch (target) {
+            case GL11.GL_TEXTURE_2D:
+                return TARGET_2D;
+            case GL13.GL_TEXTURE_CUBE_MAP:
+                return TARGET_CUBE_MAP;
+            case GL30.GL_TEXTURE_2D_ARRAY:
+                return TARGET_2D_ARRAY;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+}
@@ -0,0 +1,401 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL31;
+
+import engine.models.RawModel;
+
+/**
+ * The GeometryArena class stores many static models in one shared vertex buffer and one shared
+ * index buffer behind a single VAO, so switching between them needs no VAO bind. Each model gets
+ * a range of both buffers from a {@link BufferAllocator}; its indices stay relative to its first
+ * vertex and are drawn with {@code glDrawElementsBaseVertex}, using the base vertex and index
+ * offset stored in its {@link RawModel}.
+ *
+ * <p>All models of an arena share one {@link VertexFormat} and either all have tangents or none
+ * do. Indices are 16-bit, so models with more than 65,536 vertices don't fit. When the free
+ * space is too fragmented for a new model, the arena is compacted: the live data is copied to
+ * new buffers without gaps and the ranges of the moved models are updated.
+ */
+public class GeometryArena {
+
+    private static final int INDEX_BYTES = 2;
+    private static final int MAX_MODEL_VERTICES = 0xFFFF + 1;
+
+    private final GraphicsDevice device = Graphics.getDevice();
+
+    private final VertexFormat format;
+    private final boolean tangents;
+    private final int stride;
+
+    private final BufferAllocator vertexAllocator;
+    private final BufferAllocator indexAllocator;
+    private final Map<RawModel, int[]> ranges = new HashMap<RawModel, int[]>();
+
+    private final int vaoID;
+    private int vertexBuffer;
+    private int indexBuffer;
+
+    /**
+     * Creates an empty arena.
+     *
+     * @param format         The layout of the vertices.
+     * @param tangents       Whether the models have tangents.
+     * @param vertexCapacity The number of vertices the arena can hold.
+     * @param indexCapacity  The number of indices the arena can hold.
+     * @throws IllegalArgumentException If a capacity is not positive.
+     */
+    public GeometryArena(VertexFormat format, boolean tangents, int vertexCapacity, int indexCapacity) {
+        this.format = format;
+        this.tangents = tangents;
+        this.stride = format.getStride(tangents);
+        this.vertexAllocator = new BufferAllocator(vertexCapacity);
+        this.indexAllocator = new BufferAllocator(indexCapacity);
+
+        vaoID = device.genVertexArrays();
+        vertexBuffer = createBuffer((long) vertexCapacity * stride);
+        indexBuffer = createBuffer((long) indexCapacity * INDEX_BYTES);
+        bindBuffers();
+    }
+
+    /**
+     * Adds a model to the arena, compacting it first if the free space is too fragmented.
+     *
+     * @param positions     The vertex positions.
+     * @param textureCoords The texture coordinates.
+     * @param normals       The normals.
+     * @param tangentData   The tangents, or null if the arena has no tangents.
+     * @param indices       The vertex indices.
+     * @return The model, or null if it doesn't fit in the arena.
+     * @throws IllegalArgumentException If the model has tangents and the arena doesn't, or the
+     *                                  other way around.
+     */
+    public RawModel add(float[] positions, float[] textureCoords, float[] normals, float[] tangentData,
+            int[] indices) {
+        if ((tangentData != null) != tangents) {
+            throw new IllegalArgumentException("Model tangents don't match the arena's vertex layout");
+        }
+
+        int vertexCount = positions.length / 3;
+
+        if (vertexCount == 0 || indices.length == 0 || vertexCount > MAX_MODEL_VERTICES) {
+            return null;
+        }
+
+        ByteBuffer vertexData = BufferUtils.createByteBuffer(vertexCount * stride);
+        format.putVertices(vertexData, positions, textureCoords, normals, tangentData);
+        vertexData.flip();
+
+        ByteBuffer indexData = BufferUtils.createByteBuffer(indices.length * INDEX_BYTES);
+        for (int index : indices) {
+            indexData.putShort((short) index);
+        }
+        indexData.flip();
+
+        return add(vertexData, vertexCount, indexData, indices.length);
+    }
+
+    /**
+     * Adds a model whose vertices are already interleaved in the arena's layout and whose
+     * indices are 16 bits wide, e.g. a {@link BakedMesh}. The buffers are uploaded as they are.
+     *
+     * @param vertexData  The interleaved vertices, in native byte order.
+     * @param vertexCount The number of vertices.
+     * @param indexData   The 16-bit indices, in native byte order.
+     * @param indexCount  The number of indices.
+     * @return The model, or null if it doesn't fit in the arena.
+     * @throws IllegalArgumentException If the buffers don't hold the given number of vertices
+     *                                  and indices in the arena's layout.
+     */
+    public RawModel add(ByteBuffer vertexData, int vertexCount, ByteBuffer indexData, int indexCount) {
+        if (vertexData.remaining() != vertexCount * stride || indexData.remaining() != indexCount * INDEX_BYTES) {
+            throw new IllegalArgumentException("Vertex or index data doesn't match the arena's layout");
+        }
+
+        if (vertexCount == 0 || indexCount == 0 || vertexCount > MAX_MODEL_VERTICES) {
+            return null;
+        }
+
+        if (!makeRoom(vertexCount, indexCount)) {
+            return null;
+        }
+
+        int firstVertex = vertexAllocator.allocate(vertexCount);
+        int firstIndex = indexAllocator.allocate(indexCount);
+
+        upload(vertexBuffer, (long) firstVertex * stride, vertexData);
+        upload(indexBuffer, (long) firstIndex * INDEX_BYTES, indexData);
+
+        RawModel model = new RawModel(vaoID, indexCount, GL11.GL_UNSIGNED_SHORT);
+        model.setGeometryRange(firstVertex, (long) firstIndex * INDEX_BYTES);
+        ranges.put(model, new int[] { firstVertex, firstIndex });
+
+        return model;
+    }
+
+    /**
+     * Removes a model from the arena, so its space can be reused. The model must not be drawn
+     * afterwards.
+     *
+     * @param model The model to remove.
+     * @throws IllegalArgumentException If the model isn't stored in this arena.
+     */
+    public void remove(RawModel model) {
+        int[] range = ranges.remove(model);
+
+        if (range == null) {
+            throw new IllegalArgumentException("Model is not stored in this arena");
+        }
+
+        vertexAllocator.free(range[0]);
+        indexAllocator.free(range[1]);
+    }
+
+    /**
+     * Moves all models to the start of the buffers, so the free space becomes one range. The
+     * data is copied on the GPU into new buffers, since a buffer can't be copied onto an
+     * overlapping range of itself.
+     */
+    public void compact() {
+        Map<Integer, Integer> vertexMoves = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> indexMoves = new HashMap<Integer, Integer>();
+
+        vertexBuffer = compact(vertexAllocator, vertexBuffer, stride, vertexMoves);
+        indexBuffer = compact(indexAllocator, indexBuffer, INDEX_BYTES, indexMoves);
+        bindBuffers();
+
+        for (Map.Entry<RawModel, int[]> entry : ranges.entrySet()) {
+            int[] range = entry.getValue();
+
+            if (vertexMoves.containsKey(range[0])) {
+                range[0] = vertexMoves.get(range[0]);
+            }
+            if (indexMoves.containsKey(range[1])) {
+                range[1] = indexMoves.get(range[1]);
+            }
+
+            entry.getKey().setGeometryRange(range[0], (long) range[1] * INDEX_BYTES);
+        }
+    }
+
+    /**
+     * Retrieves the VAO shared by all models of the arena.
+     *
+     * @return The VAO ID.
+     */
+    public int getVaoID() {
+        return vaoID;
+    }
+
+    /**
+     * Retrieves the vertex layout of the arena.
+     *
+     * @return The vertex format.
+     */
+    public VertexFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Checks whether the models of the arena have tangents.
+     *
+     * @return True if the vertices have tangents.
+     */
+    public boolean hasTangents() {
+        return tangents;
+    }
+
+    /**
+     * Retrieves the allocator of the vertex buffer, e.g. to report how full it is.
+     *
+     * @return The vertex allocator, in vertices.
+     */
+    public BufferAllocator getVertexAllocator() {
+        return vertexAllocator;
+    }
+
+    /**
+     * Retrieves the allocator of the index buffer, e.g. to report how full it is.
+     *
+     * @return The index allocator, in indices.
+     */
+    public BufferAllocator getIndexAllocator() {
+        return indexAllocator;
+    }
+
+    /**
+     * Retrieves the video memory of the arena's buffers, whether it is in use or not.
+     *
+     * @return The size in bytes.
+     */
+    public long getSizeBytes() {
+        return (long) vertexAllocator.getCapacity() * stride + (long) indexAllocator.getCapacity() * INDEX_BYTES;
+    }
+
+    /**
+     * Deletes the VAO and buffers of the arena.
+     */
+    public void cleanUp() {
+        device.deleteVertexArrays(vaoID);
+        GLStateManager.onVertexArrayDeleted(vaoID);
+        device.deleteBuffers(vertexBuffer);
+        device.deleteBuffers(indexBuffer);
+        ranges.clear();
+    }
+
+    /**
+     * Makes sure a model fits into free ranges of both buffers, compacting the arena first if
+     * there is enough free space in total but no single free range is large enough. This is
+     * decided before either range is allocated, since compaction moves every allocation and
+     * only updates the models that are already in the arena.
+     *
+     * @param vertexCount The number of vertices of the model.
+     * @param indexCount  The number of indices of the model.
+     * @return True if both ranges can be allocated, false if there isn't enough free space.
+     */
+    private boolean makeRoom(int vertexCount, int indexCount) {
+        if (vertexAllocator.getLargestFreeRange() >= vertexCount
+                && indexAllocator.getLargestFreeRange() >= indexCount) {
+            return true;
+        }
+
+        if (vertexAllocator.getCapacity() - vertexAllocator.getUsed() < vertexCount
+                || indexAllocator.getCapacity() - indexAllocator.getUsed() < indexCount) {
+            return false;
+        }
+
+        compact();
+
+        return true;
+    }
+
+    /**
+     * Compacts one of the buffers into a new buffer of the same size. The ranges in front of
+     * the first gap keep their offset and are copied as one block.
+     *
+     * @param allocator The allocator of the buffer.
+     * @param buffer    The ID of the buffer.
+     * @param unitBytes The size of one allocation unit in bytes.
+     * @param moves     Receives the new offset of every moved range, keyed by the old one.
+     * @return The ID of the new buffer.
+     */
+    private int compact(BufferAllocator allocator, int buffer, int unitBytes, Map<Integer, Integer> moves) {
+        int compacted = createBuffer((long) allocator.getCapacity() * unitBytes);
+
+        device.bindBuffer(GL31.GL_COPY_READ_BUFFER, buffer);
+        device.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, compacted);
+
+        allocator.compact((from, to, size) -> {
+            if (moves.isEmpty()) {
+                copyRange(0, 0, to, unitBytes);
+            }
+
+            copyRange(from, to, size, unitBytes);
+            moves.put(from, to);
+        });
+
+        if (moves.isEmpty()) {
+            copyRange(0, 0, allocator.getUsed(), unitBytes);
+        }
+
+        device.bindBuffer(GL31.GL_COPY_READ_BUFFER, 0);
+        device.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        device.deleteBuffers(buffer);
+
+        return compacted;
+    }
+
+    /**
+     * Copies a range from the buffer bound to {@code GL_COPY_READ_BUFFER} to the one bound to
+     * {@code GL_COPY_WRITE_BUFFER}.
+     *
+     * @param from      The source offset, in allocation units.
+     * @param to        The destination offset, in allocation units.
+     * @param size      The size of the range, in allocation units.
+     * @param unitBytes The size of one allocation unit in bytes.
+     */
+    private void copyRange(int from, int to, int size, int unitBytes) {
+        if (size > 0) {
+            device.copyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, (long) from * unitBytes,
+                    (long) to * unitBytes, (long) size * unitBytes);
+        }
+    }
+
+    /**
+     * Creates a buffer with uninitialized storage.
+     *
+     * @param bytes The size of the buffer.
+     * @return The buffer ID.
+     */
+    private int createBuffer(long bytes) {
+        int buffer = device.genBuffers();
+
+        if (buffer == 0) {
+            throw new IllegalStateException("Failed to generate arena buffer");
+        }
+
+        device.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+        device.bufferData(GL31.GL_COPY_WRITE_BUFFER, bytes, GL15.GL_STATIC_DRAW);
+        device.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+
+        return buffer;
+    }
+
+    /**
+     * Attaches the current vertex and index buffers to the VAO.
+     */
+    private void bindBuffers() {
+        GLStateManager.bindVertexArray(vaoID);
+        device.bindBuffer(GL15.GL_ARRAY_BUFFER, vertexBuffer);
+        format.bindAttributes(device, tangents);
+        device.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+        GLStateManager.bindVertexArray(0);
+        device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Writes data into one of the buffers without touching the VAO's element buffer binding.
+     *
+     * @param buffer The ID of the buffer.
+     * @param offset The byte offset to write at.
+     * @param data   The data.
+     */
+    private void upload(int buffer, long offset, ByteBuffer data) {
+        device.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+        device.bufferSubData(GL31.GL_COPY_WRITE_BUFFER, offset, data);
+        device.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+    }
+
+}
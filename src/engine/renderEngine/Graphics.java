@@ -0,0 +1,64 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+/**
+ * The Graphics class holds the {@link GraphicsDevice} that the engine renders through. It
+ * defaults to {@link LwjglGraphicsDevice}; a different device has to be installed before any
+ * renderer, shader or {@link Loader} is created, since those keep a reference to the device
+ * they were created with.
+ */
+public class Graphics {
+
+    private static GraphicsDevice device = new LwjglGraphicsDevice();
+
+    /**
+     * Retrieves the current graphics device.
+     *
+     * @return The device.
+     */
+    public static GraphicsDevice getDevice() {
+        return device;
+    }
+
+    /**
+     * Replaces the current graphics device. The mirrored GL state is invalidated, since it
+     * belonged to the previous device.
+     *
+     * @param device The new device.
+     * @throws IllegalArgumentException If the device is null.
+     */
+    public static void setDevice(GraphicsDevice device) {
+        if (device == null) {
+            throw new IllegalArgumentException("Graphics device cannot be null");
+        }
+
+        Graphics.device = device;
+        GLStateManager.invalidate();
+    }
+
+}
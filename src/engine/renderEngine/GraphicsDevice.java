@@ -0,0 +1,811 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The GraphicsDevice interface is the thin layer between the engine and OpenGL. Renderers, the
+ * {@link Loader}, shaders and framebuffers issue their GL calls through it instead of calling the
+ * LWJGL {@code GL11}-{@code GL33} classes directly, so the frame pipeline can run against a device
+ * other than a real context.
+ *
+ * <p>The methods mirror the OpenGL calls they replace, with the {@code gl} prefix dropped and the
+ * same parameters and constants. {@link LwjglGraphicsDevice} forwards them to OpenGL, and
+ * {@link RecordingGraphicsDevice} only counts them, which allows the CPU cost of a frame to be
+ * measured on a machine without a GPU. The current device is held by {@link Graphics}.
+ */
+public interface GraphicsDevice {
+
+    /**
+     * Renders primitives from the bound vertex arrays.
+     *
+     * @param mode  The primitive type, e.g. {@code GL_TRIANGLES}.
+     * @param first The first vertex.
+     * @param count The number of vertices.
+     */
+    void drawArrays(int mode, int first, int count);
+
+    /**
+     * Renders several instances of primitives from the bound vertex arrays.
+     *
+     * @param mode      The primitive type.
+     * @param first     The first vertex.
+     * @param count     The number of vertices per instance.
+     * @param instances The number of instances.
+     */
+    void drawArraysInstanced(int mode, int first, int count, int instances);
+
+    /**
+     * Renders indexed primitives from the bound element buffer.
+     *
+     * @param mode   The primitive type.
+     * @param count  The number of indices.
+     * @param type   The index type, e.g. {@code GL_UNSIGNED_INT}.
+     * @param offset The byte offset into the element buffer.
+     */
+    void drawElements(int mode, int count, int type, long offset);
+
+    /**
+     * Renders several instances of indexed primitives from the bound element buffer.
+     *
+     * @param mode      The primitive type.
+     * @param count     The number of indices per instance.
+     * @param type      The index type.
+     * @param offset    The byte offset into the element buffer.
+     * @param instances The number of instances.
+     */
+    void drawElementsInstanced(int mode, int count, int type, long offset, int instances);
+
+    /**
+     * Renders indexed primitives, adding a constant to every index before the vertices are
+     * fetched, so models that share a buffer can keep indices relative to their first vertex.
+     *
+     * @param mode       The primitive type.
+     * @param count      The number of indices.
+     * @param type       The index type.
+     * @param offset     The byte offset into the element buffer.
+     * @param baseVertex The value added to every index.
+     */
+    void drawElementsBaseVertex(int mode, int count, int type, long offset, int baseVertex);
+
+    /**
+     * Renders several instances of indexed primitives with a base vertex, see
+     * {@link #drawElementsBaseVertex(int, int, int, long, int)}.
+     *
+     * @param mode       The primitive type.
+     * @param count      The number of indices per instance.
+     * @param type       The index type.
+     * @param offset     The byte offset into the element buffer.
+     * @param instances  The number of instances.
+     * @param baseVertex The value added to every index.
+     */
+    void drawElementsInstancedBaseVertex(int mode, int count, int type, long offset, int instances, int baseVertex);
+
+    /**
+     * Clears buffers of the bound framebuffer.
+     *
+     * @param mask The buffers to clear, e.g. {@code GL_COLOR_BUFFER_BIT}.
+     */
+    void clear(int mask);
+
+    /**
+     * Sets the colour used to clear the colour buffer.
+     *
+     * @param red   The red component.
+     * @param green The green component.
+     * @param blue  The blue component.
+     * @param alpha The alpha component.
+     */
+    void clearColor(float red, float green, float blue, float alpha);
+
+    /**
+     * Sets the viewport.
+     *
+     * @param x      The left edge in pixels.
+     * @param y      The bottom edge in pixels.
+     * @param width  The width in pixels.
+     * @param height The height in pixels.
+     */
+    void viewport(int x, int y, int width, int height);
+
+    /**
+     * Enables a capability.
+     *
+     * @param capability The capability, e.g. {@code GL_BLEND}.
+     */
+    void enable(int capability);
+
+    /**
+     * Disables a capability.
+     *
+     * @param capability The capability.
+     */
+    void disable(int capability);
+
+    /**
+     * Sets the blend function.
+     *
+     * @param source      The source factor.
+     * @param destination The destination factor.
+     */
+    void blendFunc(int source, int destination);
+
+    /**
+     * Enables or disables writing to the depth buffer.
+     *
+     * @param enabled Whether depth writes are enabled.
+     */
+    void depthMask(boolean enabled);
+
+    /**
+     * Sets which faces are culled.
+     *
+     * @param mode The faces to cull, e.g. {@code GL_BACK}.
+     */
+    void cullFace(int mode);
+
+    /**
+     * Selects the colour buffer that is drawn into.
+     *
+     * @param buffer The buffer, e.g. {@code GL_COLOR_ATTACHMENT0} or {@code GL_NONE}.
+     */
+    void drawBuffer(int buffer);
+
+    /**
+     * Selects the colour buffer that is read from.
+     *
+     * @param buffer The buffer.
+     */
+    void readBuffer(int buffer);
+
+    /**
+     * Returns and clears the oldest recorded error.
+     *
+     * @return The error code, {@code GL_NO_ERROR} if there is none.
+     */
+    int getError();
+
+    /**
+     * Retrieves a float parameter of the context.
+     *
+     * @param name The parameter name.
+     * @return The value of the parameter.
+     */
+    float getFloat(int name);
+
+    /**
+     * Checks whether anisotropic texture filtering is available.
+     *
+     * @return True if {@code EXT_texture_filter_anisotropic} is supported.
+     */
+    boolean isAnisotropicFilteringSupported();
+
+    /**
+     * Checks whether the block-compressed texture formats the texture baker writes can be uploaded.
+     *
+     * @return True if both {@code EXT_texture_compression_s3tc} and RGTC are supported.
+     */
+    boolean isTextureCompressionSupported();
+
+    /**
+     * Creates a vertex array object.
+     *
+     * @return The ID of the VAO.
+     */
+    int genVertexArrays();
+
+    /**
+     * Deletes a vertex array object.
+     *
+     * @param vaoID The ID of the VAO.
+     */
+    void deleteVertexArrays(int vaoID);
+
+    /**
+     * Binds a vertex array object.
+     *
+     * @param vaoID The ID of the VAO, or 0 to unbind.
+     */
+    void bindVertexArray(int vaoID);
+
+    /**
+     * Defines the layout of a vertex attribute in the bound array buffer.
+     *
+     * @param index      The attribute index.
+     * @param size       The number of components.
+     * @param type       The component type, e.g. {@code GL_FLOAT}.
+     * @param normalized Whether integer components are normalized.
+     * @param stride     The byte stride between vertices.
+     * @param offset     The byte offset of the first component.
+     */
+    void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset);
+
+    /**
+     * Enables a vertex attribute array on the bound VAO.
+     *
+     * @param index The attribute index.
+     */
+    void enableVertexAttribArray(int index);
+
+    /**
+     * Sets how often a vertex attribute advances during instanced rendering.
+     *
+     * @param index   The attribute index.
+     * @param divisor The number of instances per advance, 0 for per-vertex data.
+     */
+    void vertexAttribDivisor(int index, int divisor);
+
+    /**
+     * Creates a buffer object.
+     *
+     * @return The ID of the buffer.
+     */
+    int genBuffers();
+
+    /**
+     * Deletes a buffer object.
+     *
+     * @param bufferID The ID of the buffer.
+     */
+    void deleteBuffers(int bufferID);
+
+    /**
+     * Binds a buffer object.
+     *
+     * @param target   The target, e.g. {@code GL_ARRAY_BUFFER}.
+     * @param bufferID The ID of the buffer, or 0 to unbind.
+     */
+    void bindBuffer(int target, int bufferID);
+
+    /**
+     * Allocates the storage of the bound buffer without initializing it.
+     *
+     * @param target The buffer target.
+     * @param size   The size in bytes.
+     * @param usage  The usage hint, e.g. {@code GL_STREAM_DRAW}.
+     */
+    void bufferData(int target, long size, int usage);
+
+    /**
+     * Allocates the storage of the bound buffer and fills it with float data.
+     *
+     * @param target The buffer target.
+     * @param data   The data, from its position to its limit.
+     * @param usage  The usage hint.
+     */
+    void bufferData(int target, FloatBuffer data, int usage);
+
+    /**
+     * Allocates the storage of the bound buffer and fills it with int data.
+     *
+     * @param target The buffer target.
+     * @param data   The data, from its position to its limit.
+     * @param usage  The usage hint.
+     */
+    void bufferData(int target, IntBuffer data, int usage);
+
+    /**
+     * Creates the storage of the bound buffer and fills it with raw bytes.
+     *
+     * @param target The buffer target.
+     * @param data   The data, from its position to its limit.
+     * @param usage  The usage hint.
+     */
+    void bufferData(int target, ByteBuffer data, int usage);
+
+    /**
+     * Updates part of the storage of the bound buffer.
+     *
+     * @param target The buffer target.
+     * @param offset The byte offset to start writing at.
+     * @param data   The data, from its position to its limit.
+     */
+    void bufferSubData(int target, long offset, FloatBuffer data);
+
+    /**
+     * Updates part of the storage of the bound buffer with raw bytes.
+     *
+     * @param target The buffer target.
+     * @param offset The byte offset to start writing at.
+     * @param data   The data, from its position to its limit.
+     */
+    void bufferSubData(int target, long offset, ByteBuffer data);
+
+    /**
+     * Copies data from the buffer bound to one target to the buffer bound to another.
+     *
+     * @param readTarget  The source target, e.g. {@code GL_COPY_READ_BUFFER}.
+     * @param writeTarget The destination target, e.g. {@code GL_COPY_WRITE_BUFFER}.
+     * @param readOffset  The byte offset in the source.
+     * @param writeOffset The byte offset in the destination.
+     * @param size        The number of bytes to copy.
+     */
+    void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size);
+
+    /**
+     * Maps a range of the bound buffer into client memory for writing.
+     *
+     * @param target    The buffer target.
+     * @param offset    The byte offset of the range.
+     * @param length    The length of the range in bytes.
+     * @param access    The access flags, e.g. {@code GL_MAP_WRITE_BIT}.
+     * @param oldBuffer A buffer returned by an earlier call, which is reused if it covers the
+     *                  same memory, or null.
+     * @return The mapped range.
+     */
+    ByteBuffer mapBufferRange(int target, long offset, long length, int access, ByteBuffer oldBuffer);
+
+    /**
+     * Releases the mapping of the bound buffer.
+     *
+     * @param target The buffer target.
+     * @return False if the contents of the buffer were lost while it was mapped.
+     */
+    boolean unmapBuffer(int target);
+
+    /**
+     * Creates a texture object.
+     *
+     * @return The ID of the texture.
+     */
+    int genTextures();
+
+    /**
+     * Deletes a texture object.
+     *
+     * @param textureID The ID of the texture.
+     */
+    void deleteTextures(int textureID);
+
+    /**
+     * Selects the active texture unit.
+     *
+     * @param texture The unit, as {@code GL_TEXTURE0 + n}.
+     */
+    void activeTexture(int texture);
+
+    /**
+     * Binds a texture to the active texture unit.
+     *
+     * @param target    The texture target, e.g. {@code GL_TEXTURE_2D}.
+     * @param textureID The ID of the texture, or 0 to unbind.
+     */
+    void bindTexture(int target, int textureID);
+
+    /**
+     * Specifies a two-dimensional image of the bound texture.
+     *
+     * @param target         The target, e.g. {@code GL_TEXTURE_2D} or a cube map face.
+     * @param level          The mipmap level.
+     * @param internalFormat The format the texture is stored in.
+     * @param width          The width in pixels.
+     * @param height         The height in pixels.
+     * @param border         Must be 0.
+     * @param format         The format of the pixel data.
+     * @param type           The component type of the pixel data.
+     * @param pixels         The pixel data, or null to only allocate the image.
+     */
+    void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+            int type, ByteBuffer pixels);
+
+    /**
+     * Specifies a two-dimensional image of the bound texture from block-compressed data.
+     *
+     * @param target         The target, e.g. {@code GL_TEXTURE_2D}.
+     * @param level          The mipmap level.
+     * @param internalFormat The compressed format of the data.
+     * @param width          The width in pixels.
+     * @param height         The height in pixels.
+     * @param border         Must be 0.
+     * @param data           The compressed blocks.
+     */
+    void compressedTexImage2D(int target, int level, int internalFormat, int width, int height, int border,
+            ByteBuffer data);
+
+    /**
+     * Specifies a three-dimensional image of the bound texture, e.g. all layers of a texture array.
+     *
+     * @param target         The target, e.g. {@code GL_TEXTURE_2D_ARRAY}.
+     * @param level          The mipmap level.
+     * @param internalFormat The format the texture is stored in.
+     * @param width          The width in pixels.
+     * @param height         The height in pixels.
+     * @param depth          The depth in pixels, or the number of layers.
+     * @param border         Must be 0.
+     * @param format         The format of the pixel data.
+     * @param type           The component type of the pixel data.
+     * @param pixels         The pixel data, layer after layer, or null to only allocate the image.
+     */
+    void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border,
+            int format, int type, ByteBuffer pixels);
+
+    /**
+     * Specifies a three-dimensional image of the bound texture from block-compressed data.
+     *
+     * @param target         The target, e.g. {@code GL_TEXTURE_2D_ARRAY}.
+     * @param level          The mipmap level.
+     * @param internalFormat The compressed format of the data.
+     * @param width          The width in pixels.
+     * @param height         The height in pixels.
+     * @param depth          The depth in pixels, or the number of layers.
+     * @param border         Must be 0.
+     * @param data           The compressed blocks, layer after layer.
+     */
+    void compressedTexImage3D(int target, int level, int internalFormat, int width, int height, int depth,
+            int border, ByteBuffer data);
+
+    /**
+     * Sets an integer parameter of the bound texture.
+     *
+     * @param target The texture target.
+     * @param name   The parameter name.
+     * @param value  The value.
+     */
+    void texParameteri(int target, int name, int value);
+
+    /**
+     * Sets a float parameter of the bound texture.
+     *
+     * @param target The texture target.
+     * @param name   The parameter name.
+     * @param value  The value.
+     */
+    void texParameterf(int target, int name, float value);
+
+    /**
+     * Generates the mipmaps of the bound texture.
+     *
+     * @param target The texture target.
+     */
+    void generateMipmap(int target);
+
+    /**
+     * Creates a framebuffer object.
+     *
+     * @return The ID of the framebuffer.
+     */
+    int genFramebuffers();
+
+    /**
+     * Deletes a framebuffer object.
+     *
+     * @param framebufferID The ID of the framebuffer.
+     */
+    void deleteFramebuffers(int framebufferID);
+
+    /**
+     * Binds a framebuffer object.
+     *
+     * @param target        The target, e.g. {@code GL_FRAMEBUFFER}.
+     * @param framebufferID The ID of the framebuffer, or 0 for the default framebuffer.
+     */
+    void bindFramebuffer(int target, int framebufferID);
+
+    /**
+     * Attaches a texture level to the bound framebuffer.
+     *
+     * @param target     The framebuffer target.
+     * @param attachment The attachment point, e.g. {@code GL_DEPTH_ATTACHMENT}.
+     * @param textureID  The ID of the texture.
+     * @param level      The mipmap level.
+     */
+    void framebufferTexture(int target, int attachment, int textureID, int level);
+
+    /**
+     * Attaches a two-dimensional texture image to the bound framebuffer.
+     *
+     * @param target        The framebuffer target.
+     * @param attachment    The attachment point.
+     * @param textureTarget The texture target.
+     * @param textureID     The ID of the texture.
+     * @param level         The mipmap level.
+     */
+    void framebufferTexture2D(int target, int attachment, int textureTarget, int textureID, int level);
+
+    /**
+     * Creates a renderbuffer object.
+     *
+     * @return The ID of the renderbuffer.
+     */
+    int genRenderbuffers();
+
+    /**
+     * Deletes a renderbuffer object.
+     *
+     * @param renderbufferID The ID of the renderbuffer.
+     */
+    void deleteRenderbuffers(int renderbufferID);
+
+    /**
+     * Binds a renderbuffer object.
+     *
+     * @param target         Must be {@code GL_RENDERBUFFER}.
+     * @param renderbufferID The ID of the renderbuffer.
+     */
+    void bindRenderbuffer(int target, int renderbufferID);
+
+    /**
+     * Allocates the storage of the bound renderbuffer.
+     *
+     * @param target         Must be {@code GL_RENDERBUFFER}.
+     * @param internalFormat The storage format.
+     * @param width          The width in pixels.
+     * @param height         The height in pixels.
+     */
+    void renderbufferStorage(int target, int internalFormat, int width, int height);
+
+    /**
+     * Attaches a renderbuffer to the bound framebuffer.
+     *
+     * @param target             The framebuffer target.
+     * @param attachment         The attachment point.
+     * @param renderbufferTarget Must be {@code GL_RENDERBUFFER}.
+     * @param renderbufferID     The ID of the renderbuffer.
+     */
+    void framebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbufferID);
+
+    /**
+     * Creates a query object.
+     *
+     * @return The ID of the query.
+     */
+    int genQueries();
+
+    /**
+     * Deletes a query object.
+     *
+     * @param queryID The ID of the query.
+     */
+    void deleteQueries(int queryID);
+
+    /**
+     * Records the GPU time into a query once all previous commands have completed.
+     *
+     * @param queryID The ID of the query.
+     * @param target  Must be {@code GL_TIMESTAMP}.
+     */
+    void queryCounter(int queryID, int target);
+
+    /**
+     * Retrieves an integer parameter of a query, e.g. whether its result is available.
+     *
+     * @param queryID The ID of the query.
+     * @param name    The parameter name, e.g. {@code GL_QUERY_RESULT_AVAILABLE}.
+     * @return The value of the parameter.
+     */
+    int getQueryObjecti(int queryID, int name);
+
+    /**
+     * Retrieves a 64-bit parameter of a query, e.g. its result.
+     *
+     * @param queryID The ID of the query.
+     * @param name    The parameter name, e.g. {@code GL_QUERY_RESULT}.
+     * @return The value of the parameter.
+     */
+    long getQueryObjectui64(int queryID, int name);
+
+    /**
+     * Inserts a fence that is signaled once all previous commands have completed. Fences are
+     * identified by an ID like other GL objects, rather than by the sync pointer.
+     *
+     * @return The ID of the fence.
+     */
+    int fenceSync();
+
+    /**
+     * Waits on the client side until a fence is signaled or the timeout expires.
+     *
+     * @param fenceID The ID of the fence.
+     * @param flags   The wait flags, e.g. {@code GL_SYNC_FLUSH_COMMANDS_BIT}.
+     * @param timeout The timeout in nanoseconds.
+     * @return The wait status, e.g. {@code GL_ALREADY_SIGNALED} or {@code GL_TIMEOUT_EXPIRED}.
+     */
+    int clientWaitSync(int fenceID, int flags, long timeout);
+
+    /**
+     * Deletes a fence.
+     *
+     * @param fenceID The ID of the fence.
+     */
+    void deleteSync(int fenceID);
+
+    /**
+     * Creates a shader object.
+     *
+     * @param type The shader type, e.g. {@code GL_VERTEX_SHADER}.
+     * @return The ID of the shader.
+     */
+    int createShader(int type);
+
+    /**
+     * Replaces the source code of a shader.
+     *
+     * @param shaderID The ID of the shader.
+     * @param source   The source code.
+     */
+    void shaderSource(int shaderID, CharSequence source);
+
+    /**
+     * Compiles a shader.
+     *
+     * @param shaderID The ID of the shader.
+     */
+    void compileShader(int shaderID);
+
+    /**
+     * Retrieves an integer parameter of a shader.
+     *
+     * @param shaderID The ID of the shader.
+     * @param name     The parameter name, e.g. {@code GL_COMPILE_STATUS}.
+     * @return The value of the parameter.
+     */
+    int getShaderi(int shaderID, int name);
+
+    /**
+     * Retrieves the information log of a shader.
+     *
+     * @param shaderID  The ID of the shader.
+     * @param maxLength The maximum number of characters to return.
+     * @return The log.
+     */
+    String getShaderInfoLog(int shaderID, int maxLength);
+
+    /**
+     * Deletes a shader object.
+     *
+     * @param shaderID The ID of the shader.
+     */
+    void deleteShader(int shaderID);
+
+    /**
+     * Creates a program object.
+     *
+     * @return The ID of the program.
+     */
+    int createProgram();
+
+    /**
+     * Attaches a shader to a program.
+     *
+     * @param programID The ID of the program.
+     * @param shaderID  The ID of the shader.
+     */
+    void attachShader(int programID, int shaderID);
+
+    /**
+     * Detaches a shader from a program.
+     *
+     * @param programID The ID of the program.
+     * @param shaderID  The ID of the shader.
+     */
+    void detachShader(int programID, int shaderID);
+
+    /**
+     * Binds a vertex attribute name to a location before the program is linked.
+     *
+     * @param programID The ID of the program.
+     * @param index     The attribute location.
+     * @param name      The name of the attribute in the shader.
+     */
+    void bindAttribLocation(int programID, int index, CharSequence name);
+
+    /**
+     * Links a program.
+     *
+     * @param programID The ID of the program.
+     */
+    void linkProgram(int programID);
+
+    /**
+     * Validates a program.
+     *
+     * @param programID The ID of the program.
+     */
+    void validateProgram(int programID);
+
+    /**
+     * Deletes a program object.
+     *
+     * @param programID The ID of the program.
+     */
+    void deleteProgram(int programID);
+
+    /**
+     * Binds a program for rendering.
+     *
+     * @param programID The ID of the program, or 0 to unbind.
+     */
+    void useProgram(int programID);
+
+    /**
+     * Retrieves the location of a uniform variable.
+     *
+     * @param programID The ID of the program.
+     * @param name      The name of the uniform.
+     * @return The location, or -1 if the uniform is not active.
+     */
+    int getUniformLocation(int programID, CharSequence name);
+
+    /**
+     * Loads a float into a uniform of the bound program.
+     *
+     * @param location The uniform location.
+     * @param x        The value.
+     */
+    void uniform1f(int location, float x);
+
+    /**
+     * Loads an integer into a uniform of the bound program.
+     *
+     * @param location The uniform location.
+     * @param x        The value.
+     */
+    void uniform1i(int location, int x);
+
+    /**
+     * Loads a 2D vector into a uniform of the bound program.
+     *
+     * @param location The uniform location.
+     * @param x        The x component.
+     * @param y        The y component.
+     */
+    void uniform2f(int location, float x, float y);
+
+    /**
+     * Loads a 3D vector into a uniform of the bound program.
+     *
+     * @param location The uniform location.
+     * @param x        The x component.
+     * @param y        The y component.
+     * @param z        The z component.
+     */
+    void uniform3f(int location, float x, float y, float z);
+
+    /**
+     * Loads a 4D vector into a uniform of the bound program.
+     *
+     * @param location The uniform location.
+     * @param x        The x component.
+     * @param y        The y component.
+     * @param z        The z component.
+     * @param w        The w component.
+     */
+    void uniform4f(int location, float x, float y, float z, float w);
+
+    /**
+     * Loads a 4x4 matrix into a uniform of the bound program.
+     *
+     * @param location  The uniform location.
+     * @param transpose Whether the matrix is stored row-major.
+     * @param matrix    The 16 matrix values.
+     */
+    void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix);
+
+}
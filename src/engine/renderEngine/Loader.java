@@ -26,39 +26,91 @@
 
 package engine.renderEngine;
 
+import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.EXTTextureFilterAnisotropic;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL14;
 import org.lwjgl.opengl.GL15;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
-import org.lwjgl.opengl.GL33;
-import org.lwjgl.opengl.GLContext;
-import org.newdawn.slick.opengl.Texture;
-import org.newdawn.slick.opengl.TextureLoader;
+import org.lwjgl.util.vector.Vector3f;
 
 import de.matthiasmann.twl.utils.PNGDecoder;
 import de.matthiasmann.twl.utils.PNGDecoder.Format;
+import engine.models.ModelData;
 import engine.models.RawModel;
+import engine.renderEngine.ResourceManager.Category;
 import engine.textures.TextureData;
+import engine.textures.TextureLayer;
 
 /**
  * The Loader class is responsible for loading the VAOs / updating the VBOs.
  */
 public class Loader {
 
-	private List<Integer> vaos = new ArrayList<Integer>();
-	private List<Integer> vbos = new ArrayList<Integer>();
-	private List<Integer> textures = new ArrayList<Integer>();
+	/**
+	 * The folder textures are loaded from.
+	 */
+	public static final String TEXTURE_FOLDER = "res";
+
+	/**
+	 * The folder block-compressed textures are baked into.
+	 */
+	public static final String TEXTURE_CACHE_FOLDER = "res/cache";
+
+	/**
+	 * The folder models are baked into.
+	 */
+	public static final String MESH_CACHE_FOLDER = "res/cache";
+
+	private static final int STREAMING_REGION_BYTES = 4 * 1024 * 1024;
+
+	private final ResourceManager resources = new ResourceManager();
+	private final List<Integer> meshBuffers = new ArrayList<Integer>();
+	private long meshBytes;
+
+	private final GraphicsDevice device = Graphics.getDevice();
+
+	private static final long DEFAULT_TEXTURE_UPLOAD_BUDGET = 8 * 1024 * 1024;
+
+	private final AssetCache<TextureHandle> textureCache = new AssetCache<TextureHandle>();
+	private final AssetCache<RawModel> modelCache = new AssetCache<RawModel>();
+	private final Map<String, Integer> levelCounts = new HashMap<String, Integer>();
+
+	private StreamingBuffer streamingBuffer;
+
+	private AsyncTextureLoader asyncTextureLoader;
+	private AssetPipeline assetPipeline;
+	private TextureStreamer textureStreamer;
+	private long textureUploadBudget = DEFAULT_TEXTURE_UPLOAD_BUDGET;
+
+	private final TextureBaker textureBaker = new TextureBaker(new File(TEXTURE_FOLDER),
+			new File(TEXTURE_CACHE_FOLDER));
+	private volatile Boolean textureCompression;
+
+	private final MeshBaker meshBaker = new MeshBaker(new File("res"), new File(MESH_CACHE_FOLDER));
+
+	private VertexFormat vertexFormat = VertexFormat.PACKED;
+
+	private GeometryArena[] arenas = new GeometryArena[2];
+	private int arenaVertexCapacity;
+	private int arenaIndexCapacity;
 
 	/**
 	 * Loads vertex, texture, and normal data into a VAO and creates a RawModel.
@@ -70,17 +122,7 @@ public class Loader {
 	 * @return A RawModel representing the loaded data.
 	 */
 	public RawModel loadToVAO(float[] positions, float[] textureCoords, float[] normals, int[] indices) {
-		int vaoID = createVAO();
-
-		bindIndicesBuffer(indices);
-
-		storeDataInAttributeList(0, 3, positions);
-		storeDataInAttributeList(1, 2, textureCoords);
-		storeDataInAttributeList(2, 3, normals);
-
-		unbindVAO();
-
-		return new RawModel(vaoID, indices.length);
+		return loadIndexedModel(positions, textureCoords, normals, null, indices);
 	}
 
 	/**
@@ -98,6 +140,7 @@ public class Loader {
 		storeDataInAttributeList(1, 2, textureCoords);
 
 		unbindVAO();
+		trackMesh(vaoID, vaoID);
 
 		return vaoID;
 	}
@@ -109,24 +152,134 @@ public class Loader {
 	 * @param positions     The vertex positions.
 	 * @param textureCoords The texture coordinates.
 	 * @param normals       The normals.
-	 * @param tangents      The tangents.
+	 * @param tangents      The tangents, four floats per vertex, see {@link TangentGenerator}.
 	 * @param indices       The vertex indices.
 	 * @return A RawModel representing the loaded data.
 	 */
 	public RawModel loadToVAO(float[] positions, float[] textureCoords, float[] normals, float[] tangents,
 			int[] indices) {
-		int vaoID = createVAO();
+		return loadIndexedModel(positions, textureCoords, normals, tangents, indices);
+	}
 
-		bindIndicesBuffer(indices);
+	/**
+	 * Loads a model that has been {@link MeshBaker baked} into a VAO, or into a
+	 * geometry arena if one fits. The vertex and index blobs are uploaded straight
+	 * from the mesh's buffers.
+	 *
+	 * @param mesh The baked model.
+	 * @return A RawModel representing the loaded data.
+	 */
+	public RawModel loadToVAO(BakedMesh mesh) {
+		RawModel model = null;
+		GeometryArena arena = getArena(mesh.hasTangents());
+
+		if (arena != null && arena.getFormat() == mesh.getFormat()
+				&& mesh.getIndexType() == GL11.GL_UNSIGNED_SHORT) {
+			model = arena.add(mesh.getVertexData().duplicate(), mesh.getVertexCount(),
+					mesh.getIndexData().duplicate(), mesh.getIndexCount());
+		}
 
-		storeDataInAttributeList(0, 3, positions);
-		storeDataInAttributeList(1, 2, textureCoords);
-		storeDataInAttributeList(2, 3, normals);
-		storeDataInAttributeList(3, 3, tangents);
+		if (model != null) {
+			RawModel arenaModel = model;
 
-		unbindVAO();
+			resources.register(Category.MESH, arenaModel, 0, () -> arena.remove(arenaModel));
+		} else {
+			int vaoID = createVAO();
+
+			int indexID = device.genBuffers();
+			addMeshBuffer(indexID, mesh.getIndexData().remaining());
+			device.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indexID);
+			device.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, mesh.getIndexData().duplicate(), GL15.GL_STATIC_DRAW);
+
+			int vertexID = device.genBuffers();
+			addMeshBuffer(vertexID, mesh.getVertexData().remaining());
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, vertexID);
+			device.bufferData(GL15.GL_ARRAY_BUFFER, mesh.getVertexData().duplicate(), GL15.GL_STATIC_DRAW);
+			mesh.getFormat().bindAttributes(device, mesh.hasTangents());
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+
+			unbindVAO();
+
+			model = new RawModel(vaoID, mesh.getIndexCount(), mesh.getIndexType());
+			trackMesh(model, vaoID);
+		}
+
+		model.setBounds(new Vector3f(mesh.getMinBounds()), new Vector3f(mesh.getMaxBounds()),
+				mesh.getBoundingRadius());
+
+		return model;
+	}
+
+	/**
+	 * Memory-maps the baked version of an OBJ model in the current vertex format,
+	 * baking it first if it is missing or older than the OBJ file.
+	 *
+	 * @param fileName The name of the OBJ file, without the ".obj" extension.
+	 * @param tangents Whether the model needs tangents for normal mapping.
+	 * @return The baked model, or null if the cache can't be used, in which case
+	 *         the OBJ file should be parsed instead.
+	 */
+	public BakedMesh loadBakedMesh(String fileName, boolean tangents) {
+		try {
+			return meshBaker.load(fileName, vertexFormat, tangents);
+		} catch (IOException e) {
+			System.err.println("Could not use the mesh cache for " + fileName + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the layout of the vertices of indexed models loaded from now on. Models
+	 * are stored in the {@link VertexFormat#PACKED packed} format by default.
+	 *
+	 * @param vertexFormat The vertex format.
+	 * @throws IllegalArgumentException If the format is null.
+	 */
+	public void setVertexFormat(VertexFormat vertexFormat) {
+		if (vertexFormat == null) {
+			throw new IllegalArgumentException("Vertex format cannot be null");
+		}
 
-		return new RawModel(vaoID, indices.length);
+		this.vertexFormat = vertexFormat;
+	}
+
+	/**
+	 * Retrieves the layout of the vertices of indexed models.
+	 *
+	 * @return The vertex format.
+	 */
+	public VertexFormat getVertexFormat() {
+		return vertexFormat;
+	}
+
+	/**
+	 * Makes indexed models loaded from now on share {@link GeometryArena geometry
+	 * arenas}, one for models with tangents and one for models without, so they
+	 * render under a single VAO. The arenas are created when they are first needed.
+	 * Models that don't fit, or that don't match the arena's vertex format, still
+	 * get a VAO of their own.
+	 *
+	 * @param vertexCapacity The number of vertices each arena can hold.
+	 * @param indexCapacity  The number of indices each arena can hold.
+	 * @throws IllegalArgumentException If a capacity is not positive.
+	 */
+	public void useGeometryArenas(int vertexCapacity, int indexCapacity) {
+		if (vertexCapacity <= 0 || indexCapacity <= 0) {
+			throw new IllegalArgumentException("Arena capacities must be positive");
+		}
+
+		arenaVertexCapacity = vertexCapacity;
+		arenaIndexCapacity = indexCapacity;
+	}
+
+	/**
+	 * Retrieves the geometry arena for models with or without tangents.
+	 *
+	 * @param tangents Whether the arena holds models with tangents.
+	 * @return The arena, or null if it hasn't been created.
+	 */
+	public GeometryArena getGeometryArena(boolean tangents) {
+		return arenas[tangents ? 1 : 0];
 	}
 
 	/**
@@ -136,19 +289,20 @@ public class Loader {
 	 * @return The VBO id.
 	 */
 	public int createEmptyVbo(int floatCount) {
-		int vbo = GL15.glGenBuffers();
+		int vbo = device.genBuffers();
 
-		vbos.add(vbo);
+		resources.register(Category.BUFFER, vbo, floatCount * 4L, () -> device.deleteBuffers(vbo));
 
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
-		GL15.glBufferData(GL15.GL_ARRAY_BUFFER, floatCount * 4, GL15.GL_STREAM_DRAW);
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+		device.bufferData(GL15.GL_ARRAY_BUFFER, floatCount * 4, GL15.GL_STREAM_DRAW);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 
 		return vbo;
 	}
 
 	/**
-	 * Adds an instanced attribute for instanced rendering.
+	 * Adds an instanced attribute for instanced rendering. The attribute array is
+	 * enabled on the VAO, so renderers don't have to enable it per draw.
 	 *
 	 * @param vao                 The VAO ID.
 	 * @param vbo                 The VBO ID.
@@ -159,19 +313,40 @@ public class Loader {
 	 */
 	public void addInstancedAttribute(int vao, int vbo, int attribute, int dataSize, int instancedDataLength,
 			int offset) {
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
-		GL30.glBindVertexArray(vao);
-		GL20.glVertexAttribPointer(attribute, dataSize, GL11.GL_FLOAT, false, instancedDataLength * 4, offset * 4);
-		GL33.glVertexAttribDivisor(attribute, 1);
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-		GL30.glBindVertexArray(0);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+		GLStateManager.bindVertexArray(vao);
+		device.vertexAttribPointer(attribute, dataSize, GL11.GL_FLOAT, false, instancedDataLength * 4, offset * 4);
+		device.vertexAttribDivisor(attribute, 1);
+		device.enableVertexAttribArray(attribute);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		GLStateManager.bindVertexArray(0);
 	}
 
 	/**
-	 * Loads vertex positions into a VAO and creates a RawModel.
+	 * Retrieves the streaming buffer shared by everything that uploads vertex data every
+	 * frame. It is created on first use and deleted by {@link #cleanUp()}.
 	 *
-	 * @param positions  The vertex positions.
-	 * @param dimensions The number of dimensions for each vertex position.
+	 * @return The streaming buffer.
+	 */
+	public StreamingBuffer getStreamingBuffer() {
+		if (streamingBuffer == null) {
+			StreamingBuffer buffer = new StreamingBuffer(STREAMING_REGION_BYTES);
+
+			resources.register(Category.BUFFER, buffer.getBufferID(), buffer.getSizeBytes(), buffer::cleanUp);
+			streamingBuffer = buffer;
+		}
+
+		return streamingBuffer;
+	}
+
+	/**
+	 * Replaces the contents of a VBO. The buffer is re-specified at its full capacity on
+	 * every call, which makes the driver allocate new storage; data that changes every frame
+	 * should go through {@link #getStreamingBuffer()} instead.
+	 *
+	 * @param vbo    The VBO ID.
+	 * @param data   The new data.
+	 * @param buffer A buffer large enough to hold the data, used for the upload.
 	 */
 	public void updateVbo(int vbo, float[] data, FloatBuffer buffer) {
 //	    if (buffer.remaining() < data.length) {
@@ -182,10 +357,10 @@ public class Loader {
 		buffer.put(data);
 		buffer.flip();
 
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
-		GL15.glBufferData(GL15.GL_ARRAY_BUFFER, buffer.capacity() * 4, GL15.GL_STREAM_DRAW);
-		GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, 0, buffer);
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+		device.bufferData(GL15.GL_ARRAY_BUFFER, buffer.capacity() * 4, GL15.GL_STREAM_DRAW);
+		device.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, buffer);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 	}
 
 	/**
@@ -202,83 +377,596 @@ public class Loader {
 
 		unbindVAO();
 
-		return new RawModel(vaoID, positions.length / dimensions);
+		RawModel model = new RawModel(vaoID, positions.length / dimensions);
+		trackMesh(model, vaoID);
+
+		return model;
 	}
 
 	/**
-	 * Loads a texture from a file and generates mipmaps with specified settings.
+	 * Loads a texture from the "res" folder, or returns the existing texture if it
+	 * has been loaded before. If the texture is still loading in the background, it
+	 * is finished now.
 	 *
-	 * @param fileName The name of the texture file (without extension) located in
-	 *                 the "res" directory.
+	 * @param fileName The name of the texture file, without the ".png" extension.
 	 * @return The OpenGL texture ID.
 	 */
 	public int loadTexture(String fileName) {
-		Texture texture = null;
+		isTextureCompressionEnabled();
 
-		try {
-			texture = TextureLoader.getTexture("PNG", new FileInputStream("res/" + fileName + ".png"));
-			GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
-			GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
-			GL11.glTexParameterf(GL11.GL_TEXTURE_2D, GL14.GL_TEXTURE_LOD_BIAS, 0);
-			
-			if(GLContext.getCapabilities().GL_EXT_texture_filter_anisotropic) {
-				float amount = Math.min(4f,
-						GL11.glGetFloat(EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT));
-				GL11.glTexParameterf(GL11.GL_TEXTURE_2D, EXTTextureFilterAnisotropic.GL_TEXTURE_MAX_ANISOTROPY_EXT, amount);
-			} else {
-				System.out.println("Anisotropic filtering is not supported.");
+		TextureHandle handle = loadCachedTexture(fileName, () -> {
+			int texID = createTexture();
+			uploadTexture(texID, decodeTexture(fileName));
+			return new TextureHandle(texID, fileName, true);
+		});
+
+		if (!handle.isReady()) {
+			asyncTextureLoader.finish(handle);
+		}
+
+		return handle.getID();
+	}
+
+	/**
+	 * Starts loading a texture from the "res" folder in the background, or returns
+	 * the existing texture if it has been requested before. The image is decoded on
+	 * a worker thread and uploaded by {@link #processTextureUploads()}.
+	 *
+	 * @param fileName The name of the texture file, without the ".png" extension.
+	 * @return The handle of the texture, whose ID can be used right away.
+	 */
+	public TextureHandle loadTextureAsync(String fileName) {
+		isTextureCompressionEnabled();
+
+		return loadCachedTexture(fileName, () -> getAsyncTextureLoader().submit(fileName, false));
+	}
+
+	/**
+	 * Starts loading a texture like {@link #loadTextureAsync(String)}, but only
+	 * uploads its small mipmap levels and lets the {@link TextureStreamer} stream
+	 * the rest as the scene needs them. Without texture streaming, or if the
+	 * texture isn't block-compressed, it is uploaded in full. If the texture has
+	 * been requested before, the first request decides whether it is streamed.
+	 *
+	 * @param fileName The name of the texture file, without the ".png" extension.
+	 * @return The handle of the texture, whose ID can be used right away.
+	 */
+	public TextureHandle loadStreamedTexture(String fileName) {
+		isTextureCompressionEnabled();
+
+		return loadCachedTexture(fileName, () -> getAsyncTextureLoader().submit(fileName, true));
+	}
+
+	/**
+	 * Enables mipmap streaming for textures loaded with
+	 * {@link #loadStreamedTexture(String)}, or changes its budget.
+	 *
+	 * @param budgetBytes The video memory the streamed levels may take.
+	 */
+	public void useTextureStreaming(long budgetBytes) {
+		if (textureStreamer == null) {
+			textureStreamer = new TextureStreamer(this, device, budgetBytes);
+		} else {
+			textureStreamer.setBudgetBytes(budgetBytes);
+		}
+	}
+
+	/**
+	 * Retrieves the texture streamer, which the renderers report texture use to.
+	 *
+	 * @return The texture streamer, or null if streaming is not enabled.
+	 */
+	public TextureStreamer getTextureStreamer() {
+		return textureStreamer;
+	}
+
+	/**
+	 * Loads textures from the "res" folder into texture arrays. Textures with the
+	 * same size and format become layers of the same array, so models using them
+	 * can be drawn without rebinding. The textures are decoded in parallel and
+	 * uploaded right away; they are not shared with {@link #loadTexture(String)}.
+	 *
+	 * @param fileNames The names of the texture files, without the ".png" extension.
+	 * @return The layer of each texture, in the same order.
+	 */
+	public TextureLayer[] loadTextureArrays(String... fileNames) {
+		isTextureCompressionEnabled();
+
+		return new TextureArrayBuilder(this, device).build(fileNames, false);
+	}
+
+	/**
+	 * Loads textures from the "res" folder into a single texture array, e.g. the
+	 * splat textures of a terrain. Textures that are larger than the smallest one
+	 * are reduced to its size by skipping their largest mipmap levels, so their
+	 * sizes must be the smallest size times a power of two.
+	 *
+	 * @param fileNames The names of the texture files, without the ".png" extension.
+	 * @return The layer of each texture, in the same order.
+	 * @throws IllegalArgumentException If a texture can't be reduced to the size of
+	 *                                  the smallest one.
+	 */
+	public TextureLayer[] loadTextureArray(String... fileNames) {
+		isTextureCompressionEnabled();
+
+		return new TextureArrayBuilder(this, device).build(fileNames, true);
+	}
+
+	/**
+	 * Uploads textures that have finished decoding in the background, and streamed
+	 * mipmap levels, up to the upload budget each. Afterwards, unreferenced
+	 * resources are evicted if the {@link ResourceManager resource budget} is
+	 * exceeded. Call this once per frame on the GL thread.
+	 *
+	 * @return The number of textures and mipmap levels that were uploaded.
+	 */
+	public int processTextureUploads() {
+		int uploads = asyncTextureLoader == null ? 0 : asyncTextureLoader.processUploads(textureUploadBudget);
+
+		if (textureStreamer != null) {
+			uploads += textureStreamer.update(textureUploadBudget);
+		}
+
+		resources.enforceBudget();
+
+		return uploads;
+	}
+
+	/**
+	 * Sets how many bytes of decoded image data {@link #processTextureUploads()}
+	 * may upload per call.
+	 *
+	 * @param bytes The budget in bytes.
+	 * @throws IllegalArgumentException If the budget is not positive.
+	 */
+	public void setTextureUploadBudget(long bytes) {
+		if (bytes <= 0) {
+			throw new IllegalArgumentException("Texture upload budget must be positive");
+		}
+
+		textureUploadBudget = bytes;
+	}
+
+	/**
+	 * Sets whether textures are loaded from block-compressed cache files, which are
+	 * baked by the {@link TextureBaker} on first use. Only affects textures loaded
+	 * afterwards.
+	 *
+	 * @param enabled True to load compressed textures.
+	 * @throws IllegalStateException If compression is enabled but the device doesn't
+	 *                               support the compressed formats.
+	 */
+	public void setTextureCompression(boolean enabled) {
+		if (enabled && !device.isTextureCompressionSupported()) {
+			throw new IllegalStateException("Compressed textures are not supported by the graphics device");
+		}
+
+		textureCompression = enabled;
+	}
+
+	/**
+	 * Checks whether textures are loaded from block-compressed cache files. This is
+	 * on by default if the device supports the compressed formats.
+	 *
+	 * @return True if compressed textures are used.
+	 */
+	public boolean isTextureCompressionEnabled() {
+		if (textureCompression == null) {
+			textureCompression = device.isTextureCompressionSupported();
+		}
+
+		return textureCompression;
+	}
+
+	/**
+	 * Retrieves the number of textures that are still loading in the background.
+	 *
+	 * @return The number of pending textures.
+	 */
+	public int getPendingTextureCount() {
+		return asyncTextureLoader == null ? 0 : asyncTextureLoader.getPendingCount();
+	}
+
+	/**
+	 * Retrieves the cache that deduplicates texture loads.
+	 *
+	 * @return The texture cache, keyed by file name.
+	 */
+	public AssetCache<TextureHandle> getTextureCache() {
+		return textureCache;
+	}
+
+	/**
+	 * Retrieves the cache that deduplicates model loads. The OBJ loaders go through
+	 * it, so every model file is parsed and uploaded once per loader.
+	 *
+	 * @return The model cache.
+	 */
+	public AssetCache<RawModel> getModelCache() {
+		return modelCache;
+	}
+
+	/**
+	 * Loads a model through the model cache, or returns the cached model with an
+	 * extra reference if it has been loaded before. Once every user has
+	 * {@link #releaseModel(RawModel) released} it, the model is kept until the
+	 * resource budget needs its memory.
+	 *
+	 * @param key  The cache key of the model, e.g. its file name.
+	 * @param load Loads the model through this loader on a miss.
+	 * @return The model.
+	 */
+	public RawModel loadModel(String key, Callable<RawModel> load) {
+		boolean[] loaded = new boolean[1];
+
+		RawModel model = modelCache.get(key, () -> {
+			RawModel created = load.call();
+			resources.setCached(Category.MESH, created, key, () -> modelCache.remove(key));
+			loaded[0] = true;
+			return created;
+		});
+
+		if (!loaded[0]) {
+			resources.acquire(Category.MESH, model);
+		}
+
+		return model;
+	}
+
+	/**
+	 * Loads a model through the model cache like {@link #loadModel(String, Callable)},
+	 * but reads it on the {@link #getAssetPipeline() asset pipeline}'s worker threads.
+	 * Only the returned upload step runs on the GL thread. If the model is cached
+	 * already, it is returned right away.
+	 *
+	 * @param key  The cache key of the model, e.g. its file name.
+	 * @param read Reads the model without touching the GL context, and returns the
+	 *             step that loads it through this loader.
+	 * @return The model, once it has been uploaded.
+	 */
+	public CompletableFuture<RawModel> loadModelAsync(String key, Callable<? extends Callable<RawModel>> read) {
+		if (modelCache.contains(key)) {
+			return CompletableFuture.completedFuture(loadModel(key, () -> read.call().call()));
+		}
+
+		AssetPipeline assets = getAssetPipeline();
+
+		return assets.upload(assets.supply(read), upload -> loadModel(key, upload));
+	}
+
+	/**
+	 * Loads the levels of detail of a model through the model cache. They are
+	 * created on the {@link #getAssetPipeline() asset pipeline}'s worker threads,
+	 * and each is cached under the key of the full-detail model followed by
+	 * "#lod" and its level. If all levels are cached already, they are returned
+	 * right away without creating them again.
+	 *
+	 * @param key  The cache key of the full-detail model.
+	 * @param read Creates the levels without touching the GL context, e.g. with
+	 *             {@link MeshSimplifier#generateLevels}.
+	 * @return The levels, from the finest to the coarsest, once they have been
+	 *         uploaded, each with its simplification error.
+	 */
+	public CompletableFuture<RawModel[]> loadLevelsOfDetailAsync(String key, Callable<ModelData[]> read) {
+		Integer levelCount = levelCounts.get(key);
+
+		if (levelCount != null && areLevelsCached(key, levelCount)) {
+			RawModel[] models = new RawModel[levelCount];
+
+			for (int i = 0; i < models.length; i++) {
+				String levelKey = key + "#lod" + (i + 1);
+
+				models[i] = loadModel(levelKey, () -> {
+					throw new IllegalStateException("Level of detail " + levelKey + " is no longer cached");
+				});
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
 
-			System.err.println("Tried to load texture " + fileName + ".png , didn't work");
-			System.exit(-1);
+			return CompletableFuture.completedFuture(models);
+		}
+
+		AssetPipeline assets = getAssetPipeline();
+
+		return assets.upload(assets.supply(read), levels -> {
+			RawModel[] models = new RawModel[levels.length];
+
+			for (int i = 0; i < levels.length; i++) {
+				ModelData level = levels[i];
+
+				models[i] = loadModel(key + "#lod" + (i + 1), () -> {
+					RawModel model = loadToVAO(level.getVertices(), level.getTextureCoords(), level.getNormals(),
+							level.getTangents(), level.getIndices());
+					model.setSimplificationError(level.getSimplificationError());
+					return model;
+				});
+			}
+
+			levelCounts.put(key, levels.length);
+
+			return models;
+		});
+	}
+
+	/**
+	 * Checks whether the levels of detail of a model are all in the model cache.
+	 *
+	 * @param key        The cache key of the full-detail model.
+	 * @param levelCount The number of levels the model was simplified to.
+	 * @return True if every level is cached.
+	 */
+	private boolean areLevelsCached(String key, int levelCount) {
+		for (int i = 1; i <= levelCount; i++) {
+			if (!modelCache.contains(key + "#lod" + i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Retrieves the pipeline that loads assets on worker threads. It is created on
+	 * first use and stopped by {@link #cleanUp()}.
+	 *
+	 * @return The asset pipeline.
+	 */
+	public AssetPipeline getAssetPipeline() {
+		if (assetPipeline == null) {
+			assetPipeline = new AssetPipeline();
+		}
+
+		return assetPipeline;
+	}
+
+	/**
+	 * Releases a reference to a model, see {@link ResourceManager#release}.
+	 *
+	 * @param model The model, which must not be drawn by the caller afterwards.
+	 */
+	public void releaseModel(RawModel model) {
+		resources.release(Category.MESH, model);
+	}
+
+	/**
+	 * Releases a VAO that was loaded without a model, such as the mesh of a
+	 * text, and deletes it along with its VBOs.
+	 *
+	 * @param vaoID The VAO ID returned by {@link #loadToVAO(float[], float[])}.
+	 */
+	public void releaseVAO(int vaoID) {
+		resources.release(Category.MESH, vaoID);
+	}
+
+	/**
+	 * Releases a reference to a texture, see {@link ResourceManager#release}.
+	 *
+	 * @param textureID The OpenGL texture ID, which must not be bound by the
+	 *                  caller afterwards.
+	 */
+	public void releaseTexture(int textureID) {
+		resources.release(Category.TEXTURE, textureID);
+	}
+
+	/**
+	 * Retrieves the resource manager, which accounts for the video memory of
+	 * everything this loader has created and evicts unused resources over its
+	 * budget.
+	 *
+	 * @return The resource manager.
+	 */
+	public ResourceManager getResourceManager() {
+		return resources;
+	}
+
+	/**
+	 * Creates a texture object that is tracked by the resource manager, with one
+	 * reference for the caller.
+	 *
+	 * @return The OpenGL texture ID.
+	 */
+	int createTexture() {
+		int texID = device.genTextures();
+
+		resources.register(Category.TEXTURE, texID, 0, () -> {
+			if (textureStreamer != null) {
+				textureStreamer.remove(texID);
+			}
+
+			device.deleteTextures(texID);
+			GLStateManager.onTextureDeleted(texID);
+		});
+
+		return texID;
+	}
+
+	/**
+	 * Computes the memory a texture with a full mipmap chain takes.
+	 *
+	 * @param format The block compression of the texture, or null for RGBA.
+	 * @param width  The width of the texture.
+	 * @param height The height of the texture.
+	 * @return The size in bytes.
+	 */
+	static long getMipChainBytes(TextureCompression format, int width, int height) {
+		long bytes = 0;
+
+		for (int level = 0; level == 0 || (width | height) >> level > 0; level++) {
+			int levelWidth = Math.max(1, width >> level);
+			int levelHeight = Math.max(1, height >> level);
+
+			bytes += format != null ? format.getLevelSize(levelWidth, levelHeight) : levelWidth * levelHeight * 4L;
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Decodes a texture from the "res" folder, or maps its block-compressed cache
+	 * file if compression is enabled. If the cache file can't be used, the PNG is
+	 * decoded instead. This doesn't touch OpenGL, so it can run on any thread.
+	 *
+	 * @param fileName The name of the texture file, without the ".png" extension.
+	 * @return The decoded image, or a {@link CompressedTextureData}.
+	 */
+	TextureData decodeTexture(String fileName) {
+		if (Boolean.TRUE.equals(textureCompression)) {
+			try {
+				return textureBaker.load(fileName);
+			} catch (IOException e) {
+				System.err.println("Could not use the compressed texture cache for " + fileName + ": "
+						+ e.getMessage());
+			}
+		}
+
+		return decodeImage(fileName);
+	}
+
+	/**
+	 * Decodes a texture from the "res" folder to RGBA, ignoring the compressed
+	 * texture cache. This doesn't touch OpenGL, so it can run on any thread.
+	 *
+	 * @param fileName The name of the texture file, without the ".png" extension.
+	 * @return The decoded image.
+	 */
+	TextureData decodeImage(String fileName) {
+		return decodeTextureFile(TEXTURE_FOLDER + "/" + fileName + ".png");
+	}
+
+	/**
+	 * Uploads a texture that was loaded in the background. Streamed textures are
+	 * handed to the texture streamer if they are block-compressed.
+	 *
+	 * @param handle The handle of the texture.
+	 * @param data   The decoded image.
+	 */
+	void uploadTexture(TextureHandle handle, TextureData data) {
+		if (!resources.contains(Category.TEXTURE, handle.getID())) {
+			return;
 		}
 
-		textures.add(texture.getTextureID());
-		return texture.getTextureID();
+		if (handle.isStreamed() && textureStreamer != null && data instanceof CompressedTextureData) {
+			textureStreamer.add(handle.getID(), (CompressedTextureData) data);
+		} else {
+			uploadTexture(handle.getID(), data);
+		}
 	}
 
 	/**
-	 * Cleans up OpenGL resources, including VAOs, VBOs, and textures.
+	 * Uploads a decoded image to a texture with specified settings. An RGBA image
+	 * gets its mipmaps generated; a compressed one brings its own.
+	 *
+	 * @param texID The OpenGL texture ID.
+	 * @param data  The decoded image.
+	 */
+	void uploadTexture(int texID, TextureData data) {
+		GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texID);
+
+		if (data instanceof CompressedTextureData) {
+			CompressedTextureData compressed = (CompressedTextureData) data;
+			int format = compressed.getFormat().getInternalFormat();
+
+			for (int level = 0; level < compressed.getLevelCount(); level++) {
+				device.compressedTexImage2D(GL11.GL_TEXTURE_2D, level, format, compressed.getLevelWidth(level),
+						compressed.getLevelHeight(level), 0, compressed.getLevel(level));
+			}
+
+			device.texParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_MAX_LEVEL, compressed.getLevelCount() - 1);
+			resources.setBytes(Category.TEXTURE, texID,
+					getMipChainBytes(compressed.getFormat(), data.getWidth(), data.getHeight()));
+		} else {
+			device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, data.getWidth(), data.getHeight(), 0,
+					GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, data.getBuffer());
+			device.generateMipmap(GL11.GL_TEXTURE_2D);
+			resources.setBytes(Category.TEXTURE, texID, getMipChainBytes(null, data.getWidth(), data.getHeight()));
+		}
+
+		setTextureParameters(GL11.GL_TEXTURE_2D);
+	}
+
+	/**
+	 * Sets up trilinear and, if available, anisotropic filtering for the bound
+	 * texture, which must have its mipmaps.
+	 *
+	 * @param target The texture target, e.g. {@code GL_TEXTURE_2D}.
+	 */
+	void setTextureParameters(int target) {
+		device.texParameteri(target, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(target, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
+		device.texParameterf(target, GL14.GL_TEXTURE_LOD_BIAS, 0);
+
+		if (device.isAnisotropicFilteringSupported()) {
+			float amount = Math.min(4f,
+					device.getFloat(EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT));
+			device.texParameterf(target, EXTTextureFilterAnisotropic.GL_TEXTURE_MAX_ANISOTROPY_EXT, amount);
+		} else {
+			System.out.println("Anisotropic filtering is not supported.");
+		}
+	}
+
+	/**
+	 * Retrieves the background texture loader, creating it on first use.
+	 *
+	 * @return The background texture loader.
+	 */
+	AsyncTextureLoader getAsyncTextureLoader() {
+		if (asyncTextureLoader == null) {
+			asyncTextureLoader = new AsyncTextureLoader(this);
+		}
+
+		return asyncTextureLoader;
+	}
+
+	/**
+	 * Cleans up OpenGL resources, including VAOs, VBOs, and textures, whether they
+	 * have been released or not.
 	 */
 	public void cleanUp() {
-		for (int vao : vaos) {
-			GL30.glDeleteVertexArrays(vao);
+		if (textureStreamer != null) {
+			textureStreamer.cleanUp();
+			textureStreamer = null;
 		}
-		for (int vbo : vbos) {
-			GL15.glDeleteBuffers(vbo);
+		resources.cleanUp();
+		streamingBuffer = null;
+		arenas[0] = null;
+		arenas[1] = null;
+		if (asyncTextureLoader != null) {
+			asyncTextureLoader.shutdown();
+			asyncTextureLoader = null;
 		}
-		for (int texture : textures) {
-			GL11.glDeleteTextures(texture);
+		if (assetPipeline != null) {
+			assetPipeline.shutdown();
+			assetPipeline = null;
 		}
+		textureCache.clear();
+		modelCache.clear();
 	}
 
 	/**
-	 * Loads a cube map texture from an array of texture files.
+	 * Loads a cube map texture from an array of texture files. The faces are
+	 * decoded in parallel on the background texture threads and then uploaded.
 	 *
 	 * @param textureFiles An array of texture file names (without extensions) for
 	 *                     each cube map face.
 	 * @return The OpenGL texture ID for the cube map.
 	 */
 	public int loadCubeMap(String[] textureFiles) {
-		int texID = GL11.glGenTextures();
+		int texID = createTexture();
 
-		GL13.glActiveTexture(GL13.GL_TEXTURE0);
+		TextureData[] faces = getAsyncTextureLoader().decodeAll(textureFiles, false);
 
-		GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, texID);
+		GLStateManager.bindTexture(0, GL13.GL_TEXTURE_CUBE_MAP, texID);
 
 		for (int i = 0; i < textureFiles.length; i++) {
-			TextureData data = decodeTextureFile("res/" + textureFiles[i] + ".png");
+			TextureData data = faces[i];
 
-			GL11.glTexImage2D(GL13.GL_TEXTURE_CUBE_MAP_POSITIVE_X + i, 0, GL11.GL_RGBA, data.getWidth(),
+			device.texImage2D(GL13.GL_TEXTURE_CUBE_MAP_POSITIVE_X + i, 0, GL11.GL_RGBA, data.getWidth(),
 					data.getHeight(), 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, data.getBuffer());
 		}
 
-		GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
 
-		textures.add(texID);
+		resources.setBytes(Category.TEXTURE, texID, textureFiles.length * (long) faces[0].getWidth()
+				* faces[0].getHeight() * 4);
 
 		return texID;
 	}
@@ -291,7 +979,7 @@ public class Loader {
 	 * @return A TextureData object containing the texture's pixel data, width, and
 	 *         height.
 	 */
-	private TextureData decodeTextureFile(String fileName) {
+	static TextureData decodeTextureFile(String fileName) {
 		int width = 0;
 		int height = 0;
 
@@ -299,7 +987,14 @@ public class Loader {
 
 		try {
 			FileInputStream in = new FileInputStream(fileName);
-			PNGDecoder decoder = new PNGDecoder(in);
+			PNGDecoder decoder;
+
+			try {
+				decoder = new PNGDecoder(in);
+			} catch (IOException e) {
+				in.close();
+				return decodeImageIOFile(fileName);
+			}
 
 			width = decoder.getWidth();
 			height = decoder.getHeight();
@@ -318,23 +1013,241 @@ public class Loader {
 	}
 
 	/**
-	 * Creates a new Vertex Array Object (VAO) and returns its OpenGL ID. This
-	 * method also adds the ID to the list of VAOs for cleanup purposes.
+	 * Decodes an image that is not a PNG, e.g. a JPEG saved with a .png extension,
+	 * through ImageIO and converts it to RGBA.
+	 *
+	 * @param fileName The name of the image file (including the path) to decode.
+	 * @return A TextureData object containing the image's pixel data, width, and
+	 *         height.
+	 * @throws IOException If the file can't be read or its format isn't supported.
+	 */
+	private static TextureData decodeImageIOFile(String fileName) throws IOException {
+		BufferedImage image = ImageIO.read(new File(fileName));
+
+		if (image == null) {
+			throw new IOException("Unsupported image format: " + fileName);
+		}
+
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(4 * width * height);
+
+		for (int pixel : pixels) {
+			buffer.put((byte) (pixel >> 16));
+			buffer.put((byte) (pixel >> 8));
+			buffer.put((byte) pixel);
+			buffer.put((byte) (pixel >>> 24));
+		}
+
+		buffer.flip();
+
+		return new TextureData(buffer, width, height);
+	}
+
+	/**
+	 * Creates a new Vertex Array Object (VAO) and returns its OpenGL ID. The
+	 * buffers stored in it until {@link #trackMesh(Object, int)} is called belong
+	 * to it.
 	 *
 	 * @return The OpenGL ID of the newly created VAO.
 	 */
 	private int createVAO() {
-		int vaoID = GL30.glGenVertexArrays();
+		int vaoID = device.genVertexArrays();
 
-		vaos.add(vaoID);
+		meshBuffers.clear();
+		meshBytes = 0;
 
-		GL30.glBindVertexArray(vaoID);
+		GLStateManager.bindVertexArray(vaoID);
 
 		return vaoID;
 	}
 
+	/**
+	 * Registers the VAO created last, together with its buffers, with the
+	 * resource manager.
+	 *
+	 * @param handle The handle the mesh is identified by, its model or VAO ID.
+	 * @param vaoID  The VAO ID.
+	 */
+	private void trackMesh(Object handle, int vaoID) {
+		int[] buffers = new int[meshBuffers.size()];
+
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = meshBuffers.get(i);
+		}
+
+		resources.register(Category.MESH, handle, meshBytes, () -> {
+			device.deleteVertexArrays(vaoID);
+			GLStateManager.onVertexArrayDeleted(vaoID);
+
+			for (int buffer : buffers) {
+				device.deleteBuffers(buffer);
+			}
+		});
+
+		meshBuffers.clear();
+		meshBytes = 0;
+	}
+
+	/**
+	 * Registers a buffer of the VAO being built.
+	 *
+	 * @param vboID The VBO ID.
+	 * @param bytes The size of the buffer.
+	 */
+	private void addMeshBuffer(int vboID, long bytes) {
+		meshBuffers.add(vboID);
+		meshBytes += bytes;
+	}
+
+	/**
+	 * Loads a texture through the texture cache, or acquires a reference to the
+	 * cached texture if it has been loaded before.
+	 *
+	 * @param fileName The name of the texture file, which is its cache key.
+	 * @param load     Creates the texture on a miss.
+	 * @return The handle of the texture.
+	 */
+	private TextureHandle loadCachedTexture(String fileName, Callable<TextureHandle> load) {
+		boolean[] loaded = new boolean[1];
+
+		TextureHandle handle = textureCache.get(fileName, () -> {
+			TextureHandle created = load.call();
+			resources.setCached(Category.TEXTURE, created.getID(), fileName, () -> textureCache.remove(fileName));
+			loaded[0] = true;
+			return created;
+		});
+
+		if (!loaded[0]) {
+			resources.acquire(Category.TEXTURE, handle.getID());
+		}
+
+		return handle;
+	}
+
+	/**
+	 * Loads an indexed model into a VAO with its vertices interleaved in a single
+	 * VBO in the current {@link VertexFormat}.
+	 *
+	 * @param positions     The vertex positions.
+	 * @param textureCoords The texture coordinates.
+	 * @param normals       The normals.
+	 * @param tangents      The tangents, or null if the model has none.
+	 * @param indices       The vertex indices.
+	 * @return A RawModel representing the loaded data.
+	 */
+	private RawModel loadIndexedModel(float[] positions, float[] textureCoords, float[] normals, float[] tangents,
+			int[] indices) {
+		RawModel arenaModel = loadIntoArena(positions, textureCoords, normals, tangents, indices);
+
+		if (arenaModel != null) {
+			GeometryArena arena = arenas[tangents != null ? 1 : 0];
+
+			resources.register(Category.MESH, arenaModel, 0, () -> arena.remove(arenaModel));
+			calculateBounds(arenaModel, positions);
+			return arenaModel;
+		}
+
+		int vaoID = createVAO();
+
+		int indexType = bindIndicesBuffer(indices, positions.length / 3);
+
+		storeInterleavedData(positions, textureCoords, normals, tangents);
+
+		unbindVAO();
+
+		RawModel model = new RawModel(vaoID, indices.length, indexType);
+		trackMesh(model, vaoID);
+		calculateBounds(model, positions);
+
+		return model;
+	}
+
+	/**
+	 * Adds an indexed model to the matching geometry arena, if arenas are in use.
+	 *
+	 * @param positions     The vertex positions.
+	 * @param textureCoords The texture coordinates.
+	 * @param normals       The normals.
+	 * @param tangents      The tangents, or null if the model has none.
+	 * @param indices       The vertex indices.
+	 * @return The model, or null if it has to get a VAO of its own.
+	 */
+	private RawModel loadIntoArena(float[] positions, float[] textureCoords, float[] normals, float[] tangents,
+			int[] indices) {
+		GeometryArena arena = getArena(tangents != null);
+
+		if (arena == null || arena.getFormat() != vertexFormat) {
+			return null;
+		}
+
+		return arena.add(positions, textureCoords, normals, tangents, indices);
+	}
+
+	/**
+	 * Retrieves the geometry arena for models with or without tangents, creating
+	 * it in the current vertex format if it is needed for the first time.
+	 *
+	 * @param tangents Whether the arena holds models with tangents.
+	 * @return The arena, or null if arenas are not in use.
+	 */
+	private GeometryArena getArena(boolean tangents) {
+		if (arenaVertexCapacity == 0) {
+			return null;
+		}
+
+		int slot = tangents ? 1 : 0;
+
+		if (arenas[slot] == null) {
+			GeometryArena arena = new GeometryArena(vertexFormat, tangents, arenaVertexCapacity, arenaIndexCapacity);
+
+			resources.register(Category.BUFFER, arena.getVaoID(), arena.getSizeBytes(), arena::cleanUp);
+			arenas[slot] = arena;
+		}
+
+		return arenas[slot];
+	}
+
+	/**
+	 * Interleaves the vertex data into a new VBO and points attributes 0 to 3 of
+	 * the bound VAO at it.
+	 *
+	 * @param positions     The vertex positions.
+	 * @param textureCoords The texture coordinates.
+	 * @param normals       The normals.
+	 * @param tangents      The tangents, or null if the model has none.
+	 */
+	private void storeInterleavedData(float[] positions, float[] textureCoords, float[] normals,
+			float[] tangents) {
+		int vboID = device.genBuffers();
+
+		if (vboID == 0) {
+			throw new IllegalStateException("Failed to generate VBO");
+		}
+
+		boolean hasTangents = tangents != null;
+		ByteBuffer buffer = BufferUtils.createByteBuffer(positions.length / 3 * vertexFormat.getStride(hasTangents));
+
+		addMeshBuffer(vboID, buffer.capacity());
+
+		vertexFormat.putVertices(buffer, positions, textureCoords, normals, tangents);
+		buffer.flip();
+
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, vboID);
+		device.bufferData(GL15.GL_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
+		vertexFormat.bindAttributes(device, hasTangents);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+
+		int error = device.getError();
+		if (error != GL11.GL_NO_ERROR) {
+			throw new IllegalStateException("OpenGL error: " + error);
+		}
+	}
+
 	/**
 	 * Stores vertex data in an attribute list within a Vertex Buffer Object (VBO).
+	 * The attribute array is enabled here once, since the VAO remembers it.
 	 *
 	 * @param attributeNumber The attribute number to bind the data to.
 	 * @param coordinateSize  The size of each coordinate (e.g., 2 for 2D, 3 for
@@ -342,61 +1255,113 @@ public class Loader {
 	 * @param data            The vertex data to store.
 	 */
 	private void storeDataInAttributeList(int attributeNumber, int coordinateSize, float[] data) {
-		int vboID = GL15.glGenBuffers();
+		int vboID = device.genBuffers();
 
 		if (vboID == 0) {
 			throw new IllegalStateException("Failed to generate VBO");
 		}
 
-		vbos.add(vboID);
+		addMeshBuffer(vboID, data.length * 4L);
 
 		try {
-			GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboID);
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, vboID);
 
 			FloatBuffer buffer = storeDataInFloatBuffer(data);
 
-			GL15.glBufferData(GL15.GL_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
+			device.bufferData(GL15.GL_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
 
-			int error = GL11.glGetError();
+			int error = device.getError();
 			if (error != GL11.GL_NO_ERROR) {
 				throw new IllegalStateException("OpenGL error: " + error);
 			}
 
-			GL20.glVertexAttribPointer(attributeNumber, coordinateSize, GL11.GL_FLOAT, false, 0, 0);
+			device.vertexAttribPointer(attributeNumber, coordinateSize, GL11.GL_FLOAT, false, 0, 0);
+			device.enableVertexAttribArray(attributeNumber);
 
-			error = GL11.glGetError();
+			error = device.getError();
 			if (error != GL11.GL_NO_ERROR) {
 				throw new IllegalStateException("OpenGL error: " + error);
 			}
 
-			GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Calculates the axis-aligned bounding box and the bounding sphere of a model
+	 * from its vertex positions and stores them on the model. The sphere is
+	 * centered on the model origin so it stays valid for any entity rotation.
+	 *
+	 * @param model     The model to store the bounds on.
+	 * @param positions The vertex positions (x, y, z per vertex).
+	 */
+	private void calculateBounds(RawModel model, float[] positions) {
+		if (positions.length < 3) {
+			return;
+		}
+
+		Vector3f min = new Vector3f(positions[0], positions[1], positions[2]);
+		Vector3f max = new Vector3f(positions[0], positions[1], positions[2]);
+		float furthestSquared = 0;
+
+		for (int i = 0; i + 2 < positions.length; i += 3) {
+			float x = positions[i];
+			float y = positions[i + 1];
+			float z = positions[i + 2];
+
+			min.x = Math.min(min.x, x);
+			min.y = Math.min(min.y, y);
+			min.z = Math.min(min.z, z);
+			max.x = Math.max(max.x, x);
+			max.y = Math.max(max.y, y);
+			max.z = Math.max(max.z, z);
+
+			furthestSquared = Math.max(furthestSquared, x * x + y * y + z * z);
+		}
+
+		model.setBounds(min, max, (float) Math.sqrt(furthestSquared));
+	}
+
 	/**
 	 * Unbinds the currently bound VAO, setting it to zero.
 	 */
 	private void unbindVAO() {
-		GL30.glBindVertexArray(0);
+		GLStateManager.bindVertexArray(0);
 	}
 
 	/**
 	 * Binds the indices buffer with the provided indices data to the current VAO.
+	 * Models with no more than 65,536 vertices get 16-bit indices.
 	 *
-	 * @param indices The vertex indices to bind.
+	 * @param indices     The vertex indices to bind.
+	 * @param vertexCount The number of vertices the indices refer to.
+	 * @return The index type, {@code GL_UNSIGNED_SHORT} or {@code GL_UNSIGNED_INT}.
 	 */
-	private void bindIndicesBuffer(int[] indices) {
-		int vboID = GL15.glGenBuffers();
+	private int bindIndicesBuffer(int[] indices, int vertexCount) {
+		int vboID = device.genBuffers();
 
-		vbos.add(vboID);
+		device.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboID);
 
-		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboID);
+		if (vertexCount > 0xFFFF + 1) {
+			addMeshBuffer(vboID, indices.length * 4L);
+			device.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, storeDataInIntBuffer(indices), GL15.GL_STATIC_DRAW);
+			return GL11.GL_UNSIGNED_INT;
+		}
+
+		addMeshBuffer(vboID, indices.length * 2L);
+
+		ByteBuffer buffer = BufferUtils.createByteBuffer(indices.length * 2);
 
-		IntBuffer buffer = storeDataInIntBuffer(indices);
+		for (int index : indices) {
+			buffer.putShort((short) index);
+		}
+
+		buffer.flip();
+		device.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
 
-		GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
+		return GL11.GL_UNSIGNED_SHORT;
 	}
 
 	/**
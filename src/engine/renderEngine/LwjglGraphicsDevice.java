@@ -0,0 +1,512 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.opengl.GLContext;
+import org.lwjgl.opengl.GLSync;
+
+/**
+ * The LwjglGraphicsDevice class forwards every call straight to the LWJGL OpenGL bindings. It
+ * requires a current context, i.e. a display created by {@link DisplayManager#createDisplay()}.
+ */
+public class LwjglGraphicsDevice implements GraphicsDevice {
+
+    private final Map<Integer, GLSync> fences = new HashMap<Integer, GLSync>();
+    private int nextFenceID = 1;
+
+    @Override
+    public void drawArrays(int mode, int first, int count) {
+        GL11.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void drawArraysInstanced(int mode, int first, int count, int instances) {
+        GL31.glDrawArraysInstanced(mode, first, count, instances);
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long offset) {
+        GL11.glDrawElements(mode, count, type, offset);
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long offset, int instances) {
+        GL31.glDrawElementsInstanced(mode, count, type, offset, instances);
+    }
+
+    @Override
+    public void drawElementsBaseVertex(int mode, int count, int type, long offset, int baseVertex) {
+        GL32.glDrawElementsBaseVertex(mode, count, type, offset, baseVertex);
+    }
+
+    @Override
+    public void drawElementsInstancedBaseVertex(int mode, int count, int type, long offset, int instances,
+            int baseVertex) {
+        GL32.glDrawElementsInstancedBaseVertex(mode, count, type, offset, instances, baseVertex);
+    }
+
+    @Override
+    public void clear(int mask) {
+        GL11.glClear(mask);
+    }
+
+    @Override
+    public void clearColor(float red, float green, float blue, float alpha) {
+        GL11.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void viewport(int x, int y, int width, int height) {
+        GL11.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void enable(int capability) {
+        GL11.glEnable(capability);
+    }
+
+    @Override
+    public void disable(int capability) {
+        GL11.glDisable(capability);
+    }
+
+    @Override
+    public void blendFunc(int source, int destination) {
+        GL11.glBlendFunc(source, destination);
+    }
+
+    @Override
+    public void depthMask(boolean enabled) {
+        GL11.glDepthMask(enabled);
+    }
+
+    @Override
+    public void cullFace(int mode) {
+        GL11.glCullFace(mode);
+    }
+
+    @Override
+    public void drawBuffer(int buffer) {
+        GL11.glDrawBuffer(buffer);
+    }
+
+    @Override
+    public void readBuffer(int buffer) {
+        GL11.glReadBuffer(buffer);
+    }
+
+    @Override
+    public int getError() {
+        return GL11.glGetError();
+    }
+
+    @Override
+    public float getFloat(int name) {
+        return GL11.glGetFloat(name);
+    }
+
+    @Override
+    public boolean isAnisotropicFilteringSupported() {
+        return GLContext.getCapabilities().GL_EXT_texture_filter_anisotropic;
+    }
+
+    @Override
+    public boolean isTextureCompressionSupported() {
+        ContextCapabilities capabilities = GLContext.getCapabilities();
+        return capabilities.GL_EXT_texture_compression_s3tc
+                && (capabilities.OpenGL30 || capabilities.GL_ARB_texture_compression_rgtc);
+    }
+
+    @Override
+    public int genVertexArrays() {
+        return GL30.glGenVertexArrays();
+    }
+
+    @Override
+    public void deleteVertexArrays(int vaoID) {
+        GL30.glDeleteVertexArrays(vaoID);
+    }
+
+    @Override
+    public void bindVertexArray(int vaoID) {
+        GL30.glBindVertexArray(vaoID);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+        GL20.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void enableVertexAttribArray(int index) {
+        GL20.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        GL33.glVertexAttribDivisor(index, divisor);
+    }
+
+    @Override
+    public int genBuffers() {
+        return GL15.glGenBuffers();
+    }
+
+    @Override
+    public void deleteBuffers(int bufferID) {
+        GL15.glDeleteBuffers(bufferID);
+    }
+
+    @Override
+    public void bindBuffer(int target, int bufferID) {
+        GL15.glBindBuffer(target, bufferID);
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        GL15.glBufferData(target, size, usage);
+    }
+
+    @Override
+    public void bufferData(int target, FloatBuffer data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void bufferData(int target, IntBuffer data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void bufferData(int target, ByteBuffer data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        GL15.glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, ByteBuffer data) {
+        GL15.glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        GL31.glCopyBufferSubData(readTarget, writeTarget, readOffset, writeOffset, size);
+    }
+
+    @Override
+    public ByteBuffer mapBufferRange(int target, long offset, long length, int access, ByteBuffer oldBuffer) {
+        return GL30.glMapBufferRange(target, offset, length, access, oldBuffer);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        return GL15.glUnmapBuffer(target);
+    }
+
+    @Override
+    public int genTextures() {
+        return GL11.glGenTextures();
+    }
+
+    @Override
+    public void deleteTextures(int textureID) {
+        GL11.glDeleteTextures(textureID);
+    }
+
+    @Override
+    public void activeTexture(int texture) {
+        GL13.glActiveTexture(texture);
+    }
+
+    @Override
+    public void bindTexture(int target, int textureID) {
+        GL11.glBindTexture(target, textureID);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+            int type, ByteBuffer pixels) {
+        GL11.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void compressedTexImage2D(int target, int level, int internalFormat, int width, int height, int border,
+            ByteBuffer data) {
+        GL13.glCompressedTexImage2D(target, level, internalFormat, width, height, border, data);
+    }
+
+    @Override
+    public void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border,
+            int format, int type, ByteBuffer pixels) {
+        GL12.glTexImage3D(target, level, internalFormat, width, height, depth, border, format, type, pixels);
+    }
+
+    @Override
+    public void compressedTexImage3D(int target, int level, int internalFormat, int width, int height, int depth,
+            int border, ByteBuffer data) {
+        GL13.glCompressedTexImage3D(target, level, internalFormat, width, height, depth, border, data);
+    }
+
+    @Override
+    public void texParameteri(int target, int name, int value) {
+        GL11.glTexParameteri(target, name, value);
+    }
+
+    @Override
+    public void texParameterf(int target, int name, float value) {
+        GL11.glTexParameterf(target, name, value);
+    }
+
+    @Override
+    public void generateMipmap(int target) {
+        GL30.glGenerateMipmap(target);
+    }
+
+    @Override
+    public int genFramebuffers() {
+        return GL30.glGenFramebuffers();
+    }
+
+    @Override
+    public void deleteFramebuffers(int framebufferID) {
+        GL30.glDeleteFramebuffers(framebufferID);
+    }
+
+    @Override
+    public void bindFramebuffer(int target, int framebufferID) {
+        GL30.glBindFramebuffer(target, framebufferID);
+    }
+
+    @Override
+    public void framebufferTexture(int target, int attachment, int textureID, int level) {
+        GL32.glFramebufferTexture(target, attachment, textureID, level);
+    }
+
+    @Override
+    public void framebufferTexture2D(int target, int attachment, int textureTarget, int textureID, int level) {
+        GL30.glFramebufferTexture2D(target, attachment, textureTarget, textureID, level);
+    }
+
+    @Override
+    public int genRenderbuffers() {
+        return GL30.glGenRenderbuffers();
+    }
+
+    @Override
+    public void deleteRenderbuffers(int renderbufferID) {
+        GL30.glDeleteRenderbuffers(renderbufferID);
+    }
+
+    @Override
+    public void bindRenderbuffer(int target, int renderbufferID) {
+        GL30.glBindRenderbuffer(target, renderbufferID);
+    }
+
+    @Override
+    public void renderbufferStorage(int target, int internalFormat, int width, int height) {
+        GL30.glRenderbufferStorage(target, internalFormat, width, height);
+    }
+
+    @Override
+    public void framebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbufferID) {
+        GL30.glFramebufferRenderbuffer(target, attachment, renderbufferTarget, renderbufferID);
+    }
+
+    @Override
+    public int genQueries() {
+        return GL15.glGenQueries();
+    }
+
+    @Override
+    public void deleteQueries(int queryID) {
+        GL15.glDeleteQueries(queryID);
+    }
+
+    @Override
+    public void queryCounter(int queryID, int target) {
+        GL33.glQueryCounter(queryID, target);
+    }
+
+    @Override
+    public int getQueryObjecti(int queryID, int name) {
+        return GL15.glGetQueryObjecti(queryID, name);
+    }
+
+    @Override
+    public long getQueryObjectui64(int queryID, int name) {
+        return GL33.glGetQueryObjectui64(queryID, name);
+    }
+
+    @Override
+    public int fenceSync() {
+        int fenceID = nextFenceID++;
+
+        fences.put(fenceID, GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0));
+
+        return fenceID;
+    }
+
+    @Override
+    public int clientWaitSync(int fenceID, int flags, long timeout) {
+        return GL32.glClientWaitSync(fences.get(fenceID), flags, timeout);
+    }
+
+    @Override
+    public void deleteSync(int fenceID) {
+        GLSync fence = fences.remove(fenceID);
+
+        if (fence != null) {
+            GL32.glDeleteSync(fence);
+        }
+    }
+
+    @Override
+    public int createShader(int type) {
+        return GL20.glCreateShader(type);
+    }
+
+    @Override
+    public void shaderSource(int shaderID, CharSequence source) {
+        GL20.glShaderSource(shaderID, source);
+    }
+
+    @Override
+    public void compileShader(int shaderID) {
+        GL20.glCompileShader(shaderID);
+    }
+
+    @Override
+    public int getShaderi(int shaderID, int name) {
+        return GL20.glGetShaderi(shaderID, name);
+    }
+
+    @Override
+    public String getShaderInfoLog(int shaderID, int maxLength) {
+        return GL20.glGetShaderInfoLog(shaderID, maxLength);
+    }
+
+    @Override
+    public void deleteShader(int shaderID) {
+        GL20.glDeleteShader(shaderID);
+    }
+
+    @Override
+    public int createProgram() {
+        return GL20.glCreateProgram();
+    }
+
+    @Override
+    public void attachShader(int programID, int shaderID) {
+        GL20.glAttachShader(programID, shaderID);
+    }
+
+    @Override
+    public void detachShader(int programID, int shaderID) {
+        GL20.glDetachShader(programID, shaderID);
+    }
+
+    @Override
+    public void bindAttribLocation(int programID, int index, CharSequence name) {
+        GL20.glBindAttribLocation(programID, index, name);
+    }
+
+    @Override
+    public void linkProgram(int programID) {
+        GL20.glLinkProgram(programID);
+    }
+
+    @Override
+    public void validateProgram(int programID) {
+        GL20.glValidateProgram(programID);
+    }
+
+    @Override
+    public void deleteProgram(int programID) {
+        GL20.glDeleteProgram(programID);
+    }
+
+    @Override
+    public void useProgram(int programID) {
+        GL20.glUseProgram(programID);
+    }
+
+    @Override
+    public int getUniformLocation(int programID, CharSequence name) {
+        return GL20.glGetUniformLocation(programID, name);
+    }
+
+    @Override
+    public void uniform1f(int location, float x) {
+        GL20.glUniform1f(location, x);
+    }
+
+    @Override
+    public void uniform1i(int location, int x) {
+        GL20.glUniform1i(location, x);
+    }
+
+    @Override
+    public void uniform2f(int location, float x, float y) {
+        GL20.glUniform2f(location, x, y);
+    }
+
+    @Override
+    public void uniform3f(int location, float x, float y, float z) {
+        GL20.glUniform3f(location, x, y, z);
+    }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) {
+        GL20.glUniform4f(location, x, y, z, w);
+    }
+
+    @Override
+    public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix) {
+        GL20.glUniformMatrix4(location, transpose, matrix);
+    }
+
+}
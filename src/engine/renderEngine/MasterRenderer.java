@@ -31,17 +31,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GLContext;
 import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
 import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.entities.Entity;
 import engine.entities.Light;
+import engine.models.RawModel;
 import engine.models.TexturedModel;
 import engine.normalMappingRenderer.NormalMappingRenderer;
 import engine.shaders.StaticShader;
@@ -49,6 +48,7 @@ import engine.shaders.TerrainShader;
 import engine.shadows.ShadowMapMasterRenderer;
 import engine.skybox.SkyboxRenderer;
 import engine.terrains.Terrain;
+import engine.textures.ModelTexture;
 
 /**
  * The MasterRenderer class is responsible for managing all the rendering efficiently.
@@ -58,6 +58,11 @@ public class MasterRenderer {
 	public static final float FOV = 70;
 	public static final float NEAR_PLANE = 0.1f;
 	public static final float FAR_PLANE = 1000;
+
+	/**
+	 * The largest error, in pixels, a simplified level of detail may show on screen.
+	 */
+	public static final float LOD_PIXEL_ERROR = 1;
 	
 	public static final float RED = 135f;
 	public static final float GREEN = 206f;
@@ -81,9 +86,21 @@ public class MasterRenderer {
 	private Map<TexturedModel, List<Entity>> normalMapEntities = new HashMap<TexturedModel, List<Entity>>();
 	private List<Terrain> terrains = new ArrayList<Terrain>();
 	
+	private RenderQueue renderQueue = new RenderQueue(FAR_PLANE);
+	
 	private SkyboxRenderer skyboxRenderer;
 	private ShadowMapMasterRenderer shadowMapRenderer;
 	
+	private FrameContext frameContext = new FrameContext();
+	
+	private Loader loader;
+
+	private final GraphicsDevice device = Graphics.getDevice();
+	
+	private FrustumCuller[] sceneCullers = createSceneCullers();
+	private FrustumCuller shadowCuller = new FrustumCuller("shadow");
+	private List<Entity> visibleEntities = new ArrayList<Entity>();
+	
 	/**
 	 * Constructs a MasterRenderer with the given loader. Initializes various rendering components and settings.
 	 *
@@ -92,11 +109,12 @@ public class MasterRenderer {
 	public MasterRenderer(Loader loader, float fogDensity, float fogGradient, Camera camera) {
 		this.fogDensity = fogDensity;
 		this.fogGradient = fogGradient;
+		this.loader = loader;
 	    enableCulling();
 	    
 	    createProjectionMatrix();
 	    
-	    renderer = new EntityRenderer(shader, projectionMatrix);
+	    renderer = new EntityRenderer(loader, shader, projectionMatrix);
 	    terrainRenderer = new TerrainRenderer(terrainShader, projectionMatrix);
 	    skyboxRenderer = new SkyboxRenderer(loader, projectionMatrix);
 	    normalMapRenderer = new NormalMappingRenderer(projectionMatrix);
@@ -111,6 +129,17 @@ public class MasterRenderer {
 	public Matrix4f getProjectionMatrix() {
 	    return projectionMatrix;
 	}
+	
+	/**
+	 * Retrieves the frame context of the most recent scene pass. Renderers that draw into
+	 * the same pass afterwards (water, particles) and the mouse picker read the camera
+	 * matrices from it instead of rebuilding them.
+	 *
+	 * @return The frame context of the last pass.
+	 */
+	public FrameContext getFrameContext() {
+	    return frameContext;
+	}
 
 	
 	/**
@@ -125,44 +154,63 @@ public class MasterRenderer {
 	 */
 	public void renderScene(List<Entity> entities, List<Entity> normalEntities, List<Terrain> terrains,
 	        List<Light> lights, Camera camera, Vector4f clipPlane) {
+		renderScene(entities, normalEntities, terrains, lights, camera, clipPlane, ScenePass.MAIN);
+	}
+	
+	/**
+	 * Renders the entire scene like {@link #renderScene(List, List, List, List, Camera, Vector4f)}
+	 * as one of the passes of a frame, whose culling statistics are kept apart.
+	 *
+	 * @param entities      The list of entities to render.
+	 * @param normalEntities The list of entities with normal maps to render.
+	 * @param terrains      The list of terrains to render.
+	 * @param lights        The list of light sources in the scene.
+	 * @param camera        The camera view used for rendering.
+	 * @param clipPlane     The clipping plane used for water rendering.
+	 * @param pass          The pass of the frame being rendered.
+	 */
+	public void renderScene(List<Entity> entities, List<Entity> normalEntities, List<Terrain> terrains,
+	        List<Light> lights, Camera camera, Vector4f clipPlane, ScenePass pass) {
 		for(Terrain terrain : terrains) {
 			processTerrain(terrain);
 		}
 		
-		for(Entity entity : entities) {
+		FrustumCuller sceneCuller = sceneCullers[pass.ordinal()];
+		
+		frameContext.update(camera, projectionMatrix);
+		sceneCuller.begin(frameContext.getFrustum());
+		
+		visibleEntities.clear();
+		sceneCuller.cull(entities, visibleEntities);
+		for(Entity entity : visibleEntities) {
 			processEntity(entity);
 		}
 		
-		for(Entity entity : normalEntities) {
+		visibleEntities.clear();
+		sceneCuller.cull(normalEntities, visibleEntities);
+		for(Entity entity : visibleEntities) {
 			processNormalMapEntity(entity);
 		}
 		
-		render(lights, camera, clipPlane);
+		visibleEntities.clear();
+		
+		renderPass(lights, clipPlane, pass == ScenePass.MAIN);
 	}
 	
 	/**
-	 * Enables face culling to improve rendering performance. Call this method before rendering objects with culling enabled.
+	 * Enables back face culling to improve rendering performance. Call this method before rendering objects with culling enabled.
+	 * Nothing reaches OpenGL if culling is already enabled.
 	 */
 	public static void enableCulling() {
-	    if (!GLContext.getCapabilities().OpenGL11) {
-	        System.err.println("OpenGL 1.1 is required for face culling, but it's not supported.");
-	        return;
-	    }
-
-	    GL11.glEnable(GL11.GL_CULL_FACE);
-	    GL11.glCullFace(GL11.GL_BACK);
+	    GLStateManager.setCulling(true);
+	    GLStateManager.cullFace(GL11.GL_BACK);
 	}
 
 	/**
 	 * Disables face culling. Call this method when rendering objects without culling.
 	 */
 	public static void disableCulling() {
-	    if (!GLContext.getCapabilities().OpenGL11) {
-	        System.err.println("OpenGL 1.1 is required to disable face culling, but it's not supported.");
-	        return;
-	    }
-
-	    GL11.glDisable(GL11.GL_CULL_FACE);
+	    GLStateManager.setCulling(false);
 	}
 
 	/**
@@ -172,38 +220,192 @@ public class MasterRenderer {
 	 * @param camera The camera view used for rendering.
 	 */
 	public void render(List<Light> lights, Camera camera, Vector4f clipPlane) {
+		frameContext.update(camera, projectionMatrix);
+		renderPass(lights, clipPlane, true);
+	}
+	
+	/**
+	 * Renders the processed entities and terrains with the current frame context.
+	 *
+	 * @param lights       The light sources in the scene.
+	 * @param clipPlane    The clipping plane used for water rendering.
+	 * @param selectLevels Whether the pass picks the levels of detail of the entities.
+	 */
+	private void renderPass(List<Light> lights, Vector4f clipPlane, boolean selectLevels) {
 		prepare();
 		
-		shader.start();
-		shader.loadClipPlane(clipPlane);
-		shader.loadSkyColour(RED, GREEN, BLUE);
-		shader.loadLights(lights);
-		shader.loadViewMatrix(camera);
-		shader.loadFog(fogDensity, fogGradient);
+		fillRenderQueue(frameContext.getCameraPosition(), selectLevels);
+		renderQueue.sort();
 		
-		renderer.render(entities);
+		int start = 0;
+		while (start < renderQueue.size()) {
+			int end = renderQueue.findShaderRunEnd(start);
+			
+			switch (renderQueue.getShader(start)) {
+			case RenderQueue.SHADER_ENTITY:
+				shader.start();
+				shader.loadClipPlane(clipPlane);
+				shader.loadSkyColour(RED, GREEN, BLUE);
+				shader.loadLights(lights);
+				shader.loadViewMatrix(frameContext.getViewMatrix());
+				shader.loadFog(fogDensity, fogGradient);
+				
+				renderer.render(renderQueue, start, end);
+				
+				shader.stop();
+				break;
+			case RenderQueue.SHADER_NORMAL_MAP:
+				normalMapRenderer.render(renderQueue, start, end, clipPlane, lights, frameContext);
+				break;
+			case RenderQueue.SHADER_TERRAIN:
+				terrainShader.start();
+				terrainShader.loadClipPlane(clipPlane);
+				terrainShader.loadSkyColour(RED, GREEN, BLUE);
+				terrainShader.loadLights(lights);
+				terrainShader.loadViewMatrix(frameContext.getViewMatrix());
+				
+				terrainRenderer.render(renderQueue, start, end, shadowMapRenderer.getToShadowMapSpaceMatrix());
+				
+				terrainShader.stop();
+				break;
+			default:
+				break;
+			}
+			
+			start = end;
+		}
 		
-		shader.stop();
+		skyboxRenderer.render(frameContext, RED, GREEN, BLUE);
 		
-		normalMapRenderer.render(normalMapEntities, clipPlane, lights, camera);
+		renderQueue.clear();
 		
-		terrainShader.start();
-		terrainShader.loadClipPlane(clipPlane);
-		terrainShader.loadSkyColour(RED, GREEN, BLUE);
-		terrainShader.loadLights(lights);
-		terrainShader.loadViewMatrix(camera);
+		terrains.clear();
 		
-		terrainRenderer.render(terrains, shadowMapRenderer.getToShadowMapSpaceMatrix());
+		entities.clear();
 		
-		terrainShader.stop();
+		normalMapEntities.clear();
+	}
+	
+	/**
+	 * Adds every processed entity, normal-mapped entity and terrain to the render
+	 * queue with a sort key built from its shader, texture, VAO, transparency and
+	 * distance to the camera.
+	 *
+	 * @param cameraPosition The position of the camera of the pass.
+	 * @param selectLevels   Whether the levels of detail of the entities are picked.
+	 */
+	private void fillRenderQueue(Vector3f cameraPosition, boolean selectLevels) {
+		queueEntities(entities, RenderQueue.SHADER_ENTITY, cameraPosition, selectLevels);
+		queueEntities(normalMapEntities, RenderQueue.SHADER_NORMAL_MAP, cameraPosition, selectLevels);
 		
-		skyboxRenderer.render(camera, RED, GREEN, BLUE);
+		for (Terrain terrain : terrains) {
+			RawModel model = terrain.getModel();
+			float depth = 0;
+			
+			if (model.hasBounds()) {
+				float dx = cameraPosition.x - clamp(cameraPosition.x, terrain.getX() + model.getMinBounds().x,
+						terrain.getX() + model.getMaxBounds().x);
+				float dz = cameraPosition.z - clamp(cameraPosition.z, terrain.getZ() + model.getMinBounds().z,
+						terrain.getZ() + model.getMaxBounds().z);
+				depth = (float) Math.sqrt(dx * dx + dz * dz);
+			}
+			
+			renderQueue.add(RenderQueue.SHADER_TERRAIN, terrain.getTexturePack().getBackgroundTexture().getTextureID(),
+					model.getVaoID(), false, depth, terrain);
+		}
+	}
+	
+	/**
+	 * Adds a map of entity batches to the render queue. The level of detail of
+	 * every entity is picked in the main pass from its size on screen, and the
+	 * entity is queued with the mesh of that level, so entities of the same level
+	 * stay in one batch. The level is picked once per frame because its
+	 * hysteresis depends on the previous choice: water passes with a mirrored
+	 * camera would otherwise flip it back and forth. They, and the shadow pass,
+	 * reuse the levels of the main pass.
+	 *
+	 * @param batchMap       The batches of entities grouped by textured models.
+	 * @param shaderId       The shader the entities are rendered with.
+	 * @param cameraPosition The position of the camera.
+	 * @param selectLevels   Whether the levels of detail of the entities are picked.
+	 */
+	private void queueEntities(Map<TexturedModel, List<Entity>> batchMap, int shaderId, Vector3f cameraPosition,
+			boolean selectLevels) {
+		TextureStreamer textureStreamer = loader.getTextureStreamer();
+		float pixelsPerUnit = projectionMatrix.m11 * DisplayManager.getHeight() / 2;
 		
-		terrains.clear();
+		for (Map.Entry<TexturedModel, List<Entity>> batch : batchMap.entrySet()) {
+			TexturedModel model = batch.getKey();
+			int textureID = model.getTexture().getID();
+			boolean transparent = model.getTexture().isHasTransparency();
+			float maxScreenSize = 0;
+			
+			for (Entity entity : batch.getValue()) {
+				Vector3f position = entity.getPosition();
+				float dx = position.x - cameraPosition.x;
+				float dy = position.y - cameraPosition.y;
+				float dz = position.z - cameraPosition.z;
+				float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+				float screenSize = entity.getScale() / Math.max(distance, 1);
+				
+				if (selectLevels && model.getLevelCount() > 1) {
+					entity.setLodLevel(model.selectLevel(entity.getLodLevel(), screenSize * pixelsPerUnit,
+							LOD_PIXEL_ERROR));
+				}
+				
+				int meshID = getMeshID(model.getRawModel(entity.getLodLevel()));
+				renderQueue.add(shaderId, textureID, meshID, transparent, distance, entity);
+				
+				maxScreenSize = Math.max(maxScreenSize, screenSize);
+			}
+			
+			if (textureStreamer != null) {
+				reportTextureUse(textureStreamer, model, maxScreenSize * pixelsPerUnit);
+			}
+		}
+	}
+	
+	/**
+	 * Reports to the texture streamer how large a model's textures appear on
+	 * screen. The texture is assumed to be mapped once across the model's
+	 * bounding sphere, or once per cell of a texture atlas.
+	 *
+	 * @param textureStreamer The texture streamer.
+	 * @param model           The textured model.
+	 * @param pixelsPerUnit   The size on screen of one unit of the model's
+	 *                        closest entity, taking its scale into account.
+	 */
+	private void reportTextureUse(TextureStreamer textureStreamer, TexturedModel model, float pixelsPerUnit) {
+		ModelTexture texture = model.getTexture();
+		RawModel rawModel = model.getRawModel();
+		float modelSize = rawModel.hasBounds() ? 2 * rawModel.getBoundingRadius() : 1;
+		float screenSize = modelSize * pixelsPerUnit * texture.getNumberOfRows();
 		
-		entities.clear();
+		textureStreamer.reportUse(texture.getID(), screenSize);
 		
-		normalMapEntities.clear();
+		if (texture.getNormalMap() != 0) {
+			textureStreamer.reportUse(texture.getNormalMap(), screenSize);
+		}
+	}
+	
+	/**
+	 * Identifies the mesh of a model for the sort key, in place of its VAO. Models
+	 * in a geometry arena share one VAO, and models whose textures are layers of
+	 * the same texture array share a texture ID, so without the base vertex their
+	 * entities would interleave by depth and break up the instanced batches.
+	 *
+	 * @param model The raw model.
+	 * @return A number that differs between meshes of the same VAO.
+	 */
+	private static int getMeshID(RawModel model) {
+		return model.getVaoID() * 31 + model.getBaseVertex();
+	}
+	
+	/**
+	 * Clamps a value to a range.
+	 */
+	private static float clamp(float value, float min, float max) {
+		return Math.max(min, Math.min(max, value));
 	}
 	
 
@@ -256,15 +458,65 @@ public class MasterRenderer {
         batchMap.computeIfAbsent(entityModel, k -> new ArrayList<>()).add(entity);
     }
 	
+	/**
+	 * Renders the shadow map for the given entities. Entities outside of the
+	 * light's "view cuboid" are culled before they are batched.
+	 *
+	 * @param entityList The entities that cast shadows.
+	 * @param sun        The light acting as the sun.
+	 */
 	public void renderShadowMap(List<Entity> entityList, Light sun) {
-		for (Entity entity : entityList) {
+		shadowMapRenderer.updateLightSpace(sun);
+		shadowCuller.begin(shadowMapRenderer.getProjectionViewMatrix());
+		
+		visibleEntities.clear();
+		shadowCuller.cull(entityList, visibleEntities);
+		for (Entity entity : visibleEntities) {
 			processEntity(entity);
 		}
+		visibleEntities.clear();
 		
-		shadowMapRenderer.render(entities, sun);
+		shadowMapRenderer.render(entities);
 		entities.clear();
 	}
 	
+	/**
+	 * Retrieves the culler of a scene pass. Its statistics describe the most
+	 * recent time the pass was rendered.
+	 *
+	 * @param pass The scene pass.
+	 * @return The frustum culler of the pass.
+	 */
+	public FrustumCuller getSceneCuller(ScenePass pass) {
+		return sceneCullers[pass.ordinal()];
+	}
+	
+	/**
+	 * Creates a frustum culler for every scene pass, named after the pass.
+	 *
+	 * @return The cullers, indexed by the ordinal of the pass.
+	 */
+	private static FrustumCuller[] createSceneCullers() {
+		ScenePass[] passes = ScenePass.values();
+		FrustumCuller[] cullers = new FrustumCuller[passes.length];
+		
+		for (int i = 0; i < passes.length; i++) {
+			cullers[i] = new FrustumCuller(passes[i].getName());
+		}
+		
+		return cullers;
+	}
+	
+	/**
+	 * Retrieves the culler of the shadow pass. Its statistics describe the most
+	 * recent {@link #renderShadowMap} call.
+	 *
+	 * @return The shadow frustum culler.
+	 */
+	public FrustumCuller getShadowCuller() {
+		return shadowCuller;
+	}
+	
 	public int getShadowMapTexture() {
 		return shadowMapRenderer.getShadowMap();
 	}
@@ -301,11 +553,10 @@ public class MasterRenderer {
 	 */
 	public void prepare() {
 	    try {
-	        GL11.glEnable(GL11.GL_DEPTH_TEST);
-	        GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
-	        GL11.glClearColor(RED, GREEN, BLUE, 1);
-	        GL13.glActiveTexture(GL13.GL_TEXTURE5);
-	        GL11.glBindTexture(GL11.GL_TEXTURE_2D, getShadowMapTexture());
+	        GLStateManager.setDepthTest(true);
+	        device.clear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
+	        device.clearColor(RED, GREEN, BLUE, 1);
+	        GLStateManager.bindTexture(5, GL11.GL_TEXTURE_2D, getShadowMapTexture());
 	    } catch (Exception e) {
 	        e.printStackTrace();
 	    }
@@ -317,7 +568,7 @@ public class MasterRenderer {
 	public void createProjectionMatrix() {
 	    validateInputParameters();
 
-	    float aspectRatio = (float) Display.getWidth() / (float) Display.getHeight();
+	    float aspectRatio = (float) DisplayManager.getWidth() / (float) DisplayManager.getHeight();
 	    validateAspectRatio(aspectRatio);
 
 	    float yScale = (float) ((1f / Math.tan(Math.toRadians(FOV / 2f))));
@@ -339,7 +590,7 @@ public class MasterRenderer {
 	 * Throws an {@link IllegalArgumentException} if any parameter is invalid.
 	 */
 	private void validateInputParameters() {
-	    if (Display.getWidth() <= 0 || Display.getHeight() <= 0 || FOV <= 0 || FAR_PLANE <= NEAR_PLANE) {
+	    if (DisplayManager.getWidth() <= 0 || DisplayManager.getHeight() <= 0 || FOV <= 0 || FAR_PLANE <= NEAR_PLANE) {
 	        throw new IllegalArgumentException("Invalid parameters for projection matrix");
 	    }
 	}
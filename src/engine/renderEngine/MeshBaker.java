@@ -0,0 +1,372 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.models.ModelData;
+
+/**
+ * The MeshBaker class converts OBJ models into binary cache files that hold the interleaved
+ * vertices and the indices exactly as they are uploaded. A baked model is memory-mapped and its
+ * blobs are handed to {@code glBufferData} without going through Java arrays, so loading it
+ * costs little more than reading the file.
+ *
+ * <p>Models are baked on first use and rebaked when their OBJ file changes, or when they are
+ * requested in a different {@link VertexFormat}. Running this class bakes models ahead of time:
+ *
+ * <pre>
+ * java engine.renderEngine.MeshBaker [-tangents] [model names without ".obj"]
+ * </pre>
+ *
+ * Without names, every OBJ file in the "res" folder is baked; with {@code -tangents}, they are
+ * baked with tangents for normal mapping.
+ *
+ * <p>A cache file starts with a header of big-endian values: the magic number, the version, the
+ * length and modification time of the OBJ file it was baked from, the byte order of the blobs
+ * (1 for little-endian), the vertex layout (the {@link VertexFormat} ordinal, whether there are
+ * tangents and the stride), the vertex count, the index count, the GL index type, and the
+ * bounding box and radius. The vertex blob follows, then the index blob, both in the byte order
+ * of the machine that baked them.
+ */
+public class MeshBaker {
+
+    /**
+     * The file extension of baked models.
+     */
+    public static final String EXTENSION = ".mesh";
+
+    private static final int MAGIC = 0x43564D53;
+    private static final int VERSION = 4;
+    private static final int HEADER_BYTES = 80;
+
+    private final File sourceFolder;
+    private final File cacheFolder;
+
+    /**
+     * Creates a baker.
+     *
+     * @param sourceFolder The folder the OBJ files are in.
+     * @param cacheFolder  The folder to write the baked models to.
+     */
+    public MeshBaker(File sourceFolder, File cacheFolder) {
+        this.sourceFolder = sourceFolder;
+        this.cacheFolder = cacheFolder;
+    }
+
+    /**
+     * Memory-maps a baked model, baking it first if there is no up-to-date cache file for the
+     * format. This doesn't touch OpenGL, so it can run on any thread.
+     *
+     * @param fileName The name of the OBJ file, without the ".obj" extension.
+     * @param format   The vertex format to bake the model in.
+     * @param tangents Whether the vertices get tangents for normal mapping.
+     * @return The baked model.
+     * @throws IOException If the OBJ file can't be parsed, or the cache file can't be written or
+     *                     read.
+     */
+    public BakedMesh load(String fileName, VertexFormat format, boolean tangents) throws IOException {
+        if (!isBaked(fileName, format, tangents)) {
+            bake(fileName, format, tangents);
+        }
+
+        File cacheFile = getCacheFile(fileName, tangents);
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a baked model: " + cacheFile);
+        }
+
+        int stride = buffer.getInt(36);
+        int vertexCount = buffer.getInt(40);
+        int indexCount = buffer.getInt(44);
+        int indexType = buffer.getInt(48);
+        long vertexBytes = (long) vertexCount * stride;
+        long indexBytes = (long) indexCount * (indexType == GL11.GL_UNSIGNED_SHORT ? 2 : 4);
+
+        if (stride != format.getStride(tangents) || HEADER_BYTES + vertexBytes + indexBytes != buffer.limit()) {
+            throw new IOException("Corrupt baked model: " + cacheFile);
+        }
+
+        Vector3f min = new Vector3f(buffer.getFloat(52), buffer.getFloat(56), buffer.getFloat(60));
+        Vector3f max = new Vector3f(buffer.getFloat(64), buffer.getFloat(68), buffer.getFloat(72));
+        float radius = buffer.getFloat(76);
+
+        ByteBuffer vertexData = slice(buffer, HEADER_BYTES, (int) vertexBytes);
+        ByteBuffer indexData = slice(buffer, (int) (HEADER_BYTES + vertexBytes), (int) indexBytes);
+
+        return new BakedMesh(format, tangents, vertexCount, vertexData, indexCount, indexType, indexData, min, max,
+                radius);
+    }
+
+    /**
+     * Parses an OBJ file, reorders it for the vertex cache, interleaves its vertices in a format
+     * and writes the cache file. The file is written under a temporary name and then moved into
+     * place, so a reader never sees half of it.
+     *
+     * @param fileName The name of the OBJ file, without the ".obj" extension.
+     * @param format   The vertex format to bake the model in.
+     * @param tangents Whether the vertices get tangents for normal mapping.
+     * @return The cache file.
+     * @throws IOException If the OBJ file can't be parsed or the cache file can't be written.
+     */
+    public File bake(String fileName, VertexFormat format, boolean tangents) throws IOException {
+        File source = getSourceFile(fileName);
+        File cacheFile = getCacheFile(fileName, tangents);
+        File folder = cacheFile.getParentFile();
+
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder);
+        }
+
+        ModelData data = ObjParser.parse(source);
+        VertexCacheOptimizer.optimize(data);
+
+        if (tangents) {
+            data.setTangents(TangentGenerator.calculateTangents(data));
+        }
+
+        float[] positions = data.getVertices();
+        int[] indices = data.getIndices();
+        int vertexCount = data.getVertexCount();
+        boolean shortIndices = vertexCount <= 0xFFFF + 1;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(source.length());
+        header.putLong(source.lastModified());
+        header.putInt(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 0);
+        header.putInt(format.ordinal());
+        header.putInt(tangents ? 1 : 0);
+        header.putInt(format.getStride(tangents));
+        header.putInt(vertexCount);
+        header.putInt(indices.length);
+        header.putInt(shortIndices ? GL11.GL_UNSIGNED_SHORT : GL11.GL_UNSIGNED_INT);
+        putBounds(header, positions);
+        header.flip();
+
+        ByteBuffer vertexData = BufferUtils.createByteBuffer(vertexCount * format.getStride(tangents));
+        format.putVertices(vertexData, positions, data.getTextureCoords(), data.getNormals(), data.getTangents());
+        vertexData.flip();
+
+        ByteBuffer indexData = BufferUtils.createByteBuffer(indices.length * (shortIndices ? 2 : 4));
+
+        for (int index : indices) {
+            if (shortIndices) {
+                indexData.putShort((short) index);
+            } else {
+                indexData.putInt(index);
+            }
+        }
+
+        indexData.flip();
+
+        File temp = File.createTempFile(cacheFile.getName(), ".tmp", folder);
+
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+            for (ByteBuffer blob : new ByteBuffer[] { header, vertexData, indexData }) {
+                while (blob.hasRemaining()) {
+                    channel.write(blob);
+                }
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+
+        Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        return cacheFile;
+    }
+
+    /**
+     * Checks whether a model has a cache file that was baked from its current OBJ file in a
+     * format, with this byte order and by this version of the baker.
+     *
+     * @param fileName The name of the OBJ file, without the ".obj" extension.
+     * @param format   The vertex format the model is needed in.
+     * @param tangents Whether the vertices need tangents.
+     * @return True if the cache file can be used as is.
+     */
+    public boolean isBaked(String fileName, VertexFormat format, boolean tangents) {
+        File source = getSourceFile(fileName);
+        File cacheFile = getCacheFile(fileName, tangents);
+
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(cacheFile))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == source.length()
+                    && in.readLong() == source.lastModified()
+                    && in.readInt() == (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 0)
+                    && in.readInt() == format.ordinal() && in.readInt() == (tangents ? 1 : 0);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves the cache file of a model. Models with and without tangents are cached
+     * separately.
+     *
+     * @param fileName The name of the OBJ file, without the ".obj" extension.
+     * @param tangents Whether the vertices have tangents.
+     * @return The cache file, which may not exist yet.
+     */
+    public File getCacheFile(String fileName, boolean tangents) {
+        return new File(cacheFolder, fileName + (tangents ? ".tangents" : "") + EXTENSION);
+    }
+
+    /**
+     * Retrieves the OBJ file of a model.
+     *
+     * @param fileName The name of the OBJ file, without the ".obj" extension.
+     * @return The OBJ file.
+     */
+    private File getSourceFile(String fileName) {
+        return new File(sourceFolder, fileName + ".obj");
+    }
+
+    /**
+     * Writes the bounding box and the radius of the bounding sphere around the origin.
+     *
+     * @param header    The buffer to write to.
+     * @param positions The vertex positions.
+     */
+    private static void putBounds(ByteBuffer header, float[] positions) {
+        float[] min = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+        float[] max = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+        float furthestSquared = 0;
+
+        for (int i = 0; i + 2 < positions.length; i += 3) {
+            for (int axis = 0; axis < 3; axis++) {
+                min[axis] = Math.min(min[axis], positions[i + axis]);
+                max[axis] = Math.max(max[axis], positions[i + axis]);
+            }
+
+            furthestSquared = Math.max(furthestSquared, positions[i] * positions[i]
+                    + positions[i + 1] * positions[i + 1] + positions[i + 2] * positions[i + 2]);
+        }
+
+        if (positions.length < 3) {
+            min = new float[3];
+            max = new float[3];
+        }
+
+        header.putFloat(min[0]).putFloat(min[1]).putFloat(min[2]);
+        header.putFloat(max[0]).putFloat(max[1]).putFloat(max[2]);
+        header.putFloat((float) Math.sqrt(furthestSquared));
+    }
+
+    /**
+     * Creates a view of part of a buffer in native byte order.
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Bakes the given models, or every model in the "res" folder, unless their cache files are
+     * up to date, and times loading them again from the cache.
+     *
+     * @param args {@code -tangents} to bake with tangents, followed by the names of the models,
+     *             without the ".obj" extension.
+     */
+    public static void main(String[] args) {
+        File sourceFolder = new File("res");
+        MeshBaker baker = new MeshBaker(sourceFolder, new File(Loader.MESH_CACHE_FOLDER));
+        VertexFormat format = VertexFormat.PACKED;
+        boolean tangents = false;
+        List<String> names = new ArrayList<String>();
+
+        for (String arg : args) {
+            if (arg.equals("-tangents")) {
+                tangents = true;
+            } else {
+                names.add(arg);
+            }
+        }
+
+        if (names.isEmpty()) {
+            File[] files = sourceFolder.listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(".obj")) {
+                        names.add(file.getName().substring(0, file.getName().length() - 4));
+                    }
+                }
+            }
+        }
+
+        for (String name : names) {
+            try {
+                long start = System.nanoTime();
+                baker.load(name, format, tangents);
+                long bakeNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                BakedMesh mesh = baker.load(name, format, tangents);
+                long loadNanos = System.nanoTime() - start;
+
+                System.out.printf("%-24s %7d vertices %8d indices %9d bytes  first %7.2f ms  cached %6.3f ms%n",
+                        name, mesh.getVertexCount(), mesh.getIndexCount(),
+                        mesh.getVertexData().remaining() + mesh.getIndexData().remaining(), bakeNanos / 1e6,
+                        loadNanos / 1e6);
+            } catch (IOException e) {
+                System.err.println("Failed to bake " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,698 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import engine.models.ModelData;
+
+/**
+ * The MeshSimplifier class reduces the triangle count of a model with the quadric error metric of
+ * Garland and Heckbert, to create levels of detail. Every position accumulates the planes of the
+ * triangles around it in a quadric, and the edge whose collapse moves the surface the least is
+ * collapsed first, by moving one of its positions onto the other. Since the surviving position
+ * keeps its vertices, no new attributes are invented and the texture coordinates stay exact.
+ *
+ * <p>Vertices at the same position but with different texture coordinates or normals, along a seam,
+ * are collapsed together, each onto the vertex on its own side of the seam. A collapse is skipped
+ * if it would move a position on the open border of the mesh, flip a triangle, or leave a vertex
+ * without a counterpart, which keeps borders and hard edges in place.
+ *
+ * <p>Simplifying is incremental: {@link #simplify(int, float)} can be called with smaller and
+ * smaller targets, taking a snapshot with {@link #toModelData()} after each, which is how
+ * {@link #generateLevels(ModelData, int)} builds a chain of levels. The class is pure CPU code and
+ * can run on any thread.
+ */
+public class MeshSimplifier {
+
+    /**
+     * The largest error of a generated level, relative to the radius of the model.
+     */
+    public static final float MAX_RELATIVE_ERROR = 0.1f;
+
+    private static final float MIN_LEVEL_REDUCTION = 0.8f;
+    private static final double MIN_NORMAL_DOT = 0.2;
+
+    /**
+     * A candidate collapse of one position onto another, valid as long as neither has changed.
+     */
+    private static class Collapse implements Comparable<Collapse> {
+
+        private final double cost;
+        private final int from;
+        private final int to;
+        private final int fromVersion;
+        private final int toVersion;
+
+        private Collapse(double cost, int from, int to, int fromVersion, int toVersion) {
+            this.cost = cost;
+            this.from = from;
+            this.to = to;
+            this.fromVersion = fromVersion;
+            this.toVersion = toVersion;
+        }
+
+        @Override
+        public int compareTo(Collapse other) {
+            return Double.compare(cost, other.cost);
+        }
+
+    }
+
+    private final ModelData data;
+    private final int[] indices;
+    private final int[] positionOf;
+    private final float[] positions;
+    private final double[] quadrics;
+    private final boolean[] locked;
+    private final boolean[] collapsed;
+    private final int[] versions;
+    private final boolean[] removed;
+
+    private final int[][] trianglesOf;
+    private final int[] triangleCounts;
+
+    private final PriorityQueue<Collapse> queue = new PriorityQueue<Collapse>();
+    private int triangleCount;
+    private float error;
+
+    private final int[] mappedFrom = new int[16];
+    private final int[] mappedTo = new int[16];
+    private int[] neighbours = new int[16];
+
+    /**
+     * Prepares a model for simplification. The model itself is not modified.
+     *
+     * @param data The model data.
+     */
+    public MeshSimplifier(ModelData data) {
+        this.data = data;
+        this.indices = data.getIndices().clone();
+
+        float[] vertices = data.getVertices();
+        int vertexCount = data.getVertexCount();
+        this.positionOf = new int[vertexCount];
+        int positionCount = weldPositions(vertices, vertexCount, positionOf);
+
+        this.positions = new float[positionCount * 3];
+
+        for (int v = 0; v < vertexCount; v++) {
+            System.arraycopy(vertices, v * 3, positions, positionOf[v] * 3, 3);
+        }
+
+        this.quadrics = new double[positionCount * 10];
+        this.locked = new boolean[positionCount];
+        this.collapsed = new boolean[positionCount];
+        this.versions = new int[positionCount];
+        this.removed = new boolean[indices.length / 3];
+        this.triangleCounts = new int[positionCount];
+
+        Map<Long, Integer> edgeUses = new HashMap<Long, Integer>();
+
+        for (int t = 0; t < removed.length; t++) {
+            int a = position(t, 0);
+            int b = position(t, 1);
+            int c = position(t, 2);
+
+            if (a == b || b == c || a == c) {
+                removed[t] = true;
+                continue;
+            }
+
+            triangleCount++;
+            addPlane(a, b, c);
+            countEdge(edgeUses, a, b);
+            countEdge(edgeUses, b, c);
+            countEdge(edgeUses, c, a);
+
+            triangleCounts[a]++;
+            triangleCounts[b]++;
+            triangleCounts[c]++;
+        }
+
+        // Positions on open borders or non-manifold edges stay where they are.
+        for (Map.Entry<Long, Integer> edge : edgeUses.entrySet()) {
+            if (edge.getValue() != 2) {
+                locked[(int) (edge.getKey() >>> 32)] = true;
+                locked[(int) (long) edge.getKey()] = true;
+            }
+        }
+
+        this.trianglesOf = new int[positionCount][];
+
+        for (int p = 0; p < positionCount; p++) {
+            trianglesOf[p] = new int[Math.max(triangleCounts[p], 4)];
+            triangleCounts[p] = 0;
+        }
+
+        for (int t = 0; t < removed.length; t++) {
+            if (!removed[t]) {
+                for (int corner = 0; corner < 3; corner++) {
+                    addTriangle(position(t, corner), t);
+                }
+            }
+        }
+
+        for (int t = 0; t < removed.length; t++) {
+            if (!removed[t]) {
+                for (int corner = 0; corner < 3; corner++) {
+                    int p = position(t, corner);
+                    int next = position(t, (corner + 1) % 3);
+                    pushCollapse(p, next);
+                    pushCollapse(next, p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates levels of detail for a model, each with about half the triangles of the one before,
+     * until a level can't be reduced by at least a fifth without exceeding
+     * {@link #MAX_RELATIVE_ERROR}.
+     *
+     * @param data       The full-detail model data.
+     * @param levelCount The largest number of levels to create.
+     * @return The levels, from the finest to the coarsest, not including the full-detail model.
+     *         Each level knows its {@link ModelData#getSimplificationError() error}.
+     */
+    public static ModelData[] generateLevels(ModelData data, int levelCount) {
+        MeshSimplifier simplifier = new MeshSimplifier(data);
+        float maxError = MAX_RELATIVE_ERROR * data.getFurthestPoint();
+        List<ModelData> levels = new ArrayList<ModelData>();
+        int triangles = simplifier.getTriangleCount();
+
+        for (int i = 0; i < levelCount; i++) {
+            simplifier.simplify(triangles / 2, maxError);
+
+            if (simplifier.getTriangleCount() > triangles * MIN_LEVEL_REDUCTION) {
+                break;
+            }
+
+            triangles = simplifier.getTriangleCount();
+            levels.add(simplifier.toModelData());
+        }
+
+        return levels.toArray(new ModelData[levels.size()]);
+    }
+
+    /**
+     * Collapses edges, cheapest first, until the model has no more than a number of triangles or
+     * the next collapse would move the surface further than an error.
+     *
+     * @param targetTriangles The number of triangles to reduce the model to.
+     * @param maxError        The largest distance the surface may move, in model units.
+     * @return The number of triangles left.
+     */
+    public int simplify(int targetTriangles, float maxError) {
+        double maxCost = (double) maxError * maxError;
+
+        while (triangleCount > targetTriangles && !queue.isEmpty()) {
+            Collapse collapse = queue.peek();
+
+            if (collapse.cost > maxCost) {
+                break;
+            }
+
+            queue.poll();
+
+            if (collapsed[collapse.from] || collapsed[collapse.to] || versions[collapse.from] != collapse.fromVersion
+                    || versions[collapse.to] != collapse.toVersion) {
+                continue;
+            }
+
+            if (collapse(collapse.from, collapse.to)) {
+                error = Math.max(error, (float) Math.sqrt(collapse.cost));
+            }
+        }
+
+        return triangleCount;
+    }
+
+    /**
+     * Retrieves the number of triangles the model has been reduced to.
+     *
+     * @return The triangle count.
+     */
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * Retrieves the largest error of the collapses so far: about how far the simplified surface
+     * is from the original one.
+     *
+     * @return The error, in model units.
+     */
+    public float getError() {
+        return error;
+    }
+
+    /**
+     * Creates model data for the current state of the simplification. Vertices no triangle uses
+     * anymore are left out, and the result is reordered for the vertex cache.
+     *
+     * @return The simplified model data, with tangents if the source had them.
+     */
+    public ModelData toModelData() {
+        int[] remap = new int[data.getVertexCount()];
+        Arrays.fill(remap, -1);
+        int[] newIndices = new int[triangleCount * 3];
+        int vertexCount = 0;
+        int pointer = 0;
+
+        for (int t = 0; t < removed.length; t++) {
+            if (removed[t]) {
+                continue;
+            }
+
+            for (int corner = 0; corner < 3; corner++) {
+                int v = indices[t * 3 + corner];
+
+                if (remap[v] < 0) {
+                    remap[v] = vertexCount++;
+                }
+
+                newIndices[pointer++] = remap[v];
+            }
+        }
+
+        ModelData result = new ModelData(copyVertices(data.getVertices(), remap, vertexCount, 3),
+                copyVertices(data.getTextureCoords(), remap, vertexCount, 2),
+                copyVertices(data.getNormals(), remap, vertexCount, 3), newIndices, data.getFurthestPoint());
+
+        if (data.getTangents() != null) {
+            result.setTangents(copyVertices(data.getTangents(), remap, vertexCount, 4));
+        }
+
+        result.setSimplificationError(error);
+        VertexCacheOptimizer.optimize(result);
+
+        return result;
+    }
+
+    /**
+     * Moves a position onto another one, if that keeps the mesh intact.
+     *
+     * @param from The position that is removed.
+     * @param to   The position that stays.
+     * @return True if the edge was collapsed, false if the collapse was rejected.
+     */
+    private boolean collapse(int from, int to) {
+        if (!mapVertices(from, to) || flipsTriangle(from, to)) {
+            return false;
+        }
+
+        int[] fromTriangles = trianglesOf[from];
+
+        for (int i = 0; i < triangleCounts[from]; i++) {
+            int t = fromTriangles[i];
+
+            if (removed[t]) {
+                continue;
+            }
+
+            if (cornerOf(t, to) >= 0) {
+                removed[t] = true;
+                triangleCount--;
+                continue;
+            }
+
+            int corner = cornerOf(t, from);
+            indices[t * 3 + corner] = mapVertex(indices[t * 3 + corner]);
+            addTriangle(to, t);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            quadrics[to * 10 + i] += quadrics[from * 10 + i];
+        }
+
+        collapsed[from] = true;
+        versions[to]++;
+        compactTriangles(to);
+
+        int[] toTriangles = trianglesOf[to];
+        int neighbourCount = 0;
+
+        for (int i = 0; i < triangleCounts[to]; i++) {
+            int t = toTriangles[i];
+
+            for (int corner = 0; corner < 3; corner++) {
+                int p = position(t, corner);
+
+                if (p != to && indexOf(neighbours, neighbourCount, p) < 0) {
+                    if (neighbourCount == neighbours.length) {
+                        neighbours = Arrays.copyOf(neighbours, neighbourCount * 2);
+                    }
+
+                    neighbours[neighbourCount++] = p;
+                    pushCollapse(to, p);
+                    pushCollapse(p, to);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds, for every vertex at a position, the vertex it becomes when the position is moved
+     * onto a neighbour: the vertex of the neighbour in a triangle they share.
+     *
+     * @return False if some vertex has no counterpart, or the position has too many vertices.
+     */
+    private boolean mapVertices(int from, int to) {
+        int mappings = 0;
+        int[] fromTriangles = trianglesOf[from];
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < triangleCounts[from]; i++) {
+                int t = fromTriangles[i];
+
+                if (removed[t]) {
+                    continue;
+                }
+
+                int vertex = indices[t * 3 + cornerOf(t, from)];
+                int toCorner = cornerOf(t, to);
+                boolean mapped = indexOf(mappedFrom, mappings, vertex) >= 0;
+
+                if (pass == 0 && toCorner >= 0 && !mapped) {
+                    if (mappings == mappedFrom.length) {
+                        return false;
+                    }
+
+                    mappedFrom[mappings] = vertex;
+                    mappedTo[mappings] = indices[t * 3 + toCorner];
+                    mappings++;
+                } else if (pass == 1 && !mapped) {
+                    return false;
+                }
+            }
+        }
+
+        for (int i = mappings; i < mappedFrom.length; i++) {
+            mappedFrom[i] = -1;
+        }
+
+        return true;
+    }
+
+    /**
+     * Retrieves the vertex a vertex becomes in the collapse prepared by {@link #mapVertices}.
+     */
+    private int mapVertex(int vertex) {
+        return mappedTo[indexOf(mappedFrom, mappedFrom.length, vertex)];
+    }
+
+    /**
+     * Checks whether moving a position would turn any of the triangles that remain around it
+     * over, or squash it to nothing.
+     */
+    private boolean flipsTriangle(int from, int to) {
+        int[] fromTriangles = trianglesOf[from];
+
+        for (int i = 0; i < triangleCounts[from]; i++) {
+            int t = fromTriangles[i];
+
+            if (removed[t] || cornerOf(t, to) >= 0) {
+                continue;
+            }
+
+            int corner = cornerOf(t, from);
+            int b = position(t, (corner + 1) % 3);
+            int c = position(t, (corner + 2) % 3);
+
+            double[] before = normal(from, b, c);
+            double[] after = normal(to, b, c);
+            double dot = before[0] * after[0] + before[1] * after[1] + before[2] * after[2];
+            double lengths = Math.sqrt((before[0] * before[0] + before[1] * before[1] + before[2] * before[2])
+                    * (after[0] * after[0] + after[1] * after[1] + after[2] * after[2]));
+
+            if (!(dot > MIN_NORMAL_DOT * lengths)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Queues the collapse of a position onto another, unless the position is locked.
+     */
+    private void pushCollapse(int from, int to) {
+        if (locked[from]) {
+            return;
+        }
+
+        double x = positions[to * 3];
+        double y = positions[to * 3 + 1];
+        double z = positions[to * 3 + 2];
+        double[] q = quadrics;
+        int a = from * 10;
+        int b = to * 10;
+
+        double cost = (q[a] + q[b]) * x * x + 2 * (q[a + 1] + q[b + 1]) * x * y
+                + 2 * (q[a + 2] + q[b + 2]) * x * z + 2 * (q[a + 3] + q[b + 3]) * x
+                + (q[a + 4] + q[b + 4]) * y * y + 2 * (q[a + 5] + q[b + 5]) * y * z
+                + 2 * (q[a + 6] + q[b + 6]) * y + (q[a + 7] + q[b + 7]) * z * z
+                + 2 * (q[a + 8] + q[b + 8]) * z + (q[a + 9] + q[b + 9]);
+
+        queue.add(new Collapse(Math.max(cost, 0), from, to, versions[from], versions[to]));
+    }
+
+    /**
+     * Adds the plane of a triangle, weighted by its area, to the quadrics of its corners.
+     */
+    private void addPlane(int a, int b, int c) {
+        double[] n = normal(a, b, c);
+        double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+
+        if (length == 0) {
+            return;
+        }
+
+        double nx = n[0] / length;
+        double ny = n[1] / length;
+        double nz = n[2] / length;
+        double d = -(nx * positions[a * 3] + ny * positions[a * 3 + 1] + nz * positions[a * 3 + 2]);
+        double area = length / 2;
+
+        double[] plane = { nx * nx, nx * ny, nx * nz, nx * d, ny * ny, ny * nz, ny * d, nz * nz, nz * d, d * d };
+
+        for (int p : new int[] { a, b, c }) {
+            for (int i = 0; i < 10; i++) {
+                quadrics[p * 10 + i] += area * plane[i];
+            }
+        }
+    }
+
+    /**
+     * Calculates the unnormalized normal of a triangle of positions.
+     */
+    private double[] normal(int a, int b, int c) {
+        double ux = positions[b * 3] - positions[a * 3];
+        double uy = positions[b * 3 + 1] - positions[a * 3 + 1];
+        double uz = positions[b * 3 + 2] - positions[a * 3 + 2];
+        double vx = positions[c * 3] - positions[a * 3];
+        double vy = positions[c * 3 + 1] - positions[a * 3 + 1];
+        double vz = positions[c * 3 + 2] - positions[a * 3 + 2];
+
+        return new double[] { uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx };
+    }
+
+    private int position(int triangle, int corner) {
+        return positionOf[indices[triangle * 3 + corner]];
+    }
+
+    /**
+     * Finds the corner of a triangle at a position.
+     *
+     * @return The corner, or -1 if the triangle doesn't touch the position.
+     */
+    private int cornerOf(int triangle, int position) {
+        for (int corner = 0; corner < 3; corner++) {
+            if (position(triangle, corner) == position) {
+                return corner;
+            }
+        }
+
+        return -1;
+    }
+
+    private void addTriangle(int position, int triangle) {
+        if (triangleCounts[position] == trianglesOf[position].length) {
+            trianglesOf[position] = Arrays.copyOf(trianglesOf[position], triangleCounts[position] * 2);
+        }
+
+        trianglesOf[position][triangleCounts[position]++] = triangle;
+    }
+
+    /**
+     * Drops removed triangles from the list of a position.
+     */
+    private void compactTriangles(int position) {
+        int[] triangles = trianglesOf[position];
+        int count = 0;
+
+        for (int i = 0; i < triangleCounts[position]; i++) {
+            if (!removed[triangles[i]]) {
+                triangles[count++] = triangles[i];
+            }
+        }
+
+        triangleCounts[position] = count;
+    }
+
+    private static void countEdge(Map<Long, Integer> edgeUses, int a, int b) {
+        long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        edgeUses.merge(key, 1, Integer::sum);
+    }
+
+    private static int indexOf(int[] array, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gives vertices with exactly the same position the same position index.
+     *
+     * @return The number of distinct positions.
+     */
+    private static int weldPositions(float[] vertices, int vertexCount, int[] positionOf) {
+        int capacity = Integer.highestOneBit(Math.max(vertexCount, 1) * 2 - 1) << 1;
+        int[] table = new int[capacity];
+        int[] firstVertex = new int[vertexCount];
+        Arrays.fill(table, -1);
+        int positionCount = 0;
+
+        for (int v = 0; v < vertexCount; v++) {
+            int x = Float.floatToIntBits(vertices[v * 3]);
+            int y = Float.floatToIntBits(vertices[v * 3 + 1]);
+            int z = Float.floatToIntBits(vertices[v * 3 + 2]);
+            int slot = ((x * 73856093) ^ (y * 19349663) ^ (z * 83492791)) & (capacity - 1);
+
+            while (true) {
+                int p = table[slot];
+
+                if (p < 0) {
+                    table[slot] = positionCount;
+                    firstVertex[positionCount] = v;
+                    positionOf[v] = positionCount++;
+                    break;
+                }
+
+                int other = firstVertex[p];
+
+                if (Float.floatToIntBits(vertices[other * 3]) == x && Float.floatToIntBits(vertices[other * 3 + 1]) == y
+                        && Float.floatToIntBits(vertices[other * 3 + 2]) == z) {
+                    positionOf[v] = p;
+                    break;
+                }
+
+                slot = (slot + 1) & (capacity - 1);
+            }
+        }
+
+        return positionCount;
+    }
+
+    /**
+     * Copies the attribute of every vertex that is still used to its new index.
+     */
+    private static float[] copyVertices(float[] attribute, int[] remap, int vertexCount, int components) {
+        float[] result = new float[vertexCount * components];
+
+        for (int v = 0; v < remap.length; v++) {
+            if (remap[v] >= 0) {
+                System.arraycopy(attribute, v * components, result, remap[v] * components, components);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Prints the levels of detail that would be generated for OBJ models: their triangle counts
+     * and errors relative to the model's radius, and how long they took.
+     *
+     * <p>Usage: {@code MeshSimplifier [names]}, run from the project root. Without names, every
+     * OBJ file in "res" is simplified.
+     *
+     * @param args The names of the models, without the ".obj" extension.
+     */
+    public static void main(String[] args) {
+        List<String> names = new ArrayList<String>(Arrays.asList(args));
+
+        if (names.isEmpty()) {
+            File[] files = new File("res").listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(".obj")) {
+                        names.add(file.getName().substring(0, file.getName().length() - 4));
+                    }
+                }
+            }
+        }
+
+        for (String name : names) {
+            try {
+                ModelData data = ObjParser.parse(new File("res/" + name + ".obj"));
+
+                long start = System.nanoTime();
+                ModelData[] levels = generateLevels(data, 4);
+                long nanos = System.nanoTime() - start;
+
+                StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-24s %7d", name,
+                        data.getIndices().length / 3));
+
+                for (ModelData level : levels) {
+                    line.append(String.format(Locale.ROOT, " -> %d (%.3f)", level.getIndices().length / 3,
+                            level.getSimplificationError() / data.getFurthestPoint()));
+                }
+
+                System.out.println(line.append(String.format(Locale.ROOT, "  %.2f ms", nanos / 1e6)));
+            } catch (IOException e) {
+                System.err.println("Failed to read " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,622 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import engine.models.ModelData;
+
+/**
+ * The ObjParser class reads Wavefront OBJ files into {@link ModelData}. The file is memory-mapped
+ * and scanned byte by byte, numbers are parsed in place and everything is collected in growable
+ * primitive arrays, so no strings or boxed values are created per line.
+ *
+ * <p>Faces may have any number of corners and are split into triangle fans. Indices may be
+ * negative, counting back from the last attribute read so far. Each distinct combination of
+ * position, texture coordinate and normal becomes one vertex. Missing texture coordinates are set
+ * to zero, and missing normals are computed from the faces around the position, weighted by their
+ * area. Lines other than {@code v}, {@code vt}, {@code vn} and {@code f} are ignored, and so are
+ * faces with fewer than three corners, which some exporters write for loose edges.
+ *
+ * <p>Texture coordinates are flipped vertically, since OBJ files have their origin in the bottom
+ * left corner and OpenGL textures are uploaded from the top left one.
+ */
+public class ObjParser {
+
+    private static final int MISSING = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_SIGNIFICANT_DIGITS = 18;
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final ByteBuffer data;
+    private final int limit;
+    private int position;
+    private int line = 1;
+
+    private float[] positions = new float[INITIAL_CAPACITY * 3];
+    private float[] textureCoords = new float[INITIAL_CAPACITY * 2];
+    private float[] normals = new float[INITIAL_CAPACITY * 3];
+    private int positionCount;
+    private int textureCount;
+    private int normalCount;
+
+    private float[] vertices = new float[INITIAL_CAPACITY * 3];
+    private float[] vertexTextureCoords = new float[INITIAL_CAPACITY * 2];
+    private float[] vertexNormals = new float[INITIAL_CAPACITY * 3];
+    private int[] vertexPositions = new int[INITIAL_CAPACITY];
+    private int vertexCount;
+    private boolean missingNormals;
+
+    private int[] indices = new int[INITIAL_CAPACITY * 3];
+    private int indexCount;
+
+    private int[] corners = new int[16 * 3];
+
+    private int[] tableKeys = new int[INITIAL_CAPACITY * 2 * 3];
+    private int[] tableVertices = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Creates a parser for the bytes between the position and the limit of a buffer.
+     */
+    private ObjParser(ByteBuffer data) {
+        this.data = data;
+        this.position = data.position();
+        this.limit = data.limit();
+
+        Arrays.fill(tableVertices, -1);
+    }
+
+    /**
+     * Memory-maps an OBJ file and parses it.
+     *
+     * @param file The OBJ file.
+     * @return The model data.
+     * @throws IOException If the file can't be read or isn't a valid OBJ file.
+     */
+    public static ModelData parse(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be mapped");
+            }
+
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Parses OBJ data from a buffer, between its position and its limit. The buffer itself is not
+     * modified.
+     *
+     * @param data The OBJ data.
+     * @return The model data.
+     * @throws IOException If the data isn't valid OBJ data.
+     */
+    public static ModelData parse(ByteBuffer data) throws IOException {
+        return new ObjParser(data).parse();
+    }
+
+    /**
+     * Reads all lines and builds the model data.
+     */
+    private ModelData parse() throws IOException {
+        while (position < limit) {
+            skipSpaces();
+
+            if (position + 1 < limit) {
+                byte first = data.get(position);
+                byte second = data.get(position + 1);
+
+                if (first == 'v') {
+                    if (isSpace(second)) {
+                        position++;
+                        readPosition();
+                    } else if (second == 't' && position + 2 < limit && isSpace(data.get(position + 2))) {
+                        position += 2;
+                        readTextureCoords();
+                    } else if (second == 'n' && position + 2 < limit && isSpace(data.get(position + 2))) {
+                        position += 2;
+                        readNormal();
+                    }
+                } else if (first == 'f' && isSpace(second)) {
+                    position++;
+                    readFace();
+                }
+            }
+
+            skipLine();
+        }
+
+        if (missingNormals) {
+            computeMissingNormals();
+        }
+
+        float furthestSquared = 0;
+
+        for (int i = 0; i < positionCount * 3; i += 3) {
+            float x = positions[i];
+            float y = positions[i + 1];
+            float z = positions[i + 2];
+
+            furthestSquared = Math.max(furthestSquared, x * x + y * y + z * z);
+        }
+
+        return new ModelData(Arrays.copyOf(vertices, vertexCount * 3),
+                Arrays.copyOf(vertexTextureCoords, vertexCount * 2), Arrays.copyOf(vertexNormals, vertexCount * 3),
+                Arrays.copyOf(indices, indexCount), (float) Math.sqrt(furthestSquared));
+    }
+
+    /**
+     * Reads the x, y and z of a {@code v} line. A w component or vertex colours are ignored.
+     */
+    private void readPosition() throws IOException {
+        if (positionCount * 3 == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+
+        int offset = positionCount * 3;
+        positions[offset] = readFloat();
+        positions[offset + 1] = readFloat();
+        positions[offset + 2] = readFloat();
+        positionCount++;
+    }
+
+    /**
+     * Reads the u and v of a {@code vt} line, flipping v. A w component is ignored.
+     */
+    private void readTextureCoords() throws IOException {
+        if (textureCount * 2 == textureCoords.length) {
+            textureCoords = Arrays.copyOf(textureCoords, textureCoords.length * 2);
+        }
+
+        int offset = textureCount * 2;
+        textureCoords[offset] = readFloat();
+        skipSpaces();
+        textureCoords[offset + 1] = isEndOfLine() ? 1 : 1 - readFloat();
+        textureCount++;
+    }
+
+    /**
+     * Reads the x, y and z of a {@code vn} line.
+     */
+    private void readNormal() throws IOException {
+        if (normalCount * 3 == normals.length) {
+            normals = Arrays.copyOf(normals, normals.length * 2);
+        }
+
+        int offset = normalCount * 3;
+        normals[offset] = readFloat();
+        normals[offset + 1] = readFloat();
+        normals[offset + 2] = readFloat();
+        normalCount++;
+    }
+
+    /**
+     * Reads the corners of an {@code f} line and adds the face as a triangle fan.
+     */
+    private void readFace() throws IOException {
+        int cornerCount = 0;
+
+        while (true) {
+            skipSpaces();
+
+            if (isEndOfLine()) {
+                break;
+            }
+
+            if ((cornerCount + 1) * 3 > corners.length) {
+                corners = Arrays.copyOf(corners, corners.length * 2);
+            }
+
+            int offset = cornerCount * 3;
+            corners[offset] = resolveIndex(readInt(), positionCount, "position");
+            corners[offset + 1] = MISSING;
+            corners[offset + 2] = MISSING;
+
+            if (position < limit && data.get(position) == '/') {
+                position++;
+
+                if (position < limit && data.get(position) != '/') {
+                    corners[offset + 1] = resolveIndex(readInt(), textureCount, "texture coordinate");
+                }
+                if (position < limit && data.get(position) == '/') {
+                    position++;
+                    corners[offset + 2] = resolveIndex(readInt(), normalCount, "normal");
+                }
+            }
+
+            cornerCount++;
+        }
+
+        if (cornerCount < 3) {
+            return;
+        }
+
+        int first = getVertex(0);
+        int previous = getVertex(1);
+
+        for (int i = 2; i < cornerCount; i++) {
+            int current = getVertex(i);
+
+            if (indexCount + 3 > indices.length) {
+                indices = Arrays.copyOf(indices, indices.length * 2);
+            }
+
+            indices[indexCount++] = first;
+            indices[indexCount++] = previous;
+            indices[indexCount++] = current;
+            previous = current;
+        }
+    }
+
+    /**
+     * Converts a one-based or negative OBJ index into a zero-based one.
+     */
+    private int resolveIndex(int index, int count, String attribute) throws IOException {
+        int resolved = index < 0 ? count + index : index - 1;
+
+        if (index == 0 || resolved < 0 || resolved >= count) {
+            throw error("Invalid " + attribute + " index " + index);
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Finds the vertex for a corner of the current face, adding it if the combination of
+     * attributes hasn't been seen before.
+     */
+    private int getVertex(int corner) {
+        int p = corners[corner * 3];
+        int t = corners[corner * 3 + 1];
+        int n = corners[corner * 3 + 2];
+
+        int mask = tableVertices.length - 1;
+        int slot = hash(p, t, n) & mask;
+
+        while (tableVertices[slot] >= 0) {
+            int key = slot * 3;
+
+            if (tableKeys[key] == p && tableKeys[key + 1] == t && tableKeys[key + 2] == n) {
+                return tableVertices[slot];
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        int vertex = addVertex(p, t, n);
+
+        tableKeys[slot * 3] = p;
+        tableKeys[slot * 3 + 1] = t;
+        tableKeys[slot * 3 + 2] = n;
+        tableVertices[slot] = vertex;
+
+        if (vertexCount * 2 > tableVertices.length) {
+            growTable();
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Appends a vertex with the given attributes.
+     */
+    private int addVertex(int p, int t, int n) {
+        if (vertexCount == vertexPositions.length) {
+            int capacity = vertexPositions.length * 2;
+
+            vertices = Arrays.copyOf(vertices, capacity * 3);
+            vertexTextureCoords = Arrays.copyOf(vertexTextureCoords, capacity * 2);
+            vertexNormals = Arrays.copyOf(vertexNormals, capacity * 3);
+            vertexPositions = Arrays.copyOf(vertexPositions, capacity);
+        }
+
+        int vertex = vertexCount++;
+
+        System.arraycopy(positions, p * 3, vertices, vertex * 3, 3);
+        vertexPositions[vertex] = p;
+
+        if (t != MISSING) {
+            System.arraycopy(textureCoords, t * 2, vertexTextureCoords, vertex * 2, 2);
+        }
+
+        if (n != MISSING) {
+            System.arraycopy(normals, n * 3, vertexNormals, vertex * 3, 3);
+        } else {
+            vertexNormals[vertex * 3] = Float.NaN;
+            missingNormals = true;
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Doubles the size of the vertex lookup table.
+     */
+    private void growTable() {
+        int[] oldKeys = tableKeys;
+        int[] oldVertices = tableVertices;
+
+        tableKeys = new int[oldKeys.length * 2];
+        tableVertices = new int[oldVertices.length * 2];
+        Arrays.fill(tableVertices, -1);
+
+        int mask = tableVertices.length - 1;
+
+        for (int i = 0; i < oldVertices.length; i++) {
+            if (oldVertices[i] < 0) {
+                continue;
+            }
+
+            int p = oldKeys[i * 3];
+            int t = oldKeys[i * 3 + 1];
+            int n = oldKeys[i * 3 + 2];
+            int slot = hash(p, t, n) & mask;
+
+            while (tableVertices[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            System.arraycopy(oldKeys, i * 3, tableKeys, slot * 3, 3);
+            tableVertices[slot] = oldVertices[i];
+        }
+    }
+
+    /**
+     * Computes a normal for every vertex that has none, which is marked by a NaN, by adding up
+     * the normals of the faces around its position. The face normals aren't normalized, so larger
+     * faces count more.
+     */
+    private void computeMissingNormals() {
+        float[] sums = new float[positionCount * 3];
+
+        for (int i = 0; i < indexCount; i += 3) {
+            int a = indices[i] * 3;
+            int b = indices[i + 1] * 3;
+            int c = indices[i + 2] * 3;
+
+            float abx = vertices[b] - vertices[a];
+            float aby = vertices[b + 1] - vertices[a + 1];
+            float abz = vertices[b + 2] - vertices[a + 2];
+            float acx = vertices[c] - vertices[a];
+            float acy = vertices[c + 1] - vertices[a + 1];
+            float acz = vertices[c + 2] - vertices[a + 2];
+
+            float nx = aby * acz - abz * acy;
+            float ny = abz * acx - abx * acz;
+            float nz = abx * acy - aby * acx;
+
+            for (int j = 0; j < 3; j++) {
+                int sum = vertexPositions[indices[i + j]] * 3;
+
+                sums[sum] += nx;
+                sums[sum + 1] += ny;
+                sums[sum + 2] += nz;
+            }
+        }
+
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int offset = vertex * 3;
+
+            if (!Float.isNaN(vertexNormals[offset])) {
+                continue;
+            }
+
+            int sum = vertexPositions[vertex] * 3;
+            float x = sums[sum];
+            float y = sums[sum + 1];
+            float z = sums[sum + 2];
+            float length = (float) Math.sqrt(x * x + y * y + z * z);
+            float scale = length > 0 ? 1 / length : 0;
+
+            vertexNormals[offset] = x * scale;
+            vertexNormals[offset + 1] = y * scale;
+            vertexNormals[offset + 2] = z * scale;
+        }
+    }
+
+    /**
+     * Parses a decimal float, with an optional sign, fraction and exponent, after skipping
+     * spaces.
+     */
+    private float readFloat() throws IOException {
+        skipSpaces();
+
+        boolean negative = false;
+
+        if (position < limit && (data.get(position) == '-' || data.get(position) == '+')) {
+            negative = data.get(position) == '-';
+            position++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        int start = position;
+
+        while (position < limit) {
+            int digit = data.get(position) - '0';
+
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+
+            if (digits < MAX_SIGNIFICANT_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                digits += mantissa > 0 ? 1 : 0;
+            } else {
+                exponent++;
+            }
+
+            position++;
+        }
+
+        if (position < limit && data.get(position) == '.') {
+            position++;
+
+            while (position < limit) {
+                int digit = data.get(position) - '0';
+
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+
+                if (digits < MAX_SIGNIFICANT_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    digits += mantissa > 0 ? 1 : 0;
+                    exponent--;
+                }
+
+                position++;
+            }
+        }
+
+        if (position == start || (position == start + 1 && data.get(start) == '.')) {
+            throw error("Expected a number");
+        }
+
+        if (position < limit && (data.get(position) == 'e' || data.get(position) == 'E')) {
+            position++;
+            exponent += readInt();
+        }
+
+        double value = mantissa;
+
+        if (exponent < 0) {
+            value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent]
+                    : value * Math.pow(10, exponent);
+        } else if (exponent > 0) {
+            value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent]
+                    : value * Math.pow(10, exponent);
+        }
+
+        return (float) (negative ? -value : value);
+    }
+
+    /**
+     * Parses a decimal integer with an optional sign.
+     */
+    private int readInt() throws IOException {
+        boolean negative = false;
+
+        if (position < limit && (data.get(position) == '-' || data.get(position) == '+')) {
+            negative = data.get(position) == '-';
+            position++;
+        }
+
+        int start = position;
+        int value = 0;
+
+        while (position < limit) {
+            int digit = data.get(position) - '0';
+
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+
+            value = value * 10 + digit;
+            position++;
+        }
+
+        if (position == start) {
+            throw error("Expected an integer");
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips spaces and tabs.
+     */
+    private void skipSpaces() {
+        while (position < limit && isSpace(data.get(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Skips the rest of the line, including the line break.
+     */
+    private void skipLine() {
+        while (position < limit && data.get(position) != '\n') {
+            position++;
+        }
+
+        position++;
+        line++;
+    }
+
+    /**
+     * Checks whether the rest of the line is empty or a comment.
+     */
+    private boolean isEndOfLine() {
+        if (position >= limit) {
+            return true;
+        }
+
+        byte current = data.get(position);
+
+        return current == '\n' || current == '\r' || current == '#';
+    }
+
+    /**
+     * Checks whether a byte separates the parts of a line.
+     */
+    private static boolean isSpace(byte value) {
+        return value == ' ' || value == '\t';
+    }
+
+    /**
+     * Spreads the attributes of a vertex over the lookup table.
+     */
+    private static int hash(int p, int t, int n) {
+        int hash = p * 0x9E3779B1 + t * 0x85EBCA6B + n * 0xC2B2AE35;
+
+        return hash ^ (hash >>> 15);
+    }
+
+    /**
+     * Creates an exception that points at the current line.
+     */
+    private IOException error(String message) {
+        return new IOException(message + " on line " + line);
+    }
+
+}
@@ -0,0 +1,732 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL32;
+
+/**
+ * The RecordingGraphicsDevice class is a graphics device that never touches OpenGL. Every call
+ * is counted and then dropped, so a frame can be pushed through the whole pipeline on a machine
+ * without a GPU or a display, and the CPU-side cost of building it can be timed.
+ *
+ * <p>Besides a count per call it keeps track of draw calls, submitted vertices, state changes,
+ * uniform uploads and the number of bytes that would have been uploaded to buffers and
+ * textures. Object IDs are handed out from a counter, shaders always compile,
+ * {@link #getError()} always reports {@code GL_NO_ERROR} and timer queries are always
+ * available with a result of 0, since no GPU time is spent.
+ */
+public class RecordingGraphicsDevice implements GraphicsDevice {
+
+    /**
+     * The kind of work a call stands for.
+     */
+    public enum Kind {
+        DRAW, STATE, UNIFORM, TRANSFER, RESOURCE, QUERY
+    }
+
+    /**
+     * The calls that are counted. Methods that do the same kind of work on different object
+     * types, like the gen and delete methods or the uniform loaders, share an entry.
+     */
+    public enum Call {
+        DRAW_ARRAYS(Kind.DRAW), DRAW_ARRAYS_INSTANCED(Kind.DRAW), DRAW_ELEMENTS(Kind.DRAW),
+        DRAW_ELEMENTS_INSTANCED(Kind.DRAW), DRAW_ELEMENTS_BASE_VERTEX(Kind.DRAW),
+        DRAW_ELEMENTS_INSTANCED_BASE_VERTEX(Kind.DRAW), CLEAR(Kind.DRAW),
+
+        CLEAR_COLOR(Kind.STATE), VIEWPORT(Kind.STATE), ENABLE(Kind.STATE), DISABLE(Kind.STATE),
+        BLEND_FUNC(Kind.STATE), DEPTH_MASK(Kind.STATE), CULL_FACE(Kind.STATE), DRAW_BUFFER(Kind.STATE),
+        READ_BUFFER(Kind.STATE), BIND_VERTEX_ARRAY(Kind.STATE), BIND_BUFFER(Kind.STATE),
+        ACTIVE_TEXTURE(Kind.STATE), BIND_TEXTURE(Kind.STATE), BIND_FRAMEBUFFER(Kind.STATE),
+        BIND_RENDERBUFFER(Kind.STATE), USE_PROGRAM(Kind.STATE), VERTEX_ATTRIB_POINTER(Kind.STATE),
+        ENABLE_VERTEX_ATTRIB_ARRAY(Kind.STATE), VERTEX_ATTRIB_DIVISOR(Kind.STATE),
+        TEX_PARAMETER(Kind.STATE),
+
+        UNIFORM(Kind.UNIFORM),
+
+        BUFFER_DATA(Kind.TRANSFER), BUFFER_SUB_DATA(Kind.TRANSFER), TEX_IMAGE_2D(Kind.TRANSFER),
+        COMPRESSED_TEX_IMAGE_2D(Kind.TRANSFER), TEX_IMAGE_3D(Kind.TRANSFER), COMPRESSED_TEX_IMAGE_3D(Kind.TRANSFER),
+        GENERATE_MIPMAP(Kind.TRANSFER), MAP_BUFFER_RANGE(Kind.TRANSFER), UNMAP_BUFFER(Kind.TRANSFER),
+        COPY_BUFFER_SUB_DATA(Kind.TRANSFER),
+
+        GEN_OBJECT(Kind.RESOURCE), DELETE_OBJECT(Kind.RESOURCE), FRAMEBUFFER_ATTACHMENT(Kind.RESOURCE),
+        RENDERBUFFER_STORAGE(Kind.RESOURCE), SHADER_SETUP(Kind.RESOURCE),
+
+        QUERY_COUNTER(Kind.QUERY), FENCE_SYNC(Kind.QUERY), CLIENT_WAIT_SYNC(Kind.QUERY), GET(Kind.QUERY);
+
+        private final Kind kind;
+
+        Call(Kind kind) {
+            this.kind = kind;
+        }
+
+        /**
+         * Retrieves the kind of work this call stands for.
+         *
+         * @return The kind.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+    }
+
+    private final int[] callCounts = new int[Call.values().length];
+    private final int[] kindCounts = new int[Kind.values().length];
+
+    private long vertices;
+    private long bufferBytes;
+    private long textureBytes;
+
+    private ByteBuffer mappedBuffer = ByteBuffer.allocateDirect(0);
+
+    private int nextObjectID = 1;
+    private int nextUniformLocation = 0;
+
+    /**
+     * Resets all counters, e.g. at the start of a measured frame. Object IDs keep counting up.
+     */
+    public void reset() {
+        for (int i = 0; i < callCounts.length; i++) {
+            callCounts[i] = 0;
+        }
+        for (int i = 0; i < kindCounts.length; i++) {
+            kindCounts[i] = 0;
+        }
+
+        vertices = 0;
+        bufferBytes = 0;
+        textureBytes = 0;
+    }
+
+    /**
+     * Retrieves the number of times a call was made since the last reset.
+     *
+     * @param call The call.
+     * @return The number of calls.
+     */
+    public int getCount(Call call) {
+        return callCounts[call.ordinal()];
+    }
+
+    /**
+     * Retrieves the number of calls of a kind since the last reset.
+     *
+     * @param kind The kind of call.
+     * @return The number of calls.
+     */
+    public int getCount(Kind kind) {
+        return kindCounts[kind.ordinal()];
+    }
+
+    /**
+     * Retrieves the total number of calls since the last reset.
+     *
+     * @return The number of calls.
+     */
+    public int getTotalCalls() {
+        int total = 0;
+
+        for (int count : kindCounts) {
+            total += count;
+        }
+
+        return total;
+    }
+
+    /**
+     * Retrieves the number of draw calls since the last reset, not counting clears.
+     *
+     * @return The number of draw calls.
+     */
+    public int getDrawCalls() {
+        return getCount(Kind.DRAW) - getCount(Call.CLEAR);
+    }
+
+    /**
+     * Retrieves the number of vertices submitted by draw calls since the last reset, with
+     * instanced draws counting every instance.
+     *
+     * @return The number of vertices.
+     */
+    public long getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Retrieves the number of state changes since the last reset.
+     *
+     * @return The number of state changes.
+     */
+    public int getStateChanges() {
+        return getCount(Kind.STATE);
+    }
+
+    /**
+     * Retrieves the number of bytes uploaded to buffers since the last reset.
+     *
+     * @return The number of bytes.
+     */
+    public long getBufferBytes() {
+        return bufferBytes;
+    }
+
+    /**
+     * Retrieves the number of bytes uploaded to textures since the last reset.
+     *
+     * @return The number of bytes.
+     */
+    public long getTextureBytes() {
+        return textureBytes;
+    }
+
+    /**
+     * Summarizes the counters on a single line.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        return "calls=" + getTotalCalls() + " draws=" + getDrawCalls() + " vertices=" + vertices
+                + " stateChanges=" + getStateChanges() + " uniforms=" + getCount(Kind.UNIFORM)
+                + " bufferBytes=" + bufferBytes + " textureBytes=" + textureBytes;
+    }
+
+    @Override
+    public void drawArrays(int mode, int first, int count) {
+        record(Call.DRAW_ARRAYS);
+        vertices += count;
+    }
+
+    @Override
+    public void drawArraysInstanced(int mode, int first, int count, int instances) {
+        record(Call.DRAW_ARRAYS_INSTANCED);
+        vertices += (long) count * instances;
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long offset) {
+        record(Call.DRAW_ELEMENTS);
+        vertices += count;
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long offset, int instances) {
+        record(Call.DRAW_ELEMENTS_INSTANCED);
+        vertices += (long) count * instances;
+    }
+
+    @Override
+    public void drawElementsBaseVertex(int mode, int count, int type, long offset, int baseVertex) {
+        record(Call.DRAW_ELEMENTS_BASE_VERTEX);
+        vertices += count;
+    }
+
+    @Override
+    public void drawElementsInstancedBaseVertex(int mode, int count, int type, long offset, int instances,
+            int baseVertex) {
+        record(Call.DRAW_ELEMENTS_INSTANCED_BASE_VERTEX);
+        vertices += (long) count * instances;
+    }
+
+    @Override
+    public void clear(int mask) {
+        record(Call.CLEAR);
+    }
+
+    @Override
+    public void clearColor(float red, float green, float blue, float alpha) {
+        record(Call.CLEAR_COLOR);
+    }
+
+    @Override
+    public void viewport(int x, int y, int width, int height) {
+        record(Call.VIEWPORT);
+    }
+
+    @Override
+    public void enable(int capability) {
+        record(Call.ENABLE);
+    }
+
+    @Override
+    public void disable(int capability) {
+        record(Call.DISABLE);
+    }
+
+    @Override
+    public void blendFunc(int source, int destination) {
+        record(Call.BLEND_FUNC);
+    }
+
+    @Override
+    public void depthMask(boolean enabled) {
+        record(Call.DEPTH_MASK);
+    }
+
+    @Override
+    public void cullFace(int mode) {
+        record(Call.CULL_FACE);
+    }
+
+    @Override
+    public void drawBuffer(int buffer) {
+        record(Call.DRAW_BUFFER);
+    }
+
+    @Override
+    public void readBuffer(int buffer) {
+        record(Call.READ_BUFFER);
+    }
+
+    @Override
+    public int getError() {
+        record(Call.GET);
+        return GL11.GL_NO_ERROR;
+    }
+
+    @Override
+    public float getFloat(int name) {
+        record(Call.GET);
+        return 0;
+    }
+
+    @Override
+    public boolean isAnisotropicFilteringSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isTextureCompressionSupported() {
+        return true;
+    }
+
+    @Override
+    public int genVertexArrays() {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void deleteVertexArrays(int vaoID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public void bindVertexArray(int vaoID) {
+        record(Call.BIND_VERTEX_ARRAY);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+        record(Call.VERTEX_ATTRIB_POINTER);
+    }
+
+    @Override
+    public void enableVertexAttribArray(int index) {
+        record(Call.ENABLE_VERTEX_ATTRIB_ARRAY);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        record(Call.VERTEX_ATTRIB_DIVISOR);
+    }
+
+    @Override
+    public int genBuffers() {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void deleteBuffers(int bufferID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public void bindBuffer(int target, int bufferID) {
+        record(Call.BIND_BUFFER);
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        record(Call.BUFFER_DATA);
+    }
+
+    @Override
+    public void bufferData(int target, FloatBuffer data, int usage) {
+        record(Call.BUFFER_DATA);
+        bufferBytes += data.remaining() * 4L;
+    }
+
+    @Override
+    public void bufferData(int target, IntBuffer data, int usage) {
+        record(Call.BUFFER_DATA);
+        bufferBytes += data.remaining() * 4L;
+    }
+
+    @Override
+    public void bufferData(int target, ByteBuffer data, int usage) {
+        record(Call.BUFFER_DATA);
+        bufferBytes += data.remaining();
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        record(Call.BUFFER_SUB_DATA);
+        bufferBytes += data.remaining() * 4L;
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, ByteBuffer data) {
+        record(Call.BUFFER_SUB_DATA);
+        bufferBytes += data.remaining();
+    }
+
+    /**
+     * Counts the copy as a transfer; no bytes cross from the client to the GPU.
+     */
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        record(Call.COPY_BUFFER_SUB_DATA);
+    }
+
+    /**
+     * Maps the range to a scratch buffer in client memory, which is reused while it is large
+     * enough. The whole range counts as uploaded.
+     */
+    @Override
+    public ByteBuffer mapBufferRange(int target, long offset, long length, int access, ByteBuffer oldBuffer) {
+        record(Call.MAP_BUFFER_RANGE);
+        bufferBytes += length;
+
+        if (mappedBuffer.capacity() < length) {
+            mappedBuffer = ByteBuffer.allocateDirect((int) length);
+        }
+
+        mappedBuffer.clear().limit((int) length);
+
+        return mappedBuffer.slice();
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        record(Call.UNMAP_BUFFER);
+        return true;
+    }
+
+    @Override
+    public int genTextures() {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void deleteTextures(int textureID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public void activeTexture(int texture) {
+        record(Call.ACTIVE_TEXTURE);
+    }
+
+    @Override
+    public void bindTexture(int target, int textureID) {
+        record(Call.BIND_TEXTURE);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+            int type, ByteBuffer pixels) {
+        record(Call.TEX_IMAGE_2D);
+
+        if (pixels != null) {
+            textureBytes += pixels.remaining();
+        }
+    }
+
+    @Override
+    public void compressedTexImage2D(int target, int level, int internalFormat, int width, int height, int border,
+            ByteBuffer data) {
+        record(Call.COMPRESSED_TEX_IMAGE_2D);
+        textureBytes += data.remaining();
+    }
+
+    @Override
+    public void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border,
+            int format, int type, ByteBuffer pixels) {
+        record(Call.TEX_IMAGE_3D);
+
+        if (pixels != null) {
+            textureBytes += pixels.remaining();
+        }
+    }
+
+    @Override
+    public void compressedTexImage3D(int target, int level, int internalFormat, int width, int height, int depth,
+            int border, ByteBuffer data) {
+        record(Call.COMPRESSED_TEX_IMAGE_3D);
+        textureBytes += data.remaining();
+    }
+
+    @Override
+    public void texParameteri(int target, int name, int value) {
+        record(Call.TEX_PARAMETER);
+    }
+
+    @Override
+    public void texParameterf(int target, int name, float value) {
+        record(Call.TEX_PARAMETER);
+    }
+
+    @Override
+    public void generateMipmap(int target) {
+        record(Call.GENERATE_MIPMAP);
+    }
+
+    @Override
+    public int genFramebuffers() {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void deleteFramebuffers(int framebufferID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public void bindFramebuffer(int target, int framebufferID) {
+        record(Call.BIND_FRAMEBUFFER);
+    }
+
+    @Override
+    public void framebufferTexture(int target, int attachment, int textureID, int level) {
+        record(Call.FRAMEBUFFER_ATTACHMENT);
+    }
+
+    @Override
+    public void framebufferTexture2D(int target, int attachment, int textureTarget, int textureID, int level) {
+        record(Call.FRAMEBUFFER_ATTACHMENT);
+    }
+
+    @Override
+    public int genRenderbuffers() {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void deleteRenderbuffers(int renderbufferID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public void bindRenderbuffer(int target, int renderbufferID) {
+        record(Call.BIND_RENDERBUFFER);
+    }
+
+    @Override
+    public void renderbufferStorage(int target, int internalFormat, int width, int height) {
+        record(Call.RENDERBUFFER_STORAGE);
+    }
+
+    @Override
+    public void framebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbufferID) {
+        record(Call.FRAMEBUFFER_ATTACHMENT);
+    }
+
+    @Override
+    public int genQueries() {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void deleteQueries(int queryID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public void queryCounter(int queryID, int target) {
+        record(Call.QUERY_COUNTER);
+    }
+
+    @Override
+    public int getQueryObjecti(int queryID, int name) {
+        record(Call.GET);
+        return GL11.GL_TRUE;
+    }
+
+    @Override
+    public long getQueryObjectui64(int queryID, int name) {
+        record(Call.GET);
+        return 0;
+    }
+
+    @Override
+    public int fenceSync() {
+        record(Call.FENCE_SYNC);
+        return nextObjectID++;
+    }
+
+    @Override
+    public int clientWaitSync(int fenceID, int flags, long timeout) {
+        record(Call.CLIENT_WAIT_SYNC);
+        return GL32.GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void deleteSync(int fenceID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public int createShader(int type) {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void shaderSource(int shaderID, CharSequence source) {
+        record(Call.SHADER_SETUP);
+    }
+
+    @Override
+    public void compileShader(int shaderID) {
+        record(Call.SHADER_SETUP);
+    }
+
+    @Override
+    public int getShaderi(int shaderID, int name) {
+        record(Call.GET);
+        return GL11.GL_TRUE;
+    }
+
+    @Override
+    public String getShaderInfoLog(int shaderID, int maxLength) {
+        record(Call.GET);
+        return "";
+    }
+
+    @Override
+    public void deleteShader(int shaderID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public int createProgram() {
+        record(Call.GEN_OBJECT);
+        return nextObjectID++;
+    }
+
+    @Override
+    public void attachShader(int programID, int shaderID) {
+        record(Call.SHADER_SETUP);
+    }
+
+    @Override
+    public void detachShader(int programID, int shaderID) {
+        record(Call.SHADER_SETUP);
+    }
+
+    @Override
+    public void bindAttribLocation(int programID, int index, CharSequence name) {
+        record(Call.SHADER_SETUP);
+    }
+
+    @Override
+    public void linkProgram(int programID) {
+        record(Call.SHADER_SETUP);
+    }
+
+    @Override
+    public void validateProgram(int programID) {
+        record(Call.SHADER_SETUP);
+    }
+
+    @Override
+    public void deleteProgram(int programID) {
+        record(Call.DELETE_OBJECT);
+    }
+
+    @Override
+    public void useProgram(int programID) {
+        record(Call.USE_PROGRAM);
+    }
+
+    @Override
+    public int getUniformLocation(int programID, CharSequence name) {
+        record(Call.GET);
+        return nextUniformLocation++;
+    }
+
+    @Override
+    public void uniform1f(int location, float x) {
+        record(Call.UNIFORM);
+    }
+
+    @Override
+    public void uniform1i(int location, int x) {
+        record(Call.UNIFORM);
+    }
+
+    @Override
+    public void uniform2f(int location, float x, float y) {
+        record(Call.UNIFORM);
+    }
+
+    @Override
+    public void uniform3f(int location, float x, float y, float z) {
+        record(Call.UNIFORM);
+    }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) {
+        record(Call.UNIFORM);
+    }
+
+    @Override
+    public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix) {
+        record(Call.UNIFORM);
+    }
+
+    /**
+     * Counts a call.
+     *
+     * @param call The call that was made.
+     */
+    private void record(Call call) {
+        callCounts[call.ordinal()]++;
+        kindCounts[call.getKind().ordinal()]++;
+    }
+
+}
@@ -0,0 +1,257 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.Arrays;
+
+/**
+ * The RenderQueue class orders the draws of a render pass by a 64-bit sort key.
+ * The key packs the transparency flag, the shader, the texture, the VAO and the
+ * quantized camera distance, so that a single sort groups draws by GL state and
+ * orders opaque draws front to back and transparent draws back to front.
+ *
+ * <pre>
+ * opaque:      [63] 0 | [60-62] shader | [44-59] texture | [28-43] vao | [4-27] depth
+ * transparent: [63] 1 | [39-62] inverted depth | [36-38] shader | [20-35] texture | [4-19] vao
+ * </pre>
+ *
+ * Texture and VAO IDs are truncated to 16 bits. A collision only costs a state
+ * change, since the renderers group consecutive draws by the actual model.
+ * The keys are sorted with an LSD radix sort that skips bytes shared by all keys.
+ */
+public class RenderQueue {
+
+	public static final int SHADER_ENTITY = 0;
+	public static final int SHADER_NORMAL_MAP = 1;
+	public static final int SHADER_TERRAIN = 2;
+
+	private static final int DEPTH_BITS = 24;
+	private static final int DEPTH_MAX = (1 << DEPTH_BITS) - 1;
+	private static final long ID_MASK = 0xFFFF;
+	private static final long SHADER_MASK = 0x7;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private Object[] items = new Object[INITIAL_CAPACITY];
+	private int[] order = new int[INITIAL_CAPACITY];
+
+	private long[] keyBuffer = new long[INITIAL_CAPACITY];
+	private int[] orderBuffer = new int[INITIAL_CAPACITY];
+	private final int[] counts = new int[256];
+
+	private int size = 0;
+
+	private float maxDepth;
+
+	/**
+	 * Creates a RenderQueue whose depth quantization covers distances up to the given value.
+	 *
+	 * @param maxDepth The largest camera distance that can be told apart; further draws share the last depth bucket.
+	 */
+	public RenderQueue(float maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Adds a draw to the queue.
+	 *
+	 * @param shader      The shader the draw belongs to (one of the SHADER_ constants).
+	 * @param texture     The ID of the main texture of the draw.
+	 * @param vao         The ID of the VAO of the draw.
+	 * @param transparent True if the draw needs to be rendered after the opaque draws, back to front.
+	 * @param depth       The distance from the camera.
+	 * @param item        The object to draw (an entity or a terrain).
+	 */
+	public void add(int shader, int texture, int vao, boolean transparent, float depth, Object item) {
+		ensureCapacity(size + 1);
+
+		keys[size] = createKey(shader, texture, vao, transparent, depth);
+		items[size] = item;
+		order[size] = size;
+		size++;
+	}
+
+	/**
+	 * Sorts the queued draws by their keys. The sort is stable, so draws with the same
+	 * key keep the order in which they were added.
+	 */
+	public void sort() {
+		for (int shift = 0; shift < 64; shift += 8) {
+			Arrays.fill(counts, 0);
+
+			for (int i = 0; i < size; i++) {
+				counts[(int) (keys[i] >>> shift) & 0xFF]++;
+			}
+
+			if (size == 0 || counts[(int) (keys[0] >>> shift) & 0xFF] == size) {
+				continue;
+			}
+
+			int total = 0;
+			for (int i = 0; i < 256; i++) {
+				int count = counts[i];
+				counts[i] = total;
+				total += count;
+			}
+
+			for (int i = 0; i < size; i++) {
+				int bucket = counts[(int) (keys[i] >>> shift) & 0xFF]++;
+				keyBuffer[bucket] = keys[i];
+				orderBuffer[bucket] = order[i];
+			}
+
+			long[] swapKeys = keys;
+			keys = keyBuffer;
+			keyBuffer = swapKeys;
+
+			int[] swapOrder = order;
+			order = orderBuffer;
+			orderBuffer = swapOrder;
+		}
+	}
+
+	/**
+	 * Retrieves the key at a position of the sorted queue.
+	 *
+	 * @param index The position in the queue.
+	 * @return The sort key.
+	 */
+	public long getKey(int index) {
+		return keys[index];
+	}
+
+	/**
+	 * Retrieves the object to draw at a position of the sorted queue.
+	 *
+	 * @param index The position in the queue.
+	 * @return The entity or terrain that was added with this key.
+	 */
+	public Object getItem(int index) {
+		return items[order[index]];
+	}
+
+	/**
+	 * Retrieves the shader of the draw at a position of the sorted queue.
+	 *
+	 * @param index The position in the queue.
+	 * @return The shader (one of the SHADER_ constants).
+	 */
+	public int getShader(int index) {
+		long key = keys[index];
+
+		if (key < 0) {
+			return (int) ((key >>> 36) & SHADER_MASK);
+		}
+
+		return (int) ((key >>> 60) & SHADER_MASK);
+	}
+
+	/**
+	 * Finds the end of the run of draws that use the same shader, starting at a position.
+	 *
+	 * @param start The first position of the run.
+	 * @return The position after the last draw of the run.
+	 */
+	public int findShaderRunEnd(int start) {
+		int shader = getShader(start);
+		int end = start + 1;
+
+		while (end < size && getShader(end) == shader) {
+			end++;
+		}
+
+		return end;
+	}
+
+	/**
+	 * @return The number of queued draws.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all draws from the queue. The backing arrays are kept for the next pass.
+	 */
+	public void clear() {
+		Arrays.fill(items, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Packs the draw state into a sort key.
+	 */
+	private long createKey(int shader, int texture, int vao, boolean transparent, float depth) {
+		long quantizedDepth = quantizeDepth(depth);
+
+		if (transparent) {
+			return (1L << 63)
+					| ((DEPTH_MAX - quantizedDepth) << 39)
+					| ((shader & SHADER_MASK) << 36)
+					| ((texture & ID_MASK) << 20)
+					| ((vao & ID_MASK) << 4);
+		}
+
+		return ((shader & SHADER_MASK) << 60)
+				| ((texture & ID_MASK) << 44)
+				| ((vao & ID_MASK) << 28)
+				| (quantizedDepth << 4);
+	}
+
+	/**
+	 * Maps a camera distance to a 24-bit integer.
+	 */
+	private long quantizeDepth(float depth) {
+		if (!(depth > 0)) {
+			return 0;
+		}
+
+		if (depth >= maxDepth) {
+			return DEPTH_MAX;
+		}
+
+		return (long) (depth / maxDepth * DEPTH_MAX);
+	}
+
+	/**
+	 * Grows the backing arrays so they can hold the given number of draws.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity <= keys.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, keys.length * 2);
+
+		keys = Arrays.copyOf(keys, newCapacity);
+		items = Arrays.copyOf(items, newCapacity);
+		order = Arrays.copyOf(order, newCapacity);
+		keyBuffer = new long[newCapacity];
+		orderBuffer = new int[newCapacity];
+	}
+}
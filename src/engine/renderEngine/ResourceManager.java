@@ -0,0 +1,405 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * The ResourceManager class keeps track of the OpenGL objects a {@link Loader} creates: how many
+ * bytes of video memory each one takes, and how many users it has. A resource is created with one
+ * reference, further users {@link #acquire(Category, Object) acquire} it, and every user
+ * {@link #release(Category, Object) releases} it when done.
+ *
+ * <p>When the last reference is released, a resource that was loaded by name through one of the
+ * loader's caches is kept, since it may well be requested again, and becomes a candidate for
+ * eviction. Any other resource is deleted straight away. Whenever the memory in use exceeds the
+ * budget, the candidates that take memory of their own are evicted in the order they were
+ * released, oldest first, until it fits again. Resources that still have references are never
+ * evicted, so the budget can be exceeded if they alone take more.
+ *
+ * <p>Resources are identified by their category and a handle: the texture or buffer ID, and for
+ * meshes the {@link engine.models.RawModel RawModel}, or the VAO ID if the mesh was loaded
+ * without one. The manager must only be used on the GL thread.
+ */
+public class ResourceManager {
+
+    /**
+     * The kinds of resources, which usage is reported for separately.
+     */
+    public enum Category {
+        /**
+         * A VAO together with its vertex and index buffers. Models in a geometry arena take no
+         * memory of their own, since the arena's buffers are counted once, as a buffer.
+         */
+        MESH,
+        /**
+         * A buffer that doesn't belong to a single mesh, e.g. an instance buffer.
+         */
+        BUFFER,
+        /**
+         * A texture, including its mipmap levels.
+         */
+        TEXTURE
+    }
+
+    /**
+     * A tracked resource.
+     */
+    private static class Resource {
+
+        private final Category category;
+        private final Object handle;
+        private final Runnable deleter;
+
+        private long bytes;
+        private int references = 1;
+        private String key;
+        private Runnable onEvict;
+
+        private Resource(Category category, Object handle, Runnable deleter) {
+            this.category = category;
+            this.handle = handle;
+            this.deleter = deleter;
+        }
+
+    }
+
+    private final Map<Category, Map<Object, Resource>> resources = new EnumMap<Category, Map<Object, Resource>>(
+            Category.class);
+    private final LinkedHashSet<Resource> unreferenced = new LinkedHashSet<Resource>();
+    private final long[] usedBytes = new long[Category.values().length];
+
+    private long budgetBytes = Long.MAX_VALUE;
+    private long evictions;
+
+    /**
+     * Creates a manager without a budget.
+     */
+    ResourceManager() {
+        for (Category category : Category.values()) {
+            resources.put(category, new HashMap<Object, Resource>());
+        }
+    }
+
+    /**
+     * Starts tracking a resource, which holds one reference for its creator.
+     *
+     * @param category The category of the resource.
+     * @param handle   The handle the resource is identified by.
+     * @param bytes    The memory the resource takes, which can be updated once it is known.
+     * @param deleter  Deletes the OpenGL objects of the resource.
+     * @throws IllegalArgumentException If the resource is already tracked.
+     */
+    void register(Category category, Object handle, long bytes, Runnable deleter) {
+        Map<Object, Resource> map = resources.get(category);
+
+        if (map.containsKey(handle)) {
+            throw new IllegalArgumentException(category + " " + handle + " is already tracked");
+        }
+
+        Resource resource = new Resource(category, handle, deleter);
+        resource.bytes = bytes;
+        usedBytes[category.ordinal()] += bytes;
+        map.put(handle, resource);
+    }
+
+    /**
+     * Marks a resource as loaded by name, so it is kept for later requests when its last
+     * reference is released.
+     *
+     * @param category The category of the resource.
+     * @param handle   The handle of the resource.
+     * @param key      The name the resource was loaded by.
+     * @param onEvict  Forgets the resource in the cache it was loaded through, when it is evicted.
+     */
+    void setCached(Category category, Object handle, String key, Runnable onEvict) {
+        Resource resource = get(category, handle);
+
+        resource.key = key;
+        resource.onEvict = onEvict;
+    }
+
+    /**
+     * Updates the memory a resource takes, e.g. once its data has been uploaded. The budget is
+     * enforced on the next {@link #enforceBudget()}.
+     *
+     * @param category The category of the resource.
+     * @param handle   The handle of the resource.
+     * @param bytes    The memory the resource takes.
+     */
+    void setBytes(Category category, Object handle, long bytes) {
+        Resource resource = get(category, handle);
+
+        usedBytes[category.ordinal()] += bytes - resource.bytes;
+        resource.bytes = bytes;
+    }
+
+    /**
+     * Adds a reference to a resource. A resource whose last reference was released, but which
+     * hasn't been evicted yet, becomes safe from eviction again.
+     *
+     * @param category The category of the resource.
+     * @param handle   The handle of the resource.
+     * @throws IllegalArgumentException If the resource isn't tracked.
+     */
+    public void acquire(Category category, Object handle) {
+        Resource resource = get(category, handle);
+
+        if (resource.references++ == 0) {
+            unreferenced.remove(resource);
+        }
+    }
+
+    /**
+     * Removes a reference from a resource. When the last one is gone, the resource is deleted,
+     * or, if it was loaded by name, kept until the budget makes room.
+     *
+     * @param category The category of the resource.
+     * @param handle   The handle of the resource.
+     * @throws IllegalArgumentException If the resource isn't tracked.
+     * @throws IllegalStateException    If the resource has no references left.
+     */
+    public void release(Category category, Object handle) {
+        Resource resource = get(category, handle);
+
+        if (resource.references == 0) {
+            throw new IllegalStateException(category + " " + handle + " has already been released");
+        }
+        if (--resource.references > 0) {
+            return;
+        }
+
+        if (resource.key != null) {
+            unreferenced.add(resource);
+            enforceBudget();
+        } else {
+            delete(resource);
+        }
+    }
+
+    /**
+     * Checks whether a resource is tracked, i.e. it hasn't been deleted or evicted.
+     *
+     * @param category The category of the resource.
+     * @param handle   The handle of the resource.
+     * @return True if the resource exists.
+     */
+    public boolean contains(Category category, Object handle) {
+        return resources.get(category).containsKey(handle);
+    }
+
+    /**
+     * Retrieves the number of references to a resource.
+     *
+     * @param category The category of the resource.
+     * @param handle   The handle of the resource.
+     * @return The reference count, or 0 if the resource isn't tracked.
+     */
+    public int getReferenceCount(Category category, Object handle) {
+        Resource resource = resources.get(category).get(handle);
+
+        return resource != null ? resource.references : 0;
+    }
+
+    /**
+     * Sets the video memory all resources together may take. Unreferenced resources are evicted
+     * right away if they don't fit anymore.
+     *
+     * @param budgetBytes The budget in bytes.
+     * @throws IllegalArgumentException If the budget is not positive.
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Resource budget must be positive");
+        }
+
+        this.budgetBytes = budgetBytes;
+        enforceBudget();
+    }
+
+    /**
+     * Retrieves the video memory all resources together may take.
+     *
+     * @return The budget in bytes, or {@code Long.MAX_VALUE} if there is none.
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Retrieves the video memory the resources of a category take.
+     *
+     * @param category The category.
+     * @return The memory in bytes.
+     */
+    public long getUsedBytes(Category category) {
+        return usedBytes[category.ordinal()];
+    }
+
+    /**
+     * Retrieves the video memory all resources take.
+     *
+     * @return The memory in bytes.
+     */
+    public long getUsedBytes() {
+        long total = 0;
+
+        for (long bytes : usedBytes) {
+            total += bytes;
+        }
+
+        return total;
+    }
+
+    /**
+     * Retrieves the number of resources of a category.
+     *
+     * @param category The category.
+     * @return The number of resources.
+     */
+    public int getCount(Category category) {
+        return resources.get(category).size();
+    }
+
+    /**
+     * Retrieves the number of resources that are kept without references.
+     *
+     * @return The number of eviction candidates.
+     */
+    public int getUnreferencedCount() {
+        return unreferenced.size();
+    }
+
+    /**
+     * Retrieves the number of resources that were evicted to stay within the budget.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Evicts unreferenced resources, least recently released first, until the memory in use
+     * fits into the budget. Resources that take no memory of their own, like models in a
+     * geometry arena, are skipped, since evicting them would free nothing. The loader calls
+     * this once per frame.
+     *
+     * @return The number of resources that were evicted.
+     */
+    int enforceBudget() {
+        int evicted = 0;
+        Iterator<Resource> iterator = unreferenced.iterator();
+
+        while (getUsedBytes() > budgetBytes && iterator.hasNext()) {
+            Resource resource = iterator.next();
+
+            if (resource.bytes == 0) {
+                continue;
+            }
+
+            iterator.remove();
+            delete(resource);
+            resource.onEvict.run();
+            evicted++;
+        }
+
+        evictions += evicted;
+
+        return evicted;
+    }
+
+    /**
+     * Deletes all resources, whether they are referenced or not.
+     */
+    void cleanUp() {
+        for (Map<Object, Resource> map : resources.values()) {
+            for (Resource resource : map.values()) {
+                resource.deleter.run();
+            }
+
+            map.clear();
+        }
+
+        unreferenced.clear();
+        Arrays.fill(usedBytes, 0);
+    }
+
+    /**
+     * Summarizes the usage per category on a single line.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (Category category : Category.values()) {
+            builder.append(category.name().toLowerCase()).append('=').append(getCount(category)).append(" (")
+                    .append(getUsedBytes(category) / 1024).append(" KiB) ");
+        }
+
+        builder.append("used=").append(getUsedBytes() / 1024).append(" KiB");
+
+        if (budgetBytes != Long.MAX_VALUE) {
+            builder.append('/').append(budgetBytes / 1024).append(" KiB");
+        }
+
+        return builder.append(" unreferenced=").append(unreferenced.size()).append(" evictions=")
+                .append(evictions).toString();
+    }
+
+    /**
+     * Looks up a tracked resource.
+     *
+     * @throws IllegalArgumentException If the resource isn't tracked.
+     */
+    private Resource get(Category category, Object handle) {
+        Resource resource = resources.get(category).get(handle);
+
+        if (resource == null) {
+            throw new IllegalArgumentException(category + " " + handle + " is not tracked");
+        }
+
+        return resource;
+    }
+
+    /**
+     * Stops tracking a resource and deletes its OpenGL objects.
+     */
+    private void delete(Resource resource) {
+        resources.get(resource.category).remove(resource.handle);
+        usedBytes[resource.category.ordinal()] -= resource.bytes;
+        resource.deleter.run();
+    }
+
+}
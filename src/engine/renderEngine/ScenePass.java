@@ -0,0 +1,60 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+/**
+ * The ScenePass enum names the passes in which {@link MasterRenderer#renderScene} draws the
+ * scene during a frame. Each pass has its own {@link FrustumCuller}, so the statistics of one
+ * pass aren't overwritten by the next.
+ */
+public enum ScenePass {
+
+    REFLECTION("reflection"),
+    REFRACTION("refraction"),
+    MAIN("main");
+
+    private final String name;
+
+    /**
+     * Creates a scene pass.
+     *
+     * @param name The name of the pass, used when reporting statistics.
+     */
+    ScenePass(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Retrieves the name of the pass.
+     *
+     * @return The name used when reporting statistics.
+     */
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,230 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+
+/**
+ * The StreamingBuffer class is a vertex buffer for data that is rewritten every frame, such as
+ * particle and entity instance data. The buffer is split into {@value #FRAMES} regions, one
+ * per frame in flight. Uploads are appended to the region of the current frame through an
+ * unsynchronized {@code glMapBufferRange}, so the driver neither reallocates the buffer nor
+ * waits for the GPU to finish with it. A fence is inserted at the end of every frame that
+ * used its region, and the region is only written again once that fence is signaled.
+ *
+ * <p>Since uploads land at a different offset every time, callers point their attributes at
+ * the offset returned by {@link #upload(float[], int)} before drawing. {@link #endFrame()}
+ * must be called once per frame; {@link DisplayManager#updateDisplay()} does this.
+ */
+public class StreamingBuffer {
+
+    private static final int FRAMES = 3;
+    private static final int ALIGNMENT = 16;
+    private static final int MAP_FLAGS = GL30.GL_MAP_WRITE_BIT | GL30.GL_MAP_INVALIDATE_RANGE_BIT
+            | GL30.GL_MAP_UNSYNCHRONIZED_BIT;
+    private static final long FENCE_TIMEOUT_NANOS = 1000000000L;
+
+    private static final List<StreamingBuffer> liveBuffers = new ArrayList<StreamingBuffer>();
+
+    private final GraphicsDevice device = Graphics.getDevice();
+
+    private final int bufferID;
+    private final int regionBytes;
+    private final int[] fences = new int[FRAMES];
+
+    private int region;
+    private int head;
+    private ByteBuffer mapped;
+
+    /**
+     * Creates a streaming buffer.
+     *
+     * @param regionBytes The number of bytes that can be uploaded per frame.
+     * @throws IllegalArgumentException If the size is not positive.
+     */
+    public StreamingBuffer(int regionBytes) {
+        if (regionBytes <= 0) {
+            throw new IllegalArgumentException("Region size must be positive");
+        }
+
+        this.regionBytes = regionBytes;
+        this.bufferID = device.genBuffers();
+
+        device.bindBuffer(GL15.GL_ARRAY_BUFFER, bufferID);
+        device.bufferData(GL15.GL_ARRAY_BUFFER, (long) regionBytes * FRAMES, GL15.GL_STREAM_DRAW);
+        device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+
+        liveBuffers.add(this);
+    }
+
+    /**
+     * Copies data into the region of the current frame. The buffer is left bound to
+     * {@code GL_ARRAY_BUFFER}, so attribute pointers can be set straight away.
+     *
+     * @param data       The data to upload.
+     * @param floatCount The number of floats to upload from the start of the array.
+     * @return The byte offset of the data in the buffer.
+     * @throws IllegalArgumentException If the data doesn't fit in a region.
+     */
+    public long upload(float[] data, int floatCount) {
+        int bytes = floatCount * 4;
+
+        if (bytes > regionBytes) {
+            throw new IllegalArgumentException("Upload of " + bytes + " bytes doesn't fit in a region of "
+                    + regionBytes + " bytes");
+        }
+
+        device.bindBuffer(GL15.GL_ARRAY_BUFFER, bufferID);
+
+        if (head + bytes > regionBytes) {
+            orphan();
+        }
+
+        if (head == 0) {
+            waitForRegion();
+        }
+
+        long offset = (long) region * regionBytes + head;
+
+        mapped = device.mapBufferRange(GL15.GL_ARRAY_BUFFER, offset, bytes, MAP_FLAGS, mapped);
+        mapped.order(ByteOrder.nativeOrder()).asFloatBuffer().put(data, 0, floatCount);
+
+        if (!device.unmapBuffer(GL15.GL_ARRAY_BUFFER)) {
+            System.err.println("Streaming buffer " + bufferID + " was lost while it was mapped");
+        }
+
+        head += (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+
+        return offset;
+    }
+
+    /**
+     * Retrieves the ID of the buffer, so it can be attached to VAOs.
+     *
+     * @return The buffer ID.
+     */
+    public int getBufferID() {
+        return bufferID;
+    }
+
+    /**
+     * Retrieves the size of the buffer, which holds one region per frame in flight.
+     *
+     * @return The size in bytes.
+     */
+    public long getSizeBytes() {
+        return (long) regionBytes * FRAMES;
+    }
+
+    /**
+     * Deletes the buffer and its fences.
+     */
+    public void cleanUp() {
+        for (int i = 0; i < FRAMES; i++) {
+            deleteFence(i);
+        }
+
+        device.deleteBuffers(bufferID);
+        liveBuffers.remove(this);
+    }
+
+    /**
+     * Ends the frame for all streaming buffers. Every buffer that was written to this frame
+     * fences its region and moves on to the next one.
+     */
+    public static void endFrame() {
+        for (int i = 0; i < liveBuffers.size(); i++) {
+            liveBuffers.get(i).finishRegion();
+        }
+    }
+
+    /**
+     * Fences the region of the current frame if anything was written to it, and moves on to
+     * the next region.
+     */
+    private void finishRegion() {
+        if (head == 0) {
+            return;
+        }
+
+        fences[region] = device.fenceSync();
+        region = (region + 1) % FRAMES;
+        head = 0;
+    }
+
+    /**
+     * Waits until the GPU has finished reading the current region, if it was used before.
+     */
+    private void waitForRegion() {
+        if (fences[region] == 0) {
+            return;
+        }
+
+        int status = device.clientWaitSync(fences[region], GL32.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT_NANOS);
+
+        if (status == GL32.GL_WAIT_FAILED || status == GL32.GL_TIMEOUT_EXPIRED) {
+            System.err.println("Streaming buffer " + bufferID + " waited too long for the GPU");
+        }
+
+        deleteFence(region);
+    }
+
+    /**
+     * Gives the buffer new storage when a frame uploads more than fits in its region. The
+     * driver keeps the old storage alive for the draws that still read from it, so all fences
+     * can be dropped and the current frame starts over at the beginning of its region.
+     */
+    private void orphan() {
+        device.bufferData(GL15.GL_ARRAY_BUFFER, (long) regionBytes * FRAMES, GL15.GL_STREAM_DRAW);
+
+        for (int i = 0; i < FRAMES; i++) {
+            deleteFence(i);
+        }
+
+        head = 0;
+    }
+
+    /**
+     * Deletes the fence of a region, if it has one.
+     *
+     * @param index The index of the region.
+     */
+    private void deleteFence(int index) {
+        if (fences[index] != 0) {
+            device.deleteSync(fences[index]);
+            fences[index] = 0;
+        }
+    }
+
+}
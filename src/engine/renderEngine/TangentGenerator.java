@@ -0,0 +1,258 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.util.stream.IntStream;
+
+import engine.models.ModelData;
+
+/**
+ * The TangentGenerator class calculates the per-vertex tangents that normal mapping needs. The
+ * tangent of every triangle is added to its three vertices in flat arrays indexed by the final
+ * vertex index, and the sums are then orthogonalized against the vertex normal and normalized.
+ *
+ * <p>Every tangent has four components. The fourth is the handedness of the tangent frame: 1
+ * where the bitangent is the cross product of the normal and the tangent, as the normal mapping
+ * shader assumes, and -1 where the texture is mirrored, so the shader can flip the bitangent.
+ *
+ * <p>Large models are split into ranges of triangles that are accumulated in parallel, each into
+ * its own partial sums, which are added together per vertex afterwards. Vertices are shared
+ * between triangles of different ranges, so the ranges can't write into one array.
+ */
+public class TangentGenerator {
+
+    /**
+     * The number of floats per tangent.
+     */
+    public static final int COMPONENTS = 4;
+
+    private static final int MIN_TRIANGLES_PER_TASK = 16384;
+    private static final int MIN_VERTICES_PER_TASK = 8192;
+
+    /**
+     * Accumulated tangent and bitangent per vertex.
+     */
+    private static final int SUM_COMPONENTS = 6;
+
+    /**
+     * Calculates the tangents of a model, in parallel if it is large enough to gain from it.
+     *
+     * @param data The model data, with texture coordinates and normals.
+     * @return The tangents, four floats per vertex.
+     */
+    public static float[] calculateTangents(ModelData data) {
+        return calculateTangents(data, getTaskCount(data.getIndices().length / 3));
+    }
+
+    /**
+     * Calculates the tangents of a model, splitting its triangles into a given number of ranges
+     * that are accumulated in parallel. Triangles whose texture coordinates don't span an area
+     * are skipped. Vertices without a usable tangent get an arbitrary one perpendicular to their
+     * normal, so the tangent frame stays valid.
+     *
+     * @param data      The model data, with texture coordinates and normals.
+     * @param taskCount The number of triangle ranges, 1 to accumulate on the calling thread.
+     * @return The tangents, four floats per vertex.
+     * @throws IllegalArgumentException If the task count isn't positive.
+     */
+    public static float[] calculateTangents(ModelData data, int taskCount) {
+        if (taskCount <= 0) {
+            throw new IllegalArgumentException("Task count must be positive, got " + taskCount);
+        }
+
+        float[] positions = data.getVertices();
+        float[] textureCoords = data.getTextureCoords();
+        float[] normals = data.getNormals();
+        int[] indices = data.getIndices();
+        int vertexCount = positions.length / 3;
+        int triangleCount = indices.length / 3;
+        float[] tangents = new float[vertexCount * COMPONENTS];
+
+        if (taskCount == 1) {
+            float[] sums = new float[vertexCount * SUM_COMPONENTS];
+
+            accumulate(positions, textureCoords, indices, 0, triangleCount, sums);
+            finish(sums, null, normals, tangents, 0, vertexCount);
+
+            return tangents;
+        }
+
+        float[][] partialSums = new float[taskCount][];
+
+        IntStream.range(0, taskCount).parallel().forEach(task -> {
+            float[] sums = new float[vertexCount * SUM_COMPONENTS];
+
+            accumulate(positions, textureCoords, indices, (int) ((long) triangleCount * task / taskCount),
+                    (int) ((long) triangleCount * (task + 1) / taskCount), sums);
+            partialSums[task] = sums;
+        });
+
+        int vertexTasks = Math.max(1, Math.min(taskCount, vertexCount / MIN_VERTICES_PER_TASK));
+
+        IntStream.range(0, vertexTasks).parallel().forEach(task -> finish(partialSums[0], partialSums, normals,
+                tangents, (int) ((long) vertexCount * task / vertexTasks),
+                (int) ((long) vertexCount * (task + 1) / vertexTasks)));
+
+        return tangents;
+    }
+
+    /**
+     * Retrieves the number of triangle ranges a model is split into by
+     * {@link #calculateTangents(ModelData)}.
+     *
+     * @param triangleCount The number of triangles of the model.
+     * @return The number of ranges, 1 for models too small to be worth splitting.
+     */
+    public static int getTaskCount(int triangleCount) {
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        return Math.max(1, Math.min(threads, triangleCount / MIN_TRIANGLES_PER_TASK));
+    }
+
+    /**
+     * Adds the tangent and bitangent of a range of triangles to their vertices. The texture
+     * coordinates are stored with v flipped, so the bitangent that normal maps expect points
+     * towards decreasing v.
+     *
+     * @param positions     The vertex positions.
+     * @param textureCoords The texture coordinates.
+     * @param indices       The vertex indices.
+     * @param start         The first triangle of the range.
+     * @param end           The triangle after the range.
+     * @param sums          The sums to add to, six floats per vertex.
+     */
+    private static void accumulate(float[] positions, float[] textureCoords, int[] indices, int start, int end,
+            float[] sums) {
+        for (int triangle = start; triangle < end; triangle++) {
+            int v0 = indices[triangle * 3];
+            int v1 = indices[triangle * 3 + 1];
+            int v2 = indices[triangle * 3 + 2];
+
+            float deltaUv1x = textureCoords[v1 * 2] - textureCoords[v0 * 2];
+            float deltaUv1y = textureCoords[v1 * 2 + 1] - textureCoords[v0 * 2 + 1];
+            float deltaUv2x = textureCoords[v2 * 2] - textureCoords[v0 * 2];
+            float deltaUv2y = textureCoords[v2 * 2 + 1] - textureCoords[v0 * 2 + 1];
+            float determinant = deltaUv1x * deltaUv2y - deltaUv1y * deltaUv2x;
+
+            if (determinant == 0) {
+                continue;
+            }
+
+            float r = 1.0f / determinant;
+
+            for (int axis = 0; axis < 3; axis++) {
+                float deltaPos1 = positions[v1 * 3 + axis] - positions[v0 * 3 + axis];
+                float deltaPos2 = positions[v2 * 3 + axis] - positions[v0 * 3 + axis];
+                float tangent = (deltaPos1 * deltaUv2y - deltaPos2 * deltaUv1y) * r;
+                float bitangent = (deltaPos1 * deltaUv2x - deltaPos2 * deltaUv1x) * r;
+
+                sums[v0 * SUM_COMPONENTS + axis] += tangent;
+                sums[v1 * SUM_COMPONENTS + axis] += tangent;
+                sums[v2 * SUM_COMPONENTS + axis] += tangent;
+                sums[v0 * SUM_COMPONENTS + 3 + axis] += bitangent;
+                sums[v1 * SUM_COMPONENTS + 3 + axis] += bitangent;
+                sums[v2 * SUM_COMPONENTS + 3 + axis] += bitangent;
+            }
+        }
+    }
+
+    /**
+     * Turns the sums of a range of vertices into tangents: adds the partial sums of the other
+     * triangle ranges, removes the part of the tangent along the normal, normalizes it and
+     * derives the handedness from the bitangent.
+     *
+     * @param sums        The sums of the first triangle range, six floats per vertex.
+     * @param partialSums The sums of all triangle ranges, or null if there is only one.
+     * @param normals     The vertex normals.
+     * @param tangents    The tangents to write, four floats per vertex.
+     * @param start       The first vertex of the range.
+     * @param end         The vertex after the range.
+     */
+    private static void finish(float[] sums, float[][] partialSums, float[] normals, float[] tangents, int start,
+            int end) {
+        for (int i = start; i < end; i++) {
+            int sum = i * SUM_COMPONENTS;
+
+            if (partialSums != null) {
+                for (int task = 1; task < partialSums.length; task++) {
+                    float[] partial = partialSums[task];
+
+                    for (int c = 0; c < SUM_COMPONENTS; c++) {
+                        sums[sum + c] += partial[sum + c];
+                    }
+                }
+            }
+
+            float nx = normals[i * 3];
+            float ny = normals[i * 3 + 1];
+            float nz = normals[i * 3 + 2];
+            float normalLength = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+            if (normalLength > 0) {
+                nx /= normalLength;
+                ny /= normalLength;
+                nz /= normalLength;
+            }
+
+            float tx = sums[sum];
+            float ty = sums[sum + 1];
+            float tz = sums[sum + 2];
+            float dot = nx * tx + ny * ty + nz * tz;
+
+            tx -= nx * dot;
+            ty -= ny * dot;
+            tz -= nz * dot;
+
+            float length = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+
+            if (length <= 1e-12f) {
+                // No triangle gave this vertex a tangent; any axis perpendicular to the normal will do.
+                boolean useX = Math.abs(nx) < 0.9f;
+
+                tx = (useX ? 1 : 0) - nx * (useX ? nx : ny);
+                ty = (useX ? 0 : 1) - ny * (useX ? nx : ny);
+                tz = -nz * (useX ? nx : ny);
+                length = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+            }
+
+            tx /= length;
+            ty /= length;
+            tz /= length;
+
+            float crossX = ny * tz - nz * ty;
+            float crossY = nz * tx - nx * tz;
+            float crossZ = nx * ty - ny * tx;
+            float handedness = crossX * sums[sum + 3] + crossY * sums[sum + 4] + crossZ * sums[sum + 5];
+
+            tangents[i * COMPONENTS] = tx;
+            tangents[i * COMPONENTS + 1] = ty;
+            tangents[i * COMPONENTS + 2] = tz;
+            tangents[i * COMPONENTS + 3] = handedness < 0 ? -1 : 1;
+        }
+    }
+
+}
@@ -29,11 +29,10 @@ package engine.renderEngine;
 import java.util.List;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
+import org.lwjgl.util.vector.Vector4f;
 
 import engine.models.RawModel;
 import engine.shaders.TerrainShader;
@@ -49,6 +48,12 @@ public class TerrainRenderer {
 	
 	private TerrainShader shader;
 	
+	private final Matrix4f transformationMatrix = new Matrix4f();
+	private final Vector3f terrainPosition = new Vector3f();
+	private final Vector4f textureLayers = new Vector4f();
+
+	private final GraphicsDevice device = Graphics.getDevice();
+	
 	/**
      * Creates a new TerrainRenderer with the specified shader and projection matrix.
      *
@@ -72,29 +77,50 @@ public class TerrainRenderer {
 	public void render(List<Terrain> terrains, Matrix4f toShadowSpace) {
 		shader.loadToShadowSpaceMatrix(toShadowSpace);
 		for(Terrain terrain : terrains) {
-			prepareTerrain(terrain);
-			loadModelMatrix(terrain);
-			
-			GL11.glDrawElements(GL11.GL_TRIANGLES, terrain.getModel().getVertexCount(),
-					GL11.GL_UNSIGNED_INT, 0);
-			
-			unbindTexturedModel();
+			renderTerrain(terrain);
+		}
+		unbindTexturedModel();
+	}
+	
+	/**
+     * Renders the terrains in a range of a sorted render queue.
+     *
+     * @param queue         The sorted render queue.
+     * @param start         The first position of the range.
+     * @param end           The position after the last terrain of the range.
+     * @param toShadowSpace The matrix converting world space to shadow map space.
+     */
+	public void render(RenderQueue queue, int start, int end, Matrix4f toShadowSpace) {
+		shader.loadToShadowSpaceMatrix(toShadowSpace);
+		for(int i = start; i < end; i++) {
+			renderTerrain((Terrain) queue.getItem(i));
 		}
+		unbindTexturedModel();
+	}
+	
+	/**
+     * Renders a single terrain.
+     *
+     * @param terrain The terrain to render.
+     */
+	private void renderTerrain(Terrain terrain) {
+		prepareTerrain(terrain);
+		loadModelMatrix(terrain);
+		
+		RawModel model = terrain.getModel();
+		device.drawElementsBaseVertex(GL11.GL_TRIANGLES, model.getVertexCount(), model.getIndexType(),
+				model.getIndexOffset(), model.getBaseVertex());
 	}
 	
 	/**
-     * Prepares a terrain for rendering by binding its model and enabling vertex attributes.
+     * Prepares a terrain for rendering by binding its model and textures.
      *
      * @param terrain The terrain to prepare.
      */
 	private void prepareTerrain(Terrain terrain) {
 		RawModel rawModel = terrain.getModel();
 		
-		GL30.glBindVertexArray(rawModel.getVaoID());
-		
-		GL20.glEnableVertexAttribArray(0);
-		GL20.glEnableVertexAttribArray(1);
-		GL20.glEnableVertexAttribArray(2);
+		GLStateManager.bindVertexArray(rawModel.getVaoID());
 		
 		bindTextures(terrain);
 		
@@ -102,38 +128,39 @@ public class TerrainRenderer {
 	}
 	
 	/**
-     * Binds the textures associated with the terrain to texture units.
+     * Binds the textures associated with the terrain to texture units. If the
+     * four splat textures are layers of one texture array, only the array and the
+     * blend map are bound.
      *
      * @param terrain The terrain containing the textures to bind.
      */
 	private void bindTextures(Terrain terrain) {
 		TerrainTexturePack texturePack = terrain.getTexturePack();
+		int textureArrayID = texturePack.getTextureArrayID();
 		
-		GL13.glActiveTexture(GL13.GL_TEXTURE0);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texturePack.getBackgroundTexture().getTextureID());
-		
-		GL13.glActiveTexture(GL13.GL_TEXTURE1);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texturePack.getrTexture().getTextureID());
-		
-		GL13.glActiveTexture(GL13.GL_TEXTURE2);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texturePack.getgTexture().getTextureID());
-		
-		GL13.glActiveTexture(GL13.GL_TEXTURE3);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texturePack.getbTexture().getTextureID());
+		if (textureArrayID != 0) {
+			textureLayers.set(texturePack.getBackgroundTexture().getTextureLayer().getLayer(),
+					texturePack.getrTexture().getTextureLayer().getLayer(),
+					texturePack.getgTexture().getTextureLayer().getLayer(),
+					texturePack.getbTexture().getTextureLayer().getLayer());
+			
+			GLStateManager.bindTexture(TerrainShader.TEXTURE_ARRAY_UNIT, GL30.GL_TEXTURE_2D_ARRAY, textureArrayID);
+		} else {
+			GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texturePack.getBackgroundTexture().getTextureID());
+			GLStateManager.bindTexture(1, GL11.GL_TEXTURE_2D, texturePack.getrTexture().getTextureID());
+			GLStateManager.bindTexture(2, GL11.GL_TEXTURE_2D, texturePack.getgTexture().getTextureID());
+			GLStateManager.bindTexture(3, GL11.GL_TEXTURE_2D, texturePack.getbTexture().getTextureID());
+		}
 		
-		GL13.glActiveTexture(GL13.GL_TEXTURE4);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, terrain.getBlendMap().getTextureID());
+		shader.loadTextureLayers(textureArrayID != 0, textureLayers);
+		GLStateManager.bindTexture(4, GL11.GL_TEXTURE_2D, terrain.getBlendMap().getTextureID());
 	}
 	
 	/**
-     * Unbinds the textured model by disabling vertex attributes and unbinding the VAO.
+     * Unbinds the VAO once all terrains of a pass are drawn.
      */
 	private void unbindTexturedModel() {
-		GL20.glDisableVertexAttribArray(0);
-		GL20.glDisableVertexAttribArray(1);
-		GL20.glDisableVertexAttribArray(2);
-		
-		GL30.glBindVertexArray(0);
+		GLStateManager.bindVertexArray(0);
 	}
 	
 	/**
@@ -142,8 +169,8 @@ public class TerrainRenderer {
      * @param terrain The terrain for which to load the model matrix.
      */
 	private void loadModelMatrix(Terrain terrain) {
-		Matrix4f transformationMatrix = MathUtils.createTransformationMatrix(new Vector3f(terrain.getX(), 0, terrain.getZ()),
-				0, 0, 0, 1);
+		terrainPosition.set(terrain.getX(), 0, terrain.getZ());
+		MathUtils.createTransformationMatrix(terrainPosition, 0, 0, 0, 1, transformationMatrix);
 		
 		shader.loadTransformationMatrix(transformationMatrix);
 	}
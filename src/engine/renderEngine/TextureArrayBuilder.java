@@ -0,0 +1,246 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL30;
+
+import engine.textures.TextureData;
+import engine.textures.TextureLayer;
+
+/**
+ * The TextureArrayBuilder class packs textures into {@code GL_TEXTURE_2D_ARRAY} textures. Every
+ * layer of an array must have the same size and format, so the textures are grouped by both, or
+ * reduced to a common size when they have to share one array. Compressed textures keep their
+ * baked mipmap chains; RGBA textures get theirs generated.
+ *
+ * <p>It is used by {@link Loader#loadTextureArrays(String...)} and
+ * {@link Loader#loadTextureArray(String...)}.
+ */
+public class TextureArrayBuilder {
+
+    private final Loader loader;
+    private final GraphicsDevice device;
+
+    /**
+     * Creates a builder.
+     *
+     * @param loader The loader that decodes the textures and owns the created arrays.
+     * @param device The device to upload through.
+     */
+    TextureArrayBuilder(Loader loader, GraphicsDevice device) {
+        this.loader = loader;
+        this.device = device;
+    }
+
+    /**
+     * Decodes textures in parallel and uploads them into texture arrays. Must be called on the
+     * GL thread.
+     *
+     * @param fileNames The names of the texture files, without the ".png" extension.
+     * @param single    True to put all textures into one array, reducing them to the size of the
+     *                  smallest one; false to group them by size and format.
+     * @return The layer of each texture, in the same order.
+     * @throws IllegalArgumentException If the textures have to share one array but can't be
+     *                                  reduced to the same size.
+     */
+    TextureLayer[] build(String[] fileNames, boolean single) {
+        TextureData[] images = loader.getAsyncTextureLoader().decodeAll(fileNames, true);
+        TextureLayer[] layers = new TextureLayer[fileNames.length];
+
+        if (single) {
+            if (!haveSameFormat(images)) {
+                images = loader.getAsyncTextureLoader().decodeAll(fileNames, false);
+            }
+
+            List<Integer> all = new ArrayList<Integer>();
+
+            for (int i = 0; i < images.length; i++) {
+                all.add(i);
+            }
+
+            upload(fileNames, images, all, layers);
+        } else {
+            Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+
+            for (int i = 0; i < images.length; i++) {
+                TextureData image = images[i];
+                String key = image.getWidth() + "x" + image.getHeight() + " " + getFormat(image);
+
+                groups.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(i);
+            }
+
+            for (List<Integer> group : groups.values()) {
+                upload(fileNames, images, group, layers);
+            }
+        }
+
+        return layers;
+    }
+
+    /**
+     * Uploads a group of textures as one array. The array takes the size of the smallest texture;
+     * larger ones skip their first mipmap levels.
+     *
+     * @param fileNames The names of all texture files, for error messages.
+     * @param images    The decoded textures, all compressed in the same format or all RGBA.
+     * @param group     The indices of the textures to put into the array.
+     * @param layers    Receives the layer of each texture of the group.
+     * @throws IllegalArgumentException If a texture can't be reduced to the size of the array.
+     */
+    private void upload(String[] fileNames, TextureData[] images, List<Integer> group, TextureLayer[] layers) {
+        int width = Integer.MAX_VALUE;
+        int height = Integer.MAX_VALUE;
+
+        for (int index : group) {
+            width = Math.min(width, images[index].getWidth());
+            height = Math.min(height, images[index].getHeight());
+        }
+
+        int[] skippedLevels = new int[group.size()];
+
+        for (int i = 0; i < group.size(); i++) {
+            TextureData image = images[group.get(i)];
+            int skip = Integer.numberOfTrailingZeros(image.getWidth() / width);
+
+            if (image.getWidth() != width << skip || image.getHeight() != height << skip) {
+                throw new IllegalArgumentException("Texture " + fileNames[group.get(i)] + " is "
+                        + image.getWidth() + "x" + image.getHeight() + " and can't be reduced to " + width + "x"
+                        + height);
+            }
+
+            skippedLevels[i] = skip;
+        }
+
+        int arrayID = loader.createTexture();
+        GLStateManager.bindTexture(0, GL30.GL_TEXTURE_2D_ARRAY, arrayID);
+
+        if (images[group.get(0)] instanceof CompressedTextureData) {
+            uploadCompressed(images, group, skippedLevels, width, height);
+        } else {
+            uploadRgba(images, group, skippedLevels, width, height);
+        }
+
+        loader.setTextureParameters(GL30.GL_TEXTURE_2D_ARRAY);
+        loader.getResourceManager().setBytes(ResourceManager.Category.TEXTURE, arrayID,
+                Loader.getMipChainBytes(getFormat(images[group.get(0)]), width, height) * group.size());
+
+        for (int i = 0; i < group.size(); i++) {
+            layers[group.get(i)] = new TextureLayer(arrayID, i);
+        }
+    }
+
+    /**
+     * Uploads the baked mipmap chains of a group, one level of all layers at a time.
+     */
+    private void uploadCompressed(TextureData[] images, List<Integer> group, int[] skippedLevels, int width,
+            int height) {
+        TextureCompression format = ((CompressedTextureData) images[group.get(0)]).getFormat();
+        int levels = 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+
+        for (int level = 0; level < levels; level++) {
+            int levelWidth = Math.max(1, width >> level);
+            int levelHeight = Math.max(1, height >> level);
+            ByteBuffer data = BufferUtils.createByteBuffer(format.getLevelSize(levelWidth, levelHeight) * group.size());
+
+            for (int i = 0; i < group.size(); i++) {
+                CompressedTextureData image = (CompressedTextureData) images[group.get(i)];
+                data.put(image.getLevel(level + skippedLevels[i]).duplicate());
+            }
+
+            data.flip();
+            device.compressedTexImage3D(GL30.GL_TEXTURE_2D_ARRAY, level, format.getInternalFormat(), levelWidth,
+                    levelHeight, group.size(), 0, data);
+        }
+
+        device.texParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL12.GL_TEXTURE_MAX_LEVEL, levels - 1);
+    }
+
+    /**
+     * Uploads the RGBA images of a group and generates the mipmaps of the array.
+     */
+    private void uploadRgba(TextureData[] images, List<Integer> group, int[] skippedLevels, int width, int height) {
+        ByteBuffer data = BufferUtils.createByteBuffer(width * height * 4 * group.size());
+
+        for (int i = 0; i < group.size(); i++) {
+            TextureData image = images[group.get(i)];
+
+            if (skippedLevels[i] == 0) {
+                data.put(image.getBuffer().duplicate());
+            } else {
+                int levelWidth = image.getWidth();
+                int levelHeight = image.getHeight();
+                byte[] rgba = new byte[levelWidth * levelHeight * 4];
+                image.getBuffer().duplicate().get(rgba);
+
+                for (int level = 0; level < skippedLevels[i]; level++) {
+                    rgba = BlockCompressor.downsample(rgba, levelWidth, levelHeight);
+                    levelWidth /= 2;
+                    levelHeight /= 2;
+                }
+
+                data.put(rgba);
+            }
+        }
+
+        data.flip();
+        device.texImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, GL11.GL_RGBA8, width, height, group.size(), 0, GL11.GL_RGBA,
+                GL11.GL_UNSIGNED_BYTE, data);
+        device.generateMipmap(GL30.GL_TEXTURE_2D_ARRAY);
+    }
+
+    /**
+     * Checks whether all images are compressed in the same format, or all are RGBA.
+     */
+    private static boolean haveSameFormat(TextureData[] images) {
+        for (TextureData image : images) {
+            if (getFormat(image) != getFormat(images[0])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Retrieves the compression format of an image.
+     *
+     * @return The format, or null for an RGBA image.
+     */
+    private static TextureCompression getFormat(TextureData image) {
+        return image instanceof CompressedTextureData ? ((CompressedTextureData) image).getFormat() : null;
+    }
+
+}
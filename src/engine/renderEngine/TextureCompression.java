@@ -0,0 +1,121 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.EXTTextureCompressionS3TC;
+import org.lwjgl.opengl.GL30;
+
+import engine.textures.TextureData;
+
+/**
+ * The block-compressed formats the {@link TextureBaker} encodes to. All of them store a 4x4 block
+ * of texels in a fixed number of bytes, so the GPU samples them without decompressing the whole
+ * texture first.
+ */
+public enum TextureCompression {
+
+    /**
+     * RGB at 4 bits per texel, for opaque colour textures. 8 times smaller than RGBA8.
+     */
+    BC1(8, EXTTextureCompressionS3TC.GL_COMPRESSED_RGB_S3TC_DXT1_EXT),
+
+    /**
+     * RGB plus interpolated alpha at 8 bits per texel, for textures with transparency.
+     */
+    BC3(16, EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT),
+
+    /**
+     * Two independent channels at 8 bits per texel, for tangent-space normal maps. Only X and Y
+     * are stored; the shader reconstructs Z.
+     */
+    BC5(16, GL30.GL_COMPRESSED_RG_RGTC2);
+
+    private final int blockBytes;
+    private final int internalFormat;
+
+    TextureCompression(int blockBytes, int internalFormat) {
+        this.blockBytes = blockBytes;
+        this.internalFormat = internalFormat;
+    }
+
+    /**
+     * Retrieves the number of bytes a 4x4 block takes.
+     *
+     * @return The block size in bytes.
+     */
+    public int getBlockBytes() {
+        return blockBytes;
+    }
+
+    /**
+     * Retrieves the OpenGL internal format of the compressed data.
+     *
+     * @return The internal format.
+     */
+    public int getInternalFormat() {
+        return internalFormat;
+    }
+
+    /**
+     * Computes the size of one mipmap level. Partial blocks at the edges take a whole block.
+     *
+     * @param width  The width of the level in pixels.
+     * @param height The height of the level in pixels.
+     * @return The size of the level in bytes.
+     */
+    public int getLevelSize(int width, int height) {
+        return ((width + 3) / 4) * ((height + 3) / 4) * blockBytes;
+    }
+
+    /**
+     * Picks the format for a texture: BC5 for normal maps, which are named like
+     * {@code barrelNormal}, BC3 for images with any transparent pixel and BC1 for the rest.
+     *
+     * @param fileName The name of the texture file, without the ".png" extension.
+     * @param data     The decoded RGBA image.
+     * @return The format to encode the texture in.
+     */
+    public static TextureCompression forTexture(String fileName, TextureData data) {
+        if (fileName.endsWith("Normal")) {
+            return BC5;
+        }
+
+        ByteBuffer pixels = data.getBuffer();
+        int end = pixels.position() + data.getWidth() * data.getHeight() * 4;
+
+        for (int i = pixels.position() + 3; i < end; i += 4) {
+            if (pixels.get(i) != (byte) 255) {
+                return BC3;
+            }
+        }
+
+        return BC1;
+    }
+
+}
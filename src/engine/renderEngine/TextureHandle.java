@@ -0,0 +1,112 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+/**
+ * The TextureHandle class refers to a texture that may still be loading in the background, see
+ * {@link Loader#loadTextureAsync(String)}. The texture ID is valid straight away and can be
+ * handed to a {@code ModelTexture} or bound; until the upload has completed, the texture is
+ * incomplete and samples as black.
+ */
+public class TextureHandle {
+
+    private final int textureID;
+    private final String fileName;
+    private final boolean streamed;
+
+    private volatile boolean ready;
+
+    /**
+     * Creates a handle for a texture.
+     *
+     * @param textureID The OpenGL texture ID.
+     * @param fileName  The name the texture was loaded by.
+     * @param ready     Whether the texture has already been uploaded.
+     */
+    TextureHandle(int textureID, String fileName, boolean ready) {
+        this(textureID, fileName, ready, false);
+    }
+
+    /**
+     * Creates a handle for a texture that may have its mipmap levels streamed.
+     *
+     * @param textureID The OpenGL texture ID.
+     * @param fileName  The name the texture was loaded by.
+     * @param ready     Whether the texture has already been uploaded.
+     * @param streamed  Whether the texture is handed to the {@link TextureStreamer} once decoded.
+     */
+    TextureHandle(int textureID, String fileName, boolean ready, boolean streamed) {
+        this.textureID = textureID;
+        this.fileName = fileName;
+        this.ready = ready;
+        this.streamed = streamed;
+    }
+
+    /**
+     * Retrieves the OpenGL texture ID.
+     *
+     * @return The texture ID.
+     */
+    public int getID() {
+        return textureID;
+    }
+
+    /**
+     * Retrieves the name the texture was loaded by.
+     *
+     * @return The file name, without the ".png" extension.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Checks whether the texture was loaded with {@link Loader#loadStreamedTexture(String)}.
+     *
+     * @return True if the texture's fine mipmap levels are streamed.
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Checks whether the image has been uploaded to the texture.
+     *
+     * @return True if the texture is ready to be rendered with.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Marks the texture as uploaded.
+     */
+    void markReady() {
+        ready = true;
+    }
+
+}
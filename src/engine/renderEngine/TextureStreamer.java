@@ -0,0 +1,503 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+
+/**
+ * The TextureStreamer class keeps only the mipmap levels of a texture in video memory that the
+ * scene needs. A streamed texture starts out with its small levels only, up to
+ * {@link #RESIDENT_SIZE} pixels, and {@code GL_TEXTURE_BASE_LEVEL} pointing at the largest of
+ * them. The renderers report how large each texture appears on screen, and every frame the
+ * streamer reads the next finer level of the textures that need one on a background thread and
+ * uploads it, largest on-screen use first.
+ *
+ * <p>The fine levels of all streamed textures share a memory budget. When a level doesn't fit,
+ * levels are dropped from textures that are no longer needed at that resolution, or that appear
+ * smaller on screen, until it does.
+ *
+ * <p>Only textures with a baked mipmap chain, see {@link TextureBaker}, can be streamed, since
+ * the levels are read from the memory-mapped cache file. All methods must be called on the GL
+ * thread.
+ */
+public class TextureStreamer {
+
+    /**
+     * The size in pixels up to which levels are uploaded right away and never dropped.
+     */
+    public static final int RESIDENT_SIZE = 64;
+
+    private static final int UNUSED_FRAMES = 300;
+
+    private static final ByteBuffer EMPTY = BufferUtils.createByteBuffer(0);
+
+    /**
+     * The streaming state of one texture.
+     */
+    private static class StreamedTexture {
+
+        private final int textureID;
+        private final CompressedTextureData data;
+        private final int coarseLevel;
+
+        private int baseLevel;
+        private int wantedLevel;
+
+        private float screenSize;
+        private float lastScreenSize;
+        private long lastUsedFrame = -UNUSED_FRAMES;
+
+        private Future<ByteBuffer> pendingRead;
+
+        private StreamedTexture(int textureID, CompressedTextureData data, int coarseLevel) {
+            this.textureID = textureID;
+            this.data = data;
+            this.coarseLevel = coarseLevel;
+            this.baseLevel = coarseLevel;
+            this.wantedLevel = coarseLevel;
+        }
+
+        private int getLevelSize(int level) {
+            return data.getFormat().getLevelSize(data.getLevelWidth(level), data.getLevelHeight(level));
+        }
+
+    }
+
+    private final Loader loader;
+    private final GraphicsDevice device;
+
+    private final Map<Integer, StreamedTexture> textures = new HashMap<Integer, StreamedTexture>();
+    private final List<StreamedTexture> candidates = new ArrayList<StreamedTexture>();
+
+    private long budgetBytes;
+    private long residentBytes;
+    private long pendingBytes;
+    private long frame;
+
+    /**
+     * Creates a streamer.
+     *
+     * @param loader      The loader whose background threads read the levels.
+     * @param device      The device to upload through.
+     * @param budgetBytes The memory the levels above {@link #RESIDENT_SIZE} may take.
+     */
+    TextureStreamer(Loader loader, GraphicsDevice device, long budgetBytes) {
+        this.loader = loader;
+        this.device = device;
+        setBudgetBytes(budgetBytes);
+    }
+
+    /**
+     * Uploads the small levels of a texture and starts streaming the rest.
+     *
+     * @param textureID The OpenGL texture ID.
+     * @param data      The baked mipmap chain.
+     */
+    void add(int textureID, CompressedTextureData data) {
+        int coarseLevel = 0;
+
+        while (coarseLevel < data.getLevelCount() - 1
+                && Math.max(data.getLevelWidth(coarseLevel), data.getLevelHeight(coarseLevel)) > RESIDENT_SIZE) {
+            coarseLevel++;
+        }
+
+        StreamedTexture texture = new StreamedTexture(textureID, data, coarseLevel);
+        int format = data.getFormat().getInternalFormat();
+
+        GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, textureID);
+
+        for (int level = coarseLevel; level < data.getLevelCount(); level++) {
+            device.compressedTexImage2D(GL11.GL_TEXTURE_2D, level, format, data.getLevelWidth(level),
+                    data.getLevelHeight(level), 0, data.getLevel(level));
+        }
+
+        device.texParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_BASE_LEVEL, coarseLevel);
+        device.texParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_MAX_LEVEL, data.getLevelCount() - 1);
+        loader.setTextureParameters(GL11.GL_TEXTURE_2D);
+
+        textures.put(textureID, texture);
+        reportBytes(texture);
+    }
+
+    /**
+     * Stops streaming a texture that is about to be deleted. A level being read is discarded.
+     *
+     * @param textureID The OpenGL texture ID. Textures that aren't streamed are ignored.
+     */
+    void remove(int textureID) {
+        StreamedTexture texture = textures.remove(textureID);
+
+        if (texture == null) {
+            return;
+        }
+
+        if (texture.pendingRead != null) {
+            texture.pendingRead.cancel(false);
+            pendingBytes -= texture.getLevelSize(texture.baseLevel - 1);
+        }
+
+        for (int level = texture.baseLevel; level < texture.coarseLevel; level++) {
+            residentBytes -= texture.getLevelSize(level);
+        }
+    }
+
+    /**
+     * Reports that a texture is drawn this frame. The largest report of a frame decides which
+     * level the texture needs.
+     *
+     * @param textureID  The OpenGL texture ID. Textures that aren't streamed are ignored.
+     * @param screenSize The number of pixels the whole texture covers on screen, e.g. the
+     *                   projected size of the model it is mapped onto.
+     */
+    public void reportUse(int textureID, float screenSize) {
+        StreamedTexture texture = textures.get(textureID);
+
+        if (texture != null) {
+            texture.screenSize = Math.max(texture.screenSize, screenSize);
+            texture.lastUsedFrame = frame;
+        }
+    }
+
+    /**
+     * Works out which levels the textures need from last frame's reports, uploads levels that
+     * have been read in the background, and starts reading the next ones. Call this once per
+     * frame.
+     *
+     * @param uploadBudget The number of bytes that may be uploaded, although at least one level
+     *                     is uploaded if any is ready.
+     * @return The number of levels that were uploaded.
+     */
+    public int update(long uploadBudget) {
+        for (StreamedTexture texture : textures.values()) {
+            if (texture.lastUsedFrame == frame) {
+                texture.lastScreenSize = texture.screenSize;
+                texture.wantedLevel = getWantedLevel(texture);
+            } else if (frame - texture.lastUsedFrame > UNUSED_FRAMES) {
+                texture.lastScreenSize = 0;
+                texture.wantedLevel = texture.coarseLevel;
+            }
+
+            texture.screenSize = 0;
+        }
+
+        frame++;
+
+        int uploads = uploadReadLevels(uploadBudget);
+
+        requestLevels();
+        makeRoom(0, null);
+
+        return uploads;
+    }
+
+    /**
+     * Sets the memory the levels above {@link #RESIDENT_SIZE} may take. Levels are dropped on the
+     * next {@link #update(long)} if they don't fit anymore.
+     *
+     * @param budgetBytes The budget in bytes.
+     * @throws IllegalArgumentException If the budget is negative.
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("Texture streaming budget cannot be negative");
+        }
+
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Retrieves the memory the streamed levels may take.
+     *
+     * @return The budget in bytes.
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Retrieves the memory the streamed levels take, not counting the small levels that are
+     * always resident.
+     *
+     * @return The size of the streamed levels in bytes.
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Retrieves the number of streamed textures.
+     *
+     * @return The number of textures.
+     */
+    public int getTextureCount() {
+        return textures.size();
+    }
+
+    /**
+     * Retrieves the number of levels being read in the background.
+     *
+     * @return The number of pending levels.
+     */
+    public int getPendingCount() {
+        int count = 0;
+
+        for (StreamedTexture texture : textures.values()) {
+            if (texture.pendingRead != null) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Retrieves the finest level of a texture that is in video memory.
+     *
+     * @param textureID The OpenGL texture ID.
+     * @return The base level, or -1 if the texture isn't streamed.
+     */
+    public int getBaseLevel(int textureID) {
+        StreamedTexture texture = textures.get(textureID);
+
+        return texture != null ? texture.baseLevel : -1;
+    }
+
+    /**
+     * Stops streaming. Levels being read are discarded; the textures themselves are deleted by
+     * the loader.
+     */
+    void cleanUp() {
+        for (StreamedTexture texture : textures.values()) {
+            if (texture.pendingRead != null) {
+                texture.pendingRead.cancel(false);
+            }
+        }
+
+        textures.clear();
+        residentBytes = 0;
+        pendingBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        int full = 0;
+
+        for (StreamedTexture texture : textures.values()) {
+            if (texture.baseLevel == 0) {
+                full++;
+            }
+        }
+
+        return "textures=" + textures.size() + " fullResolution=" + full + " pending=" + getPendingCount()
+                + " resident=" + residentBytes / 1024 + "/" + budgetBytes / 1024 + " KiB";
+    }
+
+    /**
+     * Computes the finest level a texture needs: the one with about one texel per pixel.
+     */
+    private int getWantedLevel(StreamedTexture texture) {
+        float texelsPerPixel = texture.data.getWidth() / Math.max(texture.screenSize, 1);
+        int level = texelsPerPixel < 2 ? 0 : 31 - Integer.numberOfLeadingZeros((int) texelsPerPixel);
+
+        return Math.min(level, texture.coarseLevel);
+    }
+
+    /**
+     * Uploads the levels that have finished reading, until the upload budget is used up.
+     */
+    private int uploadReadLevels(long uploadBudget) {
+        long uploadedBytes = 0;
+        int uploads = 0;
+
+        for (StreamedTexture texture : textures.values()) {
+            if (texture.pendingRead == null || !texture.pendingRead.isDone()) {
+                continue;
+            }
+            if (uploads > 0 && uploadedBytes >= uploadBudget) {
+                break;
+            }
+
+            int level = texture.baseLevel - 1;
+            int size = texture.getLevelSize(level);
+            ByteBuffer pixels = await(texture);
+
+            pendingBytes -= size;
+
+            if (pixels == null) {
+                continue;
+            }
+
+            GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture.textureID);
+            device.compressedTexImage2D(GL11.GL_TEXTURE_2D, level, texture.data.getFormat().getInternalFormat(),
+                    texture.data.getLevelWidth(level), texture.data.getLevelHeight(level), 0, pixels);
+            device.texParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_BASE_LEVEL, level);
+
+            texture.baseLevel = level;
+            residentBytes += size;
+            reportBytes(texture);
+            uploadedBytes += size;
+            uploads++;
+        }
+
+        return uploads;
+    }
+
+    /**
+     * Starts reading the next finer level of every texture that needs one, largest on-screen use
+     * first, as long as room can be made for it.
+     */
+    private void requestLevels() {
+        candidates.clear();
+
+        for (StreamedTexture texture : textures.values()) {
+            if (texture.pendingRead == null && texture.wantedLevel < texture.baseLevel) {
+                candidates.add(texture);
+            }
+        }
+
+        candidates.sort((a, b) -> Float.compare(b.lastScreenSize, a.lastScreenSize));
+
+        for (StreamedTexture texture : candidates) {
+            int size = texture.getLevelSize(texture.baseLevel - 1);
+
+            if (!makeRoom(size, texture)) {
+                continue;
+            }
+
+            ByteBuffer level = texture.data.getLevel(texture.baseLevel - 1);
+
+            // Copying the level on a background thread pages the cache file in off the GL thread.
+            texture.pendingRead = loader.getAsyncTextureLoader().run(() -> {
+                ByteBuffer copy = BufferUtils.createByteBuffer(level.remaining());
+                copy.put(level.duplicate());
+                copy.flip();
+                return copy;
+            });
+            pendingBytes += size;
+        }
+
+        candidates.clear();
+    }
+
+    /**
+     * Drops levels until the resident and pending levels plus a new one fit into the budget.
+     * Textures that have more levels than they need go first, then the ones that are smallest on
+     * screen, but only if they are smaller than the texture the room is made for.
+     *
+     * @param bytes   The size of the new level.
+     * @param texture The texture the room is made for, or null to only enforce the budget.
+     * @return True if the new level fits.
+     */
+    private boolean makeRoom(long bytes, StreamedTexture texture) {
+        while (residentBytes + pendingBytes + bytes > budgetBytes) {
+            StreamedTexture victim = null;
+            float victimScore = texture != null ? texture.lastScreenSize : Float.MAX_VALUE;
+
+            for (StreamedTexture candidate : textures.values()) {
+                if (candidate == texture || candidate.pendingRead != null
+                        || candidate.baseLevel >= candidate.coarseLevel) {
+                    continue;
+                }
+
+                float score = candidate.baseLevel < candidate.wantedLevel ? -1 : candidate.lastScreenSize;
+
+                if (score < victimScore) {
+                    victim = candidate;
+                    victimScore = score;
+                }
+            }
+
+            if (victim == null) {
+                return false;
+            }
+
+            dropLevel(victim);
+        }
+
+        return true;
+    }
+
+    /**
+     * Raises the base level of a texture by one and frees the level below it.
+     */
+    private void dropLevel(StreamedTexture texture) {
+        int level = texture.baseLevel;
+
+        GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture.textureID);
+        device.texParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_BASE_LEVEL, level + 1);
+        device.compressedTexImage2D(GL11.GL_TEXTURE_2D, level, texture.data.getFormat().getInternalFormat(), 0, 0, 0,
+                EMPTY);
+
+        texture.baseLevel = level + 1;
+        residentBytes -= texture.getLevelSize(level);
+        reportBytes(texture);
+    }
+
+    /**
+     * Tells the loader's resource manager how much memory the resident levels of a texture take.
+     */
+    private void reportBytes(StreamedTexture texture) {
+        long bytes = 0;
+
+        for (int level = texture.baseLevel; level < texture.data.getLevelCount(); level++) {
+            bytes += texture.getLevelSize(level);
+        }
+
+        loader.getResourceManager().setBytes(ResourceManager.Category.TEXTURE, texture.textureID, bytes);
+    }
+
+    /**
+     * Takes the result of a finished read.
+     *
+     * @return The level, or null if reading it failed.
+     */
+    private static ByteBuffer await(StreamedTexture texture) {
+        Future<ByteBuffer> read = texture.pendingRead;
+        texture.pendingRead = null;
+
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("Failed to stream texture " + texture.textureID + ": " + e.getCause());
+            return null;
+        }
+    }
+
+}
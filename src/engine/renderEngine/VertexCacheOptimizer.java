@@ -0,0 +1,390 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import engine.models.ModelData;
+
+/**
+ * The VertexCacheOptimizer class reorders the triangles of a model so that the GPU's
+ * post-transform vertex cache can reuse more of the vertices it has already shaded, and then
+ * reorders the vertices into the order the triangles first use them, so vertex fetches walk
+ * through the buffer instead of jumping around.
+ *
+ * <p>Triangles are ordered with Tom Forsyth's "Linear-Speed Vertex Cache Optimisation": every
+ * vertex gets a score from its position in a simulated LRU cache and from how many triangles still
+ * use it, and the triangle with the highest sum of vertex scores among those touching the cache is
+ * drawn next. The result is measured with the average cache miss ratio (ACMR), the number of
+ * vertices that have to be shaded per triangle on a FIFO cache, see {@link #getACMR}.
+ */
+public class VertexCacheOptimizer {
+
+    /**
+     * The size of the simulated vertex cache, both for ordering and for measuring the ACMR.
+     */
+    public static final int CACHE_SIZE = 32;
+
+    private static final float CACHE_DECAY_POWER = 1.5f;
+    private static final float LAST_TRIANGLE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+    private static final int VALENCE_TABLE_SIZE = 64;
+
+    private static final float[] CACHE_SCORES = new float[CACHE_SIZE];
+    private static final float[] VALENCE_SCORES = new float[VALENCE_TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            if (i < 3) {
+                CACHE_SCORES[i] = LAST_TRIANGLE_SCORE;
+            } else {
+                float scale = 1f / (CACHE_SIZE - 3);
+                CACHE_SCORES[i] = (float) Math.pow(1 - (i - 3) * scale, CACHE_DECAY_POWER);
+            }
+        }
+
+        for (int i = 1; i < VALENCE_TABLE_SIZE; i++) {
+            VALENCE_SCORES[i] = getValenceScore(i);
+        }
+    }
+
+    /**
+     * Reorders the triangles and then the vertices of a model in place. The model looks the same
+     * afterwards, since every triangle keeps its winding and every vertex its attributes.
+     *
+     * @param data The model data, with or without tangents.
+     */
+    public static void optimize(ModelData data) {
+        int[] indices = data.getIndices();
+        int vertexCount = data.getVertexCount();
+
+        orderTriangles(indices, vertexCount);
+
+        int[] remap = orderVertices(indices, vertexCount);
+
+        remapAttribute(data.getVertices(), remap, 3);
+        remapAttribute(data.getTextureCoords(), remap, 2);
+        remapAttribute(data.getNormals(), remap, 3);
+
+        if (data.getTangents() != null) {
+            remapAttribute(data.getTangents(), remap, 4);
+        }
+    }
+
+    /**
+     * Reorders triangles for the post-transform vertex cache. Each triangle's indices stay in
+     * the same order, so the winding is kept.
+     *
+     * @param indices     The vertex indices, three per triangle, which are reordered in place.
+     * @param vertexCount The number of vertices the indices refer to.
+     */
+    public static void orderTriangles(int[] indices, int vertexCount) {
+        int triangleCount = indices.length / 3;
+
+        if (triangleCount == 0) {
+            return;
+        }
+
+        // The triangles of each vertex, with the ones not drawn yet at the front of its range.
+        int[] offsets = new int[vertexCount + 1];
+        int[] liveCounts = new int[vertexCount];
+
+        for (int index : indices) {
+            liveCounts[index]++;
+        }
+
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] = offsets[v] + liveCounts[v];
+        }
+
+        int[] triangles = new int[offsets[vertexCount]];
+        int[] fill = Arrays.copyOf(offsets, vertexCount);
+
+        for (int i = 0; i < indices.length; i++) {
+            triangles[fill[indices[i]]++] = i / 3;
+        }
+
+        int[] cachePositions = new int[vertexCount];
+        float[] vertexScores = new float[vertexCount];
+        float[] triangleScores = new float[triangleCount];
+        boolean[] drawn = new boolean[triangleCount];
+
+        Arrays.fill(cachePositions, -1);
+
+        for (int v = 0; v < vertexCount; v++) {
+            vertexScores[v] = getVertexScore(-1, liveCounts[v]);
+        }
+
+        int best = 0;
+
+        for (int t = 0; t < triangleCount; t++) {
+            triangleScores[t] = vertexScores[indices[t * 3]] + vertexScores[indices[t * 3 + 1]]
+                    + vertexScores[indices[t * 3 + 2]];
+
+            if (triangleScores[t] > triangleScores[best]) {
+                best = t;
+            }
+        }
+
+        int[] cache = new int[CACHE_SIZE + 3];
+        int[] nextCache = new int[CACHE_SIZE + 3];
+        int cacheCount = 0;
+
+        int[] ordered = new int[indices.length];
+        int cursor = 0;
+
+        for (int output = 0; output < triangleCount; output++) {
+            if (best < 0) {
+                // Nothing in the cache has triangles left, so start over at the next one.
+                while (drawn[cursor]) {
+                    cursor++;
+                }
+
+                best = cursor;
+            }
+
+            drawn[best] = true;
+            int nextCount = 0;
+
+            for (int corner = 0; corner < 3; corner++) {
+                int v = indices[best * 3 + corner];
+                ordered[output * 3 + corner] = v;
+
+                int last = offsets[v] + --liveCounts[v];
+
+                for (int i = offsets[v]; i <= last; i++) {
+                    if (triangles[i] == best) {
+                        triangles[i] = triangles[last];
+                        triangles[last] = best;
+                        break;
+                    }
+                }
+
+                if (!contains(nextCache, nextCount, v)) {
+                    nextCache[nextCount++] = v;
+                }
+            }
+
+            for (int i = 0; i < cacheCount; i++) {
+                if (!contains(nextCache, nextCount, cache[i])) {
+                    nextCache[nextCount++] = cache[i];
+                }
+            }
+
+            int[] swap = cache;
+            cache = nextCache;
+            nextCache = swap;
+            cacheCount = nextCount;
+
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                cachePositions[v] = i < CACHE_SIZE ? i : -1;
+                vertexScores[v] = getVertexScore(cachePositions[v], liveCounts[v]);
+            }
+
+            cacheCount = Math.min(cacheCount, CACHE_SIZE);
+            best = -1;
+            float bestScore = -1;
+
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+
+                for (int j = offsets[v], end = offsets[v] + liveCounts[v]; j < end; j++) {
+                    int t = triangles[j];
+                    float score = vertexScores[indices[t * 3]] + vertexScores[indices[t * 3 + 1]]
+                            + vertexScores[indices[t * 3 + 2]];
+                    triangleScores[t] = score;
+
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = t;
+                    }
+                }
+            }
+        }
+
+        System.arraycopy(ordered, 0, indices, 0, indices.length);
+    }
+
+    /**
+     * Renumbers the vertices in the order the triangles first use them. Vertices no triangle
+     * uses are moved to the end.
+     *
+     * @param indices     The vertex indices, which are renumbered in place.
+     * @param vertexCount The number of vertices the indices refer to.
+     * @return The new index of every old vertex.
+     */
+    public static int[] orderVertices(int[] indices, int vertexCount) {
+        int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+        int next = 0;
+
+        for (int i = 0; i < indices.length; i++) {
+            int v = indices[i];
+
+            if (remap[v] < 0) {
+                remap[v] = next++;
+            }
+
+            indices[i] = remap[v];
+        }
+
+        for (int v = 0; v < vertexCount; v++) {
+            if (remap[v] < 0) {
+                remap[v] = next++;
+            }
+        }
+
+        return remap;
+    }
+
+    /**
+     * Calculates the average cache miss ratio of a triangle list on a FIFO vertex cache: how
+     * many vertices have to be shaded per triangle. It ranges from 3 without any reuse down to
+     * about 0.5 for a large regular grid.
+     *
+     * @param indices     The vertex indices, three per triangle.
+     * @param vertexCount The number of vertices the indices refer to.
+     * @param cacheSize   The number of vertices the simulated cache holds.
+     * @return The ACMR, or 0 if there are no triangles.
+     */
+    public static float getACMR(int[] indices, int vertexCount, int cacheSize) {
+        if (indices.length < 3) {
+            return 0;
+        }
+
+        // A vertex is still cached if fewer than cacheSize misses happened since it was loaded.
+        int[] loadedAt = new int[vertexCount];
+        Arrays.fill(loadedAt, -cacheSize);
+        int misses = 0;
+
+        for (int index : indices) {
+            if (misses - loadedAt[index] >= cacheSize) {
+                loadedAt[index] = misses++;
+            }
+        }
+
+        return (float) misses / (indices.length / 3);
+    }
+
+    /**
+     * Scores a vertex: recently used vertices score higher, except for the ones of the last
+     * triangle, which would make strips too long, and vertices with few triangles left get a
+     * boost so they are finished off rather than left behind.
+     *
+     * @param cachePosition The position of the vertex in the cache, or -1 if it isn't cached.
+     * @param liveCount     The number of triangles that still use the vertex.
+     * @return The score, or -1 if no triangle uses the vertex anymore.
+     */
+    private static float getVertexScore(int cachePosition, int liveCount) {
+        if (liveCount == 0) {
+            return -1;
+        }
+
+        float score = cachePosition >= 0 ? CACHE_SCORES[cachePosition] : 0;
+
+        return score + (liveCount < VALENCE_TABLE_SIZE ? VALENCE_SCORES[liveCount] : getValenceScore(liveCount));
+    }
+
+    private static float getValenceScore(int liveCount) {
+        return VALENCE_BOOST_SCALE * (float) Math.pow(liveCount, -VALENCE_BOOST_POWER);
+    }
+
+    /**
+     * Moves the components of every vertex to its new index.
+     *
+     * @param attribute  The attribute, which is rewritten in place.
+     * @param remap      The new index of every old vertex.
+     * @param components The number of components per vertex.
+     */
+    private static void remapAttribute(float[] attribute, int[] remap, int components) {
+        float[] old = attribute.clone();
+
+        for (int v = 0; v < remap.length; v++) {
+            System.arraycopy(old, v * components, attribute, remap[v] * components, components);
+        }
+    }
+
+    private static boolean contains(int[] array, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Prints the ACMR of OBJ models before and after optimizing them, and how long it took.
+     *
+     * <p>Usage: {@code VertexCacheOptimizer [names]}, run from the project root. Without names,
+     * every OBJ file in "res" is measured.
+     *
+     * @param args The names of the models, without the ".obj" extension.
+     */
+    public static void main(String[] args) {
+        List<String> names = new ArrayList<String>(Arrays.asList(args));
+
+        if (names.isEmpty()) {
+            File[] files = new File("res").listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(".obj")) {
+                        names.add(file.getName().substring(0, file.getName().length() - 4));
+                    }
+                }
+            }
+        }
+
+        for (String name : names) {
+            try {
+                ModelData data = ObjParser.parse(new File("res/" + name + ".obj"));
+                int[] indices = data.getIndices();
+                int vertexCount = data.getVertexCount();
+                float before = getACMR(indices, vertexCount, CACHE_SIZE);
+
+                long start = System.nanoTime();
+                optimize(data);
+                long nanos = System.nanoTime() - start;
+
+                System.out.printf(Locale.ROOT, "%-24s %8d triangles  ACMR %.3f -> %.3f  (%.2f ms)%n", name,
+                        indices.length / 3, before, getACMR(indices, vertexCount, CACHE_SIZE), nanos / 1e6);
+            } catch (IOException e) {
+                System.err.println("Failed to read " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,288 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.renderEngine;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL33;
+
+/**
+ * The VertexFormat enum describes how the {@link Loader} lays out the vertices of indexed
+ * models. Both formats interleave the attributes of a vertex in a single VBO, in the order
+ * position, texture coordinates, normal and, for normal mapped models, tangent, which are
+ * bound to attributes 0 to 3.
+ *
+ * <p>Positions are always stored as full floats. {@link #FLOAT} also stores everything else
+ * as floats, while {@link #PACKED} stores texture coordinates as half floats and normals and
+ * tangents as {@code GL_INT_2_10_10_10_REV}, which shrinks a vertex from 32 to 20 bytes, or
+ * from 48 to 24 bytes with a tangent. The shaders don't change: the packed attributes are
+ * normalized by the GPU and read as the same {@code vec2}, {@code vec3} and {@code vec4} inputs.
+ *
+ * <p>Tangents have four components, the fourth being the handedness of the tangent frame (see
+ * {@link TangentGenerator}). The packed format keeps it in the 2-bit field that normals leave
+ * empty.
+ */
+public enum VertexFormat {
+
+    FLOAT(8, 12, 16, 3, GL11.GL_FLOAT, false),
+    PACKED(4, 4, 4, 4, GL33.GL_INT_2_10_10_10_REV, true);
+
+    private static final int POSITION_BYTES = 12;
+
+    private final int textureCoordBytes;
+    private final int directionBytes;
+    private final int tangentBytes;
+    private final int directionSize;
+    private final int directionType;
+    private final boolean directionNormalized;
+
+    /**
+     * Creates a vertex format.
+     *
+     * @param textureCoordBytes   The size of the texture coordinates of a vertex in bytes.
+     * @param directionBytes      The size of a normal in bytes.
+     * @param tangentBytes        The size of a tangent in bytes.
+     * @param directionSize       The number of components of a normal attribute.
+     * @param directionType       The GL type of a normal or tangent attribute.
+     * @param directionNormalized Whether normals and tangents are normalized integers.
+     */
+    VertexFormat(int textureCoordBytes, int directionBytes, int tangentBytes, int directionSize, int directionType,
+            boolean directionNormalized) {
+        this.textureCoordBytes = textureCoordBytes;
+        this.directionBytes = directionBytes;
+        this.tangentBytes = tangentBytes;
+        this.directionSize = directionSize;
+        this.directionType = directionType;
+        this.directionNormalized = directionNormalized;
+    }
+
+    /**
+     * Retrieves the size of an interleaved vertex.
+     *
+     * @param tangents Whether the vertex has a tangent.
+     * @return The stride in bytes.
+     */
+    public int getStride(boolean tangents) {
+        return POSITION_BYTES + textureCoordBytes + directionBytes + (tangents ? tangentBytes : 0);
+    }
+
+    /**
+     * Interleaves vertex data into a buffer in this format.
+     *
+     * @param buffer        The buffer to write to, in native byte order.
+     * @param positions     The vertex positions.
+     * @param textureCoords The texture coordinates.
+     * @param normals       The normals.
+     * @param tangents      The tangents with their handedness, or null if the model has none.
+     */
+    public void putVertices(ByteBuffer buffer, float[] positions, float[] textureCoords, float[] normals,
+            float[] tangents) {
+        int vertexCount = positions.length / 3;
+
+        for (int i = 0; i < vertexCount; i++) {
+            buffer.putFloat(positions[i * 3]);
+            buffer.putFloat(positions[i * 3 + 1]);
+            buffer.putFloat(positions[i * 3 + 2]);
+
+            putTextureCoords(buffer, textureCoords[i * 2], textureCoords[i * 2 + 1]);
+            putDirection(buffer, normals, i * 3);
+
+            if (tangents != null) {
+                putTangent(buffer, tangents, i * TangentGenerator.COMPONENTS);
+            }
+        }
+    }
+
+    /**
+     * Sets up the attribute pointers of the bound VAO for interleaved data in the bound
+     * {@code GL_ARRAY_BUFFER} and enables the attribute arrays.
+     *
+     * @param device   The device to issue the calls on.
+     * @param tangents Whether the vertices have a tangent.
+     */
+    public void bindAttributes(GraphicsDevice device, boolean tangents) {
+        int stride = getStride(tangents);
+        int normalOffset = POSITION_BYTES + textureCoordBytes;
+
+        device.vertexAttribPointer(0, 3, GL11.GL_FLOAT, false, stride, 0);
+        device.vertexAttribPointer(1, 2, this == PACKED ? GL30.GL_HALF_FLOAT : GL11.GL_FLOAT, false, stride,
+                POSITION_BYTES);
+        device.vertexAttribPointer(2, directionSize, directionType, directionNormalized, stride, normalOffset);
+        device.enableVertexAttribArray(0);
+        device.enableVertexAttribArray(1);
+        device.enableVertexAttribArray(2);
+
+        if (tangents) {
+            device.vertexAttribPointer(3, 4, directionType, directionNormalized, stride,
+                    normalOffset + directionBytes);
+            device.enableVertexAttribArray(3);
+        }
+    }
+
+    /**
+     * Writes a pair of texture coordinates.
+     *
+     * @param buffer The buffer to write to.
+     * @param u      The horizontal coordinate.
+     * @param v      The vertical coordinate.
+     */
+    private void putTextureCoords(ByteBuffer buffer, float u, float v) {
+        if (this == PACKED) {
+            buffer.putShort(toHalfFloat(u));
+            buffer.putShort(toHalfFloat(v));
+        } else {
+            buffer.putFloat(u);
+            buffer.putFloat(v);
+        }
+    }
+
+    /**
+     * Writes a normal.
+     *
+     * @param buffer The buffer to write to.
+     * @param data   The normals, three floats each.
+     * @param offset The index of the x component.
+     */
+    private void putDirection(ByteBuffer buffer, float[] data, int offset) {
+        float x = data[offset];
+        float y = data[offset + 1];
+        float z = data[offset + 2];
+
+        if (this == FLOAT) {
+            buffer.putFloat(x);
+            buffer.putFloat(y);
+            buffer.putFloat(z);
+        } else {
+            buffer.putInt(packDirection(x, y, z));
+        }
+    }
+
+    /**
+     * Writes a tangent and its handedness. The packed format stores the handedness as a 2-bit
+     * signed normalized integer: 1 for 1, and -2 for -1. The more obvious -1 only decodes to -1
+     * under the conversion rules of OpenGL 4.2 and later; older contexts map c to (2c + 1) / 3,
+     * which turns -1 into -1/3 but still -2 into -1.
+     *
+     * @param buffer The buffer to write to.
+     * @param data   The tangents, four floats each.
+     * @param offset The index of the x component.
+     */
+    private void putTangent(ByteBuffer buffer, float[] data, int offset) {
+        float x = data[offset];
+        float y = data[offset + 1];
+        float z = data[offset + 2];
+        float w = data[offset + 3];
+
+        if (this == FLOAT) {
+            buffer.putFloat(x);
+            buffer.putFloat(y);
+            buffer.putFloat(z);
+            buffer.putFloat(w);
+        } else {
+            buffer.putInt(packDirection(x, y, z) | (w < 0 ? 0x2 : 0x1) << 30);
+        }
+    }
+
+    /**
+     * Packs a direction into the lowest 30 bits of a {@code GL_INT_2_10_10_10_REV} value. The
+     * direction is normalized first, since the packed format can only hold components between
+     * -1 and 1.
+     *
+     * @param x The x component.
+     * @param y The y component.
+     * @param z The z component.
+     * @return The packed direction.
+     */
+    private static int packDirection(float x, float y, float z) {
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+
+        if (length > 0) {
+            x /= length;
+            y /= length;
+            z /= length;
+        }
+
+        return toSnorm10(x) | toSnorm10(y) << 10 | toSnorm10(z) << 20;
+    }
+
+    /**
+     * Converts a value between -1 and 1 to a 10-bit signed normalized integer.
+     *
+     * @param value The value.
+     * @return The integer in the lowest 10 bits.
+     */
+    private static int toSnorm10(float value) {
+        return Math.round(Math.max(-1, Math.min(1, value)) * 511) & 0x3FF;
+    }
+
+    /**
+     * Converts a float to an IEEE 754 half float, rounding to the nearest value. Values too
+     * large for a half float become infinity and values too small become zero.
+     *
+     * @param value The value to convert.
+     * @return The bits of the half float.
+     */
+    static short toHalfFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (((bits >>> 23) & 0xFF) == 0xFF) {
+            return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        if (exponent >= 0x1F) {
+            return (short) (sign | 0x7C00);
+        }
+        if (exponent <= 0) {
+            if (exponent < -10) {
+                return (short) sign;
+            }
+
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+
+            if (((mantissa >> (shift - 1)) & 1) != 0) {
+                half++;
+            }
+
+            return (short) (sign | half);
+        }
+
+        int half = sign | exponent << 10 | mantissa >> 13;
+
+        if ((mantissa & 0x1000) != 0) {
+            half++;
+        }
+
+        return (short) half;
+    }
+
+}
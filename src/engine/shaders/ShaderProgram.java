@@ -39,6 +39,10 @@ import org.lwjgl.util.vector.Vector2f;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
+
 /**
  * The ShaderProgram class serves as the base class for all shader programs used in the engine.
  * Subclasses should implement specific shaders by providing vertex and fragment shader file paths.
@@ -51,6 +55,8 @@ public abstract class ShaderProgram {
 	
 	private static FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
 	
+	private final GraphicsDevice device = Graphics.getDevice();
+	
 	/**
      * Creates a new ShaderProgram by loading and linking the vertex and fragment shaders.
      *
@@ -60,15 +66,15 @@ public abstract class ShaderProgram {
 	public ShaderProgram(String vertexFile,String fragmentFile){
 		vertexShaderID = loadShader(vertexFile,GL20.GL_VERTEX_SHADER);
 		fragmentShaderID = loadShader(fragmentFile,GL20.GL_FRAGMENT_SHADER);
-		programID = GL20.glCreateProgram();
+		programID = device.createProgram();
 		
-		GL20.glAttachShader(programID, vertexShaderID);
-		GL20.glAttachShader(programID, fragmentShaderID);
+		device.attachShader(programID, vertexShaderID);
+		device.attachShader(programID, fragmentShaderID);
 		
 		bindAttributes();
 		
-		GL20.glLinkProgram(programID);
-		GL20.glValidateProgram(programID);
+		device.linkProgram(programID);
+		device.validateProgram(programID);
 		
 		getAllUniformLocations();
 	}
@@ -85,21 +91,21 @@ public abstract class ShaderProgram {
      * @return The location of the uniform variable.
      */
 	protected int getUniformLocation(String uniformName){
-		return GL20.glGetUniformLocation(programID,uniformName);
+		return device.getUniformLocation(programID,uniformName);
 	}
 	
 	/**
      * Activates the shader program for use.
      */
 	public void start(){
-		GL20.glUseProgram(programID);
+		GLStateManager.useProgram(programID);
 	}
 	
 	/**
      * Deactivates the shader program.
      */
 	public void stop(){
-		GL20.glUseProgram(0);
+		GLStateManager.useProgram(0);
 	}
 	
 	/**
@@ -108,11 +114,12 @@ public abstract class ShaderProgram {
 	public void cleanUp(){
 		stop();
 		
-		GL20.glDetachShader(programID, vertexShaderID);
-		GL20.glDetachShader(programID, fragmentShaderID);
-		GL20.glDeleteShader(vertexShaderID);
-		GL20.glDeleteShader(fragmentShaderID);
-		GL20.glDeleteProgram(programID);
+		device.detachShader(programID, vertexShaderID);
+		device.detachShader(programID, fragmentShaderID);
+		device.deleteShader(vertexShaderID);
+		device.deleteShader(fragmentShaderID);
+		device.deleteProgram(programID);
+		GLStateManager.onProgramDeleted(programID);
 	}
 	
 	/**
@@ -127,7 +134,7 @@ public abstract class ShaderProgram {
      * @param variableName The name of the attribute variable.
      */
 	protected void bindAttribute(int attribute, String variableName){
-		GL20.glBindAttribLocation(programID, attribute, variableName);
+		device.bindAttribLocation(programID, attribute, variableName);
 	}
 	
 	/**
@@ -137,7 +144,7 @@ public abstract class ShaderProgram {
      * @param value    The float value to load.
      */
 	protected void loadFloat(int location, float value){
-		GL20.glUniform1f(location, value);
+		device.uniform1f(location, value);
 	}
 	
 	/**
@@ -147,7 +154,7 @@ public abstract class ShaderProgram {
      * @param value    The integer value to load.
      */
 	protected void loadInt(int location, int value) {
-		GL20.glUniform1i(location, value);
+		device.uniform1i(location, value);
 	}
 	
 	/**
@@ -157,7 +164,7 @@ public abstract class ShaderProgram {
      * @param vector   The 3D vector to load.
      */
 	protected void loadVector(int location, Vector3f vector){
-		GL20.glUniform3f(location, vector.x, vector.y, vector.z);
+		device.uniform3f(location, vector.x, vector.y, vector.z);
 	}
 	
 	/**
@@ -167,7 +174,7 @@ public abstract class ShaderProgram {
      * @param vector   The 4D vector to load.
      */
 	protected void loadVector(int location, Vector4f vector){
-		GL20.glUniform4f(location,vector.x,vector.y,vector.z, vector.w);
+		device.uniform4f(location,vector.x,vector.y,vector.z, vector.w);
 	}
 	
 	/**
@@ -177,7 +184,7 @@ public abstract class ShaderProgram {
      * @param vector   The 2D vector to load.
      */
 	protected void load2DVector(int location, Vector2f vector){
-		GL20.glUniform2f(location, vector.x, vector.y);
+		device.uniform2f(location, vector.x, vector.y);
 	}
 	
 	/**
@@ -193,7 +200,7 @@ public abstract class ShaderProgram {
 			toLoad = 1;
 		}
 		
-		GL20.glUniform1f(location, toLoad);
+		device.uniform1f(location, toLoad);
 	}
 	
 	/**
@@ -207,7 +214,7 @@ public abstract class ShaderProgram {
 		
 		matrixBuffer.flip();
 		
-		GL20.glUniformMatrix4(location, false, matrixBuffer);
+		device.uniformMatrix4(location, false, matrixBuffer);
 	}
 	
 	/**
@@ -217,8 +224,7 @@ public abstract class ShaderProgram {
      * @param type The type of shader (e.g., GL20.GL_VERTEX_SHADER).
      * @return The shader ID.
      */
-	@SuppressWarnings("deprecation")
-	private static int loadShader(String file, int type){
+	private int loadShader(String file, int type){
 		StringBuilder shaderSource = new StringBuilder();
 		
 		try{
@@ -236,13 +242,13 @@ public abstract class ShaderProgram {
 			System.exit(-1);
 		}
 		
-		int shaderID = GL20.glCreateShader(type);
+		int shaderID = device.createShader(type);
 		
-		GL20.glShaderSource(shaderID, shaderSource);
-		GL20.glCompileShader(shaderID);
+		device.shaderSource(shaderID, shaderSource);
+		device.compileShader(shaderID);
 		
-		if(GL20.glGetShader(shaderID, GL20.GL_COMPILE_STATUS )== GL11.GL_FALSE){
-			System.out.println(GL20.glGetShaderInfoLog(shaderID, 500));
+		if(device.getShaderi(shaderID, GL20.GL_COMPILE_STATUS )== GL11.GL_FALSE){
+			System.out.println(device.getShaderInfoLog(shaderID, 500));
 			System.err.println("Could not compile shader!");
 			
 			System.exit(-1);
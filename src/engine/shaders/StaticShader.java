@@ -33,10 +33,8 @@ import org.lwjgl.util.vector.Vector2f;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.entities.Light;
-import engine.toolbox.MathUtils;
 
 /**
  * The StaticShader class represents a shader program designed for rendering static objects.
@@ -46,6 +44,27 @@ public class StaticShader extends ShaderProgram{
 	
 	private static final int MAX_LIGHTS = 4; 
 	
+	/**
+	 * First attribute of the per-instance model matrix (occupies four consecutive slots).
+	 * Slot 3 is skipped so that normal-mapped VAOs keep their tangents.
+	 */
+	public static final int INSTANCE_MATRIX_ATTRIBUTE = 4;
+	
+	/**
+	 * Attribute holding the per-instance texture atlas offset.
+	 */
+	public static final int INSTANCE_OFFSET_ATTRIBUTE = 8;
+	
+	/**
+	 * Attribute holding the per-instance texture array layer.
+	 */
+	public static final int INSTANCE_LAYER_ATTRIBUTE = 9;
+	
+	/**
+	 * Texture unit of the texture array for models whose textures are array layers.
+	 */
+	public static final int TEXTURE_ARRAY_UNIT = 1;
+	
 	private static final String VERTEX_FILE = "src/engine/shaders/vertexShader.txt";
 	private static final String FRAGMENT_FILE = "src/engine/shaders/fragmentShader.txt";
 	
@@ -58,9 +77,13 @@ public class StaticShader extends ShaderProgram{
 	private int location_shineDamper;
 	private int location_reflectivity;
 	private int location_useFakeLighting;
+	private int location_useInstancing;
 	private int location_skyColour;
 	private int location_numberOfRows;
 	private int location_offset;
+	private int location_textureLayer;
+	private int location_useTextureArray;
+	private int location_modelTextureArray;
 	private int location_plane;	
 	private int location_density;
 	private int location_gradient;
@@ -77,6 +100,9 @@ public class StaticShader extends ShaderProgram{
 		super.bindAttribute(0, "position");
 		super.bindAttribute(1, "textureCoordinates");
 		super.bindAttribute(2, "normal");
+		super.bindAttribute(INSTANCE_MATRIX_ATTRIBUTE, "instanceTransformation");
+		super.bindAttribute(INSTANCE_OFFSET_ATTRIBUTE, "instanceOffset");
+		super.bindAttribute(INSTANCE_LAYER_ATTRIBUTE, "instanceLayer");
 	}
 
 	@Override
@@ -87,9 +113,13 @@ public class StaticShader extends ShaderProgram{
 		location_shineDamper = super.getUniformLocation("shineDamper");
 		location_reflectivity = super.getUniformLocation("reflectivity");
 		location_useFakeLighting = super.getUniformLocation("useFakeLighting");
+		location_useInstancing = super.getUniformLocation("useInstancing");
 		location_skyColour = super.getUniformLocation("skyColour");
 		location_numberOfRows = super.getUniformLocation("numberOfRows");
 		location_offset = super.getUniformLocation("offset");
+		location_textureLayer = super.getUniformLocation("textureLayer");
+		location_useTextureArray = super.getUniformLocation("useTextureArray");
+		location_modelTextureArray = super.getUniformLocation("modelTextureArray");
 		location_plane = super.getUniformLocation("plane");
 		location_density = super.getUniformLocation("density");
 		location_gradient = super.getUniformLocation("gradient");
@@ -144,6 +174,33 @@ public class StaticShader extends ShaderProgram{
 		super.load2DVector(location_offset, new Vector2f(x, y));
 	}
 	
+	/**
+     * Connects the texture array sampler to its texture unit. The model texture
+     * stays on unit 0.
+     */
+	public void connectTextureUnits() {
+		super.loadInt(location_modelTextureArray, TEXTURE_ARRAY_UNIT);
+	}
+	
+	/**
+     * Selects between the model texture and a layer of the texture array.
+     *
+     * @param useTextureArray True if the current model's texture is an array layer.
+     */
+	public void loadUseTextureArray(boolean useTextureArray) {
+		super.loadBoolean(location_useTextureArray, useTextureArray);
+	}
+	
+	/**
+     * Loads the texture array layer for non-instanced draws. Instanced draws read
+     * it per instance.
+     *
+     * @param layer The layer index.
+     */
+	public void loadTextureLayer(int layer) {
+		super.loadFloat(location_textureLayer, layer);
+	}
+	
 	/**
      * Loads the sky color for lighting calculations.
      *
@@ -164,6 +221,16 @@ public class StaticShader extends ShaderProgram{
 		super.loadBoolean(location_useFakeLighting, useFake);
 	}
 
+	/**
+     * Loads a boolean value to select between per-instance attributes and the
+     * transformation matrix / offset uniforms.
+     *
+     * @param useInstancing True when the current draw is instanced, false otherwise.
+     */
+	public void loadUseInstancing(boolean useInstancing) {
+		super.loadBoolean(location_useInstancing, useInstancing);
+	}
+
 	/**
 	 * Loads shine variables for specular lighting.
 	 *
@@ -204,12 +271,11 @@ public class StaticShader extends ShaderProgram{
 	}
 	
 	/**
-     * Loads the view matrix for the camera.
+     * Loads the view matrix of the current pass.
      *
-     * @param camera The camera to create the view matrix for.
+     * @param viewMatrix The view matrix, usually taken from the pass's {@code FrameContext}.
      */
-	public void loadViewMatrix(Camera camera){
-		Matrix4f viewMatrix = MathUtils.createViewMatrix(camera);
+	public void loadViewMatrix(Matrix4f viewMatrix){
 		super.loadMatrix(location_viewMatrix, viewMatrix);
 	}
 	
@@ -32,10 +32,8 @@ import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.entities.Light;
-import engine.toolbox.MathUtils;
 
 /**
  * The TerrainShader class represents a shader program designed for rendering terrain.
@@ -45,10 +43,19 @@ public class TerrainShader extends ShaderProgram {
 	
 	private static final int MAX_LIGHTS = 4; 
 	
+	/**
+	 * Texture unit of the texture array holding the four splat textures, if the
+	 * texture pack uses one.
+	 */
+	public static final int TEXTURE_ARRAY_UNIT = 6;
+	
 	private static final String VERTEX_FILE = "src/engine/shaders/terrainVertexShader.txt";
 	private static final String FRAGMENT_FILE = "src/engine/shaders/terrainFragmentShader.txt";
 	
 	private int location_transformationMatrix;
+	private int location_terrainTextures;
+	private int location_terrainLayers;
+	private int location_useTextureArray;
 	private int location_projectionMatrix;
 	private int location_viewMatrix;
 	private int location_lightPosition[];
@@ -93,6 +100,9 @@ public class TerrainShader extends ShaderProgram {
 		location_gTexture = super.getUniformLocation("gTexture");
 		location_bTexture = super.getUniformLocation("bTexture");
 		location_blendMap = super.getUniformLocation("blendMap");
+		location_terrainTextures = super.getUniformLocation("terrainTextures");
+		location_terrainLayers = super.getUniformLocation("terrainLayers");
+		location_useTextureArray = super.getUniformLocation("useTextureArray");
 		location_plane = super.getUniformLocation("plane");
 		location_toShadowMapSpace = super.getUniformLocation("toShadowMapSpace");
 		location_shadowMap = super.getUniformLocation("shadowMap");
@@ -118,6 +128,23 @@ public class TerrainShader extends ShaderProgram {
 		super.loadInt(location_bTexture, 3);
 		super.loadInt(location_blendMap, 4);
 		super.loadInt(location_shadowMap, 5);
+		super.loadInt(location_terrainTextures, TEXTURE_ARRAY_UNIT);
+	}
+	
+	/**
+     * Selects between the four separate splat textures and layers of the
+     * texture array.
+     *
+     * @param useTextureArray True to sample the texture array.
+     * @param layers          The layers of the background, red, green and blue
+     *                        textures in the array.
+     */
+	public void loadTextureLayers(boolean useTextureArray, Vector4f layers) {
+		super.loadBoolean(location_useTextureArray, useTextureArray);
+		
+		if (useTextureArray) {
+			super.loadVector(location_terrainLayers, layers);
+		}
 	}
 	
 	public void loadToShadowSpaceMatrix(Matrix4f matrix) {
@@ -179,12 +206,11 @@ public class TerrainShader extends ShaderProgram {
 	}
 	
 	/**
-     * Loads the view matrix for the camera.
+     * Loads the view matrix of the current pass.
      *
-     * @param camera The camera to create the view matrix for.
+     * @param viewMatrix The view matrix, usually taken from the pass's {@code FrameContext}.
      */
-	public void loadViewMatrix(Camera camera){
-		Matrix4f viewMatrix = MathUtils.createViewMatrix(camera);
+	public void loadViewMatrix(Matrix4f viewMatrix){
 		super.loadMatrix(location_viewMatrix, viewMatrix);
 	}
 	
@@ -1,6 +1,5 @@
 package engine.shadows;
 
-import org.lwjgl.opengl.Display;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
@@ -28,6 +27,8 @@ public class ShadowBox {
 	private static final float OFFSET = 15;
 	private static final Vector4f UP = new Vector4f(0, 1, 0, 0);
 	private static final Vector4f FORWARD = new Vector4f(0, 0, -1, 0);
+	private static final Vector3f X_AXIS = new Vector3f(1, 0, 0);
+	private static final Vector3f Y_AXIS = new Vector3f(0, 1, 0);
 	private static final float SHADOW_DISTANCE = 100;
 
 	private float minX, maxX;
@@ -38,6 +39,16 @@ public class ShadowBox {
 
 	private float farHeight, farWidth, nearHeight, nearWidth;
 
+	private final Matrix4f rotation = new Matrix4f();
+	private final Matrix4f invertedLight = new Matrix4f();
+	private final Vector3f forwardVector = new Vector3f();
+	private final Vector3f upVector = new Vector3f();
+	private final Vector3f rightVector = new Vector3f();
+	private final Vector3f centerNear = new Vector3f();
+	private final Vector3f centerFar = new Vector3f();
+	private final Vector3f center = new Vector3f();
+	private final Vector4f tmp = new Vector4f();
+
 	/**
 	 * Creates a new shadow box and calculates some initial values relating to
 	 * the camera's view frustum, namely the width and height of the near plane
@@ -61,68 +72,45 @@ public class ShadowBox {
 	 * Updates the bounds of the shadow box based on the light direction and the
 	 * camera's view frustum, to make sure that the box covers the smallest area
 	 * possible while still ensuring that everything inside the camera's view
-	 * (within a certain range) will cast shadows.
+	 * (within a certain range) will cast shadows. All intermediate vectors are
+	 * scratch fields, so this doesn't allocate.
 	 */
 	protected void update() {
-		Matrix4f rotation = calculateCameraRotationMatrix();
-		Vector3f forwardVector = new Vector3f(Matrix4f.transform(rotation, FORWARD, null));
-
-		Vector3f toFar = new Vector3f(forwardVector);
-		toFar.scale(SHADOW_DISTANCE);
-		Vector3f toNear = new Vector3f(forwardVector);
-		toNear.scale(MasterRenderer.NEAR_PLANE);
-		Vector3f centerNear = Vector3f.add(toNear, cam.getPosition(), null);
-		Vector3f centerFar = Vector3f.add(toFar, cam.getPosition(), null);
-
-		Vector4f[] points = calculateFrustumVertices(rotation, forwardVector, centerNear,
-				centerFar);
-
-		boolean first = true;
-		for (Vector4f point : points) {
-			if (first) {
-				minX = point.x;
-				maxX = point.x;
-				minY = point.y;
-				maxY = point.y;
-				minZ = point.z;
-				maxZ = point.z;
-				first = false;
-				continue;
-			}
-			if (point.x > maxX) {
-				maxX = point.x;
-			} else if (point.x < minX) {
-				minX = point.x;
-			}
-			if (point.y > maxY) {
-				maxY = point.y;
-			} else if (point.y < minY) {
-				minY = point.y;
-			}
-			if (point.z > maxZ) {
-				maxZ = point.z;
-			} else if (point.z < minZ) {
-				minZ = point.z;
-			}
-		}
+		calculateCameraRotationMatrix();
+		Matrix4f.transform(rotation, FORWARD, tmp);
+		forwardVector.set(tmp.x, tmp.y, tmp.z);
+		Matrix4f.transform(rotation, UP, tmp);
+		upVector.set(tmp.x, tmp.y, tmp.z);
+		Vector3f.cross(forwardVector, upVector, rightVector);
+
+		Vector3f camPosition = cam.getPosition();
+		centerNear.set(camPosition.x + forwardVector.x * MasterRenderer.NEAR_PLANE,
+				camPosition.y + forwardVector.y * MasterRenderer.NEAR_PLANE,
+				camPosition.z + forwardVector.z * MasterRenderer.NEAR_PLANE);
+		centerFar.set(camPosition.x + forwardVector.x * SHADOW_DISTANCE,
+				camPosition.y + forwardVector.y * SHADOW_DISTANCE,
+				camPosition.z + forwardVector.z * SHADOW_DISTANCE);
+
+		minX = minY = minZ = Float.POSITIVE_INFINITY;
+		maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
+		addFrustumCorners(centerFar, farHeight, farWidth);
+		addFrustumCorners(centerNear, nearHeight, nearWidth);
 		maxZ += OFFSET;
-
 	}
 
 	/**
 	 * Calculates the center of the "view cuboid" in light space first, and then
 	 * converts this to world space using the inverse light's view matrix.
 	 * 
-	 * @return The center of the "view cuboid" in world space.
+	 * @return The center of the "view cuboid" in world space. The returned
+	 *         vector is reused by the next call.
 	 */
 	protected Vector3f getCenter() {
-		float x = (minX + maxX) / 2f;
-		float y = (minY + maxY) / 2f;
-		float z = (minZ + maxZ) / 2f;
-		Vector4f cen = new Vector4f(x, y, z, 1);
-		Matrix4f invertedLight = new Matrix4f();
+		tmp.set((minX + maxX) / 2f, (minY + maxY) / 2f, (minZ + maxZ) / 2f, 1);
 		Matrix4f.invert(lightViewMatrix, invertedLight);
-		return new Vector3f(Matrix4f.transform(invertedLight, cen, null));
+		Matrix4f.transform(invertedLight, tmp, tmp);
+		center.set(tmp.x, tmp.y, tmp.z);
+		return center;
 	}
 
 	/**
@@ -147,76 +135,56 @@ public class ShadowBox {
 	}
 
 	/**
-	 * Calculates the position of the vertex at each corner of the view frustum
-	 * in light space (8 vertices in total, so this returns 8 positions).
+	 * Transforms the four corners of one frustum plane into light space and
+	 * grows the bounds of the box to include them.
 	 * 
-	 * @param rotation
-	 *            - camera's rotation.
-	 * @param forwardVector
-	 *            - the direction that the camera is aiming, and thus the
-	 *            direction of the frustum.
-	 * @param centerNear
-	 *            - the center point of the frustum's near plane.
-	 * @param centerFar
-	 *            - the center point of the frustum's (possibly adjusted) far
-	 *            plane.
-	 * @return The positions of the vertices of the frustum in light space.
+	 * @param planeCenter
+	 *            - the center point of the near or far plane.
+	 * @param height
+	 *            - half the height of the plane.
+	 * @param width
+	 *            - half the width of the plane.
 	 */
-	private Vector4f[] calculateFrustumVertices(Matrix4f rotation, Vector3f forwardVector,
-			Vector3f centerNear, Vector3f centerFar) {
-		Vector3f upVector = new Vector3f(Matrix4f.transform(rotation, UP, null));
-		Vector3f rightVector = Vector3f.cross(forwardVector, upVector, null);
-		Vector3f downVector = new Vector3f(-upVector.x, -upVector.y, -upVector.z);
-		Vector3f leftVector = new Vector3f(-rightVector.x, -rightVector.y, -rightVector.z);
-		Vector3f farTop = Vector3f.add(centerFar, new Vector3f(upVector.x * farHeight,
-				upVector.y * farHeight, upVector.z * farHeight), null);
-		Vector3f farBottom = Vector3f.add(centerFar, new Vector3f(downVector.x * farHeight,
-				downVector.y * farHeight, downVector.z * farHeight), null);
-		Vector3f nearTop = Vector3f.add(centerNear, new Vector3f(upVector.x * nearHeight,
-				upVector.y * nearHeight, upVector.z * nearHeight), null);
-		Vector3f nearBottom = Vector3f.add(centerNear, new Vector3f(downVector.x * nearHeight,
-				downVector.y * nearHeight, downVector.z * nearHeight), null);
-		Vector4f[] points = new Vector4f[8];
-		points[0] = calculateLightSpaceFrustumCorner(farTop, rightVector, farWidth);
-		points[1] = calculateLightSpaceFrustumCorner(farTop, leftVector, farWidth);
-		points[2] = calculateLightSpaceFrustumCorner(farBottom, rightVector, farWidth);
-		points[3] = calculateLightSpaceFrustumCorner(farBottom, leftVector, farWidth);
-		points[4] = calculateLightSpaceFrustumCorner(nearTop, rightVector, nearWidth);
-		points[5] = calculateLightSpaceFrustumCorner(nearTop, leftVector, nearWidth);
-		points[6] = calculateLightSpaceFrustumCorner(nearBottom, rightVector, nearWidth);
-		points[7] = calculateLightSpaceFrustumCorner(nearBottom, leftVector, nearWidth);
-		return points;
+	private void addFrustumCorners(Vector3f planeCenter, float height, float width) {
+		addLightSpaceCorner(planeCenter, height, width);
+		addLightSpaceCorner(planeCenter, height, -width);
+		addLightSpaceCorner(planeCenter, -height, width);
+		addLightSpaceCorner(planeCenter, -height, -width);
 	}
 
 	/**
-	 * Calculates one of the corner vertices of the view frustum in world space
-	 * and converts it to light space.
+	 * Calculates one of the corner vertices of the view frustum in world space,
+	 * converts it to light space and grows the bounds of the box to include it.
 	 * 
-	 * @param startPoint
-	 *            - the starting center point on the view frustum.
-	 * @param direction
-	 *            - the direction of the corner from the start point.
-	 * @param width
-	 *            - the distance of the corner from the start point.
-	 * @return - The relevant corner vertex of the view frustum in light space.
+	 * @param planeCenter
+	 *            - the center point of the near or far plane.
+	 * @param up
+	 *            - the signed distance of the corner along the camera's up
+	 *            vector.
+	 * @param right
+	 *            - the signed distance of the corner along the camera's right
+	 *            vector.
 	 */
-	private Vector4f calculateLightSpaceFrustumCorner(Vector3f startPoint, Vector3f direction,
-			float width) {
-		Vector3f point = Vector3f.add(startPoint,
-				new Vector3f(direction.x * width, direction.y * width, direction.z * width), null);
-		Vector4f point4f = new Vector4f(point.x, point.y, point.z, 1f);
-		Matrix4f.transform(lightViewMatrix, point4f, point4f);
-		return point4f;
+	private void addLightSpaceCorner(Vector3f planeCenter, float up, float right) {
+		tmp.set(planeCenter.x + upVector.x * up + rightVector.x * right,
+				planeCenter.y + upVector.y * up + rightVector.y * right,
+				planeCenter.z + upVector.z * up + rightVector.z * right, 1f);
+		Matrix4f.transform(lightViewMatrix, tmp, tmp);
+		minX = Math.min(minX, tmp.x);
+		maxX = Math.max(maxX, tmp.x);
+		minY = Math.min(minY, tmp.y);
+		maxY = Math.max(maxY, tmp.y);
+		minZ = Math.min(minZ, tmp.z);
+		maxZ = Math.max(maxZ, tmp.z);
 	}
 
 	/**
-	 * @return The rotation of the camera represented as a matrix.
+	 * Stores the rotation of the camera in the {@code rotation} scratch matrix.
 	 */
-	private Matrix4f calculateCameraRotationMatrix() {
-		Matrix4f rotation = new Matrix4f();
-		rotation.rotate((float) Math.toRadians(-cam.getYaw()), new Vector3f(0, 1, 0));
-		rotation.rotate((float) Math.toRadians(-cam.getPitch()), new Vector3f(1, 0, 0));
-		return rotation;
+	private void calculateCameraRotationMatrix() {
+		rotation.setIdentity();
+		rotation.rotate((float) Math.toRadians(-cam.getYaw()), Y_AXIS);
+		rotation.rotate((float) Math.toRadians(-cam.getPitch()), X_AXIS);
 	}
 
 	/**
@@ -238,7 +206,7 @@ public class ShadowBox {
 	 * @return The aspect ratio of the display (width:height ratio).
 	 */
 	private float getAspectRatio() {
-		return (float) Display.getWidth() / (float) Display.getHeight();
+		return (float) DisplayManager.getWidth() / (float) DisplayManager.getHeight();
 	}
 
 }
@@ -2,12 +2,15 @@ package engine.shadows;
 
 import java.nio.ByteBuffer;
 
-import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.GL14;
 import org.lwjgl.opengl.GL30;
-import org.lwjgl.opengl.GL32;
+
+import engine.renderEngine.DisplayManager;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 
 /**
  * The frame buffer for the shadow pass. This class sets up the depth texture
@@ -24,6 +27,8 @@ public class ShadowFrameBuffer {
 	private int fbo;
 	private int shadowMap;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	/**
 	 * Initializes the frame buffer and shadow map of a certain size.
 	 * 
@@ -42,8 +47,10 @@ public class ShadowFrameBuffer {
 	 * Deletes the frame buffer and shadow map texture when the game closes.
 	 */
 	protected void cleanUp() {
-		GL30.glDeleteFramebuffers(fbo);
-		GL11.glDeleteTextures(shadowMap);
+		device.deleteFramebuffers(fbo);
+		GLStateManager.onFramebufferDeleted(fbo);
+		device.deleteTextures(shadowMap);
+		GLStateManager.onTextureDeleted(shadowMap);
 	}
 
 	/**
@@ -58,8 +65,8 @@ public class ShadowFrameBuffer {
 	 * render target.
 	 */
 	protected void unbindFrameBuffer() {
-		GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
-		GL11.glViewport(0, 0, Display.getWidth(), Display.getHeight());
+		GLStateManager.bindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+		device.viewport(0, 0, DisplayManager.getWidth(), DisplayManager.getHeight());
 	}
 
 	/**
@@ -88,10 +95,10 @@ public class ShadowFrameBuffer {
 	 * @param height
 	 *            - the height of the frame buffer.
 	 */
-	private static void bindFrameBuffer(int frameBuffer, int width, int height) {
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
-		GL30.glBindFramebuffer(GL30.GL_DRAW_FRAMEBUFFER, frameBuffer);
-		GL11.glViewport(0, 0, width, height);
+	private void bindFrameBuffer(int frameBuffer, int width, int height) {
+		GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, 0);
+		GLStateManager.bindFramebuffer(GL30.GL_DRAW_FRAMEBUFFER, frameBuffer);
+		device.viewport(0, 0, width, height);
 	}
 
 	/**
@@ -101,11 +108,11 @@ public class ShadowFrameBuffer {
 	 * 
 	 * @return The newly created frame buffer's ID.
 	 */
-	private static int createFrameBuffer() {
-		int frameBuffer = GL30.glGenFramebuffers();
-		GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
-		GL11.glDrawBuffer(GL11.GL_NONE);
-		GL11.glReadBuffer(GL11.GL_NONE);
+	private int createFrameBuffer() {
+		int frameBuffer = device.genFramebuffers();
+		GLStateManager.bindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
+		device.drawBuffer(GL11.GL_NONE);
+		device.readBuffer(GL11.GL_NONE);
 		return frameBuffer;
 	}
 
@@ -118,16 +125,16 @@ public class ShadowFrameBuffer {
 	 *            - the height of the texture.
 	 * @return The ID of the depth texture.
 	 */
-	private static int createDepthBufferAttachment(int width, int height) {
-		int texture = GL11.glGenTextures();
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
-		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL14.GL_DEPTH_COMPONENT16, width, height, 0,
+	private int createDepthBufferAttachment(int width, int height) {
+		int texture = device.genTextures();
+		GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture);
+		device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL14.GL_DEPTH_COMPONENT16, width, height, 0,
 				GL11.GL_DEPTH_COMPONENT, GL11.GL_FLOAT, (ByteBuffer) null);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
-		GL32.glFramebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, texture, 0);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+		device.framebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, texture, 0);
 		return texture;
 	}
 }
@@ -4,21 +4,26 @@ import java.util.List;
 import java.util.Map;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.util.vector.Matrix4f;
 
 import engine.entities.Entity;
 import engine.models.RawModel;
 import engine.models.TexturedModel;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 import engine.renderEngine.MasterRenderer;
-import engine.toolbox.MathUtils;
+import engine.textures.ModelTexture;
+import engine.textures.TextureLayer;
 
 public class ShadowMapEntityRenderer {
 
 	private Matrix4f projectionViewMatrix;
 	private ShadowShader shader;
+	private Matrix4f mvpMatrix = new Matrix4f();
+
+	private final GraphicsDevice device = Graphics.getDevice();
 
 	/**
 	 * @param shader
@@ -34,52 +39,67 @@ public class ShadowMapEntityRenderer {
 	}
 
 	/**
-	 * Renders entities to the shadow map. Each model is first bound and then all
-	 * of the entities using that model are rendered to the shadow map.
+	 * Renders entities to the shadow map. Each model's texture is first bound and
+	 * then all of the entities using that model are rendered to the shadow map,
+	 * each with the mesh of the level of detail the camera passes picked for it.
 	 * 
 	 * @param entities
 	 *            - the entities to be rendered to the shadow map.
 	 */
 	protected void render(Map<TexturedModel, List<Entity>> entities) {
 		for (TexturedModel model : entities.keySet()) {
-			RawModel rawModel = model.getRawModel();
-			bindModel(rawModel);
-			GL13.glActiveTexture(GL13.GL_TEXTURE0);
-			GL11.glBindTexture(GL11.GL_TEXTURE_2D, model.getTexture().getID());
+			bindTexture(model.getTexture());
 			if(model.getTexture().isHasTransparency()) {
 				MasterRenderer.disableCulling();
 			}
 			for (Entity entity : entities.get(model)) {
+				RawModel rawModel = model.getRawModel(entity.getLodLevel());
+				bindModel(rawModel);
 				prepareInstance(entity);
-				GL11.glDrawElements(GL11.GL_TRIANGLES, rawModel.getVertexCount(),
-						GL11.GL_UNSIGNED_INT, 0);
+				device.drawElementsBaseVertex(GL11.GL_TRIANGLES, rawModel.getVertexCount(),
+						rawModel.getIndexType(), rawModel.getIndexOffset(), rawModel.getBaseVertex());
 			}
 			if(model.getTexture().isHasTransparency()) {
 				MasterRenderer.enableCulling();
 			}
 		}
-		GL20.glDisableVertexAttribArray(0);
-		GL20.glDisableVertexAttribArray(1);
-		GL30.glBindVertexArray(0);
+		GLStateManager.bindVertexArray(0);
+	}
+
+	/**
+	 * Binds the texture of a model, whose alpha decides which fragments cast a
+	 * shadow. Textures that are layers of a texture array are sampled from the
+	 * array.
+	 * 
+	 * @param texture
+	 *            - the texture of the model.
+	 */
+	private void bindTexture(ModelTexture texture) {
+		TextureLayer layer = texture.getTextureLayer();
+		shader.loadTextureLayer(layer != null, layer != null ? layer.getLayer() : 0);
+		
+		if (layer != null) {
+			GLStateManager.bindTexture(ShadowShader.TEXTURE_ARRAY_UNIT, GL30.GL_TEXTURE_2D_ARRAY, texture.getID());
+		} else {
+			GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture.getID());
+		}
 	}
 
 	/**
-	 * Binds a raw model before rendering. Only the attribute 0 is enabled here
-	 * because that is where the positions are stored in the VAO, and only the
-	 * positions are required in the vertex shader.
+	 * Binds a raw model before rendering, unless it is bound already. The VAO
+	 * already has its attribute arrays enabled, and the vertex shader only reads
+	 * the positions and texture coordinates.
 	 * 
 	 * @param rawModel
 	 *            - the model to be bound.
 	 */
 	private void bindModel(RawModel rawModel) {
-		GL30.glBindVertexArray(rawModel.getVaoID());
-		GL20.glEnableVertexAttribArray(0);
-		GL20.glEnableVertexAttribArray(1);
+		GLStateManager.bindVertexArray(rawModel.getVaoID());
 	}
 
 	/**
-	 * Prepares an entity to be rendered. The model matrix is created in the
-	 * usual way and then multiplied with the projection and view matrix (often
+	 * Prepares an entity to be rendered. The entity's cached model matrix is
+	 * multiplied with the projection and view matrix (often
 	 * in the past we've done this in the vertex shader) to create the
 	 * mvp-matrix. This is then loaded to the vertex shader as a uniform.
 	 * 
@@ -87,9 +107,7 @@ public class ShadowMapEntityRenderer {
 	 *            - the entity to be prepared for rendering.
 	 */
 	private void prepareInstance(Entity entity) {
-		Matrix4f modelMatrix = MathUtils.createTransformationMatrix(entity.getPosition(),
-				entity.getRotX(), entity.getRotY(), entity.getRotZ(), entity.getScale());
-		Matrix4f mvpMatrix = Matrix4f.mul(projectionViewMatrix, modelMatrix, null);
+		Matrix4f.mul(projectionViewMatrix, entity.getTransformationMatrix(), mvpMatrix);
 		shader.loadMvpMatrix(mvpMatrix);
 	}
 
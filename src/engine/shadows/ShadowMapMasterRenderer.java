@@ -13,6 +13,9 @@ import engine.entities.DefaultCamera;
 import engine.entities.Entity;
 import engine.entities.Light;
 import engine.models.TexturedModel;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 
 /**
  * This class is in charge of using all of the classes in the shadows package to
@@ -37,6 +40,8 @@ public class ShadowMapMasterRenderer {
 
 	private ShadowMapEntityRenderer entityRenderer;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	/**
 	 * Creates instances of the important objects needed for rendering the scene
 	 * to the shadow map. This includes the {@link ShadowBox} which calculates
@@ -50,6 +55,9 @@ public class ShadowMapMasterRenderer {
 	 */
 	public ShadowMapMasterRenderer(Camera camera) {
 		shader = new ShadowShader();
+		shader.start();
+		shader.connectTextureUnits();
+		shader.stop();
 		shadowBox = new ShadowBox(lightViewMatrix, camera);
 		shadowFbo = new ShadowFrameBuffer(SHADOW_MAP_SIZE, SHADOW_MAP_SIZE);
 		entityRenderer = new ShadowMapEntityRenderer(shader, projectionViewMatrix);
@@ -71,14 +79,51 @@ public class ShadowMapMasterRenderer {
 	 *            - the light acting as the sun in the scene.
 	 */
 	public void render(Map<TexturedModel, List<Entity>> entities, Light sun) {
+		updateLightSpace(sun);
+		render(entities);
+	}
+
+	/**
+	 * Updates the shadow box and the light's projection-view matrix for this
+	 * frame without rendering anything. Call this before culling shadow casters
+	 * against {@link #getProjectionViewMatrix()}, then call
+	 * {@link #render(Map)}.
+	 * 
+	 * @param sun
+	 *            - the light acting as the sun in the scene.
+	 */
+	public void updateLightSpace(Light sun) {
 		shadowBox.update();
 		Vector3f sunPosition = sun.getPosition();
 		Vector3f lightDirection = new Vector3f(-sunPosition.x, -sunPosition.y, -sunPosition.z);
-		prepare(lightDirection, shadowBox);
+		updateOrthoProjectionMatrix(shadowBox.getWidth(), shadowBox.getHeight(), shadowBox.getLength());
+		updateLightViewMatrix(lightDirection, shadowBox.getCenter());
+		Matrix4f.mul(projectionMatrix, lightViewMatrix, projectionViewMatrix);
+	}
+
+	/**
+	 * Renders the entities to the shadow map using the light space calculated
+	 * by the last call to {@link #updateLightSpace(Light)}.
+	 * 
+	 * @param entities
+	 *            - the lists of entities to be rendered, grouped by
+	 *            {@link TexturedModel}.
+	 */
+	public void render(Map<TexturedModel, List<Entity>> entities) {
+		prepare();
 		entityRenderer.render(entities);
 		finish();
 	}
 
+	/**
+	 * @return The orthographic projection matrix multiplied by the light's
+	 *         "view" matrix. Everything outside of this "view cuboid" is not
+	 *         rendered to the shadow map.
+	 */
+	public Matrix4f getProjectionViewMatrix() {
+		return projectionViewMatrix;
+	}
+
 	/**
 	 * This biased projection-view matrix is used to convert fragments into
 	 * "shadow map space" when rendering the main render pass. It converts a
@@ -116,32 +161,18 @@ public class ShadowMapMasterRenderer {
 	}
 
 	/**
-	 * Prepare for the shadow render pass. This first updates the dimensions of
-	 * the orthographic "view cuboid" based on the information that was
-	 * calculated in the {@link SHadowBox} class. The light's "view" matrix is
-	 * also calculated based on the light's direction and the center position of
-	 * the "view cuboid" which was also calculated in the {@link ShadowBox}
-	 * class. These two matrices are multiplied together to create the
-	 * projection-view matrix. This matrix determines the size, position, and
-	 * orientation of the "view cuboid" in the world. This method also binds the
-	 * shadows FBO so that everything rendered after this gets rendered to the
-	 * FBO. It also enables depth testing, and clears any data that is in the
-	 * FBOs depth attachment from last frame. The simple shader program is also
-	 * started.
-	 * 
-	 * @param lightDirection
-	 *            - the direction of the light rays coming from the sun.
-	 * @param box
-	 *            - the shadow box, which contains all the info about the
-	 *            "view cuboid".
+	 * Prepare for the shadow render pass. The dimensions of the orthographic
+	 * "view cuboid" and the light's "view" matrix have already been calculated
+	 * in {@link #updateLightSpace(Light)}, based on the information from the
+	 * {@link ShadowBox} class. This method binds the shadows FBO so that
+	 * everything rendered after this gets rendered to the FBO. It also enables
+	 * depth testing, and clears any data that is in the FBOs depth attachment
+	 * from last frame. The simple shader program is also started.
 	 */
-	private void prepare(Vector3f lightDirection, ShadowBox box) {
-		updateOrthoProjectionMatrix(box.getWidth(), box.getHeight(), box.getLength());
-		updateLightViewMatrix(lightDirection, box.getCenter());
-		Matrix4f.mul(projectionMatrix, lightViewMatrix, projectionViewMatrix);
+	private void prepare() {
 		shadowFbo.bindFrameBuffer();
-		GL11.glEnable(GL11.GL_DEPTH_TEST);
-		GL11.glClear(GL11.GL_DEPTH_BUFFER_BIT);
+		GLStateManager.setDepthTest(true);
+		device.clear(GL11.GL_DEPTH_BUFFER_BIT);
 		shader.start();
 	}
 
@@ -9,7 +9,12 @@ public class ShadowShader extends ShaderProgram {
 	private static final String VERTEX_FILE = "src/engine/shadows/shadowVertexShader.txt";
 	private static final String FRAGMENT_FILE = "src/engine/shadows/shadowFragmentShader.txt";
 	
+	protected static final int TEXTURE_ARRAY_UNIT = 1;
+	
 	private int location_mvpMatrix;
+	private int location_modelTextureArray;
+	private int location_useTextureArray;
+	private int location_textureLayer;
 
 	protected ShadowShader() {
 		super(VERTEX_FILE, FRAGMENT_FILE);
@@ -18,12 +23,26 @@ public class ShadowShader extends ShaderProgram {
 	@Override
 	protected void getAllUniformLocations() {
 		location_mvpMatrix = super.getUniformLocation("mvpMatrix");
-		
+		location_modelTextureArray = super.getUniformLocation("modelTextureArray");
+		location_useTextureArray = super.getUniformLocation("useTextureArray");
+		location_textureLayer = super.getUniformLocation("textureLayer");
+	}
+	
+	protected void connectTextureUnits() {
+		super.loadInt(location_modelTextureArray, TEXTURE_ARRAY_UNIT);
 	}
 	
 	protected void loadMvpMatrix(Matrix4f mvpMatrix){
 		super.loadMatrix(location_mvpMatrix, mvpMatrix);
 	}
+	
+	protected void loadTextureLayer(boolean useTextureArray, int layer) {
+		super.loadBoolean(location_useTextureArray, useTextureArray);
+		
+		if (useTextureArray) {
+			super.loadFloat(location_textureLayer, layer);
+		}
+	}
 
 	@Override
 	protected void bindAttributes() {
@@ -30,14 +30,15 @@ import java.lang.Math;
 
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
 import org.lwjgl.util.vector.Matrix4f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.models.RawModel;
 import engine.renderEngine.DisplayManager;
+import engine.renderEngine.FrameContext;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 import engine.renderEngine.Loader;
 
 /**
@@ -82,6 +83,8 @@ public class SkyboxRenderer {
 	private SkyboxShader shader;
 	private float time = 0;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	/**
 	 * Constructs a SkyboxRenderer instance.
 	 *
@@ -102,25 +105,23 @@ public class SkyboxRenderer {
 	/**
 	 * Renders the skybox based on the camera's view and time of day.
 	 *
-	 * @param camera The camera used to render the scene.
+	 * @param context The frame context of the current pass.
 	 * @param r      The red component of the fog color.
 	 * @param g      The green component of the fog color.
 	 * @param b      The blue component of the fog color.
 	 */
-	public void render(Camera camera, float r, float g, float b) {
+	public void render(FrameContext context, float r, float g, float b) {
 		shader.start();
-		shader.loadViewMatrix(camera);
+		shader.loadViewMatrix(context.getViewMatrix());
 		shader.loadFogColour(r, g, b);
 
-		GL30.glBindVertexArray(cube.getVaoID());
-		GL20.glEnableVertexAttribArray(0);
+		GLStateManager.bindVertexArray(cube.getVaoID());
 
 		bindTextures();
 
-		GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, cube.getVertexCount());
+		device.drawArrays(GL11.GL_TRIANGLES, 0, cube.getVertexCount());
 
-		GL20.glDisableVertexAttribArray(0);
-		GL30.glBindVertexArray(0);
+		GLStateManager.bindVertexArray(0);
 
 		shader.stop();
 	}
@@ -155,10 +156,8 @@ public class SkyboxRenderer {
 			blendFactor = calculateBlendFactor(time, DUSK_START, DAY_LENGTH);
 		}
 
-		GL13.glActiveTexture(GL13.GL_TEXTURE0);
-		GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, texture1);
-		GL13.glActiveTexture(GL13.GL_TEXTURE1);
-		GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, texture2);
+		GLStateManager.bindTexture(0, GL13.GL_TEXTURE_CUBE_MAP, texture1);
+		GLStateManager.bindTexture(1, GL13.GL_TEXTURE_CUBE_MAP, texture2);
 
 		shader.loadBlendFactor(clampBlendFactor(blendFactor));
 	}
@@ -29,11 +29,9 @@ package engine.skybox;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.renderEngine.DisplayManager;
 import engine.shaders.ShaderProgram;
-import engine.toolbox.MathUtils;
 
 
 /**
@@ -57,6 +55,8 @@ public class SkyboxShader extends ShaderProgram {
 
     private float rotation = 0;
 
+    private final Matrix4f matrix = new Matrix4f();
+
     /**
      * Creates a new SkyboxShader instance by loading the vertex and fragment shader files.
      */
@@ -75,11 +75,12 @@ public class SkyboxShader extends ShaderProgram {
 
     /**
      * Loads the view matrix uniform variable in the shader, including rotation for skybox movement.
+     * The translation is removed so the skybox stays centered on the camera.
      *
-     * @param camera The camera representing the view.
+     * @param viewMatrix The view matrix of the current pass. It is copied, not modified.
      */
-    public void loadViewMatrix(Camera camera) {
-        Matrix4f matrix = MathUtils.createViewMatrix(camera);
+    public void loadViewMatrix(Matrix4f viewMatrix) {
+        Matrix4f matrix = this.matrix.load(viewMatrix);
         
         matrix.m30 = 0;
         matrix.m31 = 0;
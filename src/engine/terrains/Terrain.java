@@ -29,13 +29,15 @@ package engine.terrains;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import javax.imageio.ImageIO;
 
-import org.lwjgl.util.vector.Vector2f;
 import org.lwjgl.util.vector.Vector3f;
 
+import engine.models.ModelData;
 import engine.models.RawModel;
+import engine.renderEngine.AssetPipeline;
 import engine.renderEngine.Loader;
 import engine.textures.TerrainTexture;
 import engine.textures.TerrainTexturePack;
@@ -70,11 +72,47 @@ public class Terrain {
      * @param heightMap   The name of the height map image file.
      */
 	public Terrain(int gridX, int gridZ, Loader loader, TerrainTexturePack texturePack, TerrainTexture blendMap, String heightMap) {
+		this(gridX, gridZ, texturePack, blendMap);
+		this.model = generateTerrain(loader, heightMap);
+	}
+	
+	/**
+	 * Creates a terrain whose model hasn't been generated yet.
+	 *
+	 * @param gridX       The grid X coordinate of the terrain.
+	 * @param gridZ       The grid Z coordinate of the terrain.
+	 * @param texturePack The texture pack for the terrain.
+	 * @param blendMap    The blend map for terrain textures.
+	 */
+	private Terrain(int gridX, int gridZ, TerrainTexturePack texturePack, TerrainTexture blendMap) {
 		this.texturePack = texturePack;
 		this.blendMap = blendMap;
 		this.x = gridX * SIZE;
 		this.z = gridZ * SIZE;
-		this.model = generateTerrain(loader, heightMap);
+	}
+	
+	/**
+	 * Creates a terrain like {@link #Terrain(int, int, Loader, TerrainTexturePack, TerrainTexture, String)},
+	 * but generates its heights and vertices on the loader's
+	 * {@link Loader#getAssetPipeline() asset pipeline}.
+	 *
+	 * @param gridX       The grid X coordinate of the terrain.
+	 * @param gridZ       The grid Z coordinate of the terrain.
+	 * @param loader      The loader used to load the terrain model.
+	 * @param texturePack The texture pack for the terrain.
+	 * @param blendMap    The blend map for terrain textures.
+	 * @param heightMap   The name of the height map image file.
+	 * @return The terrain, once its model has been uploaded on the GL thread.
+	 */
+	public static CompletableFuture<Terrain> loadAsync(int gridX, int gridZ, Loader loader,
+			TerrainTexturePack texturePack, TerrainTexture blendMap, String heightMap) {
+		Terrain terrain = new Terrain(gridX, gridZ, texturePack, blendMap);
+		AssetPipeline assets = loader.getAssetPipeline();
+		
+		return assets.upload(assets.supply(() -> terrain.generateMesh(heightMap)), data -> {
+			terrain.model = loadMesh(loader, data);
+			return terrain;
+		});
 	}
 
 	/**
@@ -174,15 +212,11 @@ public class Terrain {
 		float answer;
 		
 		if (xCoord <= (1-zCoord)) {
-			answer = MathUtils
-					.barryCentric(new Vector3f(0, heights[gridX][gridZ], 0), new Vector3f(1,
-							heights[gridX + 1][gridZ], 0), new Vector3f(0,
-							heights[gridX][gridZ + 1], 1), new Vector2f(xCoord, zCoord));
+			answer = MathUtils.barryCentric(0, heights[gridX][gridZ], 0, 1, heights[gridX + 1][gridZ], 0,
+					0, heights[gridX][gridZ + 1], 1, xCoord, zCoord);
 		} else {
-			answer = MathUtils
-					.barryCentric(new Vector3f(1, heights[gridX + 1][gridZ], 0), new Vector3f(1,
-							heights[gridX + 1][gridZ + 1], 1), new Vector3f(0,
-							heights[gridX][gridZ + 1], 1), new Vector2f(xCoord, zCoord));
+			answer = MathUtils.barryCentric(1, heights[gridX + 1][gridZ], 0, 1, heights[gridX + 1][gridZ + 1], 1,
+					0, heights[gridX][gridZ + 1], 1, xCoord, zCoord);
 		}
 		
 		return answer;
@@ -196,6 +230,17 @@ public class Terrain {
 	 * @return The raw model representing the terrain's geometry.
 	 */
 	private RawModel generateTerrain(Loader loader, String heightMap){
+		return loadMesh(loader, generateMesh(heightMap));
+	}
+	
+	/**
+	 * Generates the terrain's heights and vertices. Doesn't touch the GL context,
+	 * so it can run on any thread.
+	 *
+	 * @param heightMap The name of the height map image file.
+	 * @return The vertices of the terrain.
+	 */
+	private ModelData generateMesh(String heightMap) {
 		
 		HeightsGenerator generator = new HeightsGenerator((int) x, (int) z, 128, 56375);
 		
@@ -219,6 +264,7 @@ public class Terrain {
 		int[] indices = new int[6 * (VERTEX_COUNT - 1) * (VERTEX_COUNT - 1)];
 		
 		int vertexPointer = 0;
+		float furthestPoint = 0;
 		
 		for(int i = 0; i < VERTEX_COUNT; i++){
 			for(int j = 0; j < VERTEX_COUNT; j++){
@@ -229,6 +275,8 @@ public class Terrain {
 				
 				vertices[vertexPointer * 3 + 1] = height;
 				vertices[vertexPointer * 3 + 2] = (float)i / ((float) VERTEX_COUNT - 1) * SIZE;
+				furthestPoint = Math.max(furthestPoint, new Vector3f(vertices[vertexPointer * 3], height,
+						vertices[vertexPointer * 3 + 2]).length());
 				
 				Vector3f normal = calculateNormal(j, i, generator);
 				
@@ -261,7 +309,18 @@ public class Terrain {
 			}
 		}
 		
-		return loader.loadToVAO(vertices, textureCoords, normals, indices);
+		return new ModelData(vertices, textureCoords, normals, indices, furthestPoint);
+	}
+	
+	/**
+	 * Loads the vertices of a terrain into a raw model.
+	 *
+	 * @param loader The loader used to load the model.
+	 * @param data   The vertices generated by {@link #generateMesh(String)}.
+	 * @return The raw model representing the terrain's geometry.
+	 */
+	private static RawModel loadMesh(Loader loader, ModelData data) {
+		return loader.loadToVAO(data.getVertices(), data.getTextureCoords(), data.getNormals(), data.getIndices());
 	}
 	
 	/**
@@ -32,6 +32,7 @@ package engine.textures;
 public class ModelTexture {
     
     private int textureID;
+    private TextureLayer layer;
     private int normalMap;
     
     private float shineDamper = 1;
@@ -137,6 +138,16 @@ public class ModelTexture {
     public ModelTexture(int id) {
         this.textureID = id;
     }
+
+    /**
+     * Create a new model texture that is a layer of a texture array. Models whose textures are
+     * layers of the same array and that share all other settings can be drawn in one batch.
+     * @param layer The layer of the texture array.
+     */
+    public ModelTexture(TextureLayer layer) {
+        this(layer.getArrayID());
+        this.layer = layer;
+    }
     
     /**
      * Get the ID of the texture.
@@ -145,4 +156,25 @@ public class ModelTexture {
     public int getID() {
         return this.textureID;
     }
+
+    /**
+     * Get the texture array layer of the texture.
+     * @return The layer, or null if the texture is not part of a texture array.
+     */
+    public TextureLayer getTextureLayer() {
+        return layer;
+    }
+
+    /**
+     * Check whether two textures can be rendered in the same batch: both are layers of the same
+     * texture array and all their settings except the layer match.
+     * @param other The other texture.
+     * @return True if the textures only differ in their layer.
+     */
+    public boolean sharesMaterial(ModelTexture other) {
+        return layer != null && other.layer != null && textureID == other.textureID
+                && normalMap == other.normalMap && shineDamper == other.shineDamper
+                && reflectivity == other.reflectivity && hasTransparency == other.hasTransparency
+                && useFakeLighting == other.useFakeLighting && numberOfRows == other.numberOfRows;
+    }
 }
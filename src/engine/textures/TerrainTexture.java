@@ -32,6 +32,7 @@ package engine.textures;
 public class TerrainTexture {
     
     private int textureID;
+    private TextureLayer layer;
 
     /**
      * Create a new terrain texture with the specified texture ID.
@@ -41,12 +42,29 @@ public class TerrainTexture {
         super();
         this.textureID = textureID;
     }
+
+    /**
+     * Create a new terrain texture that is a layer of a texture array.
+     * @param layer The layer of the texture array.
+     */
+    public TerrainTexture(TextureLayer layer) {
+        this(layer.getArrayID());
+        this.layer = layer;
+    }
     
     /**
      * Get the ID of the terrain texture.
-     * @return The texture ID.
+     * @return The texture ID, or the texture array ID if the texture is a layer of an array.
      */
     public int getTextureID() {
         return textureID;
     }
+
+    /**
+     * Get the texture array layer of the terrain texture.
+     * @return The layer, or null if the texture is not part of a texture array.
+     */
+    public TextureLayer getTextureLayer() {
+        return layer;
+    }
 }
@@ -81,4 +81,25 @@ public class TerrainTexturePack {
     public TerrainTexture getbTexture() {
         return bTexture;
     }
+
+    /**
+     * Get the texture array that holds all four textures of the pack, so the terrain shader can
+     * sample them through a single binding.
+     * @return The texture array ID, or 0 if the textures are not layers of the same array.
+     */
+    public int getTextureArrayID() {
+        TextureLayer layer = backgroundTexture.getTextureLayer();
+
+        if (layer == null) {
+            return 0;
+        }
+
+        for (TerrainTexture texture : new TerrainTexture[] { rTexture, gTexture, bTexture }) {
+            if (texture.getTextureLayer() == null || texture.getTextureLayer().getArrayID() != layer.getArrayID()) {
+                return 0;
+            }
+        }
+
+        return layer.getArrayID();
+    }
 }
@@ -0,0 +1,63 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.textures;
+
+/**
+ * A class representing one layer of a texture array. Textures packed into the same array can be
+ * sampled without rebinding, so models using different layers can share a draw call.
+ */
+public class TextureLayer {
+
+    private final int arrayID;
+    private final int layer;
+
+    /**
+     * Create a new texture layer.
+     * @param arrayID The ID of the {@code GL_TEXTURE_2D_ARRAY} texture.
+     * @param layer The index of the layer in the array.
+     */
+    public TextureLayer(int arrayID, int layer) {
+        this.arrayID = arrayID;
+        this.layer = layer;
+    }
+
+    /**
+     * Get the ID of the texture array.
+     * @return The texture array ID.
+     */
+    public int getArrayID() {
+        return arrayID;
+    }
+
+    /**
+     * Get the index of the layer in the texture array.
+     * @return The layer index.
+     */
+    public int getLayer() {
+        return layer;
+    }
+}
@@ -30,7 +30,7 @@ package engine.toolbox;
  * A utility class for calculating frames per second (FPS) in a game or application.
  */
 public class FPSCounter {
-    private long lastTime; // Timestamp of the last update
+    private long lastTime; // Timestamp of the last update, in nanoseconds
     private int frameCount; // Number of frames counted in the current second
     private int fps; // Current frames per second value
 
@@ -38,7 +38,7 @@ public class FPSCounter {
      * Constructs an FPSCounter and initializes it with initial values.
      */
     public FPSCounter() {
-        lastTime = System.currentTimeMillis();
+        lastTime = System.nanoTime();
         frameCount = 0;
         fps = 0;
     }
@@ -47,13 +47,13 @@ public class FPSCounter {
      * Updates the FPSCounter. This method should be called once per frame.
      */
     public void update() {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = System.nanoTime();
         frameCount++;
 
         // Calculate the time elapsed since the last FPS update
         long elapsedTime = currentTime - lastTime;
 
-        if (elapsedTime >= 1000) {
+        if (elapsedTime >= 1000000000L) {
             // If one second has passed, update the FPS
             fps = frameCount;
             frameCount = 0;
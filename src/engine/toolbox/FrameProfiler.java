@@ -0,0 +1,445 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.toolbox;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL33;
+
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
+
+/**
+ * The FrameProfiler class measures how long each phase of a frame takes, on the CPU and on the
+ * GPU. A phase is marked with a {@link #begin(String)} / {@link #end()} pair; pairs can be nested.
+ * CPU time is measured with {@link System#nanoTime()}. GPU time is measured with
+ * {@code GL_TIMESTAMP} queries that are only read back {@value #QUERY_LATENCY} frames later, so
+ * reading them never waits for the GPU. If a result still isn't available by then, that sample
+ * is dropped instead.
+ *
+ * <p>The last {@value #HISTORY} frames are kept, for rolling averages and for
+ * {@link #writeCsv(File)}. A section that runs several times in one frame has its CPU times
+ * added up, but only its first run is timed on the GPU, so sections are best named per call
+ * site.
+ */
+public class FrameProfiler {
+
+    /**
+     * The name under which the time of the whole frame is reported.
+     */
+    public static final String FRAME = "frame";
+
+    private static final int HISTORY = 120;
+    private static final int QUERY_LATENCY = 4;
+    private static final int MAX_DEPTH = 16;
+
+    private static final Map<String, Section> sections = new LinkedHashMap<String, Section>();
+    private static final Section[] stack = new Section[MAX_DEPTH];
+    private static final float[] frameMillis = new float[HISTORY];
+
+    private static int depth;
+    private static long frame;
+    private static long lastFrameEnd = -1;
+
+    private static boolean enabled = true;
+    private static boolean requestedEnabled = true;
+
+    /**
+     * Starts timing a section. Must be matched by a call to {@link #end()}.
+     *
+     * @param name The name of the section.
+     * @throws IllegalStateException If sections are nested too deeply.
+     */
+    public static void begin(String name) {
+        if (!enabled) {
+            return;
+        }
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("Profiler sections are nested more than " + MAX_DEPTH + " deep");
+        }
+
+        Section section = sections.get(name);
+
+        if (section == null) {
+            section = new Section(name, depth);
+            sections.put(name, section);
+        }
+
+        stack[depth++] = section;
+        section.begin();
+    }
+
+    /**
+     * Stops timing the section that was started last.
+     *
+     * @throws IllegalStateException If no section is open.
+     */
+    public static void end() {
+        if (!enabled) {
+            return;
+        }
+        if (depth == 0) {
+            throw new IllegalStateException("Profiler end() without a matching begin()");
+        }
+
+        Section section = stack[--depth];
+        stack[depth] = null;
+        section.end();
+    }
+
+    /**
+     * Ends the current frame: stores the times of every section, reads back the GPU times of
+     * the frame issued {@value #QUERY_LATENCY} frames ago and applies a pending
+     * {@link #setEnabled(boolean)}. Call this once per frame, outside of any section.
+     *
+     * @throws IllegalStateException If a section is still open.
+     */
+    public static void endFrame() {
+        if (depth != 0) {
+            throw new IllegalStateException("Profiler section " + stack[depth - 1].name + " was never ended");
+        }
+
+        long now = System.nanoTime();
+
+        if (enabled) {
+            int index = historyIndex(frame);
+            frameMillis[index] = lastFrameEnd < 0 ? Float.NaN : (now - lastFrameEnd) / 1e6f;
+
+            for (Section section : sections.values()) {
+                section.endFrame(index);
+            }
+
+            frame++;
+
+            long oldestFrame = frame - QUERY_LATENCY;
+            for (Section section : sections.values()) {
+                section.readGpuTime(oldestFrame);
+            }
+        }
+
+        lastFrameEnd = now;
+        enabled = requestedEnabled;
+    }
+
+    /**
+     * Enables or disables profiling. The change takes effect at the next {@link #endFrame()},
+     * so sections that are open stay balanced.
+     *
+     * @param enabled Whether sections should be timed.
+     */
+    public static void setEnabled(boolean enabled) {
+        requestedEnabled = enabled;
+    }
+
+    /**
+     * Checks whether profiling is enabled.
+     *
+     * @return True if sections are being timed.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Retrieves the names of all sections in the order they were first seen.
+     *
+     * @return The section names.
+     */
+    public static List<String> getSectionNames() {
+        return new ArrayList<String>(sections.keySet());
+    }
+
+    /**
+     * Retrieves how deeply a section was nested when it was first seen.
+     *
+     * @param name The name of the section.
+     * @return The nesting depth, 0 for top-level sections.
+     * @throws IllegalArgumentException If there is no such section.
+     */
+    public static int getDepth(String name) {
+        return getSection(name).depth;
+    }
+
+    /**
+     * Retrieves the average CPU time of a section over the frames it ran in, out of the last
+     * {@value #HISTORY} frames.
+     *
+     * @param name The name of the section, or {@link #FRAME} for the whole frame.
+     * @return The average time in milliseconds, or NaN if there are no samples.
+     * @throws IllegalArgumentException If there is no such section.
+     */
+    public static double getAverageCpuMillis(String name) {
+        return average(FRAME.equals(name) ? frameMillis : getSection(name).cpuMillis);
+    }
+
+    /**
+     * Retrieves the average GPU time of a section over the frames whose results were read
+     * back, out of the last {@value #HISTORY} frames.
+     *
+     * @param name The name of the section.
+     * @return The average time in milliseconds, or NaN if there are no samples.
+     * @throws IllegalArgumentException If there is no such section.
+     */
+    public static double getAverageGpuMillis(String name) {
+        return average(getSection(name).gpuMillis);
+    }
+
+    /**
+     * Writes the recorded history to a CSV file with one row per frame and section. Columns
+     * are {@code frame,section,cpu_ms,gpu_ms}; a time is left empty if there is no sample.
+     *
+     * @param file The file to write to. It is overwritten.
+     * @throws IOException If the file can't be written.
+     */
+    public static void writeCsv(File file) throws IOException {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+
+        try {
+            writer.println("frame,section,cpu_ms,gpu_ms");
+
+            for (long f = Math.max(0, frame - HISTORY); f < frame; f++) {
+                int index = historyIndex(f);
+                writer.println(f + "," + FRAME + "," + format(frameMillis[index]) + ",");
+
+                for (Section section : sections.values()) {
+                    writer.println(f + "," + section.name + "," + format(section.cpuMillis[index]) + ","
+                            + format(section.gpuMillis[index]));
+                }
+            }
+        } finally {
+            writer.close();
+        }
+
+        if (writer.checkError()) {
+            throw new IOException("Failed to write " + file);
+        }
+    }
+
+    /**
+     * Deletes the GPU queries and forgets all sections and history.
+     */
+    public static void cleanUp() {
+        for (Section section : sections.values()) {
+            section.cleanUp();
+        }
+
+        sections.clear();
+        frame = 0;
+        lastFrameEnd = -1;
+    }
+
+    /**
+     * Looks up a section by name.
+     *
+     * @param name The name of the section.
+     * @return The section.
+     * @throws IllegalArgumentException If there is no such section.
+     */
+    private static Section getSection(String name) {
+        Section section = sections.get(name);
+
+        if (section == null) {
+            throw new IllegalArgumentException("Unknown profiler section: " + name);
+        }
+
+        return section;
+    }
+
+    /**
+     * Averages the samples of a history that are not NaN.
+     *
+     * @param samples The history.
+     * @return The average, or NaN if there are no samples.
+     */
+    private static double average(float[] samples) {
+        int count = (int) Math.min(frame, HISTORY);
+        double sum = 0;
+        int valid = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (!Float.isNaN(samples[i])) {
+                sum += samples[i];
+                valid++;
+            }
+        }
+
+        return valid == 0 ? Double.NaN : sum / valid;
+    }
+
+    /**
+     * Formats a sample for the CSV file.
+     *
+     * @param millis The sample in milliseconds.
+     * @return The formatted sample, or an empty string for NaN.
+     */
+    private static String format(float millis) {
+        return Float.isNaN(millis) ? "" : String.format(Locale.ROOT, "%.4f", millis);
+    }
+
+    /**
+     * Maps a frame number to its index in the history.
+     *
+     * @param frame The frame number.
+     * @return The history index.
+     */
+    private static int historyIndex(long frame) {
+        return (int) (frame % HISTORY);
+    }
+
+    /**
+     * The timings of one named section.
+     */
+    private static class Section {
+
+        private final String name;
+        private final int depth;
+
+        private final float[] cpuMillis = new float[HISTORY];
+        private final float[] gpuMillis = new float[HISTORY];
+
+        private final int[] startQueries = new int[QUERY_LATENCY];
+        private final int[] endQueries = new int[QUERY_LATENCY];
+        private final long[] queryFrames = new long[QUERY_LATENCY];
+
+        private long cpuStart;
+        private long cpuNanos;
+        private boolean ran;
+
+        /**
+         * Creates a section and its timer queries.
+         *
+         * @param name  The name of the section.
+         * @param depth The nesting depth at which it was first seen.
+         */
+        private Section(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+
+            GraphicsDevice device = Graphics.getDevice();
+
+            for (int i = 0; i < QUERY_LATENCY; i++) {
+                startQueries[i] = device.genQueries();
+                endQueries[i] = device.genQueries();
+                queryFrames[i] = -1;
+            }
+            for (int i = 0; i < HISTORY; i++) {
+                cpuMillis[i] = Float.NaN;
+                gpuMillis[i] = Float.NaN;
+            }
+        }
+
+        /**
+         * Starts a run of the section.
+         */
+        private void begin() {
+            if (!ran) {
+                int slot = (int) (frame % QUERY_LATENCY);
+                Graphics.getDevice().queryCounter(startQueries[slot], GL33.GL_TIMESTAMP);
+            }
+
+            cpuStart = System.nanoTime();
+        }
+
+        /**
+         * Ends a run of the section.
+         */
+        private void end() {
+            cpuNanos += System.nanoTime() - cpuStart;
+
+            if (!ran) {
+                int slot = (int) (frame % QUERY_LATENCY);
+                Graphics.getDevice().queryCounter(endQueries[slot], GL33.GL_TIMESTAMP);
+                queryFrames[slot] = frame;
+                ran = true;
+            }
+        }
+
+        /**
+         * Stores the CPU time of the frame that just ended and resets for the next one.
+         *
+         * @param index The history index of the frame.
+         */
+        private void endFrame(int index) {
+            cpuMillis[index] = ran ? cpuNanos / 1e6f : Float.NaN;
+            gpuMillis[index] = Float.NaN;
+            cpuNanos = 0;
+            ran = false;
+        }
+
+        /**
+         * Reads the GPU time of an old frame if the section ran in it. The slot is about to be
+         * reused, so a result that isn't available yet is dropped.
+         *
+         * @param oldFrame The frame to read.
+         */
+        private void readGpuTime(long oldFrame) {
+            if (oldFrame < 0) {
+                return;
+            }
+
+            int slot = (int) (oldFrame % QUERY_LATENCY);
+
+            if (queryFrames[slot] != oldFrame) {
+                return;
+            }
+
+            queryFrames[slot] = -1;
+            GraphicsDevice device = Graphics.getDevice();
+
+            if (device.getQueryObjecti(endQueries[slot], GL15.GL_QUERY_RESULT_AVAILABLE) == 0) {
+                return;
+            }
+
+            long start = device.getQueryObjectui64(startQueries[slot], GL15.GL_QUERY_RESULT);
+            long end = device.getQueryObjectui64(endQueries[slot], GL15.GL_QUERY_RESULT);
+            gpuMillis[historyIndex(oldFrame)] = (end - start) / 1e6f;
+        }
+
+        /**
+         * Deletes the timer queries of the section.
+         */
+        private void cleanUp() {
+            GraphicsDevice device = Graphics.getDevice();
+
+            for (int i = 0; i < QUERY_LATENCY; i++) {
+                device.deleteQueries(startQueries[i]);
+                device.deleteQueries(endQueries[i]);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,321 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.toolbox;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The FrameTimeHistogram class records frame times in nanoseconds in a fixed amount of memory.
+ * Buckets are log-linear: every power of two is split into {@value #SUB_BUCKETS} equal buckets,
+ * so any recorded time is known to within about 3% no matter whether it is a 100 microsecond frame or a
+ * two second hitch. Times above {@value #MAX_SECONDS} seconds are counted in the last bucket.
+ *
+ * <p>Recording and reading are lock-free, so the histogram can be read from another thread
+ * while the render thread records into it. {@link #getIntervalSnapshot()} takes a snapshot and
+ * resets the histogram in one pass, which allows windowed reporting (e.g. the last second)
+ * without losing recorded values between the snapshot and the reset. Windows are only exact
+ * when nothing is recorded during the snapshot, though, see {@link #getIntervalSnapshot()}.
+ */
+public class FrameTimeHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_SECONDS = 64;
+    private static final long MAX_NANOS = MAX_SECONDS * 1000000000L;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_NANOS) + 1;
+
+    private final long budgetNanos;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong overBudget = new AtomicLong();
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param budgetNanos The frame time budget in nanoseconds, e.g. 16,666,667 for 60 FPS.
+     *                    Frames that take longer are counted as over budget.
+     * @throws IllegalArgumentException If the budget is not positive.
+     */
+    public FrameTimeHistogram(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("Frame budget must be positive");
+        }
+
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Records the time of one frame. Negative times are recorded as 0.
+     *
+     * @param nanos The frame time in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_NANOS));
+
+        counts.incrementAndGet(bucketIndex(value));
+        totalNanos.addAndGet(value);
+
+        if (value > budgetNanos) {
+            overBudget.incrementAndGet();
+        }
+
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Takes a snapshot of everything recorded since the last reset.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot getSnapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+
+        return new Snapshot(copy, totalNanos.get(), maxNanos.get(), overBudget.get(), budgetNanos);
+    }
+
+    /**
+     * Takes a snapshot of everything recorded since the last reset and resets the histogram.
+     * Every bucket and total is swapped out atomically, so each value recorded at the same time
+     * is counted in exactly one window. The fields are swapped one after the other, though, so
+     * a frame recorded during the swap may have its bucket counted in one window and its time,
+     * maximum or over-budget flag in the next. Under concurrent recording the window is
+     * therefore approximate; a single thread that both records and takes snapshots, like
+     * the render loop, gets exact windows.
+     *
+     * @return The snapshot of the window that just ended.
+     */
+    public Snapshot getIntervalSnapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.getAndSet(i, 0);
+        }
+
+        return new Snapshot(copy, totalNanos.getAndSet(0), maxNanos.getAndSet(0), overBudget.getAndSet(0),
+                budgetNanos);
+    }
+
+    /**
+     * Forgets everything that was recorded.
+     */
+    public void reset() {
+        getIntervalSnapshot();
+    }
+
+    /**
+     * Retrieves the frame time budget.
+     *
+     * @return The budget in nanoseconds.
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Maps a time to its bucket. Times below {@value #SUB_BUCKETS} ns get a bucket each; above
+     * that, the top {@value #SUB_BUCKET_BITS} bits below the highest set bit select one of the
+     * sub-buckets of that power of two.
+     *
+     * @param nanos The time in nanoseconds, at least 0.
+     * @return The index of the bucket.
+     */
+    private static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+
+        int highestBit = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (nanos >>> shift) - SUB_BUCKETS;
+
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Retrieves the largest time that falls into a bucket.
+     *
+     * @param index The index of the bucket.
+     * @return The upper bound of the bucket in nanoseconds.
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * An immutable copy of a histogram at one point in time.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long overBudget;
+        private final long budgetNanos;
+
+        /**
+         * Creates a snapshot from copied histogram data.
+         *
+         * @param counts      The bucket counts, owned by the snapshot.
+         * @param totalNanos  The sum of all recorded times.
+         * @param maxNanos    The largest recorded time.
+         * @param overBudget  The number of frames over budget.
+         * @param budgetNanos The frame time budget.
+         */
+        private Snapshot(long[] counts, long totalNanos, long maxNanos, long overBudget, long budgetNanos) {
+            long count = 0;
+
+            for (long bucket : counts) {
+                count += bucket;
+            }
+
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.overBudget = overBudget;
+            this.budgetNanos = budgetNanos;
+        }
+
+        /**
+         * Retrieves the time that the given percentage of frames took at most, to within the
+         * resolution of the buckets, and never more than the slowest frame.
+         *
+         * @param percentile The percentile, from 0 to 100.
+         * @return The time in nanoseconds, or 0 if no frames were recorded.
+         * @throws IllegalArgumentException If the percentile is out of range.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+            }
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos);
+                }
+            }
+
+            return maxNanos;
+        }
+
+        /**
+         * @return The median frame time in nanoseconds.
+         */
+        public long getP50Nanos() {
+            return getPercentileNanos(50);
+        }
+
+        /**
+         * @return The 95th percentile frame time in nanoseconds.
+         */
+        public long getP95Nanos() {
+            return getPercentileNanos(95);
+        }
+
+        /**
+         * @return The 99th percentile frame time in nanoseconds.
+         */
+        public long getP99Nanos() {
+            return getPercentileNanos(99);
+        }
+
+        /**
+         * @return The slowest frame time in nanoseconds.
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @return The average frame time in nanoseconds, or 0 if no frames were recorded.
+         */
+        public double getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / (double) count;
+        }
+
+        /**
+         * @return The number of recorded frames.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The number of frames that took longer than the budget.
+         */
+        public long getOverBudgetCount() {
+            return overBudget;
+        }
+
+        /**
+         * @return The frame time budget in nanoseconds.
+         */
+        public long getBudgetNanos() {
+            return budgetNanos;
+        }
+
+        /**
+         * Summarizes the snapshot on a single line, in milliseconds.
+         *
+         * @return The summary.
+         */
+        @Override
+        public String toString() {
+            return String.format("p50 %.2f ms  p95 %.2f ms  p99 %.2f ms  max %.2f ms  over budget %d/%d",
+                    getP50Nanos() / 1e6, getP95Nanos() / 1e6, getP99Nanos() / 1e6, maxNanos / 1e6,
+                    overBudget, count);
+        }
+
+    }
+
+}
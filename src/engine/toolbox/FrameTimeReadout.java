@@ -0,0 +1,132 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.toolbox;
+
+import org.lwjgl.util.vector.Vector2f;
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.fontMeshCreator.FontType;
+import engine.fontMeshCreator.GUIText;
+import engine.renderEngine.DisplayManager;
+
+/**
+ * The FrameTimeReadout class shows the frame rate and frame time percentiles of the last second
+ * in the top left corner of the screen. It keeps its own {@link FrameTimeHistogram} and takes an
+ * interval snapshot of it once per second, so the numbers describe the last window rather than
+ * the whole run, and the text is only rebuilt when the window ends.
+ */
+public class FrameTimeReadout {
+
+    private static final long WINDOW_NANOS = 1000000000L;
+    private static final float FONT_SIZE = 0.8f;
+    private static final float LEFT = 0.01f;
+    private static final float TOP = 0.01f;
+    private static final float LINE_HEIGHT = 0.03f * FONT_SIZE;
+
+    private final FontType font;
+    private final FrameTimeHistogram histogram;
+
+    private long windowNanos;
+    private FrameTimeHistogram.Snapshot lastWindow;
+    private GUIText fpsText;
+    private GUIText percentileText;
+
+    /**
+     * Creates a readout that counts frames slower than the display's budget of 60 FPS.
+     *
+     * @param font The font to draw the text with.
+     */
+    public FrameTimeReadout(FontType font) {
+        this.font = font;
+        this.histogram = new FrameTimeHistogram(DisplayManager.getFrameTimeHistogram().getBudgetNanos());
+    }
+
+    /**
+     * Records the last frame and refreshes the text when a window has ended. Call this once per
+     * frame after {@link DisplayManager#updateDisplay()}.
+     */
+    public void update() {
+        long frameNanos = DisplayManager.getLastFrameNanos();
+
+        histogram.record(frameNanos);
+        windowNanos += frameNanos;
+
+        if (windowNanos < WINDOW_NANOS) {
+            return;
+        }
+
+        lastWindow = histogram.getIntervalSnapshot();
+        removeText();
+
+        fpsText = createText(String.format("%.0f fps", lastWindow.getCount() * 1e9 / windowNanos), 0);
+        percentileText = createText(lastWindow.toString(), 1);
+        windowNanos = 0;
+    }
+
+    /**
+     * Retrieves the statistics of the last complete window.
+     *
+     * @return The snapshot, or null if no window has ended yet.
+     */
+    public FrameTimeHistogram.Snapshot getLastWindow() {
+        return lastWindow;
+    }
+
+    /**
+     * Removes the text from the screen.
+     */
+    public void cleanUp() {
+        removeText();
+    }
+
+    /**
+     * Creates a line of text.
+     *
+     * @param text The text of the line.
+     * @param line The line number, counted from the top.
+     * @return The text, which is already shown.
+     */
+    private GUIText createText(String text, int line) {
+        GUIText guiText = new GUIText(text, FONT_SIZE, font, new Vector2f(LEFT, TOP + line * LINE_HEIGHT),
+                1f, false, 0.5f, 0.1f, 0.0f, 0.5f, new Vector2f(0, 0), new Vector3f(0, 0, 0));
+        guiText.setColour(1, 0, 0);
+        return guiText;
+    }
+
+    /**
+     * Removes the lines from the screen, if they are shown.
+     */
+    private void removeText() {
+        if (fpsText != null) {
+            fpsText.remove();
+            percentileText.remove();
+            fpsText = null;
+            percentileText = null;
+        }
+    }
+
+}
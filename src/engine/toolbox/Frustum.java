@@ -0,0 +1,169 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.toolbox;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+/**
+ * A view frustum described by six planes, extracted from a projection-view matrix.
+ * Each plane is stored as (a, b, c, d) with a normalized normal pointing into the frustum,
+ * so a point is inside a plane when {@code a * x + b * y + c * z + d >= 0}.
+ */
+public class Frustum {
+
+	private static final int PLANE_COUNT = 6;
+
+	private final float[][] planes = new float[PLANE_COUNT][4];
+
+	private final Matrix4f projectionView = new Matrix4f();
+
+	/**
+	 * Extracts the frustum planes from a projection matrix and a view matrix.
+	 *
+	 * @param projectionMatrix The projection matrix.
+	 * @param viewMatrix       The view matrix.
+	 */
+	public void update(Matrix4f projectionMatrix, Matrix4f viewMatrix) {
+		Matrix4f.mul(projectionMatrix, viewMatrix, projectionView);
+		update(projectionView);
+	}
+
+	/**
+	 * Extracts the frustum planes from a combined projection-view matrix
+	 * (Gribb/Hartmann method). Works for both perspective and orthographic projections.
+	 *
+	 * @param m The projection-view matrix.
+	 */
+	public void update(Matrix4f m) {
+		// Rows of the matrix; LWJGL stores mCR (column, row)
+		setPlane(0, m.m03 + m.m00, m.m13 + m.m10, m.m23 + m.m20, m.m33 + m.m30); // left
+		setPlane(1, m.m03 - m.m00, m.m13 - m.m10, m.m23 - m.m20, m.m33 - m.m30); // right
+		setPlane(2, m.m03 + m.m01, m.m13 + m.m11, m.m23 + m.m21, m.m33 + m.m31); // bottom
+		setPlane(3, m.m03 - m.m01, m.m13 - m.m11, m.m23 - m.m21, m.m33 - m.m31); // top
+		setPlane(4, m.m03 + m.m02, m.m13 + m.m12, m.m23 + m.m22, m.m33 + m.m32); // near
+		setPlane(5, m.m03 - m.m02, m.m13 - m.m12, m.m23 - m.m22, m.m33 - m.m32); // far
+	}
+
+	/**
+	 * Copies the planes of another frustum.
+	 *
+	 * @param other The frustum to copy.
+	 */
+	public void set(Frustum other) {
+		for (int i = 0; i < PLANE_COUNT; i++) {
+			System.arraycopy(other.planes[i], 0, planes[i], 0, 4);
+		}
+	}
+
+	/**
+	 * Tests whether a sphere is at least partially inside the frustum.
+	 *
+	 * @param x      The X coordinate of the sphere center.
+	 * @param y      The Y coordinate of the sphere center.
+	 * @param z      The Z coordinate of the sphere center.
+	 * @param radius The radius of the sphere.
+	 * @return True if the sphere intersects the frustum, false if it is fully outside.
+	 */
+	public boolean intersectsSphere(float x, float y, float z, float radius) {
+		for (int i = 0; i < PLANE_COUNT; i++) {
+			float[] p = planes[i];
+
+			if (p[0] * x + p[1] * y + p[2] * z + p[3] < -radius) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tests whether an axis-aligned box is at least partially inside the frustum.
+	 * For every plane only the corner furthest along the plane normal is tested.
+	 *
+	 * @param min The minimum corner of the box.
+	 * @param max The maximum corner of the box.
+	 * @return True if the box intersects the frustum, false if it is fully outside.
+	 */
+	public boolean intersectsBox(Vector3f min, Vector3f max) {
+		return intersectsBox(min.x, min.y, min.z, max.x, max.y, max.z);
+	}
+
+	/**
+	 * Tests whether an axis-aligned box is at least partially inside the frustum.
+	 *
+	 * @param minX The minimum X of the box.
+	 * @param minY The minimum Y of the box.
+	 * @param minZ The minimum Z of the box.
+	 * @param maxX The maximum X of the box.
+	 * @param maxY The maximum Y of the box.
+	 * @param maxZ The maximum Z of the box.
+	 * @return True if the box intersects the frustum, false if it is fully outside.
+	 */
+	public boolean intersectsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		for (int i = 0; i < PLANE_COUNT; i++) {
+			float[] p = planes[i];
+
+			float x = p[0] >= 0 ? maxX : minX;
+			float y = p[1] >= 0 ? maxY : minY;
+			float z = p[2] >= 0 ? maxZ : minZ;
+
+			if (p[0] * x + p[1] * y + p[2] * z + p[3] < 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Retrieves one of the frustum planes.
+	 *
+	 * @param index The plane index (left, right, bottom, top, near, far).
+	 * @return The plane as (a, b, c, d). The returned array must not be modified.
+	 */
+	public float[] getPlane(int index) {
+		return planes[index];
+	}
+
+	/**
+	 * Stores a plane and normalizes it so that distances are in world units.
+	 */
+	private void setPlane(int index, float a, float b, float c, float d) {
+		float length = (float) Math.sqrt(a * a + b * b + c * c);
+
+		if (length == 0) {
+			length = 1;
+		}
+
+		float[] p = planes[index];
+		p[0] = a / length;
+		p[1] = b / length;
+		p[2] = c / length;
+		p[3] = d / length;
+	}
+}
@@ -35,6 +35,13 @@ import engine.entities.DefaultCamera;
 
 /**
  * A utility class for math related functions.
+ *
+ * <p>Every method that builds a matrix has a variant writing into a caller-supplied
+ * destination, so the per-frame paths don't allocate. The rotations are built directly from
+ * the sines and cosines of the angles instead of chaining {@code Matrix4f.rotate}.
+ *
+ * <p>Input validation (NaN, infinite or out-of-range values) only runs when assertions are
+ * enabled ({@code java -ea}), so it costs nothing in release builds.
  */
 public class MathUtils {
 	
@@ -46,39 +53,49 @@ public class MathUtils {
 	 * @param p3 The third vertex of the triangle.
 	 * @param pos The position within the triangle as a 2D vector.
 	 * @return The interpolated value at the given position within the triangle.
-	 * @throws IllegalArgumentException If input values are invalid.
 	 */
 	public static float barryCentric(Vector3f p1, Vector3f p2, Vector3f p3, Vector2f pos) {
-	    float det = (p2.z - p3.z) * (p1.x - p3.x) + (p3.x - p2.x) * (p1.z - p3.z);
-	    
-	    if (Float.isNaN(p1.x) || Float.isNaN(p1.y) || Float.isNaN(p1.z) // p1
-	    		|| Float.isInfinite(p1.x) || Float.isInfinite(p1.y) || Float.isInfinite(p1.z) // p1
-	    		
-	    		|| Float.isNaN(p2.x) || Float.isNaN(p2.y) || Float.isNaN(p2.z) // p2
-	    		|| Float.isInfinite(p2.x) || Float.isInfinite(p2.y) || Float.isInfinite(p2.z) // p2
-	    		
-	    		|| Float.isNaN(p3.x) || Float.isNaN(p3.y) || Float.isNaN(p3.z) // p3
-	    		|| Float.isInfinite(p3.x) || Float.isInfinite(p3.y) || Float.isInfinite(p3.z) // p3
-	    		
-	    		|| Float.isNaN(pos.x) || Float.isNaN(pos.y) // pos
-	    		|| Float.isInfinite(pos.x) || Float.isInfinite(pos.y) // pos
-	    		) {
-	            throw new IllegalArgumentException("Invalid input values.");
-	        }
+		return barryCentric(p1.x, p1.y, p1.z, p2.x, p2.y, p2.z, p3.x, p3.y, p3.z, pos.x, pos.y);
+	}
+
+	/**
+	 * Calculates the barrycentric interpolation of a point within a triangle, without
+	 * requiring the caller to allocate vectors for the vertices.
+	 *
+	 * @param x1 The X coordinate of the first vertex.
+	 * @param y1 The height of the first vertex.
+	 * @param z1 The Z coordinate of the first vertex.
+	 * @param x2 The X coordinate of the second vertex.
+	 * @param y2 The height of the second vertex.
+	 * @param z2 The Z coordinate of the second vertex.
+	 * @param x3 The X coordinate of the third vertex.
+	 * @param y3 The height of the third vertex.
+	 * @param z3 The Z coordinate of the third vertex.
+	 * @param x  The X coordinate of the position within the triangle.
+	 * @param z  The Z coordinate of the position within the triangle.
+	 * @return The interpolated height, or NaN if the position is outside the triangle or the
+	 *         triangle is degenerate.
+	 */
+	public static float barryCentric(float x1, float y1, float z1, float x2, float y2, float z2,
+			float x3, float y3, float z3, float x, float z) {
+		assert isFinite(x1, y1, z1) && isFinite(x2, y2, z2) && isFinite(x3, y3, z3) && isFinite(x, z, 0)
+				: "Invalid input values.";
+
+	    float det = (z2 - z3) * (x1 - x3) + (x3 - x2) * (z1 - z3);
 	    
 	    if (Math.abs(det) < 1e-6f) {
 	        return Float.NaN;
 	    }
 
-	    float l1 = ((p2.z - p3.z) * (pos.x - p3.x) + (p3.x - p2.x) * (pos.y - p3.z)) / det;
-	    float l2 = ((p3.z - p1.z) * (pos.x - p3.x) + (p1.x - p3.x) * (pos.y - p3.z)) / det;
+	    float l1 = ((z2 - z3) * (x - x3) + (x3 - x2) * (z - z3)) / det;
+	    float l2 = ((z3 - z1) * (x - x3) + (x1 - x3) * (z - z3)) / det;
 	    float l3 = 1.0f - l1 - l2;
 
 	    if (l1 < 0.0f || l2 < 0.0f || l3 < 0.0f || l1 > 1.0f || l2 > 1.0f || l3 > 1.0f) {
 	        return Float.NaN;
 	    }
 
-	    return l1 * p1.y + l2 * p2.y + l3 * p3.y;
+	    return l1 * y1 + l2 * y2 + l3 * y3;
 	}
 
 	/**
@@ -89,47 +106,67 @@ public class MathUtils {
 	 * @param ry The rotation around the y-axis (in degrees).
 	 * @param rz The rotation around the z-axis (in degrees).
 	 * @param scale The uniform scale factor.
-	 * @return The transformation matrix.
-	 * @throws IllegalArgumentException If input values are invalid.
+	 * @return A new transformation matrix.
 	 */
 	public static Matrix4f createTransformationMatrix(Vector3f translation, float rx, float ry,
         float rz, float scale) {
-		// Check if translation vector is null
-		if (translation == null) {
-			throw new IllegalArgumentException("Translation vector cannot be null.");
-		}
-
-		Matrix4f matrix = new Matrix4f();
-		matrix.setIdentity();
-
-		// Check if translation values are valid (not NaN or infinite)
-		if (Float.isNaN(translation.x) || Float.isNaN(translation.y) || Float.isNaN(translation.z) ||
-			Float.isInfinite(translation.x) || Float.isInfinite(translation.y) || Float.isInfinite(translation.z)) {
-			throw new IllegalArgumentException("Invalid translation values.");
-		}
-
-		// Translate the matrix based on the translation vector
-		Matrix4f.translate(translation, matrix, matrix);
-
-		// Check if rotation angles are valid (within the range -360 to 360 degrees)
-		if (rx < -360f || rx > 360f || ry < -360f || ry > 360f || rz < -360f || rz > 360f) {
-			throw new IllegalArgumentException("Invalid rotation angles.");
-		}
-
-		// Rotate the matrix based on the rotation angles
-		Matrix4f.rotate((float) Math.toRadians(rx), new Vector3f(1, 0, 0), matrix, matrix);
-		Matrix4f.rotate((float) Math.toRadians(ry), new Vector3f(0, 1, 0), matrix, matrix);
-		Matrix4f.rotate((float) Math.toRadians(rz), new Vector3f(0, 0, 1), matrix, matrix);
-
-		// Check if scale value is valid (not NaN, infinite, or non-positive)
-		if (Float.isNaN(scale) || Float.isInfinite(scale) || scale <= 0f) {
-			throw new IllegalArgumentException("Invalid scale value.");
-		}
-
-		// Scale the matrix based on the scale value
-		Matrix4f.scale(new Vector3f(scale, scale, scale), matrix, matrix);
-
-		return matrix;
+		return createTransformationMatrix(translation, rx, ry, rz, scale, new Matrix4f());
+	}
+
+	/**
+	 * Writes a transformation matrix based on translation, rotation, and scale values into a
+	 * destination matrix. The result equals translating, then rotating around X, Y and Z in
+	 * that order, then scaling.
+	 *
+	 * @param translation The translation vector (x, y, z).
+	 * @param rx The rotation around the x-axis (in degrees).
+	 * @param ry The rotation around the y-axis (in degrees).
+	 * @param rz The rotation around the z-axis (in degrees).
+	 * @param scale The uniform scale factor.
+	 * @param dest The matrix to write the result into.
+	 * @return The destination matrix.
+	 */
+	public static Matrix4f createTransformationMatrix(Vector3f translation, float rx, float ry,
+        float rz, float scale, Matrix4f dest) {
+		assert translation != null && isFinite(translation.x, translation.y, translation.z)
+				: "Invalid translation values.";
+		assert rx >= -360f && rx <= 360f && ry >= -360f && ry <= 360f && rz >= -360f && rz <= 360f
+				: "Invalid rotation angles.";
+		assert scale > 0f && !Float.isInfinite(scale) : "Invalid scale value.";
+
+		double ax = Math.toRadians(rx);
+		double ay = Math.toRadians(ry);
+		double az = Math.toRadians(rz);
+
+		float sx = (float) Math.sin(ax);
+		float cx = (float) Math.cos(ax);
+		float sy = (float) Math.sin(ay);
+		float cy = (float) Math.cos(ay);
+		float sz = (float) Math.sin(az);
+		float cz = (float) Math.cos(az);
+
+		// Rx * Ry * Rz multiplied out; LWJGL stores mCR (column, row)
+		dest.m00 = cy * cz * scale;
+		dest.m01 = (sx * sy * cz + cx * sz) * scale;
+		dest.m02 = (-cx * sy * cz + sx * sz) * scale;
+		dest.m03 = 0;
+
+		dest.m10 = -cy * sz * scale;
+		dest.m11 = (-sx * sy * sz + cx * cz) * scale;
+		dest.m12 = (cx * sy * sz + sx * cz) * scale;
+		dest.m13 = 0;
+
+		dest.m20 = sy * scale;
+		dest.m21 = -sx * cy * scale;
+		dest.m22 = cx * cy * scale;
+		dest.m23 = 0;
+
+		dest.m30 = translation.x;
+		dest.m31 = translation.y;
+		dest.m32 = translation.z;
+		dest.m33 = 1;
+
+		return dest;
 	}
 
 	/**
@@ -137,82 +174,104 @@ public class MathUtils {
 	 *
 	 * @param translation The translation vector (x, y).
 	 * @param scale The scale vector (x, y).
-	 * @return The transformation matrix.
-	 * @throws IllegalArgumentException If input values are invalid.
+	 * @return A new transformation matrix.
 	 */
 	public static Matrix4f createTransformationMatrix(Vector2f translation, Vector2f scale) {
-		// Check if translation or scale vectors are null
-		if (translation == null || scale == null) {
-			throw new IllegalArgumentException("Translation and scale vectors cannot be null.");
-		}
-	
-		Matrix4f matrix = new Matrix4f();
-		matrix.setIdentity();
-	
-		// Check if translation values are valid (not NaN or infinite)
-		if (Float.isNaN(translation.x) || Float.isNaN(translation.y) ||
-			Float.isInfinite(translation.x) || Float.isInfinite(translation.y)) {
-			throw new IllegalArgumentException("Invalid translation values.");
-		}
-	
-		// Translate the matrix based on the translation vector
-		Matrix4f.translate(new Vector3f(translation.x, translation.y, 0f), matrix, matrix);
-	
-		// Check if scale values are valid (not NaN, infinite, or non-positive)
-		if (Float.isNaN(scale.x) || Float.isNaN(scale.y) ||
-			Float.isInfinite(scale.x) || Float.isInfinite(scale.y) ||
-			scale.x <= 0f || scale.y <= 0f) {
-			throw new IllegalArgumentException("Invalid scale values.");
-		}
-	
-		// Scale the matrix based on the scale vector
-		Matrix4f.scale(new Vector3f(scale.x, scale.y, 1f), matrix, matrix);
-	
-		return matrix;
+		return createTransformationMatrix(translation, scale, new Matrix4f());
+	}
+
+	/**
+	 * Writes a transformation matrix based on translation and scale vectors (2D) into a
+	 * destination matrix.
+	 *
+	 * @param translation The translation vector (x, y).
+	 * @param scale The scale vector (x, y).
+	 * @param dest The matrix to write the result into.
+	 * @return The destination matrix.
+	 */
+	public static Matrix4f createTransformationMatrix(Vector2f translation, Vector2f scale, Matrix4f dest) {
+		assert translation != null && isFinite(translation.x, translation.y, 0) : "Invalid translation values.";
+		assert scale != null && scale.x > 0f && scale.y > 0f && !Float.isInfinite(scale.x)
+				&& !Float.isInfinite(scale.y) : "Invalid scale values.";
+
+		dest.setIdentity();
+		dest.m00 = scale.x;
+		dest.m11 = scale.y;
+		dest.m30 = translation.x;
+		dest.m31 = translation.y;
+
+		return dest;
 	}
 
 	/**
 	 * Creates a view matrix based on the camera's position and orientation.
 	 *
 	 * @param camera The camera for which to create the view matrix.
-	 * @return The view matrix.
-	 * @throws IllegalArgumentException If the camera is null or has invalid properties.
+	 * @return A new view matrix.
 	 */
 	public static Matrix4f createViewMatrix(Camera camera) {
-		// Check if the camera is null
-		if (camera == null) {
-			throw new IllegalArgumentException("Camera cannot be null.");
-		}
-	
-		Matrix4f viewMatrix = new Matrix4f();
-		viewMatrix.setIdentity();
-	
-		// Convert pitch and yaw to radians
-		float pitch = (float) Math.toRadians(camera.getPitch());
-		float yaw = (float) Math.toRadians(camera.getYaw());
-	
-		// Check if pitch and yaw are valid (not NaN or infinite)
-		if (Float.isNaN(pitch) || Float.isNaN(yaw) ||
-			Float.isInfinite(pitch) || Float.isInfinite(yaw)) {
-			throw new IllegalArgumentException("Invalid camera orientation angles.");
-		}
-	
-		// Rotate the view matrix based on pitch and yaw
-		Matrix4f.rotate(pitch, new Vector3f(1, 0, 0), viewMatrix, viewMatrix);
-		Matrix4f.rotate(yaw, new Vector3f(0, 1, 0), viewMatrix, viewMatrix);
-	
+		return createViewMatrix(camera, new Matrix4f());
+	}
+
+	/**
+	 * Writes a view matrix based on the camera's position and orientation into a destination
+	 * matrix. The result equals rotating by the pitch, then by the yaw, then translating by
+	 * the negative camera position.
+	 *
+	 * @param camera The camera for which to create the view matrix.
+	 * @param dest The matrix to write the result into.
+	 * @return The destination matrix.
+	 */
+	public static Matrix4f createViewMatrix(Camera camera, Matrix4f dest) {
+		assert camera != null : "Camera cannot be null.";
+
 		Vector3f cameraPos = camera.getPosition();
-	
-		// Check if camera position is valid (not NaN or infinite)
-		if (Float.isNaN(cameraPos.x) || Float.isNaN(cameraPos.y) || Float.isNaN(cameraPos.z) ||
-			Float.isInfinite(cameraPos.x) || Float.isInfinite(cameraPos.y) || Float.isInfinite(cameraPos.z)) {
-			throw new IllegalArgumentException("Invalid camera position.");
-		}
-	
-		// Translate the view matrix based on the negative camera position
-		Vector3f negativeCameraPos = new Vector3f(-cameraPos.x, -cameraPos.y, -cameraPos.z);
-		Matrix4f.translate(negativeCameraPos, viewMatrix, viewMatrix);
-	
-		return viewMatrix;
+
+		assert isFinite(camera.getPitch(), camera.getYaw(), 0) : "Invalid camera orientation angles.";
+		assert isFinite(cameraPos.x, cameraPos.y, cameraPos.z) : "Invalid camera position.";
+
+		double pitch = Math.toRadians(camera.getPitch());
+		double yaw = Math.toRadians(camera.getYaw());
+
+		float sp = (float) Math.sin(pitch);
+		float cp = (float) Math.cos(pitch);
+		float sy = (float) Math.sin(yaw);
+		float cy = (float) Math.cos(yaw);
+
+		// Rx(pitch) * Ry(yaw); LWJGL stores mCR (column, row)
+		dest.m00 = cy;
+		dest.m01 = sp * sy;
+		dest.m02 = -cp * sy;
+		dest.m03 = 0;
+
+		dest.m10 = 0;
+		dest.m11 = cp;
+		dest.m12 = sp;
+		dest.m13 = 0;
+
+		dest.m20 = sy;
+		dest.m21 = -sp * cy;
+		dest.m22 = cp * cy;
+		dest.m23 = 0;
+
+		// Rotated negative camera position
+		float x = -cameraPos.x;
+		float y = -cameraPos.y;
+		float z = -cameraPos.z;
+
+		dest.m30 = dest.m00 * x + dest.m10 * y + dest.m20 * z;
+		dest.m31 = dest.m01 * x + dest.m11 * y + dest.m21 * z;
+		dest.m32 = dest.m02 * x + dest.m12 * y + dest.m22 * z;
+		dest.m33 = 1;
+
+		return dest;
+	}
+
+	/**
+	 * Checks that three values are neither NaN nor infinite. Used by the assertions.
+	 */
+	private static boolean isFinite(float a, float b, float c) {
+		return !Float.isNaN(a) && !Float.isInfinite(a) && !Float.isNaN(b) && !Float.isInfinite(b)
+				&& !Float.isNaN(c) && !Float.isInfinite(c);
 	}
 }
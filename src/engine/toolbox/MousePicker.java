@@ -27,14 +27,14 @@
 package engine.toolbox;
 
 import org.lwjgl.input.Mouse;
-import org.lwjgl.opengl.Display;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector2f;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
+import engine.renderEngine.DisplayManager;
+import engine.renderEngine.FrameContext;
 import engine.terrains.Terrain;
 
 /**
@@ -47,24 +47,20 @@ public class MousePicker {
 
 	private Vector3f currentRay = new Vector3f();
 
-	private Matrix4f projectionMatrix;
-	private Matrix4f viewMatrix;
-	private Camera camera;
+	private FrameContext context;
 	
 	private Terrain terrain;
 	private Vector3f currentTerrainPoint;
 
 	/**
-	 * Creates a new MousePicker instance with the specified camera, projection matrix, and terrain.
+	 * Creates a new MousePicker instance with the specified frame context and terrain.
 	 *
-	 * @param cam        The camera used for picking.
-	 * @param projection The projection matrix.
-	 * @param terrain    The terrain to interact with.
+	 * @param context The frame context of the pass to pick in. Its inverse matrices and camera
+	 *                position are read on every update.
+	 * @param terrain The terrain to interact with.
 	 */
-	public MousePicker(Camera cam, Matrix4f projection, Terrain terrain) {
-	    camera = cam;
-	    projectionMatrix = projection;
-	    viewMatrix = MathUtils.createViewMatrix(camera);
+	public MousePicker(FrameContext context, Terrain terrain) {
+	    this.context = context;
 	    this.terrain = terrain;
 	}
 
@@ -88,10 +84,10 @@ public class MousePicker {
 	}
 
     /**
-     * Updates the mouse picker, recalculating the current ray and terrain point.
+     * Updates the mouse picker, recalculating the current ray and terrain point. Call this after
+     * the frame context has been updated for the pass to pick in.
      */
     public void update() {
-		viewMatrix = MathUtils.createViewMatrix(camera);
 		currentRay = calculateMouseRay();
 		
 		if (intersectionInRange(0, RAY_RANGE, currentRay)) {
@@ -125,8 +121,7 @@ public class MousePicker {
      * @return The corresponding world coordinates.
      */
     private Vector3f toWorldCoords(Vector4f eyeCoords) {
-		Matrix4f invertedView = Matrix4f.invert(viewMatrix, null);
-		Vector4f rayWorld = Matrix4f.transform(invertedView, eyeCoords, null);
+		Vector4f rayWorld = Matrix4f.transform(context.getInverseViewMatrix(), eyeCoords, null);
 		Vector3f mouseRay = new Vector3f(rayWorld.x, rayWorld.y, rayWorld.z);
 		mouseRay.normalise();
 		return mouseRay;
@@ -139,8 +134,7 @@ public class MousePicker {
      * @return The corresponding eye coordinates.
      */
     private Vector4f toEyeCoords(Vector4f clipCoords) {
-		Matrix4f invertedProjection = Matrix4f.invert(projectionMatrix, null);
-		Vector4f eyeCoords = Matrix4f.transform(invertedProjection, clipCoords, null);
+		Vector4f eyeCoords = Matrix4f.transform(context.getInverseProjectionMatrix(), clipCoords, null);
 		return new Vector4f(eyeCoords.x, eyeCoords.y, -1f, 0f);
 	}
 
@@ -152,8 +146,8 @@ public class MousePicker {
      * @return The normalized device coordinates.
      */
     private Vector2f getNormalisedDeviceCoordinates(float mouseX, float mouseY) {
-		float x = (2.0f * mouseX) / Display.getWidth() - 1f;
-		float y = (2.0f * mouseY) / Display.getHeight() - 1f;
+		float x = (2.0f * mouseX) / DisplayManager.getWidth() - 1f;
+		float y = (2.0f * mouseY) / DisplayManager.getHeight() - 1f;
 		return new Vector2f(x, y);
 	}
 	
@@ -165,7 +159,7 @@ public class MousePicker {
      * @return The point on the ray at the given distance.
      */
     private Vector3f getPointOnRay(Vector3f ray, float distance) {
-		Vector3f camPos = camera.getPosition();
+		Vector3f camPos = context.getCameraPosition();
 		Vector3f start = new Vector3f(camPos.x, camPos.y, camPos.z);
 		Vector3f scaledRay = new Vector3f(ray.x * distance, ray.y * distance, ray.z * distance);
 		return Vector3f.add(start, scaledRay, null);
@@ -0,0 +1,147 @@
+/**
+ * CvsEngine
+ *
+ * @author cvs0
+ * @version 1.0.0
+ *
+ * @license
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package engine.toolbox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lwjgl.util.vector.Vector2f;
+import org.lwjgl.util.vector.Vector3f;
+
+import engine.fontMeshCreator.FontType;
+import engine.fontMeshCreator.GUIText;
+
+/**
+ * The ProfilerOverlay class shows the rolling averages of the {@link FrameProfiler} as text in
+ * the top left corner of the screen, one line per section with its CPU and GPU time. The text
+ * is rebuilt every {@value #REFRESH_FRAMES} frames rather than every frame, so it stays
+ * readable and doesn't rebuild text meshes all the time.
+ */
+public class ProfilerOverlay {
+
+    private static final int REFRESH_FRAMES = 30;
+    private static final float FONT_SIZE = 0.8f;
+    private static final float LINE_HEIGHT = 0.03f * FONT_SIZE;
+    private static final float LEFT = 0.01f;
+    private static final float TOP = 0.1f;
+
+    private final FontType font;
+    private final List<GUIText> lines = new ArrayList<GUIText>();
+
+    private boolean visible;
+    private int framesUntilRefresh;
+
+    /**
+     * Creates a hidden overlay.
+     *
+     * @param font The font to draw the text with.
+     */
+    public ProfilerOverlay(FontType font) {
+        this.font = font;
+    }
+
+    /**
+     * Shows or hides the overlay.
+     *
+     * @param visible Whether the overlay should be shown.
+     */
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+        framesUntilRefresh = 0;
+
+        if (!visible) {
+            removeLines();
+        }
+    }
+
+    /**
+     * Checks whether the overlay is shown.
+     *
+     * @return True if the overlay is visible.
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Refreshes the text if it is due. Call this once per frame before the text is rendered.
+     */
+    public void update() {
+        if (!visible || --framesUntilRefresh > 0) {
+            return;
+        }
+
+        framesUntilRefresh = REFRESH_FRAMES;
+        removeLines();
+
+        addLine(String.format("frame %.2f ms", FrameProfiler.getAverageCpuMillis(FrameProfiler.FRAME)));
+
+        for (String name : FrameProfiler.getSectionNames()) {
+            StringBuilder line = new StringBuilder();
+
+            for (int i = 0; i <= FrameProfiler.getDepth(name); i++) {
+                line.append("- ");
+            }
+
+            line.append(name)
+                    .append(String.format(" cpu %.2f", FrameProfiler.getAverageCpuMillis(name)))
+                    .append(String.format(" gpu %.2f", FrameProfiler.getAverageGpuMillis(name)));
+            addLine(line.toString());
+        }
+    }
+
+    /**
+     * Removes the text from the screen.
+     */
+    public void cleanUp() {
+        removeLines();
+    }
+
+    /**
+     * Adds a line of text below the existing ones.
+     *
+     * @param text The text of the line.
+     */
+    private void addLine(String text) {
+        GUIText line = new GUIText(text, FONT_SIZE, font, new Vector2f(LEFT, TOP + lines.size() * LINE_HEIGHT),
+                1f, false, 0.5f, 0.1f, 0.0f, 0.5f, new Vector2f(0, 0), new Vector3f(0, 0, 0));
+        line.setColour(1, 1, 0);
+        lines.add(line);
+    }
+
+    /**
+     * Removes all lines from the screen.
+     */
+    private void removeLines() {
+        for (GUIText line : lines) {
+            line.remove();
+        }
+
+        lines.clear();
+    }
+
+}
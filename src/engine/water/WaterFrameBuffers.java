@@ -28,7 +28,6 @@ package engine.water;
 
 import java.nio.ByteBuffer;
 
-import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.GL13;
@@ -38,11 +37,15 @@ import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL21;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.opengl.GL31;
-import org.lwjgl.opengl.GL32;
 import org.lwjgl.opengl.GL33;
 import org.lwjgl.opengl.GL40;
 import org.lwjgl.opengl.GL42;
 
+import engine.renderEngine.DisplayManager;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
+
 /**
  * Utility class for managing water framebuffers.
  */
@@ -62,6 +65,8 @@ public class WaterFrameBuffers {
 	private int refractionTexture;
 	private int refractionDepthTexture;
 
+	private final GraphicsDevice device = Graphics.getDevice();
+
 	/**
      * Creates a new WaterFrameBuffers instance. Call this when loading the game.
      */
@@ -74,12 +79,17 @@ public class WaterFrameBuffers {
      * Cleans up resources. Call this when closing the game.
      */
     public void cleanUp() {
-        GL30.glDeleteFramebuffers(reflectionFrameBuffer);
-        GL11.glDeleteTextures(reflectionTexture);
-        GL30.glDeleteRenderbuffers(reflectionDepthBuffer);
-        GL30.glDeleteFramebuffers(refractionFrameBuffer);
-        GL11.glDeleteTextures(refractionTexture);
-        GL11.glDeleteTextures(refractionDepthTexture);
+        device.deleteFramebuffers(reflectionFrameBuffer);
+        GLStateManager.onFramebufferDeleted(reflectionFrameBuffer);
+        device.deleteTextures(reflectionTexture);
+        GLStateManager.onTextureDeleted(reflectionTexture);
+        device.deleteRenderbuffers(reflectionDepthBuffer);
+        device.deleteFramebuffers(refractionFrameBuffer);
+        GLStateManager.onFramebufferDeleted(refractionFrameBuffer);
+        device.deleteTextures(refractionTexture);
+        GLStateManager.onTextureDeleted(refractionTexture);
+        device.deleteTextures(refractionDepthTexture);
+        GLStateManager.onTextureDeleted(refractionDepthTexture);
     }
 
     /**
@@ -100,8 +110,8 @@ public class WaterFrameBuffers {
      * Unbinds the currently active framebuffer after rendering to a texture.
      */
     public void unbindCurrentFrameBuffer() {
-        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
-        GL11.glViewport(0, 0, Display.getWidth(), Display.getHeight());
+        GLStateManager.bindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+        device.viewport(0, 0, DisplayManager.getWidth(), DisplayManager.getHeight());
     }
 
     /**
@@ -161,9 +171,9 @@ public class WaterFrameBuffers {
      * @param height      The height of the viewport.
      */
     private void bindFrameBuffer(int frameBuffer, int width, int height) {
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
-        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
-        GL11.glViewport(0, 0, width, height);
+        GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, 0);
+        GLStateManager.bindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
+        device.viewport(0, 0, width, height);
     }
 
     /**
@@ -172,9 +182,9 @@ public class WaterFrameBuffers {
      * @return The ID of the created framebuffer.
      */
     private int createFrameBuffer() {
-        int frameBuffer = GL30.glGenFramebuffers();
-        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
-        GL11.glDrawBuffer(GL30.GL_COLOR_ATTACHMENT0);
+        int frameBuffer = device.genFramebuffers();
+        GLStateManager.bindFramebuffer(GL30.GL_FRAMEBUFFER, frameBuffer);
+        device.drawBuffer(GL30.GL_COLOR_ATTACHMENT0);
         return frameBuffer;
     }
 
@@ -186,18 +196,18 @@ public class WaterFrameBuffers {
      * @return The ID of the created texture attachment.
      */
     private int createTextureAttachment(int width, int height) {
-        int texture = GL11.glGenTextures();
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
-        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, width, height,
+        int texture = device.genTextures();
+        GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture);
+        device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, width, height,
                 0, GL11.GL_RGB, GL11.GL_UNSIGNED_BYTE, (ByteBuffer) null);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+        device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+        device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
 
         // Check if the texture was created successfully
-        if (GL11.glGetError() != GL11.GL_NO_ERROR) {
+        if (device.getError() != GL11.GL_NO_ERROR) {
             System.err.println("Error creating texture attachment for framebuffer.");
         } else {
-            GL32.glFramebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, texture, 0);
+            device.framebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, texture, 0);
         }
 
         return texture;
@@ -211,18 +221,18 @@ public class WaterFrameBuffers {
      * @return The ID of the created depth texture attachment.
      */
     private int createDepthTextureAttachment(int width, int height) {
-        int texture = GL11.glGenTextures();
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
-        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL14.GL_DEPTH_COMPONENT32, width, height,
+        int texture = device.genTextures();
+        GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, texture);
+        device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL14.GL_DEPTH_COMPONENT32, width, height,
                 0, GL11.GL_DEPTH_COMPONENT, GL11.GL_FLOAT, (ByteBuffer) null);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+        device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+        device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
 
         // Check if the texture was created successfully
-        if (GL11.glGetError() != GL11.GL_NO_ERROR) {
+        if (device.getError() != GL11.GL_NO_ERROR) {
             System.err.println("Error creating depth texture attachment for framebuffer.");
         } else {
-            GL32.glFramebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, texture, 0);
+            device.framebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, texture, 0);
         }
 
         return texture;
@@ -236,16 +246,16 @@ public class WaterFrameBuffers {
      * @return The ID of the created depth buffer attachment.
      */
     private int createDepthBufferAttachment(int width, int height) {
-        int depthBuffer = GL30.glGenRenderbuffers();
-        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, depthBuffer);
-        GL30.glRenderbufferStorage(GL30.GL_RENDERBUFFER, GL11.GL_DEPTH_COMPONENT, width,
+        int depthBuffer = device.genRenderbuffers();
+        device.bindRenderbuffer(GL30.GL_RENDERBUFFER, depthBuffer);
+        device.renderbufferStorage(GL30.GL_RENDERBUFFER, GL11.GL_DEPTH_COMPONENT, width,
                 height);
 
         // Check if the render buffer was created successfully
-        if (GL11.glGetError() != GL11.GL_NO_ERROR) {
+        if (device.getError() != GL11.GL_NO_ERROR) {
             System.err.println("Error creating depth buffer attachment for framebuffer.");
         } else {
-            GL30.glFramebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER, depthBuffer);
+            device.framebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER, depthBuffer);
         }
 
         return depthBuffer;
@@ -29,17 +29,17 @@ package engine.water;
 import java.util.List;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.entities.Light;
 import engine.models.RawModel;
 import engine.renderEngine.DisplayManager;
+import engine.renderEngine.FrameContext;
+import engine.renderEngine.GLStateManager;
+import engine.renderEngine.Graphics;
+import engine.renderEngine.GraphicsDevice;
 import engine.renderEngine.Loader;
 import engine.toolbox.MathUtils;
 
@@ -57,10 +57,15 @@ public class WaterRenderer {
     private WaterFrameBuffers fbos;
     
     private float moveFactor = 0;
+
+    private final Matrix4f modelMatrix = new Matrix4f();
+    private final Vector3f tilePosition = new Vector3f();
     
     private int dudvTexture;
     private int normalMap;
 
+    private final GraphicsDevice device = Graphics.getDevice();
+
     /**
      * Creates a new WaterRenderer.
      * 
@@ -84,18 +89,17 @@ public class WaterRenderer {
     /**
      * Renders the water tiles in the scene.
      * 
-     * @param water  The list of water tiles to render.
-     * @param camera The camera used for rendering.
-     * @param sun    The light source in the scene.
+     * @param water   The list of water tiles to render.
+     * @param context The frame context of the current pass.
+     * @param sun     The light source in the scene.
      */
-    public void render(List<WaterTile> water, Camera camera, Light sun) {
-        prepareRender(camera, sun);    
+    public void render(List<WaterTile> water, FrameContext context, Light sun) {
+        prepareRender(context, sun);    
         for (WaterTile tile : water) {
-            Matrix4f modelMatrix = MathUtils.createTransformationMatrix(
-                    new Vector3f(tile.getX(), tile.getHeight(), tile.getZ()), 0, 0, 0,
-                    WaterTile.TILE_SIZE);
+            tilePosition.set(tile.getX(), tile.getHeight(), tile.getZ());
+            MathUtils.createTransformationMatrix(tilePosition, 0, 0, 0, WaterTile.TILE_SIZE, modelMatrix);
             shader.loadModelMatrix(modelMatrix);
-            GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, quad.getVertexCount());
+            device.drawArrays(GL11.GL_TRIANGLES, 0, quad.getVertexCount());
         }
         unbind();
     }
@@ -103,39 +107,32 @@ public class WaterRenderer {
     /**
      * Prepares the renderer for rendering water.
      * 
-     * @param camera The camera used for rendering.
-     * @param sun    The light source in the scene.
+     * @param context The frame context of the current pass.
+     * @param sun     The light source in the scene.
      */
-    private void prepareRender(Camera camera, Light sun){
+    private void prepareRender(FrameContext context, Light sun){
         shader.start();
-        shader.loadViewMatrix(camera);
+        shader.loadViewMatrix(context.getViewMatrix(), context.getCameraPosition());
         moveFactor += WAVE_SPEED * DisplayManager.getFrameTimeSeconds();
         moveFactor %= 1;
         shader.loadMoveFactor(moveFactor);
         shader.loadLight(sun);
-        GL30.glBindVertexArray(quad.getVaoID());
-        GL20.glEnableVertexAttribArray(0);
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, fbos.getReflectionTexture());
-        GL13.glActiveTexture(GL13.GL_TEXTURE1);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, fbos.getRefractionTexture());
-        GL13.glActiveTexture(GL13.GL_TEXTURE2);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, dudvTexture);
-        GL13.glActiveTexture(GL13.GL_TEXTURE3);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, normalMap);
-        GL13.glActiveTexture(GL13.GL_TEXTURE4);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, fbos.getRefractionDepthTexture());
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        GLStateManager.bindVertexArray(quad.getVaoID());
+        GLStateManager.bindTexture(0, GL11.GL_TEXTURE_2D, fbos.getReflectionTexture());
+        GLStateManager.bindTexture(1, GL11.GL_TEXTURE_2D, fbos.getRefractionTexture());
+        GLStateManager.bindTexture(2, GL11.GL_TEXTURE_2D, dudvTexture);
+        GLStateManager.bindTexture(3, GL11.GL_TEXTURE_2D, normalMap);
+        GLStateManager.bindTexture(4, GL11.GL_TEXTURE_2D, fbos.getRefractionDepthTexture());
+        GLStateManager.setBlending(true);
+        GLStateManager.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
     }
     
     /**
-     * Unbinds VAOs and disables vertex attributes after rendering water.
+     * Unbinds the VAO and disables blending after rendering water.
      */
     private void unbind(){
-        GL20.glDisableVertexAttribArray(0);
-        GL30.glBindVertexArray(0);
-        GL11.glDisable(GL11.GL_BLEND);
+        GLStateManager.bindVertexArray(0);
+        GLStateManager.setBlending(false);
         shader.stop();
     }
 
@@ -27,20 +27,19 @@
 package engine.water;
 
 import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
 
-import engine.entities.Camera;
 import engine.entities.DefaultCamera;
 import engine.entities.Light;
 import engine.shaders.ShaderProgram;
-import engine.toolbox.MathUtils;
 
 /**
  * Represents a WaterShader object which initializes the GLSL shaders for the water.
  */
 public class WaterShader extends ShaderProgram {
 
-    private final static String VERTEX_FILE = "src/engine/water/waterVertex.txt";
-    private final static String FRAGMENT_FILE = "src/engine/water/waterFragment.txt";
+    private final static String VERTEX_FILE = "src/engine/water/WaterVertex.txt";
+    private final static String FRAGMENT_FILE = "src/engine/water/WaterFragment.txt";
 
     private int location_modelMatrix;
     private int location_viewMatrix;
@@ -125,12 +124,12 @@ public class WaterShader extends ShaderProgram {
     /**
      * Loads the view matrix and camera position into the shader.
      * 
-     * @param camera The camera used for rendering.
+     * @param viewMatrix     The view matrix of the current pass.
+     * @param cameraPosition The position of the camera.
      */
-    public void loadViewMatrix(Camera camera) {
-        Matrix4f viewMatrix = MathUtils.createViewMatrix(camera);
+    public void loadViewMatrix(Matrix4f viewMatrix, Vector3f cameraPosition) {
         loadMatrix(location_viewMatrix, viewMatrix);
-        super.loadVector(location_cameraPosition, camera.getPosition());
+        super.loadVector(location_cameraPosition, cameraPosition);
     }
 
     /**